@@ -0,0 +1,99 @@
+#!/usr/bin/env bash
+# Compares the JVM build of the service with its GraalVM native executable against a
+# throwaway Postgres container: the startup time Spring Boot logs, the time from launch to
+# the first successful POST /users/staff/token, and the resident set size right after it.
+#
+# Usage: scripts/measure-native.sh [runs]
+#   runs  cold starts per build, 5 by default
+#
+# Both builds run with the dev profile from the repository root, so they read the mock keys
+# and templates under src/main/resources; the native executable is built for that profile.
+# PORT is the port the application listens on (18080 by default). Needs GraalVM for JDK 21
+# as JAVA_HOME, Maven, docker, curl, GNU date and /proc.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+# shellcheck source=startup-common.sh
+source "$ROOT/scripts/startup-common.sh"
+
+RUNS="${1:-5}"
+
+WORK="$(mktemp -d)"
+app_pid=
+
+cleanup() {
+  stop_app
+  stop_postgres
+  rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+app_running() {
+  kill -0 "$app_pid" 2> /dev/null
+}
+
+app_logs() {
+  cat "$WORK/app.log"
+}
+
+run_app() {
+  (cd "$ROOT" && exec "$@" --server.port="$PORT" \
+    --spring.datasource.url="jdbc:postgresql://localhost:$DB_PORT/INVIERTE") \
+    > "$WORK/app.log" 2>&1 &
+  app_pid=$!
+}
+
+stop_app() {
+  if [ -n "$app_pid" ]; then
+    kill "$app_pid" 2> /dev/null || true
+    wait "$app_pid" 2> /dev/null || true
+    app_pid=
+  fi
+}
+
+rss_mb() {
+  awk '/^VmRSS:/ { printf "%d", $2 / 1024 }' "/proc/$app_pid/status"
+}
+
+launch() {
+  case "$1" in
+    jvm) run_app java -jar "$WORK/user.jar" ;;
+    native) run_app "$ROOT/target/user" ;;
+  esac
+}
+
+echo "Building the JVM jar"
+mvn -B -q -f "$ROOT/pom.xml" -DskipTests package
+cp "$ROOT"/target/user-*.jar "$WORK/user.jar"
+echo "Building the native executable"
+mvn -B -q -f "$ROOT/pom.xml" -P native -Dnative.profiles=dev -DskipTests native:compile
+
+start_postgres
+# First start applies the migrations; the staff user is seeded once they exist.
+launch jvm
+await_status 401 "$(now_millis)" > /dev/null
+seed_staff
+stop_app
+
+printf '%-8s %-4s %12s %16s %8s\n' build run started_ms first_token_ms rss_mb
+for build in jvm native; do
+  for run in $(seq 1 "$RUNS"); do
+    start=$(now_millis)
+    launch "$build"
+    token=$(await_status 200 "$start")
+    rss=$(rss_mb)
+    started=$(app_logs | started_millis)
+    stop_app
+    echo "$started" >> "$WORK/$build.started"
+    echo "$token" >> "$WORK/$build.token"
+    echo "$rss" >> "$WORK/$build.rss"
+    printf '%-8s %-4s %12s %16s %8s\n' "$build" "$run" "$started" "$token" "$rss"
+  done
+done
+
+echo
+printf '%-8s %12s %16s %8s\n' build started_p50 first_token_p50 rss_p50
+for build in jvm native; do
+  printf '%-8s %12s %16s %8s\n' "$build" "$(median < "$WORK/$build.started")" \
+    "$(median < "$WORK/$build.token")" "$(median < "$WORK/$build.rss")"
+done
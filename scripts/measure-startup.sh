@@ -0,0 +1,84 @@
+#!/usr/bin/env bash
+# Measures the cold start of the service image before and after a change, against a
+# throwaway Postgres container: the startup time Spring Boot logs and the time from
+# `docker run` to the first successful POST /users/staff/token.
+#
+# Usage: scripts/measure-startup.sh [baseline-ref] [runs]
+#   baseline-ref  revision whose sources build the "before" image; defaults to the revision
+#                 before the last change to the Dockerfile
+#   runs          cold starts per image, 5 by default
+#
+# CPUS and MEMORY limit the application container (1 and 1g by default), PORT is the host
+# port it is published on (18080 by default). Needs docker, git, curl and GNU date.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+# shellcheck source=startup-common.sh
+source "$ROOT/scripts/startup-common.sh"
+
+BASELINE="${1:-$(git -C "$ROOT" log -1 --format=%H -- Dockerfile)~1}"
+RUNS="${2:-5}"
+CPUS="${CPUS:-1}"
+MEMORY="${MEMORY:-1g}"
+
+IMAGE=tfm-user-srv-startup
+APP=tfm-user-srv-startup-app
+WORK="$(mktemp -d)"
+
+cleanup() {
+  docker rm -f "$APP" > /dev/null 2>&1 || true
+  stop_postgres
+  rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+app_running() {
+  [ "$(docker inspect -f '{{.State.Running}}' "$APP")" = true ]
+}
+
+app_logs() {
+  docker logs "$APP" 2>&1
+}
+
+run_app() {
+  docker run -d --name "$APP" --network "$NETWORK" --cpus "$CPUS" --memory "$MEMORY" \
+    -p "$PORT:8080" \
+    -e SPRING_DATASOURCE_URL="jdbc:postgresql://$DB:5432/INVIERTE" \
+    -v "$ROOT/src/main/resources:/app/src/main/resources:ro" \
+    "$1" > /dev/null
+}
+
+echo "Building $IMAGE:before from $(git -C "$ROOT" rev-parse --short "$BASELINE")"
+git -C "$ROOT" archive "$BASELINE" | docker build -q -t "$IMAGE:before" - > /dev/null
+echo "Building $IMAGE:after from the working tree"
+docker build -q -t "$IMAGE:after" "$ROOT" > /dev/null
+
+start_postgres
+# First start applies the migrations; the staff user is seeded once they exist.
+run_app "$IMAGE:after"
+await_status 401 "$(now_millis)" > /dev/null
+seed_staff
+docker rm -f "$APP" > /dev/null
+
+printf '%-8s %-4s %12s %16s\n' image run started_ms first_token_ms
+for tag in before after; do
+  for run in $(seq 1 "$RUNS"); do
+    start=$(now_millis)
+    run_app "$IMAGE:$tag"
+    token=$(await_status 200 "$start")
+    started=$(app_logs | started_millis)
+    docker rm -f "$APP" > /dev/null
+    echo "$started" >> "$WORK/$tag.started"
+    echo "$token" >> "$WORK/$tag.token"
+    printf '%-8s %-4s %12s %16s\n' "$tag" "$run" "$started" "$token"
+  done
+done
+
+echo
+printf '%-8s %12s %16s %10s\n' image started_p50 first_token_p50 size_mb
+for tag in before after; do
+  size=$(docker image inspect -f '{{.Size}}' "$IMAGE:$tag")
+  printf '%-8s %12s %16s %10s\n' "$tag" \
+    "$(median < "$WORK/$tag.started")" "$(median < "$WORK/$tag.token")" \
+    $(( size / 1024 / 1024 ))
+done
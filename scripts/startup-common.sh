@@ -0,0 +1,75 @@
+#!/usr/bin/env bash
+# Helpers shared by the startup measurement scripts: a throwaway Postgres container, the
+# staff user every run logs in with, polling of POST /users/staff/token and medians.
+# The sourcing script defines app_running, telling whether the application under
+# measurement is still alive, and app_logs, printing its output.
+
+NETWORK=tfm-user-srv-startup
+DB=tfm-user-srv-startup-db
+DB_PORT="${DB_PORT:-15432}"
+PORT="${PORT:-18080}"
+EMAIL=startup@email.com
+PASSWORD=startup
+TIMEOUT_SECONDS=180
+
+start_postgres() {
+  stop_postgres
+  docker network create "$NETWORK" > /dev/null
+  docker run -d --name "$DB" --network "$NETWORK" -p "$DB_PORT:5432" \
+    -e POSTGRES_DB=INVIERTE -e POSTGRES_USER=postgres -e POSTGRES_PASSWORD=postgres \
+    postgres:16-alpine > /dev/null
+  # TCP only answers once the init scripts are done and the final server is up.
+  until docker exec "$DB" pg_isready -q -h 127.0.0.1 -U postgres -d INVIERTE; do
+    sleep 0.5
+  done
+}
+
+stop_postgres() {
+  docker rm -f "$DB" > /dev/null 2>&1 || true
+  docker network rm "$NETWORK" > /dev/null 2>&1 || true
+}
+
+# Inserts the active staff user; the migrations must have been applied by a first start.
+seed_staff() {
+  docker exec -i "$DB" psql -q -U postgres -d INVIERTE -v ON_ERROR_STOP=1 <<SQL
+CREATE EXTENSION IF NOT EXISTS pgcrypto;
+INSERT INTO user_profile (email, first_name, password)
+  VALUES ('$EMAIL', 'Startup', crypt('$PASSWORD', gen_salt('bf', 10)));
+INSERT INTO staff_profile (id, status, tax_identification_number, company_role)
+  SELECT id, 'ACTIVE', 'B00000000', 'OWNER' FROM user_profile WHERE email = '$EMAIL';
+SQL
+}
+
+now_millis() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+token_status() {
+  curl -s -o /dev/null -w '%{http_code}' -X POST -u "$EMAIL:$PASSWORD" \
+    "http://localhost:$PORT/users/staff/token" || true
+}
+
+# Waits until the token endpoint answers with the given status and prints the elapsed
+# milliseconds since the given start.
+await_status() {
+  local expected=$1 start=$2
+  until [ "$(token_status)" = "$expected" ]; do
+    if [ $(( $(now_millis) - start )) -gt $(( TIMEOUT_SECONDS * 1000 )) ] || ! app_running; then
+      app_logs | tail -n 50 >&2
+      echo "No $expected from /users/staff/token" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  echo $(( $(now_millis) - start ))
+}
+
+# Prints the startup time Spring Boot logged, in milliseconds.
+started_millis() {
+  sed -n 's/.*Started .* in \([0-9.]*\) seconds.*/\1/p' | awk '{ printf "%d", $1 * 1000 }'
+}
+
+median() {
+  sort -n | awk '{ values[NR] = $1 } END {
+    print (NR % 2) ? values[(NR + 1) / 2] : (values[NR / 2] + values[NR / 2 + 1]) / 2 }'
+}
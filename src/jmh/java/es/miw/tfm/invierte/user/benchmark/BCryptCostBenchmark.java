@@ -0,0 +1,55 @@
+package es.miw.tfm.invierte.user.benchmark;
+
+import es.miw.tfm.invierte.user.service.util.CalibratedBCryptPasswordEncoder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the BCrypt cost/latency curve, used to choose the bounds and target of the
+ * startup calibration (`tfm.password.hashing.*`). Each extra cost unit doubles the time of
+ * a password check; run it on the container CPU to see which cost meets the target.
+ *
+ * @author denilssonmn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class BCryptCostBenchmark {
+
+  private static final String PASSWORD = "s3cr3t-Passw0rd";
+
+  @Param({"8", "9", "10", "11", "12", "13"})
+  private int strength;
+
+  private CalibratedBCryptPasswordEncoder passwordEncoder;
+
+  private String encodedPassword;
+
+  /**
+   * Creates the encoder with the benchmarked cost and the stored hash it checks.
+   */
+  @Setup
+  public void setUp() {
+    this.passwordEncoder = new CalibratedBCryptPasswordEncoder(this.strength);
+    this.encodedPassword = this.passwordEncoder.encode(PASSWORD);
+  }
+
+  @Benchmark
+  public boolean matches() {
+    return this.passwordEncoder.matches(PASSWORD, this.encodedPassword);
+  }
+
+}
@@ -0,0 +1,67 @@
+package es.miw.tfm.invierte.user.benchmark;
+
+import es.miw.tfm.invierte.user.service.JwtService;
+import es.miw.tfm.invierte.user.service.jwt_provider.JwtKeyProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Factory methods for the services exercised by the benchmarks.
+ * Settings mirror the defaults in `application.properties`.
+ *
+ * @author denilssonmn
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class BenchmarkFixtures {
+
+  static final String ISSUER = "tfm-invierte";
+
+  static final int EXPIRE = 36000;
+
+  static final long LEEWAY = 5;
+
+  static final long CACHE_MAX_SIZE = 10000;
+
+  /**
+   * Creates a `JwtService` with an in-memory RSA key pair and default settings.
+   *
+   * @return the service
+   * @throws NoSuchAlgorithmException if RSA is not available
+   */
+  static JwtService jwtService() throws NoSuchAlgorithmException {
+    return jwtService(CACHE_MAX_SIZE);
+  }
+
+  /**
+   * Creates a `JwtService` with an in-memory RSA key pair and the given cache size.
+   *
+   * @param cacheMaxSize the maximum number of verified tokens kept in memory
+   * @return the service
+   * @throws NoSuchAlgorithmException if RSA is not available
+   */
+  static JwtService jwtService(long cacheMaxSize) throws NoSuchAlgorithmException {
+    final var generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    final KeyPair keyPair = generator.generateKeyPair();
+    final var keyProvider = new JwtKeyProvider() {
+      @Override
+      public RSAPrivateKey getPrivateKey() {
+        return (RSAPrivateKey) keyPair.getPrivate();
+      }
+
+      @Override
+      public RSAPublicKey getPublicKey() {
+        return (RSAPublicKey) keyPair.getPublic();
+      }
+    };
+    return new JwtService(keyProvider, ISSUER, EXPIRE, LEEWAY, cacheMaxSize,
+        new SimpleMeterRegistry());
+  }
+
+}
@@ -0,0 +1,134 @@
+package es.miw.tfm.invierte.user.benchmark;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.store.FolderException;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import es.miw.tfm.invierte.user.service.model.EmailMessage;
+import es.miw.tfm.invierte.user.service.util.EmailService;
+import es.miw.tfm.invierte.user.service.util.SmtpTransportPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Benchmark of sending a burst of emails to a local SMTPS server with authentication,
+ * one `JavaMailSender.send` per email against `EmailService.sendBatch` over pooled
+ * sessions. Scores are emails per second; the session reuse ratio of the pool is printed
+ * when the trial ends.
+ *
+ * @author denilssonmn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailSendBenchmark {
+
+  private static final int BURST = 50;
+
+  private static final String USER = "bench@invierte.io";
+
+  private static final String PASSWORD = "secret";
+
+  private GreenMail greenMail;
+
+  private JavaMailSenderImpl mailSender;
+
+  private SimpleMeterRegistry registry;
+
+  private SmtpTransportPool transportPool;
+
+  private EmailService emailService;
+
+  private List<EmailMessage> burst;
+
+  /**
+   * Starts the SMTPS server and builds the sender and the pooled service against it.
+   */
+  @Setup
+  public void setUp() {
+    this.greenMail = new GreenMail(ServerSetupTest.SMTPS.dynamicPort())
+        .withConfiguration(GreenMailConfiguration.aConfig().withUser(USER, PASSWORD));
+    this.greenMail.start();
+    this.mailSender = new JavaMailSenderImpl();
+    this.mailSender.setProtocol("smtps");
+    this.mailSender.setHost("localhost");
+    this.mailSender.setPort(this.greenMail.getSmtps().getPort());
+    this.mailSender.setUsername(USER);
+    this.mailSender.setPassword(PASSWORD);
+    final var properties = new Properties();
+    properties.put("mail.smtps.auth", "true");
+    properties.put("mail.smtps.ssl.trust", "*");
+    properties.put("mail.smtps.ssl.checkserveridentity", "false");
+    this.mailSender.setJavaMailProperties(properties);
+    this.registry = new SimpleMeterRegistry();
+    this.transportPool = new SmtpTransportPool(this.mailSender, 1, Duration.ofMinutes(1),
+        Integer.MAX_VALUE, Duration.ofSeconds(10), this.registry);
+    this.emailService = new EmailService(this.transportPool, this.registry);
+    this.burst = new ArrayList<>(BURST);
+    for (int i = 0; i < BURST; i++) {
+      this.burst.add(new EmailMessage("staff" + i + "@invierte.io", "Activation", "Body " + i));
+    }
+  }
+
+  /**
+   * Drops the received emails so the server memory stays flat.
+   *
+   * @throws FolderException if a mailbox cannot be emptied
+   */
+  @TearDown(Level.Iteration)
+  public void purge() throws FolderException {
+    this.greenMail.purgeEmailFromAllMailboxes();
+  }
+
+  /**
+   * Prints the session reuse ratio and stops the server.
+   */
+  @TearDown
+  public void tearDown() {
+    System.out.printf("%nSMTP session reuse ratio: %.3f%n",
+        this.registry.get("email.smtp.sessions.reuse.ratio").gauge().value());
+    this.transportPool.close();
+    this.greenMail.stop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BURST)
+  public void sendOnePerConnection() {
+    for (EmailMessage email : this.burst) {
+      final var message = new SimpleMailMessage();
+      message.setTo(email.getTo());
+      message.setSubject(email.getSubject());
+      message.setText(email.getBody());
+      this.mailSender.send(message);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BURST)
+  public int sendBatchOverPooledSession() {
+    return this.emailService.sendBatch(this.burst).size();
+  }
+
+}
@@ -0,0 +1,88 @@
+package es.miw.tfm.invierte.user.benchmark;
+
+import es.miw.tfm.invierte.user.service.model.EmailContent;
+import es.miw.tfm.invierte.user.service.util.EmailTemplateRegistry;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * Benchmark of the activation email rendering: the former `String.format` building of the
+ * text body, the same formatting applied to the subject, text and HTML bodies, and the
+ * precompiled templates rendering those three parts. Run it with the `gc` profiler to
+ * compare the bytes allocated per email.
+ *
+ * @author denilssonmn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class EmailTemplateBenchmark {
+
+  private static final String TEXT = "Has solicitado registrarte en nuestro servicio. "
+      + "Para completar tu registro, confirma tu mail:";
+
+  private static final String BASE_URL =
+      "https://www.invierte.io/public/auth/signup/account-confirmation";
+
+  private static final String SUBJECT = "Unete a InvierteIO";
+
+  private static final String HTML = "<!DOCTYPE html>%n<html lang=\"es\">%n<head>%n"
+      + "  <meta charset=\"UTF-8\">%n  <title>%s</title>%n</head>%n<body>%n  <p>%s</p>%n"
+      + "  <p><a href=\"%s\">Confirmar mi mail</a></p>%n</body>%n</html>%n";
+
+  private static final Locale LOCALE = Locale.forLanguageTag("es-ES");
+
+  private final String code = UUID.randomUUID().toString();
+
+  private EmailTemplateRegistry registry;
+
+  /**
+   * Compiles the email templates shipped with the service.
+   */
+  @Setup
+  public void setUp() {
+    this.registry = new EmailTemplateRegistry(new DefaultResourceLoader(),
+        "classpath:templates/email/", List.of("activation-code", "reset-password"),
+        List.of("es", "en"), "es", false);
+    this.registry.load();
+  }
+
+  @Benchmark
+  public String formatText() {
+    return String.format("%s %s", TEXT, BASE_URL + "/" + this.code);
+  }
+
+  @Benchmark
+  public EmailContent formatEmail() {
+    final var link = BASE_URL + "/" + this.code;
+    return new EmailContent(String.format("%s", SUBJECT), String.format("%s %s", TEXT, link),
+        String.format(HTML, SUBJECT, TEXT, HtmlUtils.htmlEscape(link)));
+  }
+
+  @Benchmark
+  public EmailContent renderTemplate() {
+    return this.registry.render("activation-code", LOCALE,
+        Map.of("link", BASE_URL + "/" + this.code));
+  }
+
+}
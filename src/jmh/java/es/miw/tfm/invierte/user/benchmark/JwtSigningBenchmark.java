@@ -0,0 +1,59 @@
+package es.miw.tfm.invierte.user.benchmark;
+
+import es.miw.tfm.invierte.user.service.JwtService;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the token signing path used by the staff and operator login endpoints.
+ * Runs with several threads to reproduce concurrent logins; run it with the `gc`
+ * profiler to obtain the bytes allocated per signed token (`gc.alloc.rate.norm`).
+ *
+ * @author denilssonmn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtSigningBenchmark {
+
+  private static final Map<String, String> COMPANY_ROLES = Map.of("12345678A", "OWNER");
+
+  private JwtService jwtService;
+
+  /**
+   * Builds a `JwtService` backed by a freshly generated 2048-bit RSA key pair.
+   *
+   * @throws NoSuchAlgorithmException if RSA is not available
+   */
+  @Setup
+  public void setUp() throws NoSuchAlgorithmException {
+    this.jwtService = BenchmarkFixtures.jwtService();
+  }
+
+  @Benchmark
+  public String createOperatorToken() {
+    return this.jwtService.createToken("operator@invierte.io", "Operator", "ADMIN");
+  }
+
+  @Benchmark
+  public String createStaffToken() {
+    return this.jwtService.createToken("staff@invierte.io", "Staff", COMPANY_ROLES);
+  }
+
+}
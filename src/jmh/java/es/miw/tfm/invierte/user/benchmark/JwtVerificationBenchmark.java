@@ -0,0 +1,107 @@
+package es.miw.tfm.invierte.user.benchmark;
+
+import es.miw.tfm.invierte.user.service.JwtService;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of the per-request token handling done by `JwtAuthenticationFilter`:
+ * Bearer header parsing and claim extraction through `user`, `role` and `roles`.
+ * The `cacheMaxSize` parameter compares the verified-token cache against a full RSA
+ * verification on every call.
+ *
+ * @author denilssonmn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+  @Param({"0", "10000"})
+  private long cacheMaxSize;
+
+  private JwtService jwtService;
+
+  private String operatorToken;
+
+  private String staffToken;
+
+  private String bearerHeader;
+
+  /**
+   * Builds the service and signs the tokens verified by the benchmarks.
+   *
+   * @throws NoSuchAlgorithmException if RSA is not available
+   */
+  @Setup
+  public void setUp() throws NoSuchAlgorithmException {
+    this.jwtService = BenchmarkFixtures.jwtService(this.cacheMaxSize);
+    this.operatorToken = this.jwtService.createToken("operator@invierte.io", "Operator",
+        "ADMIN");
+    this.staffToken = this.jwtService.createToken("staff@invierte.io", "Staff",
+        Map.of("12345678A", "OWNER", "87654321B", "REALTOR"));
+    this.bearerHeader = "Bearer " + this.staffToken;
+  }
+
+  @Benchmark
+  public String extractToken() {
+    return this.jwtService.extractToken(this.bearerHeader);
+  }
+
+  /**
+   * Baseline with the previous regex split based header check, kept to compare
+   * the allocation rate of `extractToken` against it.
+   *
+   * @return the extracted token, or an empty string if invalid
+   */
+  @Benchmark
+  public String extractTokenWithSplit() {
+    if (this.bearerHeader.startsWith("Bearer ") && this.bearerHeader.split("\\.").length == 3) {
+      return this.bearerHeader.substring("Bearer ".length());
+    }
+    return "";
+  }
+
+  @Benchmark
+  public String user() {
+    return this.jwtService.user(this.staffToken);
+  }
+
+  @Benchmark
+  public String role() {
+    return this.jwtService.role(this.operatorToken);
+  }
+
+  @Benchmark
+  public Map<String, Object> roles() {
+    return this.jwtService.roles(this.staffToken);
+  }
+
+  /**
+   * Reproduces the claim lookups performed for one authenticated request.
+   *
+   * @param blackhole sink for the extracted claims
+   */
+  @Benchmark
+  public void authenticatedRequest(Blackhole blackhole) {
+    final var token = this.jwtService.extractToken(this.bearerHeader);
+    blackhole.consume(this.jwtService.verify(token));
+  }
+
+}
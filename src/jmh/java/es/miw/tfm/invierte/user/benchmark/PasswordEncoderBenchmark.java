@@ -0,0 +1,73 @@
+package es.miw.tfm.invierte.user.benchmark;
+
+import es.miw.tfm.invierte.user.service.util.PasswordHashingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Benchmark of the BCrypt password check run by HTTP Basic authentication, both on the
+ * calling thread and through the bounded pool of the `PasswordHashingService`, to measure
+ * the cost of the hand-off.
+ *
+ * @author denilssonmn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+  private static final String PASSWORD = "s3cr3t-Passw0rd";
+
+  private PasswordEncoder passwordEncoder;
+
+  private PasswordHashingService passwordHashingService;
+
+  private String encodedPassword;
+
+  /**
+   * Creates the encoder and the stored hash checked by the benchmark.
+   */
+  @Setup
+  public void setUp() {
+    this.passwordEncoder = new BCryptPasswordEncoder();
+    this.encodedPassword = this.passwordEncoder.encode(PASSWORD);
+    this.passwordHashingService = new PasswordHashingService(0, 64, Duration.ofSeconds(10),
+        Duration.ZERO, 10, 10, 1, 1, new SimpleMeterRegistry());
+  }
+
+  /**
+   * Stops the hashing threads.
+   */
+  @TearDown
+  public void tearDown() {
+    this.passwordHashingService.stop();
+  }
+
+  @Benchmark
+  public boolean matches() {
+    return this.passwordEncoder.matches(PASSWORD, this.encodedPassword);
+  }
+
+  @Benchmark
+  public boolean pooledMatches() {
+    return this.passwordHashingService.matches(PASSWORD, this.encodedPassword);
+  }
+
+}
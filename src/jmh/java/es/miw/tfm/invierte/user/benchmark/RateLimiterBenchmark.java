@@ -0,0 +1,68 @@
+package es.miw.tfm.invierte.user.benchmark;
+
+import es.miw.tfm.invierte.user.service.util.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the rate limiter check run by every login and notification request.
+ * Runs with several threads, either contending on a single key, as during a burst from one
+ * client, or spread over many keys, as with regular traffic from distinct clients.
+ *
+ * @author denilssonmn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+  private static final int KEYS = 10_000;
+
+  private final String[] keys = new String[KEYS];
+
+  private RateLimiter rateLimiter;
+
+  private RateLimiter.Limit limit;
+
+  /**
+   * Builds a limiter with a policy generous enough to allow every request, and the keys of
+   * the distinct clients.
+   */
+  @Setup
+  public void setUp() {
+    this.rateLimiter = new RateLimiter(100_000, new SimpleMeterRegistry());
+    this.limit = this.rateLimiter.limit("benchmark", Integer.MAX_VALUE, Duration.ofMinutes(1));
+    for (int i = 0; i < KEYS; i++) {
+      this.keys[i] = "login-email:user" + i + "@invierte.io";
+    }
+  }
+
+  @Benchmark
+  public long singleKey() {
+    return this.rateLimiter.tryAcquire(this.keys[0], this.limit);
+  }
+
+  @Benchmark
+  public long distinctKeys() {
+    return this.rateLimiter.tryAcquire(this.keys[ThreadLocalRandom.current().nextInt(KEYS)],
+        this.limit);
+  }
+
+}
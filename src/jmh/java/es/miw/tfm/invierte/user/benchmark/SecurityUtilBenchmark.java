@@ -0,0 +1,77 @@
+package es.miw.tfm.invierte.user.benchmark;
+
+import es.miw.tfm.invierte.user.configuration.util.SecurityUtil;
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Benchmark of `SecurityUtil.hasRoleForCompanyCode`, evaluated by `@PreAuthorize` on the
+ * company endpoints, for users holding 1, 10 and 100 company authorities.
+ * The checked company is the last one granted, which is the worst case for the scan.
+ *
+ * @author denilssonmn
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityUtilBenchmark {
+
+  @Param({"1", "10", "100"})
+  private int companies;
+
+  private String lastCompanyCode;
+
+  /**
+   * Installs an authentication with one `OWNER` authority per company in the security
+   * context of the benchmark thread.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    final List<GrantedAuthority> authorities = new ArrayList<>(this.companies);
+    for (int company = 0; company < this.companies; company++) {
+      this.lastCompanyCode = String.format("%09dA", company);
+      authorities.add(new SimpleGrantedAuthority(CompanyRole.PREFIX + this.lastCompanyCode
+          + "_" + CompanyRole.OWNER.name()));
+    }
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken("staff@invierte.io", "token", authorities));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Benchmark
+  public Boolean hasRoleForCompanyCode() {
+    return SecurityUtil.hasRoleForCompanyCode(CompanyRole.OWNER.name(), this.lastCompanyCode);
+  }
+
+  @Benchmark
+  public Boolean hasRoleForMissingCompanyCode() {
+    return SecurityUtil.hasRoleForCompanyCode(CompanyRole.OWNER.name(), "MISSING");
+  }
+
+}
@@ -0,0 +1,123 @@
+package es.miw.tfm.invierte.user.benchmark;
+
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.data.model.projection.StaffLoginView;
+import es.miw.tfm.invierte.user.service.JwtService;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the in-memory part of a staff login for users belonging to 1, 50 and 500
+ * companies: folding the login projection rows into the role map and signing the token.
+ * The database side is covered by `StaffRepositoryIT`.
+ *
+ * @author denilssonmn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StaffLoginBenchmark {
+
+  @Param({"1", "50", "500"})
+  private int memberships;
+
+  private List<StaffLoginView> loginView;
+
+  private Map<String, String> companyRoles;
+
+  private JwtService jwtService;
+
+  /**
+   * Builds the login projection rows of a staff user with the configured number of
+   * memberships.
+   *
+   * @throws NoSuchAlgorithmException if RSA is not available
+   */
+  @Setup
+  public void setUp() throws NoSuchAlgorithmException {
+    this.jwtService = BenchmarkFixtures.jwtService();
+    this.loginView = new ArrayList<>(this.memberships);
+    for (int membership = 0; membership < this.memberships; membership++) {
+      this.loginView.add(new LoginRow(String.format("%09dB", membership)));
+    }
+    this.companyRoles = StaffUserDetails.companyRoles(this.loginView);
+  }
+
+  @Benchmark
+  public Map<String, String> companyRoles() {
+    return StaffUserDetails.companyRoles(this.loginView);
+  }
+
+  @Benchmark
+  public String createStaffToken() {
+    return this.jwtService.createToken("staff@invierte.io", "Staff", this.companyRoles);
+  }
+
+  private record LoginRow(String membershipTaxIdentificationNumber) implements StaffLoginView {
+
+    @Override
+    public String getEmail() {
+      return "staff@invierte.io";
+    }
+
+    @Override
+    public String getFirstName() {
+      return "Staff";
+    }
+
+    @Override
+    public String getPassword() {
+      return "password";
+    }
+
+    @Override
+    public Status getStatus() {
+      return Status.ACTIVE;
+    }
+
+    @Override
+    public String getTaxIdentificationNumber() {
+      return "000000000A";
+    }
+
+    @Override
+    public CompanyRole getCompanyRole() {
+      return CompanyRole.OWNER;
+    }
+
+    @Override
+    public String getMembershipTaxIdentificationNumber() {
+      return this.membershipTaxIdentificationNumber;
+    }
+
+    @Override
+    public CompanyRole getMembershipCompanyRole() {
+      return CompanyRole.REALTOR;
+    }
+
+    @Override
+    public Status getMembershipStatus() {
+      return Status.ACTIVE;
+    }
+  }
+
+}
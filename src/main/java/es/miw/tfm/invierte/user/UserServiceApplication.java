@@ -1,7 +1,9 @@
 package es.miw.tfm.invierte.user;
 
+import es.miw.tfm.invierte.user.configuration.UserServiceRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 /**
  * Main application class for the User Service.
@@ -11,6 +13,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * @author dev_castle
  */
 @SpringBootApplication
+@ImportRuntimeHints(UserServiceRuntimeHints.class)
 public class UserServiceApplication {
 
   public static void main(String[] args) {
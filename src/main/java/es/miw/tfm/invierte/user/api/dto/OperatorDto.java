@@ -12,7 +12,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.beans.BeanUtils;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 /**
  * Data Transfer Object (DTO) for Operator.
@@ -49,7 +48,8 @@ public class OperatorDto {
 
   /**
    * Converts this DTO to an Operator entity.
-   * It applies default values and encodes the password before conversion.
+   * It applies default values before conversion. The password is copied in plain text
+   * and encoded by the `OperatorService` when the user is created.
    *
    * @return the converted Operator entity
    */
@@ -57,7 +57,6 @@ public class OperatorDto {
     this.doDefault();
     Operator operator = new Operator();
     BeanUtils.copyProperties(this, operator);
-    operator.setPassword(new BCryptPasswordEncoder().encode(this.password));
     return operator;
   }
 
@@ -7,14 +7,12 @@ import es.miw.tfm.invierte.user.data.model.enums.Gender;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDate;
-import java.util.Objects;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.beans.BeanUtils;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 /**
  * Data Transfer Object (DTO) for Staff.
@@ -63,16 +61,14 @@ public class StaffDto {
 
   /**
    * Converts this `StaffDto` object to a `Staff` entity.
-   * Copies the properties from the DTO to the entity and encodes the password.
+   * Copies the properties from the DTO to the entity. The password is copied in plain
+   * text and encoded by the `StaffService` when the user is created.
    *
    * @return a `Staff` entity with the properties of this DTO
    */
   public Staff toStaff() {
     Staff staff = new Staff();
     BeanUtils.copyProperties(this, staff);
-    if (!Objects.isNull(this.password)) {
-      staff.setPassword(new BCryptPasswordEncoder().encode(this.password));
-    }
     return staff;
   }
 }
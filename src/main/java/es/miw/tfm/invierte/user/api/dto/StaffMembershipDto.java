@@ -0,0 +1,27 @@
+package es.miw.tfm.invierte.user.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) for Staff Membership.
+ * This class carries the role granted to an existing staff user in an additional company.
+ *
+ * @author denilssonmn
+ */
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StaffMembershipDto {
+
+  @NotNull
+  private CompanyRole companyRole;
+
+}
@@ -4,6 +4,8 @@ import es.miw.tfm.invierte.user.service.exception.BadRequestException;
 import es.miw.tfm.invierte.user.service.exception.ConflictException;
 import es.miw.tfm.invierte.user.service.exception.ForbiddenException;
 import es.miw.tfm.invierte.user.service.exception.NotFoundException;
+import es.miw.tfm.invierte.user.service.exception.ServiceUnavailableException;
+import es.miw.tfm.invierte.user.service.exception.UnauthorizedException;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.FatalBeanException;
 import org.springframework.dao.DuplicateKeyException;
@@ -14,7 +16,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
-import org.springframework.web.reactive.resource.NoResourceFoundException;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 /**
  * Global exception handler for the API.
@@ -95,6 +97,19 @@ public class ApiExceptionHandler {
     return new ErrorMessage(exception, HttpStatus.CONFLICT.value());
   }
 
+  /**
+   * Handles unauthorized exceptions, raised when the credentials are missing or wrong.
+   *
+   * @param exception the exception thrown
+   * @return an ErrorMessage object with details of the error
+   */
+  @ResponseStatus(HttpStatus.UNAUTHORIZED)
+  @ExceptionHandler({UnauthorizedException.class})
+  @ResponseBody
+  public ErrorMessage unauthorized(Exception exception) {
+    return new ErrorMessage(exception, HttpStatus.UNAUTHORIZED.value());
+  }
+
   /**
    * Handles forbidden access exceptions.
    *
@@ -108,6 +123,20 @@ public class ApiExceptionHandler {
     return new ErrorMessage(exception, HttpStatus.FORBIDDEN.value());
   }
 
+  /**
+   * Handles service unavailable exceptions, raised when a saturated resource
+   * cannot accept more work.
+   *
+   * @param exception the exception thrown
+   * @return an ErrorMessage object with details of the error
+   */
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  @ExceptionHandler({ServiceUnavailableException.class})
+  @ResponseBody
+  public ErrorMessage serviceUnavailable(Exception exception) {
+    return new ErrorMessage(exception, HttpStatus.SERVICE_UNAVAILABLE.value());
+  }
+
   /**
    * Handles all other exceptions and logs the error.
    *
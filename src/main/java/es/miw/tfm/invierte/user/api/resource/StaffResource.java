@@ -7,9 +7,10 @@ import es.miw.tfm.invierte.user.api.dto.PasswordResetDto;
 import es.miw.tfm.invierte.user.api.dto.StaffCompanyDto;
 import es.miw.tfm.invierte.user.api.dto.StaffDto;
 import es.miw.tfm.invierte.user.api.dto.StaffInfoDto;
+import es.miw.tfm.invierte.user.api.dto.StaffMembershipDto;
 import es.miw.tfm.invierte.user.api.dto.TokenDto;
 import es.miw.tfm.invierte.user.service.StaffService;
-import es.miw.tfm.invierte.user.service.util.EmailService;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -34,7 +35,6 @@ import org.springframework.web.bind.annotation.RestController;
  * Some endpoints are open to all authenticated users.
  *
  * @see StaffService
- * @see EmailService
  *
  * @author denilssonmn
  */
@@ -75,10 +75,9 @@ public class StaffResource {
 
   private final StaffService staffService;
 
-  private final EmailService emailService;
-
   /**
    * Logs in a staff user and generates a token.
+   * Reuses the staff data loaded during authentication when available.
    *
    * @param activeUser the authenticated user
    * @return a TokenDto containing the generated token
@@ -87,7 +86,9 @@ public class StaffResource {
   @PreAuthorize("authenticated")
   @PostMapping(value = STAFF + TOKEN)
   public TokenDto loginStaff(@AuthenticationPrincipal User activeUser) {
-    TokenDto token = new TokenDto(staffService.login(activeUser.getUsername()));
+    TokenDto token = new TokenDto(activeUser instanceof StaffUserDetails
+        ? staffService.login((StaffUserDetails) activeUser)
+        : staffService.login(activeUser.getUsername()));
     log.debug(token::toString);
     return token;
   }
@@ -120,6 +121,24 @@ public class StaffResource {
         taxIdentificationNumber);
   }
 
+  /**
+   * Invites an existing staff user to the company of the authenticated owner.
+   * The role is granted once the user activates the emailed code.
+   *
+   * @param email the email of the staff user
+   * @param taxIdentificationNumber the tax identification number of the company
+   * @param staffMembershipDto the role granted in the company
+   */
+  @PostMapping(STAFF + EMAIL + COMPANY + TAX_IDENTIFICATION_NUMBER)
+  @PreAuthorize("@securityUtil.hasRoleForCompanyCode('OWNER', #taxIdentificationNumber)")
+  public void addMembership(@PathVariable String email,
+      @PathVariable String taxIdentificationNumber,
+      @Valid @RequestBody StaffMembershipDto staffMembershipDto) {
+    this.staffService.addMembership(email, taxIdentificationNumber,
+        staffMembershipDto.getCompanyRole());
+    log.info("Added membership email {}", email.replace("\n", "").replace("\r", ""));
+  }
+
   /**
    * Assigns a company to an existing user.
    *
@@ -137,7 +156,7 @@ public class StaffResource {
   }
 
   /**
-   * Sends an activation code notification to a user.
+   * Queues an activation code notification to a user.
    *
    * @param email the email of the user
    * @param taxIdentificationNumber the tax identification number of the company
@@ -146,17 +165,16 @@ public class StaffResource {
   @PreAuthorize("permitAll()")
   public void notifyActivationCode(@PathVariable String email,
       @PathVariable String taxIdentificationNumber) {
-    this.staffService.getActivationCodeMessage(email, taxIdentificationNumber)
-        .ifPresent(message -> this.emailService.sendEmail(email, "Unete a InvierteIO", message));
-    log.info("Activation code - notification sent for email {} - taxIdentificationNumber {}",
+    this.staffService.notifyActivationCode(email, taxIdentificationNumber);
+    log.info("Activation code - notification queued for email {} - taxIdentificationNumber {}",
             email.replace("\n", "").replace("\r", ""),
             taxIdentificationNumber.replace("\n", "").replace("\r", ""));
   }
 
   /**
-   * Sends a reset password notification to a user.
-   * Retrieves a reset password notification code message for the specified email
-   * and sends it via email.
+   * Queues a reset password notification to a user.
+   * Generates a reset password notification code for the specified email
+   * and queues its email in the outbox.
    *
    * @param email the email of the user to send the reset password notification
    *
@@ -165,10 +183,8 @@ public class StaffResource {
   @PostMapping(STAFF + EMAIL + NOTIFY_RESET_PASSWORD)
   @PreAuthorize("permitAll()")
   public void notifyResetPassword(@PathVariable String email) {
-    this.staffService.getResetPasswordNotificationCodeMessage(email)
-        .ifPresent(message -> this.emailService.sendEmail(email,
-            "Restablece contraseña - InvierteIO", message));
-    log.info("Reset Password code - notification sent for email {}",
+    this.staffService.notifyResetPassword(email);
+    log.info("Reset Password code - notification queued for email {}",
         email.replace("\n", "").replace("\r", ""));
   }
 
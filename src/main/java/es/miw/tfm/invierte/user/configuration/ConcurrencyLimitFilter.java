@@ -0,0 +1,101 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Filter bounding the number of requests processed at once when the application runs with
+ * `spring.threads.virtual.enabled`.
+ * With platform threads, the Tomcat pool caps the concurrent requests and the rest wait in
+ * its queue. With virtual threads every accepted connection runs at once, so a burst of
+ * clients would all wait for the few connections of the Hikari pool and fail with its
+ * connection timeout.
+ *
+ * <p>Requests are admitted in arrival order by a fair semaphore of
+ * `tfm.threads.max-concurrent-requests` permits, waiting as parked virtual threads. A
+ * request that gets no permit within `tfm.threads.admission-timeout` is answered with a
+ * 503 and a `Retry-After` header.
+ *
+ * @see org.springframework.boot.autoconfigure.condition.ConditionalOnThreading
+ *
+ * @author denilssonmn
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  private final Semaphore permits;
+
+  private final Duration admissionTimeout;
+
+  private final Counter rejected;
+
+  /**
+   * Constructs a `ConcurrencyLimitFilter`.
+   *
+   * @param maxConcurrentRequests the maximum number of requests processed at once
+   * @param admissionTimeout the maximum time a request waits to be admitted
+   * @param meterRegistry the registry of the admission metrics
+   */
+  public ConcurrencyLimitFilter(
+      @Value("${tfm.threads.max-concurrent-requests}") int maxConcurrentRequests,
+      @Value("${tfm.threads.admission-timeout}") Duration admissionTimeout,
+      MeterRegistry meterRegistry) {
+    this.permits = new Semaphore(maxConcurrentRequests, true);
+    this.admissionTimeout = admissionTimeout;
+    this.rejected = Counter.builder("http.server.requests.rejected")
+        .description("Requests rejected because too many requests were being processed")
+        .register(meterRegistry);
+    Gauge.builder("http.server.requests.waiting", this.permits, Semaphore::getQueueLength)
+        .description("Requests waiting to be admitted")
+        .register(meterRegistry);
+  }
+
+  @Override
+  protected void doFilterInternal(@NonNull HttpServletRequest request,
+      @NonNull HttpServletResponse response, @NonNull FilterChain chain)
+      throws IOException, ServletException {
+    try {
+      if (!this.permits.tryAcquire(this.admissionTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+        this.reject(response);
+        return;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.reject(response);
+      return;
+    }
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      this.permits.release();
+    }
+  }
+
+  private void reject(HttpServletResponse response) throws IOException {
+    this.rejected.increment();
+    response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+    response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+  }
+
+}
@@ -2,12 +2,14 @@ package es.miw.tfm.invierte.user.configuration;
 
 import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
 import es.miw.tfm.invierte.user.service.JwtService;
+import es.miw.tfm.invierte.user.service.model.TokenPrincipal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -20,7 +22,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 /**
  * Filter for processing JWT authentication.
  * This filter extracts the JWT token from the `Authorization` header,
- * validates it, and sets the authentication in the security context.
+ * validates it once, and sets the authentication in the security context.
  *
  * <p>Extends `OncePerRequestFilter` to ensure the filter is executed once per request.
  *
@@ -46,17 +48,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     List<GrantedAuthority> authorities = new ArrayList<>();
 
     String token = this.jwtService.extractToken(request.getHeader(AUTHORIZATION));
+    final var principal = this.jwtService.verify(token);
     if (!token.isEmpty()) {
-      authorities.add(new SimpleGrantedAuthority(CompanyRole.PREFIX + jwtService.role(token)));
+      authorities.add(new SimpleGrantedAuthority(CompanyRole.PREFIX
+          + principal.map(TokenPrincipal::getRole).orElse("")));
     }
 
-    this.jwtService.roles(token)
+    principal.map(TokenPrincipal::getCompanyRoles)
+        .orElse(Collections.emptyMap())
         .forEach((companyKey, roleValue) ->
             authorities.add(
                 new SimpleGrantedAuthority(CompanyRole.PREFIX + companyKey + "_" + roleValue)));
 
     UsernamePasswordAuthenticationToken authentication =
-        new UsernamePasswordAuthenticationToken(jwtService.user(token), token,authorities);
+        new UsernamePasswordAuthenticationToken(principal.map(TokenPrincipal::getUser).orElse(""),
+            token, authorities);
     SecurityContextHolder.getContext().setAuthentication(authentication);
 
     chain.doFilter(request, response);
@@ -0,0 +1,166 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import es.miw.tfm.invierte.user.service.util.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * Filter applying the rate limiting policies of `tfm.rate-limit.policies`.
+ * It runs before HTTP Basic authentication, so a rejected login never reaches the
+ * password check, and answers a request over any of its limits with a 429 and a
+ * `Retry-After` header holding the seconds until a token is available.
+ *
+ * <p>Emails are compared in lower case, so case variants of an address share a bucket.
+ *
+ * <p>IP keys use the remote address resolved by Tomcat with
+ * `server.forward-headers-strategy=native`: behind a proxy, the last `X-Forwarded-For`
+ * entry not added by one of `server.tomcat.remoteip.internal-proxies`. The header is
+ * ignored when the connection does not come from one of those proxies, so a client cannot
+ * choose its bucket by sending it. Every host in that range can, though, which is why the
+ * range must only cover the proxies when other hosts can reach the service.
+ *
+ * @see RateLimitProperties
+ * @see es.miw.tfm.invierte.user.service.util.RateLimiter
+ *
+ * @author denilssonmn
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+  private static final String EMAIL = "email";
+
+  private static final String BASIC = "Basic ";
+
+  private final RateLimiter rateLimiter;
+
+  private final boolean enabled;
+
+  private final List<CompiledPolicy> policies;
+
+  /**
+   * Constructs a `RateLimitFilter`, creating the limit of every policy.
+   *
+   * @param properties the rate limiting policies
+   * @param rateLimiter the limiter holding the buckets
+   */
+  public RateLimitFilter(RateLimitProperties properties, RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+    this.enabled = properties.isEnabled();
+    this.policies = properties.getPolicies().entrySet().stream()
+        .map(entry -> compile(entry.getKey(), entry.getValue(), rateLimiter))
+        .toList();
+  }
+
+  private static CompiledPolicy compile(String name, RateLimitProperties.Policy policy,
+      RateLimiter rateLimiter) {
+    final var patterns = policy.getPaths().stream()
+        .map(PathPatternParser.defaultInstance::parse)
+        .toList();
+    return new CompiledPolicy(name + ":", policy.getMethod(), patterns, policy.getKey(),
+        rateLimiter.limit(name, policy.getCapacity(), policy.getRefillPeriod()));
+  }
+
+  @Override
+  protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+    return !this.enabled || this.policies.isEmpty();
+  }
+
+  @Override
+  protected void doFilterInternal(@NonNull HttpServletRequest request,
+      @NonNull HttpServletResponse response, @NonNull FilterChain chain)
+      throws IOException, ServletException {
+    PathContainer path = null;
+    for (CompiledPolicy policy : this.policies) {
+      if (!policy.method.equalsIgnoreCase(request.getMethod())) {
+        continue;
+      }
+      if (path == null) {
+        path = PathContainer.parsePath(
+            request.getRequestURI().substring(request.getContextPath().length()));
+      }
+      final var variables = policy.match(path);
+      if (variables == null) {
+        continue;
+      }
+      final var key = resolveKey(policy.key, request, variables);
+      if (key == null) {
+        continue;
+      }
+      final long wait = this.rateLimiter.tryAcquire(policy.prefix + key, policy.limit);
+      if (wait > 0) {
+        final long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+        return;
+      }
+    }
+    chain.doFilter(request, response);
+  }
+
+  private static String resolveKey(RateLimitProperties.Key key, HttpServletRequest request,
+      Map<String, String> variables) {
+    if (key == RateLimitProperties.Key.IP) {
+      return request.getRemoteAddr();
+    }
+    final var email = variables.containsKey(EMAIL) ? variables.get(EMAIL)
+        : basicUsername(request.getHeader(HttpHeaders.AUTHORIZATION));
+    return email == null ? null : email.toLowerCase(Locale.ROOT);
+  }
+
+  private static String basicUsername(String authorization) {
+    if (authorization == null || !authorization.regionMatches(true, 0, BASIC, 0,
+        BASIC.length())) {
+      return null;
+    }
+    try {
+      final var credentials = new String(Base64.getDecoder().decode(
+          authorization.substring(BASIC.length()).trim()), StandardCharsets.UTF_8);
+      final int separator = credentials.indexOf(':');
+      return separator < 0 ? null : credentials.substring(0, separator);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  @AllArgsConstructor
+  private static class CompiledPolicy {
+
+    private final String prefix;
+
+    private final String method;
+
+    private final List<PathPattern> patterns;
+
+    private final RateLimitProperties.Key key;
+
+    private final RateLimiter.Limit limit;
+
+    private Map<String, String> match(PathContainer path) {
+      for (PathPattern pattern : this.patterns) {
+        final var info = pattern.matchAndExtract(path);
+        if (info != null) {
+          return info.getUriVariables();
+        }
+      }
+      return null;
+    }
+
+  }
+
+}
@@ -0,0 +1,55 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Rate limiting policies bound from `tfm.rate-limit.policies`, keyed by policy name.
+ * Each policy limits the requests with the given method to any of its path patterns,
+ * keeping one bucket per value of its key: the `email` path variable or HTTP Basic
+ * username, or the client IP address.
+ *
+ * @see RateLimitFilter
+ * @see es.miw.tfm.invierte.user.service.util.RateLimiter
+ *
+ * @author denilssonmn
+ */
+@Data
+@ConfigurationProperties(prefix = "tfm.rate-limit")
+public class RateLimitProperties {
+
+  private boolean enabled = true;
+
+  private Map<String, Policy> policies = new LinkedHashMap<>();
+
+  /**
+   * Endpoints, key and limit of a rate limiting policy.
+   */
+  @Data
+  public static class Policy {
+
+    private String method = "POST";
+
+    private List<String> paths = new ArrayList<>();
+
+    private Key key = Key.IP;
+
+    private int capacity;
+
+    private Duration refillPeriod;
+
+  }
+
+  /**
+   * Value of the request used to select the bucket of a policy.
+   */
+  public enum Key {
+    EMAIL, IP
+  }
+
+}
@@ -0,0 +1,110 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Configuration of the read replicas, enabled by `tfm.datasource.replica.urls`.
+ * It replaces the auto-configured `DataSource` with a `LazyConnectionDataSourceProxy`
+ * over the primary pool, whose read-only connections come from a
+ * `ReplicaRoutingDataSource`. The proxy takes the physical connection at the first
+ * statement, once the transaction has been marked read-only, so the choice follows the
+ * `@Transactional(readOnly = true)` of the service or repository method. An empty list of
+ * URLs leaves every read on the primary.
+ *
+ * <p>Every pool is a Hikari pool with the `spring.datasource.hikari` settings, named
+ * `primary` or `replica-N` and publishing its `hikaricp.connections` metrics under that
+ * name. Replicas share the primary credentials unless `tfm.datasource.replica.username`
+ * and `tfm.datasource.replica.password` are set.
+ *
+ * @see ReplicaRoutingDataSource
+ * @see org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy
+ *
+ * @author denilssonmn
+ */
+@Configuration
+@ConditionalOnProperty("tfm.datasource.replica.urls")
+public class ReplicaDataSourceConfiguration {
+
+  private static final String HIKARI = "spring.datasource.hikari";
+
+  /**
+   * Creates the pools of the primary and the replicas and the `DataSource` choosing among
+   * them for the read-only connections.
+   *
+   * @param properties the properties of the primary database
+   * @param environment the environment holding the pool settings
+   * @param meterRegistry the registry of the pool and routing metrics
+   * @param urls the JDBC URLs of the replicas
+   * @param username the user of the replicas
+   * @param password the password of the replicas
+   * @param maxLag the maximum replay lag of a healthy replica
+   * @return the routing `DataSource`, which closes every pool on shutdown
+   */
+  @Bean(destroyMethod = "close")
+  public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties,
+      Environment environment, MeterRegistry meterRegistry,
+      @Value("${tfm.datasource.replica.urls}") List<String> urls,
+      @Value("${tfm.datasource.replica.username:}") String username,
+      @Value("${tfm.datasource.replica.password:}") String password,
+      @Value("${tfm.datasource.replica.max-lag}") Duration maxLag) {
+    final var binder = Binder.get(environment);
+    final var primary = pool("primary", properties.initializeDataSourceBuilder(), binder,
+        meterRegistry);
+    final Map<String, DataSource> replicas = new LinkedHashMap<>();
+    for (int i = 0; i < urls.size(); i++) {
+      final var builder = DataSourceBuilder.create()
+          .driverClassName(properties.determineDriverClassName())
+          .url(urls.get(i))
+          .username(username.isEmpty() ? properties.determineUsername() : username)
+          .password(password.isEmpty() ? properties.determinePassword() : password);
+      final var replica = pool("replica-" + i, builder, binder, meterRegistry);
+      replica.setReadOnly(true);
+      replicas.put(replica.getPoolName(), replica);
+    }
+    return new ReplicaRoutingDataSource(primary, replicas, maxLag, meterRegistry);
+  }
+
+  /**
+   * Provides the application `DataSource`, which runs the read-only transactions on the
+   * replicas and the rest on the primary.
+   *
+   * @param replicaRoutingDataSource the pools of the primary and the replicas
+   * @return the `DataSource` used by JPA and JDBC
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+    final var dataSource = new LazyConnectionDataSourceProxy(
+        replicaRoutingDataSource.getPrimary());
+    dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+    return dataSource;
+  }
+
+  private static HikariDataSource pool(String name, DataSourceBuilder<?> builder,
+      Binder binder, MeterRegistry meterRegistry) {
+    final var pool = builder.type(HikariDataSource.class).build();
+    binder.bind(HIKARI, Bindable.ofInstance(pool));
+    pool.setPoolName(name);
+    pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+    return pool;
+  }
+
+}
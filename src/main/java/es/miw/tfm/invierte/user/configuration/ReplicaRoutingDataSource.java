@@ -0,0 +1,221 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import es.miw.tfm.invierte.user.service.util.ReadYourWrites;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * `DataSource` of the read-only connections, which spreads them round-robin over the
+ * healthy replicas.
+ * It is the read-only target of the `LazyConnectionDataSourceProxy` exposed as the
+ * application `DataSource`, so the work of `@Transactional(readOnly = true)` methods,
+ * including the query methods of the repositories, runs on a replica while everything
+ * else runs on the primary.
+ *
+ * <p>Every `tfm.datasource.replica.check-interval` each replica is asked for its replay
+ * lag, and a replica that fails or lags more than `tfm.datasource.replica.max-lag` gets
+ * no connections until it catches up. The primary serves the reads when no replica is
+ * configured or healthy, when a replica refuses a connection, and within a
+ * {@link ReadYourWrites#read(String, java.util.function.Supplier)} of a user written
+ * recently.
+ *
+ * <p>Connections are counted in `datasource.read.connections` by pool and reason, and
+ * the lag and health of each replica are published as `datasource.replica.lag` and
+ * `datasource.replica.healthy`.
+ *
+ * @see ReplicaDataSourceConfiguration
+ * @see es.miw.tfm.invierte.user.service.util.ReadYourWrites
+ * @see org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy
+ *
+ * @author denilssonmn
+ */
+@Log4j2
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+  static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() "
+      + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+      + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+  private static final String READS = "datasource.read.connections";
+
+  @Getter
+  private final DataSource primary;
+
+  private final List<Replica> replicas = new ArrayList<>();
+
+  private final Duration maxLag;
+
+  private final AtomicInteger next = new AtomicInteger();
+
+  private final Counter stickyReads;
+
+  private final Counter fallbackReads;
+
+  /**
+   * Constructs a `ReplicaRoutingDataSource` and checks its replicas once.
+   *
+   * @param primary the primary database, used when no replica can serve a read
+   * @param replicas the replicas by pool name, in order of preference
+   * @param maxLag the maximum replay lag of a healthy replica
+   * @param meterRegistry the registry of the routing metrics
+   */
+  public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+      Duration maxLag, MeterRegistry meterRegistry) {
+    this.primary = primary;
+    this.maxLag = maxLag;
+    this.stickyReads = readCounter("primary", "read-your-writes", meterRegistry);
+    this.fallbackReads = readCounter("primary", "fallback", meterRegistry);
+    replicas.forEach((name, dataSource) ->
+        this.replicas.add(new Replica(name, dataSource, meterRegistry)));
+    if (this.replicas.isEmpty()) {
+      log.warn("No read replica configured, the primary serves every read");
+    }
+    this.checkReplicas();
+  }
+
+  private static Counter readCounter(String pool, String reason, MeterRegistry meterRegistry) {
+    return Counter.builder(READS)
+        .description("Read-only connections handed out")
+        .tag("pool", pool)
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+
+  @Override
+  @NonNull
+  public Connection getConnection() throws SQLException {
+    if (ReadYourWrites.isPrimaryRequired()) {
+      this.stickyReads.increment();
+      return this.primary.getConnection();
+    }
+    final int size = this.replicas.size();
+    final int start = size == 0 ? 0 : Math.floorMod(this.next.getAndIncrement(), size);
+    for (int i = 0; i < size; i++) {
+      final var replica = this.replicas.get((start + i) % size);
+      if (replica.healthy) {
+        try {
+          final var connection = replica.dataSource.getConnection();
+          replica.reads.increment();
+          return connection;
+        } catch (SQLException e) {
+          replica.markUnhealthy(e);
+        }
+      }
+    }
+    this.fallbackReads.increment();
+    return this.primary.getConnection();
+  }
+
+  @Override
+  @NonNull
+  public Connection getConnection(@NonNull String username, @NonNull String password)
+      throws SQLException {
+    throw new SQLFeatureNotSupportedException(
+        "Read-only connections use the credentials of their pool");
+  }
+
+  /**
+   * Checks the replay lag of every replica, marking as unhealthy the ones that cannot be
+   * reached or lag too much and as healthy the ones that caught up.
+   */
+  @Scheduled(fixedDelayString = "${tfm.datasource.replica.check-interval}")
+  public void checkReplicas() {
+    this.replicas.forEach(this::check);
+  }
+
+  private void check(Replica replica) {
+    try (var connection = replica.dataSource.getConnection();
+        var statement = connection.createStatement();
+        var resultSet = statement.executeQuery(LAG_QUERY)) {
+      resultSet.next();
+      final double lag = resultSet.getDouble(1);
+      if (resultSet.wasNull()) {
+        replica.markUnhealthy(new SQLException("Replica has not replayed any transaction"));
+        return;
+      }
+      replica.lagSeconds = lag;
+      if (lag * 1000 > this.maxLag.toMillis()) {
+        replica.markUnhealthy(new SQLException("Replica lags " + lag + " s"));
+      } else if (!replica.healthy) {
+        log.info("Replica {} is healthy, lag {} s", replica.name, lag);
+        replica.healthy = true;
+      }
+    } catch (SQLException e) {
+      replica.markUnhealthy(e);
+    }
+  }
+
+  /**
+   * Closes the pools of the primary and the replicas.
+   *
+   * @throws IOException if a pool cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    for (Replica replica : this.replicas) {
+      closePool(replica.dataSource);
+    }
+    closePool(this.primary);
+  }
+
+  private static void closePool(DataSource dataSource) throws IOException {
+    if (dataSource instanceof Closeable) {
+      ((Closeable) dataSource).close();
+    }
+  }
+
+  private static class Replica {
+
+    private final String name;
+
+    private final DataSource dataSource;
+
+    private final Counter reads;
+
+    private volatile boolean healthy = true;
+
+    private volatile double lagSeconds = Double.NaN;
+
+    private Replica(String name, DataSource dataSource, MeterRegistry meterRegistry) {
+      this.name = name;
+      this.dataSource = dataSource;
+      this.reads = readCounter(name, "replica", meterRegistry);
+      Gauge.builder("datasource.replica.lag", this, replica -> replica.lagSeconds)
+          .description("Replay lag of the replica")
+          .baseUnit("seconds")
+          .tag("pool", name)
+          .register(meterRegistry);
+      Gauge.builder("datasource.replica.healthy", this, replica -> replica.healthy ? 1 : 0)
+          .description("Whether the replica serves reads")
+          .tag("pool", name)
+          .register(meterRegistry);
+    }
+
+    private void markUnhealthy(Exception cause) {
+      if (this.healthy) {
+        log.warn("Replica {} is unhealthy, reading from the primary: {}", this.name,
+            cause.getMessage());
+      }
+      this.healthy = false;
+    }
+
+  }
+
+}
@@ -0,0 +1,22 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class for scheduled tasks.
+ * Enables Spring's scheduling support for the background jobs of the service, such as the
+ * purge of expired activation codes. It can be disabled with `tfm.scheduling.enabled=false`.
+ *
+ * @see org.springframework.scheduling.annotation.EnableScheduling
+ *
+ * @author denilssonmn
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "tfm.scheduling.enabled", havingValue = "true",
+    matchIfMissing = true)
+public class SchedulingConfiguration {
+
+}
@@ -1,27 +1,42 @@
 package es.miw.tfm.invierte.user.configuration;
 
-import static org.springframework.security.config.Customizer.withDefaults;
 import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
 
 import es.miw.tfm.invierte.user.data.dao.OperatorRepository;
 import es.miw.tfm.invierte.user.data.dao.StaffRepository;
+import es.miw.tfm.invierte.user.data.dao.UserRepository;
+import es.miw.tfm.invierte.user.data.model.enums.UserKind;
 import es.miw.tfm.invierte.user.service.JwtService;
+import es.miw.tfm.invierte.user.service.exception.ServiceUnavailableException;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
+import es.miw.tfm.invierte.user.service.util.CredentialDirectory;
+import es.miw.tfm.invierte.user.service.util.RateLimiter;
+import es.miw.tfm.invierte.user.service.util.ReadYourWrites;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.OrRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
@@ -39,16 +54,21 @@ import org.springframework.security.web.util.matcher.RequestMatcher;
  * @see org.springframework.security.web.SecurityFilterChain
  * @see org.springframework.security.authentication.AuthenticationManager
  * @see org.springframework.security.crypto.password.PasswordEncoder
+ * @see es.miw.tfm.invierte.user.service.util.PasswordHashingService
  * @see JwtAuthenticationFilter
+ * @see RateLimitFilter
  * @see JwtService
  * @see OperatorRepository
  * @see StaffRepository
+ * @see UserRepository
+ * @see CredentialDirectory
  *
  * @author denilssonmn
  */
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 @RequiredArgsConstructor
 public class SecurityConfiguration {
 
@@ -56,48 +76,87 @@ public class SecurityConfiguration {
 
   private final StaffRepository staffRepository;
 
+  private final UserRepository userRepository;
+
   private final JwtService jwtService;
 
+  private final PasswordEncoder passwordEncoder;
+
+  private final RateLimiter rateLimiter;
+
+  private final RateLimitProperties rateLimitProperties;
+
+  private final ReadYourWrites readYourWrites;
+
+  private final CredentialDirectory credentialDirectory;
+
   /**
    * Provides a custom `UserDetailsService` implementation.
-   * Retrieves user details from either the `OperatorRepository` or `StaffRepository`
-   * based on the provided email.
+   * Retrieves the credentials of an operator or staff user with a single query of the
+   * `UserRepository`. Staff users are resolved to a `StaffUserDetails`, which carries the
+   * data needed to mint their token and is disabled unless the user is active. Users
+   * whose password changed recently are read from the primary database. While the
+   * `CredentialDirectory` is ready, the other users are read from memory.
    *
    * @return a `UserDetailsService` implementation
    */
   @Bean
   public UserDetailsService userDetailsService() {
-    return email -> {
-      final var operator = operatorRepository.findByEmail(email);
-      if (operator.isPresent()) {
-        final var operatorFound = operator.get();
-        return org.springframework.security.core.userdetails.User.builder()
-            .username(operatorFound.getEmail())
-            .password(operatorFound.getPassword())
-            .roles(operatorFound.getSystemRole().name())
-            .build();
-      }
-
-      final var staff = staffRepository.findByEmail(email)
-          .stream()
-          .findFirst();
+    return email -> readYourWrites.read(email, () -> this.loadUserByEmail(email));
+  }
 
-      if (staff.isPresent()) {
-        final var staffFound = staff.get();
-        return org.springframework.security.core.userdetails.User.builder()
-            .username(staffFound.getEmail())
-            .password(staffFound.getPassword())
-            .build();
-      }
+  private UserDetails loadUserByEmail(String email) {
+    if (credentialDirectory.isReady() && !ReadYourWrites.isPrimaryRequired()) {
+      return credentialDirectory.find(email)
+          .orElseThrow(() -> new BadCredentialsException("Bad credentials"));
+    }
 
+    final var credentials = userRepository.findCredentialsByEmail(email);
+    if (credentials.isEmpty()) {
       throw new BadCredentialsException("Bad credentials");
+    }
+
+    final var credential = credentials.getFirst();
+    if (UserKind.OPERATOR.equals(credential.getKind())) {
+      return org.springframework.security.core.userdetails.User.builder()
+          .username(credential.getEmail())
+          .password(credential.getPassword())
+          .roles(credential.getSystemRole().name())
+          .build();
+    }
+
+    return new StaffUserDetails(credentials);
+  }
+
+  /**
+   * Provides the `UserDetailsPasswordService` that stores the upgraded password hashes.
+   * After a successful HTTP Basic login whose hash does not match the current encoding,
+   * the password is encoded again and saved with a single update of the operator or
+   * staff user.
+   *
+   * @return a `UserDetailsPasswordService` implementation
+   */
+  @Bean
+  public UserDetailsPasswordService userDetailsPasswordService() {
+    return (user, newPassword) -> {
+      readYourWrites.recordWrite(user.getUsername());
+      if (user instanceof StaffUserDetails) {
+        staffRepository.updatePassword(user.getUsername(), newPassword);
+        return ((StaffUserDetails) user).withPassword(newPassword);
+      }
+      operatorRepository.updatePassword(user.getUsername(), newPassword);
+      return org.springframework.security.core.userdetails.User.withUserDetails(user)
+          .password(newPassword)
+          .build();
     };
   }
 
   /**
    * Configures the security filter chain for the application.
    * Disables CSRF, enables HTTP Basic authentication, sets session management to stateless,
-   * and adds a JWT authorization filter.
+   * and adds a JWT authorization filter. Basic authentication answers with a 503 when the
+   * password could not be checked because the hashing queue is full, and runs after the
+   * rate limiting filter, so throttled logins never reach the password check.
    *
    * @param http the `HttpSecurity` object to configure
    * @return the configured `SecurityFilterChain`
@@ -113,9 +172,10 @@ public class SecurityConfiguration {
 
     http
         .csrf(csrf -> csrf.ignoringRequestMatchers(csrfExcludedEndpoints))
-        .httpBasic(withDefaults())
+        .httpBasic(basic -> basic.authenticationEntryPoint(authenticationEntryPoint()))
         .sessionManagement(manager -> manager.sessionCreationPolicy(STATELESS))
         .authenticationProvider(authenticationProvider())
+        .addFilterBefore(rateLimitFilter(), BasicAuthenticationFilter.class)
         .addFilterBefore(jwtAuthorizationFilter(),
             UsernamePasswordAuthenticationFilter.class);
     return http.build();
@@ -123,18 +183,50 @@ public class SecurityConfiguration {
 
   /**
    * Configures the authentication provider for the application.
-   * Uses a `DaoAuthenticationProvider` with a custom `UserDetailsService` and
-   * a password encoder.
+   * Uses a `DaoAuthenticationProvider` with a custom `UserDetailsService`, the shared
+   * `PasswordHashingService` and the `UserDetailsPasswordService` that rehashes outdated
+   * passwords on login. A password check rejected by the hashing queue is reported as
+   * an `AuthenticationServiceException`, so it reaches the authentication entry point.
    *
    * @return the configured `AuthenticationProvider`
    */
   public AuthenticationProvider authenticationProvider() {
-    DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
+    DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider() {
+      @Override
+      public Authentication authenticate(Authentication authentication) {
+        try {
+          return super.authenticate(authentication);
+        } catch (ServiceUnavailableException e) {
+          throw new AuthenticationServiceException(e.getMessage(), e);
+        }
+      }
+    };
     authProvider.setUserDetailsService(userDetailsService());
-    authProvider.setPasswordEncoder(passwordEncoder());
+    authProvider.setPasswordEncoder(this.passwordEncoder);
+    authProvider.setUserDetailsPasswordService(userDetailsPasswordService());
     return authProvider;
   }
 
+  /**
+   * Provides the HTTP Basic authentication entry point.
+   * Answers with a 503 and a `Retry-After` header when the password could not be checked
+   * because the service is saturated, and with the default Basic challenge otherwise.
+   *
+   * @return the `AuthenticationEntryPoint`
+   */
+  public AuthenticationEntryPoint authenticationEntryPoint() {
+    final var basicEntryPoint = new BasicAuthenticationEntryPoint();
+    basicEntryPoint.setRealmName("Realm");
+    return (request, response, authException) -> {
+      if (authException.getCause() instanceof ServiceUnavailableException) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), authException.getMessage());
+      } else {
+        basicEntryPoint.commence(request, response, authException);
+      }
+    };
+  }
+
   /**
    * Provides the `AuthenticationManager` bean.
    * Retrieves the `AuthenticationManager` from the `AuthenticationConfiguration`.
@@ -161,14 +253,14 @@ public class SecurityConfiguration {
   }
 
   /**
-   * Provides the password encoder bean.
-   * Uses the `BCryptPasswordEncoder` for encoding passwords.
+   * Provides the rate limiting filter bean.
+   * Configures the `RateLimitFilter` with the policies of `tfm.rate-limit.policies`.
    *
-   * @return the `PasswordEncoder`
+   * @return the `RateLimitFilter`
    */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public RateLimitFilter rateLimitFilter() {
+    return new RateLimitFilter(rateLimitProperties, rateLimiter);
   }
 
 }
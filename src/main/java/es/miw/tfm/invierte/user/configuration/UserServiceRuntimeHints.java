@@ -0,0 +1,79 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Gender;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.data.model.enums.SystemRole;
+import es.miw.tfm.invierte.user.data.model.enums.UserKind;
+import es.miw.tfm.invierte.user.data.model.projection.CredentialView;
+import es.miw.tfm.invierte.user.data.model.projection.StaffLoginView;
+import java.util.List;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.data.projection.TargetAware;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+/**
+ * Runtime hints for the native executable of the service.
+ * Spring AOT already contributes the beans, the JPA entities and the repositories it finds at
+ * build time; the AWS SDK and Jakarta Mail ship their own metadata and the GraalVM
+ * reachability metadata repository covers Hibernate and Caffeine. These hints add what is
+ * only reached at runtime: the interface projections the native queries are mapped to, the
+ * enums converted from their string columns, the Jackson (de)serializers of java-jwt, the
+ * driver the credential directory loads by name, and the migrations and email templates read
+ * from the classpath.
+ *
+ * @see org.springframework.context.annotation.ImportRuntimeHints
+ * @see es.miw.tfm.invierte.user.service.util.CredentialDirectory
+ *
+ * @author denilssonmn
+ */
+public class UserServiceRuntimeHints implements RuntimeHintsRegistrar {
+
+  private static final List<Class<?>> PROJECTIONS = List.of(StaffLoginView.class,
+      CredentialView.class);
+
+  private static final List<Class<?>> ENUMS = List.of(CompanyRole.class, Gender.class,
+      Status.class, SystemRole.class, UserKind.class);
+
+  private static final List<String> JWT_TYPES = List.of(
+      "com.auth0.jwt.impl.BasicHeader",
+      "com.auth0.jwt.impl.ClaimsHolder",
+      "com.auth0.jwt.impl.ClaimsSerializer",
+      "com.auth0.jwt.impl.HeaderClaimsHolder",
+      "com.auth0.jwt.impl.HeaderDeserializer",
+      "com.auth0.jwt.impl.HeaderSerializer",
+      "com.auth0.jwt.impl.JsonNodeClaim",
+      "com.auth0.jwt.impl.PayloadClaimsHolder",
+      "com.auth0.jwt.impl.PayloadDeserializer",
+      "com.auth0.jwt.impl.PayloadImpl",
+      "com.auth0.jwt.impl.PayloadSerializer");
+
+  private static final String POSTGRES_DRIVER = "org.postgresql.Driver";
+
+  @Override
+  public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+    PROJECTIONS.forEach(projection -> {
+      hints.reflection().registerType(projection, MemberCategory.INVOKE_PUBLIC_METHODS);
+      hints.proxies().registerJdkProxy(projection, TargetAware.class, SpringProxy.class,
+          DecoratingProxy.class);
+    });
+    ENUMS.forEach(type -> hints.reflection().registerType(type,
+        MemberCategory.INVOKE_PUBLIC_METHODS));
+    JWT_TYPES.forEach(type -> hints.reflection().registerType(TypeReference.of(type),
+        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS,
+        MemberCategory.DECLARED_FIELDS));
+    hints.reflection()
+        .registerType(SimpleDriverDataSource.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)
+        .registerType(TypeReference.of(POSTGRES_DRIVER),
+            MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    hints.resources()
+        .registerPattern("db/migration/*.sql")
+        .registerPattern("templates/email/**");
+  }
+
+}
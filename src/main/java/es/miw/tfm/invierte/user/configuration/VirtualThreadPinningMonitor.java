@@ -0,0 +1,107 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports virtual threads pinned to their carrier thread, when the application runs with
+ * `spring.threads.virtual.enabled`.
+ * A virtual thread that blocks while holding a monitor, such as a `synchronized` block
+ * around a JDBC or SMTP call, cannot unmount and keeps its carrier busy, so a few pinned
+ * threads are enough to stall every request.
+ *
+ * <p>It streams the JFR `jdk.VirtualThreadPinned` events lasting more than
+ * `tfm.threads.pinning.threshold`, records their duration in the
+ * `jvm.threads.virtual.pinned` timer and logs the top frames of the pinned stack, which
+ * point at the `synchronized` code to replace with a `ReentrantLock` or to move to a
+ * platform thread.
+ *
+ * @see org.springframework.boot.autoconfigure.condition.ConditionalOnThreading
+ * @see jdk.jfr.consumer.RecordingStream
+ *
+ * @author denilssonmn
+ */
+@Log4j2
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+  static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private static final int LOGGED_FRAMES = 12;
+
+  private final Duration threshold;
+
+  private final Timer pinned;
+
+  private RecordingStream recordingStream;
+
+  /**
+   * Constructs a `VirtualThreadPinningMonitor`.
+   *
+   * @param threshold the minimum pinning time reported
+   * @param meterRegistry the registry of the pinning metrics
+   */
+  public VirtualThreadPinningMonitor(
+      @Value("${tfm.threads.pinning.threshold}") Duration threshold,
+      MeterRegistry meterRegistry) {
+    this.threshold = threshold;
+    this.pinned = Timer.builder("jvm.threads.virtual.pinned")
+        .description("Time virtual threads stayed pinned to their carrier thread")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Starts streaming the pinning events.
+   */
+  @PostConstruct
+  public void start() {
+    this.recordingStream = new RecordingStream();
+    this.recordingStream.enable(PINNED_EVENT).withThreshold(this.threshold).withStackTrace();
+    this.recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+    this.recordingStream.startAsync();
+  }
+
+  /**
+   * Stops streaming the pinning events.
+   */
+  @PreDestroy
+  public void stop() {
+    this.recordingStream.close();
+  }
+
+  void onPinned(RecordedEvent event) {
+    this.pinned.record(event.getDuration());
+    log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(),
+        describe(event.getStackTrace()));
+  }
+
+  static String describe(RecordedStackTrace stackTrace) {
+    if (stackTrace == null) {
+      return "unknown location";
+    }
+    return stackTrace.getFrames().stream()
+        .limit(LOGGED_FRAMES)
+        .map(VirtualThreadPinningMonitor::describe)
+        .collect(Collectors.joining(" <- "));
+  }
+
+  private static String describe(RecordedFrame frame) {
+    return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+        + ":" + frame.getLineNumber();
+  }
+
+}
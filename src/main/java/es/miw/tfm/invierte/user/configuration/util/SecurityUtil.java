@@ -13,7 +13,7 @@ import org.springframework.stereotype.Service;
 /**
  * Utility class for handling security-related operations.
  * This class provides methods to check roles and permissions for a specific company code.
- * It uses Spring Security's reactive context to retrieve authentication details.
+ * It reads the authentication details from Spring Security's `SecurityContextHolder`.
  *
  * <p>This class is marked as a service and uses a private constructor to prevent instantiation.
  *
@@ -26,11 +26,12 @@ public class SecurityUtil {
 
   /**
    * Checks if the current user has a specific role for a given company code.
-   * Retrieves the security context reactively and evaluates the user's authorities.
+   * Retrieves the security context of the current request and evaluates the user's
+   * authorities.
    *
    * @param role the role to check
    * @param companyCode the company code to check
-   * @return a Mono emitting true if the user has the role for the company code, false otherwise
+   * @return true if the user has the role for the company code, false otherwise
    */
   public static Boolean hasRoleForCompanyCode(String role, String companyCode) {
     final var auth = SecurityContextHolder
@@ -0,0 +1,41 @@
+package es.miw.tfm.invierte.user.data.dao;
+
+import es.miw.tfm.invierte.user.data.model.ActivationCode;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository interface for managing `ActivationCode` entities.
+ * Codes are written and counted by `staff_id`, so the `activationCodes` collection of a
+ * `Staff` never has to be loaded to append a new code.
+ *
+ * @see es.miw.tfm.invierte.user.data.model.ActivationCode
+ * @see org.springframework.data.jpa.repository.JpaRepository
+ *
+ * @author denilssonmn
+ */
+public interface ActivationCodeRepository extends JpaRepository<ActivationCode, Integer> {
+
+  /**
+   * Appends an activation code to a staff user with a single insert.
+   *
+   * @param staffId the id of the staff user
+   * @param code the activation or notification code
+   * @param expirationDate the expiration date of the code
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "INSERT INTO activation_code (code, expiration_date, staff_id) "
+      + "VALUES (:code, :expirationDate, :staffId)", nativeQuery = true)
+  void insert(@Param("staffId") int staffId, @Param("code") String code,
+      @Param("expirationDate") LocalDateTime expirationDate);
+
+  @Query(value = "SELECT count(*) FROM activation_code WHERE staff_id = :staffId",
+      nativeQuery = true)
+  long countByStaffId(@Param("staffId") int staffId);
+
+}
@@ -0,0 +1,18 @@
+package es.miw.tfm.invierte.user.data.dao;
+
+import es.miw.tfm.invierte.user.data.model.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository interface for managing `EmailOutbox` entities.
+ * It is only used to enqueue emails; the rows are claimed and deleted by the
+ * `EmailOutboxRelay`.
+ *
+ * @see es.miw.tfm.invierte.user.data.model.EmailOutbox
+ * @see org.springframework.data.jpa.repository.JpaRepository
+ *
+ * @author denilssonmn
+ */
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+}
@@ -3,19 +3,39 @@ package es.miw.tfm.invierte.user.data.dao;
 import es.miw.tfm.invierte.user.data.model.Operator;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for managing `Operator` entities.
  * This interface provides methods for performing CRUD operations and custom queries
  * on the `Operator` entity. It extends the `JpaRepository` interface.
  *
+ * <p>Its query methods run in read-only transactions, which are served by a read replica
+ * when `tfm.datasource.replica.urls` is set.
+ *
  * @see es.miw.tfm.invierte.user.data.model.Operator
  * @see org.springframework.data.jpa.repository.JpaRepository
  *
  * @author denilssonmn
  */
+@Transactional(readOnly = true)
 public interface OperatorRepository extends JpaRepository<Operator, Integer> {
 
   Optional<Operator> findByEmail(String email);
 
+  /**
+   * Replaces the password hash of an operator with a single update.
+   *
+   * @param email the email of the operator
+   * @param password the new encoded password
+   * @return the number of updated rows
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE Operator o SET o.password = :password WHERE o.email = :email")
+  int updatePassword(@Param("email") String email, @Param("password") String password);
+
 }
@@ -0,0 +1,38 @@
+package es.miw.tfm.invierte.user.data.dao;
+
+import es.miw.tfm.invierte.user.data.model.StaffMembership;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository interface for managing `StaffMembership` entities.
+ *
+ * @see es.miw.tfm.invierte.user.data.model.StaffMembership
+ * @see org.springframework.data.jpa.repository.JpaRepository
+ *
+ * @author denilssonmn
+ */
+public interface StaffMembershipRepository extends JpaRepository<StaffMembership, Integer> {
+
+  boolean existsByStaffIdAndTaxIdentificationNumber(int staffId, String taxIdentificationNumber);
+
+  /**
+   * Moves every membership of a staff user from one status to another with a single update.
+   *
+   * @param staffId the id of the staff user
+   * @param previousStatus the status of the memberships to update
+   * @param status the new status
+   * @return the number of updated rows
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE StaffMembership m SET m.status = :status "
+      + "WHERE m.staffId = :staffId AND m.status = :previousStatus")
+  int updateStatus(@Param("staffId") int staffId, @Param("previousStatus") Status previousStatus,
+      @Param("status") Status status);
+
+}
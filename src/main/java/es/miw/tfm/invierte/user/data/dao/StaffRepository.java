@@ -2,20 +2,32 @@ package es.miw.tfm.invierte.user.data.dao;
 
 import es.miw.tfm.invierte.user.data.model.Staff;
 import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.data.model.projection.StaffLoginView;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for managing `Staff` entities.
  * This interface provides methods for performing CRUD operations and custom queries
  * on the `Staff` entity. It extends the `JpaRepository` interface.
  *
+ * <p>Its query methods run in read-only transactions, which are served by a read replica
+ * when `tfm.datasource.replica.urls` is set.
+ *
  * @see es.miw.tfm.invierte.user.data.model.Staff
  * @see org.springframework.data.jpa.repository.JpaRepository
  * @see es.miw.tfm.invierte.user.data.model.enums.Status
+ * @see es.miw.tfm.invierte.user.data.model.projection.StaffLoginView
  *
  * @author denilssonmn
  */
+@Transactional(readOnly = true)
 public interface StaffRepository extends JpaRepository<Staff, Integer> {
 
   Optional<Staff> findByEmailAndTaxIdentificationNumber(String email,
@@ -25,4 +37,46 @@ public interface StaffRepository extends JpaRepository<Staff, Integer> {
 
   Optional<Staff> findByEmail(String email);
 
+  /**
+   * Finds the staff user owning a non-expired activation code.
+   * The lookup is resolved through the unique index on `activation_code.code`.
+   *
+   * @param code the activation or notification code
+   * @param now the reference instant; only codes expiring after it are considered
+   * @return an optional containing the staff user, or empty if the code is unknown or expired
+   */
+  @Query("SELECT s FROM Staff s JOIN s.activationCodes activationCode "
+      + "WHERE activationCode.code = :code AND activationCode.expirationDate > :now")
+  Optional<Staff> findByActivationCode(@Param("code") String code,
+      @Param("now") LocalDateTime now);
+
+  /**
+   * Loads the login projection of a staff user in a single query,
+   * without loading the entity or its activation codes.
+   * Memberships are read through the (`staff_id`, `tax_identification_number`) index.
+   *
+   * @param email the email of the staff user
+   * @return one row per membership of the staff user, or empty if not found
+   */
+  @Query("SELECT s.email AS email, s.firstName AS firstName, s.password AS password, "
+      + "s.status AS status, s.taxIdentificationNumber AS taxIdentificationNumber, "
+      + "s.companyRole AS companyRole, "
+      + "m.taxIdentificationNumber AS membershipTaxIdentificationNumber, "
+      + "m.companyRole AS membershipCompanyRole, m.status AS membershipStatus "
+      + "FROM Staff s LEFT JOIN StaffMembership m ON m.staffId = s.id "
+      + "WHERE s.email = :email")
+  List<StaffLoginView> findLoginViewByEmail(@Param("email") String email);
+
+  /**
+   * Replaces the password hash of a staff user with a single update.
+   *
+   * @param email the email of the staff user
+   * @param password the new encoded password
+   * @return the number of updated rows
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE Staff s SET s.password = :password WHERE s.email = :email")
+  int updatePassword(@Param("email") String email, @Param("password") String password);
+
 }
@@ -1,14 +1,22 @@
 package es.miw.tfm.invierte.user.data.dao;
 
 import es.miw.tfm.invierte.user.data.model.User;
+import es.miw.tfm.invierte.user.data.model.projection.CredentialView;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for managing `User` entities.
  * This interface provides methods for performing CRUD operations and custom queries
  * on the `User` entity. It extends the `JpaRepository` interface.
  *
+ * <p>Its query methods run in read-only transactions, which are served by a read replica
+ * when `tfm.datasource.replica.urls` is set.
+ *
  * @see es.miw.tfm.invierte.user.data.model.User
  * @see org.springframework.data.jpa.repository.JpaRepository
  *
@@ -16,7 +24,32 @@ import org.springframework.data.jpa.repository.JpaRepository;
  *
  * @author denilssonmn
  */
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Integer> {
 
   Optional<User> findByEmail(String email);
+
+  /**
+   * Loads the credentials of an operator or staff user with a single query, resolved
+   * through the unique index on `user_profile.email` and the primary keys of the
+   * profile tables, without loading any entity or activation code.
+   *
+   * @param email the email of the user
+   * @return one row per membership of the user, or empty if not found
+   */
+  @Query(value = "SELECT u.email AS email, u.first_name AS \"firstName\", "
+      + "u.password AS password, "
+      + "CASE WHEN o.id IS NULL THEN 'STAFF' ELSE 'OPERATOR' END AS kind, "
+      + "o.system_role AS \"systemRole\", s.status AS status, "
+      + "s.tax_identification_number AS \"taxIdentificationNumber\", "
+      + "s.company_role AS \"companyRole\", "
+      + "m.tax_identification_number AS \"membershipTaxIdentificationNumber\", "
+      + "m.company_role AS \"membershipCompanyRole\", m.status AS \"membershipStatus\" "
+      + "FROM user_profile u "
+      + "LEFT JOIN operator_profile o ON o.id = u.id "
+      + "LEFT JOIN staff_profile s ON s.id = u.id "
+      + "LEFT JOIN staff_membership m ON m.staff_id = s.id "
+      + "WHERE u.email = :email", nativeQuery = true)
+  List<CredentialView> findCredentialsByEmail(@Param("email") String email);
+
 }
@@ -6,6 +6,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,7 +18,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "activation_code")
+@Table(name = "activation_code", indexes = {
+    @Index(name = "ux_activation_code_code", columnList = "code", unique = true),
+    @Index(name = "ix_activation_code_staff_id", columnList = "staff_id"),
+    @Index(name = "ix_activation_code_expiration_date", columnList = "expiration_date")})
 public class ActivationCode {
 
   @Id
@@ -0,0 +1,70 @@
+package es.miw.tfm.invierte.user.data.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Email waiting to be delivered, written in the same transaction as the data it notifies.
+ * Rows are claimed and deleted by the `EmailOutboxRelay`; the index on `next_attempt_at`
+ * lets every replica find the due rows without scanning the table. Emails the relay gave
+ * up on are kept with their `deadLetteredAt` set, and left out of that index by the
+ * `V11` migration.
+ *
+ * @see es.miw.tfm.invierte.user.service.EmailOutboxRelay
+ *
+ * @author denilssonmn
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "email_outbox", indexes = @Index(name = "ix_email_outbox_next_attempt_at",
+    columnList = "next_attempt_at"))
+public class EmailOutbox {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  @Column(nullable = false)
+  private String recipient;
+
+  @Column(nullable = false)
+  private String subject;
+
+  @ToString.Exclude
+  @Column(nullable = false, columnDefinition = "text")
+  private String body;
+
+  @ToString.Exclude
+  @Column(name = "html_body", columnDefinition = "text")
+  private String htmlBody;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "next_attempt_at", nullable = false)
+  private LocalDateTime nextAttemptAt;
+
+  private int attempts;
+
+  @Column(name = "last_error", length = 1000)
+  private String lastError;
+
+  @Column(name = "dead_lettered_at")
+  private LocalDateTime deadLetteredAt;
+
+}
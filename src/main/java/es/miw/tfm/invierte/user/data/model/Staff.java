@@ -20,7 +20,9 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import lombok.experimental.SuperBuilder;
 
 @SuperBuilder
@@ -56,7 +58,10 @@ public class Staff extends User {
   @Enumerated(EnumType.STRING)
   private CompanyRole companyRole;
 
-  @OneToMany(targetEntity = ActivationCode.class, cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @OneToMany(targetEntity = ActivationCode.class, fetch = FetchType.LAZY,
+      cascade = {CascadeType.PERSIST, CascadeType.REMOVE})
   @JoinColumn(name = "staffId", referencedColumnName = "id")
   private List<ActivationCode> activationCodes = new ArrayList<>();
 
@@ -0,0 +1,63 @@
+package es.miw.tfm.invierte.user.data.model;
+
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Membership of a staff user in a company other than the one stored in its profile.
+ * The composite index on (`staff_id`, `tax_identification_number`) keeps the memberships
+ * of a staff user contiguous, so all its roles are read with a single index range scan.
+ * `staff_id` references `staff_profile` with `ON DELETE CASCADE`, so the memberships are
+ * deleted with their staff user.
+ *
+ * <p>A membership is created inactive when an owner invites the staff user, and becomes
+ * active when the user follows the emailed activation code. Its role is only granted while
+ * the staff profile itself is active.
+ *
+ * <p>The company stored in the staff profile (`tax_identification_number` and
+ * `company_role` of `staff_profile`) is still read as the primary company, next to the
+ * memberships. It is meant to move here: a migration copies it into `staff_membership`,
+ * the login and credential queries stop reading the profile columns, and a later migration
+ * drops them once no release reads them.
+ *
+ * @author denilssonmn
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "staff_membership", indexes = @Index(name = "ux_staff_membership_staff_tin",
+    columnList = "staff_id, tax_identification_number", unique = true))
+public class StaffMembership {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private int id;
+
+  @Column(name = "staff_id", nullable = false)
+  private int staffId;
+
+  @Column(name = "tax_identification_number", nullable = false)
+  private String taxIdentificationNumber;
+
+  @Enumerated(EnumType.STRING)
+  private CompanyRole companyRole;
+
+  @Enumerated(EnumType.STRING)
+  private Status status;
+
+}
@@ -0,0 +1,6 @@
+package es.miw.tfm.invierte.user.data.model.enums;
+
+public enum UserKind {
+  OPERATOR,
+  STAFF
+}
@@ -0,0 +1,22 @@
+package es.miw.tfm.invierte.user.data.model.projection;
+
+import es.miw.tfm.invierte.user.data.model.enums.SystemRole;
+import es.miw.tfm.invierte.user.data.model.enums.UserKind;
+
+/**
+ * Read-only projection of the credentials of any user, operator or staff, loaded with a
+ * single query on `user_profile`.
+ * Operators have a system role and a single row. Staff users have a status and, as in
+ * {@link StaffLoginView}, one row per membership with the data needed to mint their token.
+ *
+ * @see es.miw.tfm.invierte.user.data.dao.UserRepository
+ *
+ * @author denilssonmn
+ */
+public interface CredentialView extends StaffLoginView {
+
+  UserKind getKind();
+
+  SystemRole getSystemRole();
+
+}
@@ -0,0 +1,34 @@
+package es.miw.tfm.invierte.user.data.model.projection;
+
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+
+/**
+ * Read-only projection of the staff columns needed to authenticate a staff user
+ * and mint its token, loaded without hydrating the `Staff` entity.
+ * There is one row per membership; the profile columns are repeated on every row and the
+ * membership columns are null when the staff user has no additional companies.
+ *
+ * @author denilssonmn
+ */
+public interface StaffLoginView {
+
+  String getEmail();
+
+  String getFirstName();
+
+  String getPassword();
+
+  Status getStatus();
+
+  String getTaxIdentificationNumber();
+
+  CompanyRole getCompanyRole();
+
+  String getMembershipTaxIdentificationNumber();
+
+  CompanyRole getMembershipCompanyRole();
+
+  Status getMembershipStatus();
+
+}
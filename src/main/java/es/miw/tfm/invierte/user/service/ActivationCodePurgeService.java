@@ -0,0 +1,158 @@
+package es.miw.tfm.invierte.user.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class for purging expired activation codes.
+ * Expired codes are deleted in fixed-size batches, each one committed on its own and
+ * separated by a configurable pause, so the purge never holds long locks nor produces
+ * large bursts of WAL.
+ *
+ * <p>The whole run holds a PostgreSQL session-level advisory lock on a single connection,
+ * so when several replicas of the service are running only one of them purges at a time
+ * and the others skip the run.
+ *
+ * @author denilssonmn
+ */
+@Log4j2
+@Service
+public class ActivationCodePurgeService {
+
+  static final long ADVISORY_LOCK_KEY = 0x5446_4d41_4350_5247L;
+
+  private static final String TRY_LOCK = "SELECT pg_try_advisory_lock(?)";
+
+  private static final String UNLOCK = "SELECT pg_advisory_unlock(?)";
+
+  private static final String DELETE_BATCH = "DELETE FROM activation_code WHERE id IN "
+      + "(SELECT id FROM activation_code WHERE expiration_date < ? LIMIT ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final int batchSize;
+
+  private final Duration pause;
+
+  private final Counter purgedRows;
+
+  private final Counter skippedRuns;
+
+  private final Timer runTimer;
+
+  /**
+   * Constructs an `ActivationCodePurgeService`.
+   *
+   * @param jdbcTemplate the JDBC template used to run the purge
+   * @param batchSize the maximum number of codes deleted per batch
+   * @param pause the pause between two batches
+   * @param registry the registry where the purge metrics are published
+   */
+  public ActivationCodePurgeService(JdbcTemplate jdbcTemplate,
+      @Value("${tfm.activation-code.purge.batch-size}") int batchSize,
+      @Value("${tfm.activation-code.purge.pause}") Duration pause,
+      MeterRegistry registry) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.batchSize = batchSize;
+    this.pause = pause;
+    this.purgedRows = Counter.builder("activation_code.purge.rows")
+        .description("Expired activation codes deleted")
+        .register(registry);
+    this.skippedRuns = Counter.builder("activation_code.purge.skipped")
+        .description("Purge runs skipped because another replica held the lock")
+        .register(registry);
+    this.runTimer = Timer.builder("activation_code.purge.duration")
+        .description("Duration of the purge runs")
+        .register(registry);
+  }
+
+  /**
+   * Scheduled entry point of the purge.
+   */
+  @Scheduled(initialDelayString = "${tfm.activation-code.purge.initial-delay}",
+      fixedDelayString = "${tfm.activation-code.purge.fixed-delay}")
+  public void purgeExpiredCodes() {
+    final var purged = this.purge(LocalDateTime.now());
+    if (purged > 0) {
+      log.info("Activation code purge deleted {} expired codes", purged);
+    }
+  }
+
+  /**
+   * Deletes the activation codes expired before the given instant.
+   *
+   * @param expiredBefore only codes expiring before it are deleted
+   * @return the number of deleted codes, or 0 if another replica is running the purge
+   */
+  public long purge(LocalDateTime expiredBefore) {
+    final Long purged = this.runTimer.record(() -> this.jdbcTemplate.execute(
+        (ConnectionCallback<Long>) connection -> this.purgeLocked(connection, expiredBefore)));
+    return Objects.requireNonNullElse(purged, 0L);
+  }
+
+  private long purgeLocked(Connection connection, LocalDateTime expiredBefore)
+      throws SQLException {
+    if (!this.advisoryLock(connection, TRY_LOCK)) {
+      this.skippedRuns.increment();
+      return 0;
+    }
+    try {
+      return this.deleteBatches(connection, Timestamp.valueOf(expiredBefore));
+    } finally {
+      this.advisoryLock(connection, UNLOCK);
+    }
+  }
+
+  private long deleteBatches(Connection connection, Timestamp expiredBefore)
+      throws SQLException {
+    long total = 0;
+    try (var statement = connection.prepareStatement(DELETE_BATCH)) {
+      statement.setTimestamp(1, expiredBefore);
+      statement.setInt(2, this.batchSize);
+      boolean fullBatch = true;
+      while (fullBatch) {
+        final int deleted = statement.executeUpdate();
+        if (!connection.getAutoCommit()) {
+          connection.commit();
+        }
+        total += deleted;
+        this.purgedRows.increment(deleted);
+        fullBatch = deleted == this.batchSize && this.pauseBetweenBatches();
+      }
+    }
+    return total;
+  }
+
+  private boolean advisoryLock(Connection connection, String sql) throws SQLException {
+    try (var statement = connection.prepareStatement(sql)) {
+      statement.setLong(1, ADVISORY_LOCK_KEY);
+      try (var resultSet = statement.executeQuery()) {
+        return resultSet.next() && resultSet.getBoolean(1);
+      }
+    }
+  }
+
+  private boolean pauseBetweenBatches() {
+    try {
+      Thread.sleep(this.pause);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+}
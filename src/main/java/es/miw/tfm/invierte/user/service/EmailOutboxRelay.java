@@ -0,0 +1,322 @@
+package es.miw.tfm.invierte.user.service;
+
+import es.miw.tfm.invierte.user.data.model.EmailOutbox;
+import es.miw.tfm.invierte.user.service.model.EmailMessage;
+import es.miw.tfm.invierte.user.service.util.DeadLetterSink;
+import es.miw.tfm.invierte.user.service.util.EmailService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailParseException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service class relaying the emails stored in the `email_outbox` table to the SMTP server.
+ * Due rows are claimed in batches with `SELECT ... FOR UPDATE SKIP LOCKED`, so several
+ * replicas can drain the outbox in parallel without sending the same email twice, and
+ * leased in the same statement by moving their `next_attempt_at` forward by
+ * `tfm.mail.outbox.lease`. The claim commits at once, so no connection or row lock is
+ * held while the batch is sent over a single pooled SMTP session. The batch is then
+ * deleted or rescheduled in a second short transaction.
+ *
+ * <p>Delivery is at-least-once: an email whose batch is not completed before its lease
+ * expires, because the relay stopped or the SMTP server is slower than the lease, is
+ * claimed and sent again. The relay is the only retry path of the emails: failed ones are
+ * rescheduled with exponential backoff, and the ones that exhaust their attempts or fail
+ * permanently, like a malformed or rejected address, are handed to the `DeadLetterSink`.
+ * Dead-lettered emails stay in the table with their `dead_lettered_at` set, which the
+ * claim skips; clearing it sends them again.
+ *
+ * <p>The `email.outbox.depth` gauge reports the emails due and not yet claimed. It is
+ * refreshed every `tfm.mail.outbox.depth-refresh` with a count query instead of on each
+ * scrape, so a busy metrics endpoint does not load the database.
+ *
+ * @see es.miw.tfm.invierte.user.data.model.EmailOutbox
+ * @see es.miw.tfm.invierte.user.service.util.DeadLetterSink
+ *
+ * @author denilssonmn
+ */
+@Log4j2
+@Service
+public class EmailOutboxRelay {
+
+  private static final String CLAIM_BATCH = "UPDATE email_outbox SET next_attempt_at = ? "
+      + "WHERE id IN (SELECT id FROM email_outbox WHERE dead_lettered_at IS NULL "
+      + "AND next_attempt_at <= ? ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) "
+      + "RETURNING id, recipient, subject, body, html_body, created_at, attempts";
+
+  private static final String DELETE = "DELETE FROM email_outbox WHERE id = ?";
+
+  private static final String RESCHEDULE = "UPDATE email_outbox SET attempts = ?, "
+      + "next_attempt_at = ?, last_error = ? WHERE id = ?";
+
+  private static final String DEAD_LETTER = "UPDATE email_outbox SET attempts = ?, "
+      + "dead_lettered_at = ?, last_error = ? WHERE id = ?";
+
+  private static final String COUNT_DUE = "SELECT count(*) FROM email_outbox "
+      + "WHERE dead_lettered_at IS NULL AND next_attempt_at <= ?";
+
+  private static final int LAST_ERROR_LENGTH = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final EmailService emailService;
+
+  private final DeadLetterSink deadLetterSink;
+
+  private final int batchSize;
+
+  private final int maxAttempts;
+
+  private final Duration initialBackoff;
+
+  private final Duration maxBackoff;
+
+  private final Duration lease;
+
+  private final Counter sent;
+
+  private final Counter retries;
+
+  private final Counter deadLetters;
+
+  private final Timer lag;
+
+  private final AtomicLong depth = new AtomicLong();
+
+  /**
+   * Constructs an `EmailOutboxRelay`.
+   *
+   * @param jdbcTemplate the JDBC template used to claim and update the outbox rows
+   * @param transactionTemplate the template opening the claim and completion transactions
+   * @param emailService the service sending the batches over pooled SMTP sessions
+   * @param deadLetterSink the destination of the undeliverable emails
+   * @param batchSize the maximum number of emails claimed per batch
+   * @param maxAttempts the maximum number of delivery attempts per email
+   * @param initialBackoff the wait before the first retry, doubled on each retry
+   * @param maxBackoff the maximum wait between two retries
+   * @param lease the time a claimed batch has to be sent before it can be claimed again
+   * @param registry the registry where the relay metrics are published
+   */
+  public EmailOutboxRelay(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+      EmailService emailService, DeadLetterSink deadLetterSink,
+      @Value("${tfm.mail.outbox.batch-size}") int batchSize,
+      @Value("${tfm.mail.outbox.max-attempts}") int maxAttempts,
+      @Value("${tfm.mail.outbox.initial-backoff}") Duration initialBackoff,
+      @Value("${tfm.mail.outbox.max-backoff}") Duration maxBackoff,
+      @Value("${tfm.mail.outbox.lease}") Duration lease,
+      MeterRegistry registry) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.emailService = emailService;
+    this.deadLetterSink = deadLetterSink;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.lease = lease;
+    this.sent = Counter.builder("email.outbox.sent")
+        .description("Outbox emails delivered")
+        .register(registry);
+    this.retries = Counter.builder("email.outbox.retries")
+        .description("Outbox emails rescheduled after a failed delivery")
+        .register(registry);
+    this.deadLetters = Counter.builder("email.outbox.dead-letters")
+        .description("Outbox emails handed to the dead-letter sink")
+        .register(registry);
+    this.lag = Timer.builder("email.outbox.lag")
+        .description("Time from enqueueing an email to its delivery")
+        .register(registry);
+    Gauge.builder("email.outbox.depth", this.depth, AtomicLong::get)
+        .description("Outbox emails due and waiting to be claimed")
+        .register(registry);
+  }
+
+  /**
+   * Scheduled refresh of the `email.outbox.depth` gauge.
+   */
+  @Scheduled(initialDelayString = "${tfm.mail.outbox.initial-delay}",
+      fixedDelayString = "${tfm.mail.outbox.depth-refresh}")
+  public void refreshDepth() {
+    final Long due = this.jdbcTemplate.queryForObject(COUNT_DUE, Long.class,
+        Timestamp.valueOf(LocalDateTime.now()));
+    this.depth.set(Objects.requireNonNullElse(due, 0L));
+  }
+
+  /**
+   * Scheduled entry point of the relay.
+   */
+  @Scheduled(initialDelayString = "${tfm.mail.outbox.initial-delay}",
+      fixedDelayString = "${tfm.mail.outbox.fixed-delay}")
+  public void relayDueEmails() {
+    final var relayed = this.relay();
+    if (relayed > 0) {
+      log.debug("Email outbox relay processed {} emails", relayed);
+    }
+  }
+
+  /**
+   * Claims and sends due emails batch by batch until a batch is not full.
+   *
+   * @return the number of processed emails, either sent, rescheduled or dead-lettered
+   */
+  public long relay() {
+    long total = 0;
+    boolean fullBatch = true;
+    while (fullBatch) {
+      final int processed = this.relayBatch();
+      total += processed;
+      fullBatch = processed == this.batchSize;
+    }
+    return total;
+  }
+
+  private int relayBatch() {
+    final var now = LocalDateTime.now();
+    final List<EmailOutbox> batch = Objects.requireNonNullElse(
+        this.transactionTemplate.execute(status -> this.claim(now)), List.of());
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    final var failures = this.send(batch);
+    this.transactionTemplate.execute(status -> this.complete(batch, failures));
+    return batch.size();
+  }
+
+  /**
+   * Claims the due emails and leases them, so other relays skip them until the lease
+   * expires.
+   *
+   * @param now the time the batch is claimed at
+   * @return the claimed outbox rows
+   */
+  private List<EmailOutbox> claim(LocalDateTime now) {
+    return this.jdbcTemplate.query(CLAIM_BATCH, EmailOutboxRelay::mapRow,
+        Timestamp.valueOf(now.plus(this.lease)), Timestamp.valueOf(now), this.batchSize);
+  }
+
+  /**
+   * Deletes the delivered emails, hands the undeliverable ones to the dead-letter sink and
+   * marks them as dead-lettered, and reschedules the rest.
+   *
+   * @param batch the claimed outbox rows
+   * @param failures the delivery error of each failed email, by outbox id
+   * @return the number of completed emails
+   */
+  private int complete(List<EmailOutbox> batch, Map<Long, Exception> failures) {
+    final var now = LocalDateTime.now();
+    final List<Object[]> deleted = new ArrayList<>();
+    final List<Object[]> rescheduled = new ArrayList<>();
+    final List<Object[]> deadLettered = new ArrayList<>();
+    for (EmailOutbox email : batch) {
+      final var failure = failures.get(email.getId());
+      if (failure == null) {
+        this.sent.increment();
+        this.lag.record(Duration.between(email.getCreatedAt(), now));
+        deleted.add(new Object[]{email.getId()});
+        continue;
+      }
+      final int attempts = email.getAttempts() + 1;
+      final var error = truncate(String.valueOf(failure.getMessage()));
+      if (isPermanent(failure) || attempts >= this.maxAttempts) {
+        this.deadLetters.increment();
+        this.deadLetterSink.accept(toEmailMessage(email), failure);
+        deadLettered.add(new Object[]{attempts, Timestamp.valueOf(now), error, email.getId()});
+      } else {
+        this.retries.increment();
+        rescheduled.add(new Object[]{attempts,
+            Timestamp.valueOf(now.plus(this.backoff(attempts))), error, email.getId()});
+      }
+    }
+    this.jdbcTemplate.batchUpdate(DELETE, deleted);
+    this.jdbcTemplate.batchUpdate(RESCHEDULE, rescheduled);
+    this.jdbcTemplate.batchUpdate(DEAD_LETTER, deadLettered);
+    return batch.size();
+  }
+
+  /**
+   * Sends a batch of emails over a pooled SMTP session.
+   *
+   * @param batch the claimed outbox rows
+   * @return the delivery error of each failed email, by outbox id
+   */
+  private Map<Long, Exception> send(List<EmailOutbox> batch) {
+    final Map<EmailMessage, Long> ids = new HashMap<>();
+    final List<EmailMessage> messages = new ArrayList<>(batch.size());
+    for (EmailOutbox email : batch) {
+      final var message = toEmailMessage(email);
+      ids.put(message, email.getId());
+      messages.add(message);
+    }
+    final Map<Long, Exception> failures = new HashMap<>();
+    this.emailService.sendBatch(messages)
+        .forEach((message, failure) -> failures.put(ids.get(message), failure));
+    return failures;
+  }
+
+  private Duration backoff(int attempts) {
+    final var backoff = this.initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+    return backoff.compareTo(this.maxBackoff) > 0 ? this.maxBackoff : backoff;
+  }
+
+  /**
+   * Tells whether retrying cannot fix a delivery error: a malformed address, or recipients
+   * rejected by the server as invalid.
+   *
+   * @param failure the delivery error
+   * @return true if the email must not be retried
+   */
+  private static boolean isPermanent(Exception failure) {
+    if (failure instanceof AddressException || failure instanceof MailParseException) {
+      return true;
+    }
+    if (failure instanceof SendFailedException) {
+      final var invalidAddresses = ((SendFailedException) failure).getInvalidAddresses();
+      return invalidAddresses != null && invalidAddresses.length > 0;
+    }
+    return false;
+  }
+
+  private static String truncate(String error) {
+    return error.length() > LAST_ERROR_LENGTH ? error.substring(0, LAST_ERROR_LENGTH) : error;
+  }
+
+  private static EmailMessage toEmailMessage(EmailOutbox email) {
+    return new EmailMessage(email.getRecipient(), email.getSubject(), email.getBody(),
+        email.getHtmlBody());
+  }
+
+  private static EmailOutbox mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+    return EmailOutbox.builder()
+        .id(resultSet.getLong("id"))
+        .recipient(resultSet.getString("recipient"))
+        .subject(resultSet.getString("subject"))
+        .body(resultSet.getString("body"))
+        .htmlBody(resultSet.getString("html_body"))
+        .createdAt(resultSet.getTimestamp("created_at").toLocalDateTime())
+        .attempts(resultSet.getInt("attempts"))
+        .build();
+  }
+
+}
@@ -1,13 +1,27 @@
 package es.miw.tfm.invierte.user.service;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import es.miw.tfm.invierte.user.service.jwt_provider.JwtKeyProvider;
-
+import es.miw.tfm.invierte.user.service.model.TokenPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Collections;
-import java.util.Date;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -18,6 +32,11 @@ import org.springframework.stereotype.Service;
  * This class provides functionality for creating, verifying, and extracting information
  * from JWT tokens. It uses the `auth0` library for token generation and validation.
  *
+ * <p>The verifier is built once and shared, since it is immutable and thread-safe.
+ * Verified tokens are kept in a bounded cache keyed by the SHA-256 hash of the token,
+ * and each entry is evicted when the token expires, so the RSA signature of a token is
+ * checked once instead of on every claim lookup.
+ *
  * @see com.auth0.jwt.JWT
  * @see com.auth0.jwt.algorithms.Algorithm
  * @see com.auth0.jwt.interfaces.DecodedJWT
@@ -29,7 +48,9 @@ public class JwtService {
 
   private static final String BEARER = "Bearer ";
 
-  private static final int PARTIES = 3;
+  private static final char SEPARATOR = '.';
+
+  private static final int MAX_AUTHORIZATION_LENGTH = 8192;
 
   private static final String USER_CLAIM = "user";
 
@@ -45,35 +66,71 @@ public class JwtService {
 
   private final Algorithm algorithm;
 
+  private final JWTVerifier verifier;
+
+  private final Cache<String, TokenPrincipal> verifiedTokens;
+
+  private final Timer verificationTimer;
+
   /**
    * Constructs a `JwtService` with the specified secret, issuer, and expiration time.
    *
    * @param keyProvider the provider for JWT keys
    * @param issuer the issuer of the JWT
    * @param expire the expiration time of the JWT in seconds
+   * @param leeway the clock skew, in seconds, tolerated when checking the token dates
+   * @param cacheMaxSize the maximum number of verified tokens kept in memory
+   * @param meterRegistry the registry where cache and verification metrics are published
    */
   @Autowired
   public JwtService(
       JwtKeyProvider keyProvider,
       @Value("${tfm.jwt.issuer}") String issuer,
-      @Value("${tfm.jwt.expire}") int expire) {
+      @Value("${tfm.jwt.expire}") int expire,
+      @Value("${tfm.jwt.leeway}") long leeway,
+      @Value("${tfm.jwt.cache.max-size}") long cacheMaxSize,
+      MeterRegistry meterRegistry) {
     this.issuer = issuer;
     this.expire = expire;
     this.algorithm = Algorithm.RSA256(keyProvider.getPublicKey(), keyProvider.getPrivateKey());
+    this.verifier = JWT.require(this.algorithm)
+        .withIssuer(this.issuer)
+        .acceptLeeway(leeway)
+        .build();
+    this.verifiedTokens = Caffeine.newBuilder()
+        .maximumSize(cacheMaxSize)
+        .expireAfter(new TokenExpiry())
+        .recordStats()
+        .build();
+    this.verificationTimer = Timer.builder("jwt.verification")
+        .description("RSA signature verification of tokens not found in the cache")
+        .register(meterRegistry);
+    CaffeineCacheMetrics.monitor(meterRegistry, this.verifiedTokens, "jwt.verified-tokens");
   }
 
   /**
    * Extracts the token from a Bearer authorization header.
+   * The header is validated in a single scan without allocating: it must start with the
+   * `Bearer ` prefix, be no longer than `MAX_AUTHORIZATION_LENGTH` and carry a compact JWS,
+   * that is, three non-empty segments separated by dots.
    *
    * @param bearer the Bearer authorization header
    * @return the extracted token, or an empty string if invalid
    */
   public String extractToken(String bearer) {
-    if (bearer != null && bearer.startsWith(BEARER) && PARTIES == bearer.split("\\.").length) {
-      return bearer.substring(BEARER.length());
-    } else {
+    if (bearer == null || bearer.length() > MAX_AUTHORIZATION_LENGTH
+        || !bearer.startsWith(BEARER)) {
       return "";
     }
+    final int headerEnd = bearer.indexOf(SEPARATOR, BEARER.length());
+    final int payloadEnd = headerEnd < 0 ? -1 : bearer.indexOf(SEPARATOR, headerEnd + 1);
+    if (headerEnd <= BEARER.length()
+        || payloadEnd <= headerEnd + 1
+        || payloadEnd == bearer.length() - 1
+        || bearer.indexOf(SEPARATOR, payloadEnd + 1) >= 0) {
+      return "";
+    }
+    return bearer.substring(BEARER.length());
   }
 
   /**
@@ -85,13 +142,7 @@ public class JwtService {
    * @return the generated JWT token
    */
   public String createToken(String user, String name, String role) {
-    return JWT.create()
-        .withIssuer(this.issuer)
-        .withIssuedAt(new Date())
-        .withNotBefore(new Date())
-        .withExpiresAt(new Date(System.currentTimeMillis() + this.expire * 1000L))
-        .withClaim(USER_CLAIM, user)
-        .withClaim(NAME_CLAIM, name)
+    return this.newToken(user, name)
         .withClaim(ROLE_CLAIM, role)
         .sign(this.algorithm);
   }
@@ -105,16 +156,9 @@ public class JwtService {
    * @return the generated JWT token
    */
   public String createToken(String user, String name, Map<String, String> companyRoles) {
-    return JWT.create()
-        .withIssuer(this.issuer)
-        .withIssuedAt(new Date())
-        .withNotBefore(new Date())
-        .withExpiresAt(new Date(System.currentTimeMillis() + this.expire * 1000L))
-        .withClaim(USER_CLAIM, user)
-        .withClaim(NAME_CLAIM, name)
+    return this.newToken(user, name)
         .withClaim(COMPANY_ROLE_CLAIM, companyRoles)
         .sign(this.algorithm);
-
   }
 
   /**
@@ -125,7 +169,7 @@ public class JwtService {
    */
   public String user(String authorization) {
     return this.verify(authorization)
-        .map(jwt -> jwt.getClaim(USER_CLAIM).asString())
+        .map(TokenPrincipal::getUser)
         .orElse("");
   }
 
@@ -137,7 +181,7 @@ public class JwtService {
    */
   public String name(String authorization) {
     return this.verify(authorization)
-        .map(jwt -> jwt.getClaim(NAME_CLAIM).asString())
+        .map(TokenPrincipal::getName)
         .orElse("");
   }
 
@@ -149,7 +193,7 @@ public class JwtService {
    */
   public String role(String authorization) {
     return this.verify(authorization)
-        .map(jwt -> jwt.getClaim(ROLE_CLAIM).asString())
+        .map(TokenPrincipal::getRole)
         .orElse("");
   }
 
@@ -161,24 +205,111 @@ public class JwtService {
    */
   public Map<String, Object> roles(String authorization) {
     return this.verify(authorization)
-        .map(jwt -> jwt.getClaim(COMPANY_ROLE_CLAIM).asMap())
+        .map(TokenPrincipal::getCompanyRoles)
         .orElse(Collections.emptyMap());
   }
 
   /**
-   * Verifies the validity of the token and decodes it.
+   * Verifies the validity of the token and parses its claims.
+   * Tokens already verified are served from the cache until they expire.
+   *
+   * @param token the token to verify
+   * @return an `Optional` containing the token principal if valid, or empty if invalid
+   */
+  public Optional<TokenPrincipal> verify(String token) {
+    if (Objects.isNull(token) || token.isEmpty()) {
+      return Optional.empty();
+    }
+    final var key = hash(token);
+    final var cached = this.verifiedTokens.getIfPresent(key);
+    if (!Objects.isNull(cached)) {
+      return Optional.of(cached);
+    }
+    final var principal = this.verificationTimer.record(() -> this.decode(token))
+        .map(JwtService::toPrincipal);
+    principal.ifPresent(verified -> this.verifiedTokens.put(key, verified));
+    return principal;
+  }
+
+  /**
+   * Verifies the signature and issuer of the token and decodes it.
    *
    * @param token the token to verify
    * @return an `Optional` containing the decoded JWT if valid, or empty if invalid
    */
-  private Optional<DecodedJWT> verify(String token) {
+  private Optional<DecodedJWT> decode(String token) {
     try {
-      return Optional.of(JWT.require(this.algorithm)
-          .withIssuer(this.issuer).build()
-          .verify(token));
+      return Optional.of(this.verifier.verify(token));
     } catch (Exception exception) {
       return Optional.empty();
     }
   }
 
+  /**
+   * Starts a token with the registered claims shared by every token type.
+   * The issue, not-before and expiration dates are computed from a single clock reading.
+   *
+   * @param user the user identifier
+   * @param name the name of the user
+   * @return the token builder
+   */
+  private JWTCreator.Builder newToken(String user, String name) {
+    final var now = Instant.now();
+    return JWT.create()
+        .withIssuer(this.issuer)
+        .withIssuedAt(now)
+        .withNotBefore(now)
+        .withExpiresAt(now.plusSeconds(this.expire))
+        .withClaim(USER_CLAIM, user)
+        .withClaim(NAME_CLAIM, name);
+  }
+
+  private static TokenPrincipal toPrincipal(DecodedJWT jwt) {
+    final var companyRoles = jwt.getClaim(COMPANY_ROLE_CLAIM).asMap();
+    return TokenPrincipal.builder()
+        .user(jwt.getClaim(USER_CLAIM).asString())
+        .name(jwt.getClaim(NAME_CLAIM).asString())
+        .role(jwt.getClaim(ROLE_CLAIM).asString())
+        .companyRoles(Objects.isNull(companyRoles) ? Collections.emptyMap() : companyRoles)
+        .expiresAt(jwt.getExpiresAtAsInstant())
+        .build();
+  }
+
+  private static String hash(String token) {
+    try {
+      final var digest = MessageDigest.getInstance("SHA-256")
+          .digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException("SHA-256 is not available", exception);
+    }
+  }
+
+  /**
+   * Expiry policy that evicts each cached principal at the expiration time of its token.
+   */
+  private static final class TokenExpiry implements Expiry<String, TokenPrincipal> {
+
+    @Override
+    public long expireAfterCreate(String key, TokenPrincipal principal, long currentTime) {
+      if (Objects.isNull(principal.getExpiresAt())) {
+        return 0L;
+      }
+      return Math.max(0L, Duration.between(Instant.now(), principal.getExpiresAt()).toNanos());
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, TokenPrincipal principal, long currentTime,
+        long currentDuration) {
+      return this.expireAfterCreate(key, principal, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, TokenPrincipal principal, long currentTime,
+        long currentDuration) {
+      return currentDuration;
+    }
+
+  }
+
 }
@@ -9,13 +9,16 @@ import es.miw.tfm.invierte.user.service.exception.BadRequestException;
 import es.miw.tfm.invierte.user.service.exception.ConflictException;
 import es.miw.tfm.invierte.user.service.exception.ForbiddenException;
 import es.miw.tfm.invierte.user.service.exception.NotFoundException;
+import es.miw.tfm.invierte.user.service.util.GeneralInfoCache;
+import es.miw.tfm.invierte.user.service.util.ReadYourWrites;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.BeanUtils;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service class for managing operators.
@@ -32,6 +35,8 @@ import org.springframework.stereotype.Service;
  * @see es.miw.tfm.invierte.user.service.exception.ConflictException
  * @see es.miw.tfm.invierte.user.service.exception.ForbiddenException
  * @see es.miw.tfm.invierte.user.service.exception.NotFoundException
+ * @see es.miw.tfm.invierte.user.service.util.ReadYourWrites
+ * @see es.miw.tfm.invierte.user.service.util.GeneralInfoCache
  *
  * @author denilssonmn
  */
@@ -43,6 +48,12 @@ public class OperatorService {
 
   private final JwtService jwtService;
 
+  private final PasswordEncoder passwordEncoder;
+
+  private final ReadYourWrites readYourWrites;
+
+  private final GeneralInfoCache generalInfoCache;
+
   public static final String OPERATOR_NOT_FOUND = "Operator not found";
 
   /**
@@ -69,35 +80,41 @@ public class OperatorService {
    * @throws BadRequestException if the old password does not match
    * @throws NotFoundException if the operator is not found
    */
+  @Transactional
   public void changePassword(String email, PasswordChangeDto passwordChangeDto) {
-    BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     this.operatorRepository.findByEmail(email)
       .map(op ->
         Optional.of(op)
-          .filter(o -> passwordEncoder.matches(passwordChangeDto.getPassword(), o.getPassword()))
+          .filter(o -> this.passwordEncoder.matches(passwordChangeDto.getPassword(),
+              o.getPassword()))
           .map(o -> {
-            o.setPassword(passwordEncoder.encode(passwordChangeDto.getNewPassword()));
+            o.setPassword(this.passwordEncoder.encode(passwordChangeDto.getNewPassword()));
             return this.operatorRepository.save(o);
           })
           .orElseThrow(() -> new BadRequestException("Passwords do not match with old password"))
       ).orElseThrow(() -> new NotFoundException(OPERATOR_NOT_FOUND));
+    this.readYourWrites.recordWrite(email);
+    this.generalInfoCache.invalidateOperator(email);
   }
 
   /**
-   * Creates a new operator user.
+   * Creates a new operator user, encoding its plain text password.
    *
    * @param operator the operator to be created
    * @param systemRole the system role of the operator performing the action
    * @throws ForbiddenException if the system role is insufficient
    * @throws ConflictException if the email already exists
    */
+  @Transactional
   public void createUser(Operator operator, SystemRole systemRole) {
     if (!authorizedRoles(systemRole).contains(operator.getSystemRole())) {
       throw new ForbiddenException("Insufficient role to create this user: " + operator);
     }
     this.assertNoExistByEmail(operator.getEmail());
+    operator.setPassword(this.passwordEncoder.encode(operator.getPassword()));
     operator.setRegistrationDate(LocalDateTime.now());
     this.operatorRepository.save(operator);
+    this.readYourWrites.recordWrite(operator.getEmail());
   }
 
   /**
@@ -107,8 +124,9 @@ public class OperatorService {
    * @return the generated JWT token
    * @throws NotFoundException if the operator is not found
    */
+  @Transactional(readOnly = true)
   public String login(String email) {
-    return this.operatorRepository.findByEmail(email)
+    return this.readYourWrites.read(email, () -> this.operatorRepository.findByEmail(email))
        .stream()
        .findFirst()
        .map(operator ->
@@ -125,6 +143,7 @@ public class OperatorService {
    * @param operatorInfoDto the DTO containing the updated information
    * @throws NotFoundException if the operator is not found
    */
+  @Transactional
   public void updateGeneralInfo(String email, OperatorInfoDto operatorInfoDto) {
     this.operatorRepository.findByEmail(email)
         .map(operator -> {
@@ -133,17 +152,25 @@ public class OperatorService {
         })
         .map(operatorRepository::save)
         .orElseThrow(() -> new NotFoundException(OPERATOR_NOT_FOUND));
+    this.readYourWrites.recordWrite(email);
+    this.generalInfoCache.invalidateOperator(email);
   }
 
   /**
    * Reads the general information of an operator.
+   * It is served from the `GeneralInfoCache`, which is evicted by every change of the
+   * operator.
    *
    * @param email the email of the operator
    * @return the DTO containing the operator's general information
    * @throws NotFoundException if the operator is not found
    */
   public OperatorInfoDto readGeneralInfo(String email) {
-    return this.operatorRepository.findByEmail(email)
+    return this.generalInfoCache.getOperator(email, () -> this.loadGeneralInfo(email));
+  }
+
+  private OperatorInfoDto loadGeneralInfo(String email) {
+    return this.readYourWrites.read(email, () -> this.operatorRepository.findByEmail(email))
           .map(operator -> {
             OperatorInfoDto operatorInfoDto = new OperatorInfoDto();
             BeanUtils.copyProperties(operator, operatorInfoDto);
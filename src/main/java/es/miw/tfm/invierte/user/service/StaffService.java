@@ -4,35 +4,53 @@ import es.miw.tfm.invierte.user.api.dto.AccountConfirmationDto;
 import es.miw.tfm.invierte.user.api.dto.PasswordChangeDto;
 import es.miw.tfm.invierte.user.api.dto.PasswordResetDto;
 import es.miw.tfm.invierte.user.api.dto.StaffInfoDto;
+import es.miw.tfm.invierte.user.data.dao.ActivationCodeRepository;
+import es.miw.tfm.invierte.user.data.dao.EmailOutboxRepository;
+import es.miw.tfm.invierte.user.data.dao.StaffMembershipRepository;
 import es.miw.tfm.invierte.user.data.dao.StaffRepository;
-import es.miw.tfm.invierte.user.data.dao.UserRepository;
 import es.miw.tfm.invierte.user.data.model.ActivationCode;
+import es.miw.tfm.invierte.user.data.model.EmailOutbox;
 import es.miw.tfm.invierte.user.data.model.Staff;
+import es.miw.tfm.invierte.user.data.model.StaffMembership;
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
 import es.miw.tfm.invierte.user.data.model.enums.Status;
 import es.miw.tfm.invierte.user.service.exception.BadRequestException;
 import es.miw.tfm.invierte.user.service.exception.ConflictException;
 import es.miw.tfm.invierte.user.service.exception.NotFoundException;
+import es.miw.tfm.invierte.user.service.model.EmailContent;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
+import es.miw.tfm.invierte.user.service.util.EmailTemplateRegistry;
+import es.miw.tfm.invierte.user.service.util.GeneralInfoCache;
+import es.miw.tfm.invierte.user.service.util.ReadYourWrites;
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service class for managing staff users.
  * This class provides functionality for handling staff-related operations such as
  * login, account activation, password changes, and updating or reading general information.
  *
- * <p>Utilizes Spring's service layer and integrates with the `StaffRepository` and `UserRepository`
+ * <p>Utilizes Spring's service layer and integrates with the `StaffRepository`,
+ * `StaffMembershipRepository`, `ActivationCodeRepository` and `EmailOutboxRepository`
  * for database interactions.
  *
  * @see es.miw.tfm.invierte.user.data.dao.StaffRepository
- * @see es.miw.tfm.invierte.user.data.dao.UserRepository
+ * @see es.miw.tfm.invierte.user.data.dao.StaffMembershipRepository
+ * @see es.miw.tfm.invierte.user.data.dao.ActivationCodeRepository
+ * @see es.miw.tfm.invierte.user.data.dao.EmailOutboxRepository
+ * @see es.miw.tfm.invierte.user.service.util.EmailTemplateRegistry
+ * @see es.miw.tfm.invierte.user.service.util.ReadYourWrites
+ * @see es.miw.tfm.invierte.user.service.util.GeneralInfoCache
  * @see es.miw.tfm.invierte.user.api.dto.StaffInfoDto
  * @see es.miw.tfm.invierte.user.api.dto.PasswordChangeDto
  * @see es.miw.tfm.invierte.user.service.exception.BadRequestException
@@ -49,19 +67,29 @@ public class StaffService {
 
   private final StaffRepository staffRepository;
 
-  private final UserRepository userRepository;
+  private final StaffMembershipRepository staffMembershipRepository;
+
+  private final ActivationCodeRepository activationCodeRepository;
+
+  private final EmailOutboxRepository emailOutboxRepository;
+
+  private static final String ACTIVATION_CODE_TEMPLATE = "activation-code";
+
+  private static final String RESET_PASSWORD_TEMPLATE = "reset-password";
 
   private final JwtService jwtService;
 
-  @Value("${message.activation-code.text}")
-  private String messageText;
+  private final EmailTemplateRegistry emailTemplateRegistry;
+
+  private final PasswordEncoder passwordEncoder;
+
+  private final ReadYourWrites readYourWrites;
+
+  private final GeneralInfoCache generalInfoCache;
 
   @Value("${message.activation-code.base-url}")
   private String messageBaseUrl;
 
-  @Value("${message.reset-password-code.text}")
-  private String messageResetPasswordText;
-
   @Value("${message.reset-password-code.base-url}")
   private String messageResetPasswordBaseUrl;
 
@@ -80,23 +108,33 @@ public class StaffService {
 
   /**
    * Logs in a staff user and generates a JWT token.
+   * The name and active company roles are read with a single projection query.
    *
    * @param email the email of the staff user
    * @return the generated JWT token
    * @throws NotFoundException if the user is not found
    */
+  @Transactional(readOnly = true)
   public String login(String email) {
+    final var loginView = this.readYourWrites.read(email,
+        () -> this.staffRepository.findLoginViewByEmail(email));
+    if (loginView.isEmpty()) {
+      throw new NotFoundException("User not found.");
+    }
+    return this.jwtService.createToken(loginView.getFirst().getEmail(),
+        loginView.getFirst().getFirstName(), StaffUserDetails.companyRoles(loginView));
+  }
 
-    final var user = this.userRepository.findByEmail(email)
-        .orElseThrow(() -> new NotFoundException("User not found."));
-
-    final var companyRoles = this.staffRepository.findByEmailAndStatus(email, Status.ACTIVE)
-        .stream()
-        .collect(Collectors.toMap(
-            Staff::getTaxIdentificationNumber,
-            staff -> staff.getCompanyRole().name()));
-
-    return this.jwtService.createToken(user.getEmail(), user.getFirstName(), companyRoles);
+  /**
+   * Generates a JWT token for a staff user already resolved during authentication,
+   * without querying the database again.
+   *
+   * @param staffUserDetails the authenticated staff user
+   * @return the generated JWT token
+   */
+  public String login(StaffUserDetails staffUserDetails) {
+    return this.jwtService.createToken(staffUserDetails.getUsername(),
+        staffUserDetails.getFirstName(), staffUserDetails.getCompanyRoles());
   }
 
   /**
@@ -105,11 +143,14 @@ public class StaffService {
    * @param staff the staff user to be created
    * @throws ConflictException if the email already exists
    */
+  @Transactional
   public void createUserWithNoCompany(Staff staff) {
     staff.setDefaultNoCompany();
     this.assertNoExistByEmail(staff.getEmail());
+    this.encodePassword(staff);
     staff.setRegistrationDate(LocalDateTime.now());
     this.staffRepository.save(staff);
+    this.readYourWrites.recordWrite(staff.getEmail());
   }
 
   /**
@@ -118,11 +159,14 @@ public class StaffService {
    * @param staff the staff user to be created
    * @throws ConflictException if the email already exists
    */
+  @Transactional
   public void createUserWithCompany(Staff staff) {
     staff.setNewCompanyUserDefault();
     this.assertNoExistByEmail(staff.getEmail());
+    this.encodePassword(staff);
     staff.setRegistrationDate(LocalDateTime.now());
     this.staffRepository.save(staff);
+    this.readYourWrites.recordWrite(staff.getEmail());
   }
 
   /**
@@ -132,6 +176,7 @@ public class StaffService {
    * @param taxIdentificationNumber the tax identification number of the company
    * @throws NotFoundException if the user is not inactive or already has a company
    */
+  @Transactional
   public void setCompanyToUser(String email, String taxIdentificationNumber) {
     this.assertUserIsInactiveAndHasNoCompany(email);
     this.staffRepository.findByEmailAndStatus(email, Status.INACTIVE)
@@ -139,62 +184,94 @@ public class StaffService {
           staff.setTaxIdentificationNumber(taxIdentificationNumber);
           this.staffRepository.save(staff);
         });
+    this.readYourWrites.recordWrite(email);
+    this.generalInfoCache.invalidateStaff(email);
   }
 
   /**
-   * Retrieves the activation code message for a staff user.
+   * Invites an active staff user to an additional company with the given role.
+   * The membership is stored as inactive and an activation code is emailed to the user in
+   * the same transaction; the role is granted once the code is used to activate the account.
+   *
+   * @param email the email of the staff user
+   * @param taxIdentificationNumber the tax identification number of the company
+   * @param companyRole the role of the staff user in the company
+   * @throws NotFoundException if there is no active staff user with the email
+   * @throws ConflictException if the staff user already belongs to the company
+   */
+  @Transactional
+  public void addMembership(String email, String taxIdentificationNumber,
+      CompanyRole companyRole) {
+    final var staff = this.staffRepository.findByEmailAndStatus(email, Status.ACTIVE)
+        .orElseThrow(() -> new NotFoundException("Staff not found"));
+    if (taxIdentificationNumber.equals(staff.getTaxIdentificationNumber())
+        || this.staffMembershipRepository.existsByStaffIdAndTaxIdentificationNumber(
+            staff.getId(), taxIdentificationNumber)) {
+      throw new ConflictException("Membership already exists: email " + email
+          + " - taxIdentificationNumber " + taxIdentificationNumber);
+    }
+    this.staffMembershipRepository.save(StaffMembership.builder()
+        .staffId(staff.getId())
+        .taxIdentificationNumber(taxIdentificationNumber)
+        .companyRole(companyRole)
+        .status(Status.INACTIVE)
+        .build());
+    this.readYourWrites.recordWrite(email);
+    this.enqueueEmail(email, this.renderEmail(ACTIVATION_CODE_TEMPLATE, this.messageBaseUrl,
+        this.addActivationCode(staff)));
+  }
+
+  /**
+   * Generates an activation code for an inactive staff user and queues its email, rendered
+   * in the locale of the current request. The code and the outbox row are written in the
+   * same transaction, so the email is never lost once the code exists. Nothing is sent if
+   * the user is not found.
    *
    * @param email the email of the staff user
    * @param taxIdentificationNumber the tax identification number of the company
-   * @return an optional containing the activation code message, or empty if not found
    * @throws ConflictException if the user is not inactive
    */
-  public Optional<String> getActivationCodeMessage(String email, String taxIdentificationNumber) {
-    this.assertStaffUserIsInactive(email, taxIdentificationNumber);
-    return this.staffRepository.findByEmailAndTaxIdentificationNumber(email,
-            taxIdentificationNumber)
-        .map(staff -> {
-          final var newActivationCode = generateActivationCode();
-          staff.getActivationCodes().add(newActivationCode);
-          this.staffRepository.save(staff);
-          return newActivationCode;
-        })
-        .map(this::getActivationCodeBodyMessage);
+  @Transactional
+  public void notifyActivationCode(String email, String taxIdentificationNumber) {
+    this.staffRepository.findByEmailAndTaxIdentificationNumber(email, taxIdentificationNumber)
+        .map(staff -> this.assertStaffUserIsInactive(staff, taxIdentificationNumber))
+        .map(this::addActivationCode)
+        .map(activationCode -> this.renderEmail(ACTIVATION_CODE_TEMPLATE, this.messageBaseUrl,
+            activationCode))
+        .ifPresent(content -> this.enqueueEmail(email, content));
   }
 
   /**
-   * Retrieves a reset password notification code message for a staff user.
-   * Generates a new activation code, associates it with the staff user, and returns
-   * the reset password notification message.
+   * Generates a reset password notification code for an active staff user and queues its
+   * email in the same transaction.
    *
    * @param email the email of the staff user
-   * @return an optional containing the reset password notification message, or empty if not found
    * @throws ConflictException if the user is not active
    */
-  public Optional<String> getResetPasswordNotificationCodeMessage(String email) {
+  @Transactional
+  public void notifyResetPassword(String email) {
     final var activeStaff = this.assertStaffUserIsActive(email);
-    return Optional.of(activeStaff)
-        .map(staff -> {
-          final var newActivationCode = generateActivationCode();
-          staff.getActivationCodes().add(newActivationCode);
-          this.staffRepository.save(staff);
-          return newActivationCode;
-        })
-        .map(this::getResetPasswordCodeBodyMessage);
+    this.enqueueEmail(email, this.renderEmail(RESET_PASSWORD_TEMPLATE,
+        this.messageResetPasswordBaseUrl, this.addActivationCode(activeStaff)));
   }
 
-
   /**
-   * Activates a staff user's account using an activation code.
+   * Activates a staff user's account using an activation code,
+   * together with the memberships the user has been invited to.
    *
    * @param activationCode the activation code
    * @throws NotFoundException if the activation code is not found or expired
    */
+  @Transactional
   public AccountConfirmationDto activateAccount(String activationCode) {
     return this.findStaffByNotificationCode(activationCode)
         .map(staff -> {
           staff.setStatus(Status.ACTIVE);
           this.staffRepository.save(staff);
+          this.staffMembershipRepository.updateStatus(staff.getId(), Status.INACTIVE,
+              Status.ACTIVE);
+          this.readYourWrites.recordWrite(staff.getEmail());
+          this.generalInfoCache.invalidateStaff(staff.getEmail());
           return new AccountConfirmationDto(!Objects.isNull(staff.getPassword()));
         })
         .orElseThrow(() ->
@@ -209,19 +286,23 @@ public class StaffService {
    * @throws BadRequestException if the old password does not match
    * @throws NotFoundException if the user is not found
    */
+  @Transactional
   public void changePassword(String email, PasswordChangeDto passwordChangeDto) {
-    BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     this.staffRepository.findByEmailAndStatus(email, Status.ACTIVE)
         .map(op -> Optional.of(op)
-          .filter(o -> passwordEncoder.matches(passwordChangeDto.getPassword(), o.getPassword()))
+          .filter(o -> this.passwordEncoder.matches(passwordChangeDto.getPassword(),
+              o.getPassword()))
           .map(staffUpdated -> {
-            staffUpdated.setPassword(passwordEncoder.encode(passwordChangeDto.getNewPassword()));
+            staffUpdated.setPassword(
+                this.passwordEncoder.encode(passwordChangeDto.getNewPassword()));
             return staffUpdated;
           })
           .orElseThrow(() -> new BadRequestException("Passwords do not match with old password"))
         )
         .map(staffRepository::save)
         .orElseThrow(() -> new NotFoundException("User not found"));
+    this.readYourWrites.recordWrite(email);
+    this.generalInfoCache.invalidateStaff(email);
   }
 
   /**
@@ -233,17 +314,18 @@ public class StaffService {
    * @param passwordResetDto the DTO containing the notification token and new password
    * @throws NotFoundException if the user is not found or the token is invalid
    */
+  @Transactional
   public void resetPassword(String email, PasswordResetDto passwordResetDto) {
-    BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     this.findStaffByNotificationCode(passwordResetDto.getNotificationToken())
         .filter(staff ->  Status.ACTIVE.equals(staff.getStatus())
             && staff.getEmail().equals(email))
         .map(staff -> {
-          staff.setPassword(passwordEncoder.encode(passwordResetDto.getNewPassword()));
+          staff.setPassword(this.passwordEncoder.encode(passwordResetDto.getNewPassword()));
           return staff;
         })
         .map(staffRepository::save)
         .orElseThrow(() -> new NotFoundException("User not found"));
+    this.readYourWrites.recordWrite(email);
   }
 
   /**
@@ -253,6 +335,7 @@ public class StaffService {
    * @param staffInfoDto the DTO containing the updated information
    * @throws NotFoundException if the staff user is not found
    */
+  @Transactional
   public void updateGeneralInfo(String email, StaffInfoDto staffInfoDto) {
     this.staffRepository.findByEmailAndStatus(email, Status.ACTIVE)
         .map(staff -> {
@@ -260,17 +343,25 @@ public class StaffService {
           return staff;
         }).map(staffRepository::save)
       .orElseThrow(() -> new NotFoundException("Staff not found"));
+    this.readYourWrites.recordWrite(email);
+    this.generalInfoCache.invalidateStaff(email);
   }
 
   /**
    * Reads the general information of a staff user.
+   * It is served from the `GeneralInfoCache`, which is evicted by every change of the user.
    *
    * @param email the email of the staff user
    * @return the DTO containing the staff user's general information
    * @throws NotFoundException if the staff user is not found
    */
   public StaffInfoDto readGeneralInfo(String email) {
-    return this.staffRepository.findByEmailAndStatus(email, Status.ACTIVE)
+    return this.generalInfoCache.getStaff(email, () -> this.loadGeneralInfo(email));
+  }
+
+  private StaffInfoDto loadGeneralInfo(String email) {
+    return this.readYourWrites.read(email,
+        () -> this.staffRepository.findByEmailAndStatus(email, Status.ACTIVE))
       .map(staff -> {
         StaffInfoDto staffInfoDto = new StaffInfoDto();
         BeanUtils.copyProperties(staff, staffInfoDto);
@@ -279,20 +370,60 @@ public class StaffService {
   }
 
   /**
-   * Generates the body message for an activation code.
+   * Generates a new activation code and appends it to a staff user
+   * without loading its previous codes.
    *
-   * @param activationCode the activation code
-   * @return the activation code body message
+   * @param staff the staff user
+   * @return the generated activation code
+   */
+  private ActivationCode addActivationCode(Staff staff) {
+    final var newActivationCode = generateActivationCode();
+    this.activationCodeRepository.insert(staff.getId(), newActivationCode.getCode(),
+        newActivationCode.getExpirationDate());
+    return newActivationCode;
+  }
+
+  /**
+   * Stores an email in the outbox, to be sent by the `EmailOutboxRelay`.
+   *
+   * @param to the recipient's email address
+   * @param content the rendered subject and bodies of the email
+   */
+  private void enqueueEmail(String to, EmailContent content) {
+    final var now = LocalDateTime.now();
+    this.emailOutboxRepository.save(EmailOutbox.builder()
+        .recipient(to)
+        .subject(content.getSubject())
+        .body(content.getText())
+        .htmlBody(content.getHtml())
+        .createdAt(now)
+        .nextAttemptAt(now)
+        .build());
+  }
+
+  /**
+   * Encodes the plain text password of a new staff user, if it has one.
+   *
+   * @param staff the staff user to be created
    */
-  private String getActivationCodeBodyMessage(ActivationCode activationCode) {
-    return String.format("%s %s", this.messageText, this.messageBaseUrl + "/"
-        + activationCode.getCode());
+  private void encodePassword(Staff staff) {
+    if (!Objects.isNull(staff.getPassword())) {
+      staff.setPassword(this.passwordEncoder.encode(staff.getPassword()));
+    }
   }
 
-  private String getResetPasswordCodeBodyMessage(ActivationCode activationCode) {
-    return String.format("%s %s", this.messageResetPasswordText,
-        this.messageResetPasswordBaseUrl + "/"
-        + activationCode.getCode());
+  /**
+   * Renders a notification email whose link points to the given code.
+   *
+   * @param template the name of the email template
+   * @param baseUrl the base URL of the link
+   * @param activationCode the activation code
+   * @return the rendered subject and bodies
+   */
+  private EmailContent renderEmail(String template, String baseUrl,
+      ActivationCode activationCode) {
+    return this.emailTemplateRegistry.render(template, LocaleContextHolder.getLocale(),
+        Map.of("link", baseUrl + "/" + activationCode.getCode()));
   }
 
   /**
@@ -311,35 +442,29 @@ public class StaffService {
   }
 
   /**
-   * Finds a staff user by activation code.
+   * Finds a staff user by a non-expired activation code.
    *
    * @param notificationCode the notification code
    * @return an optional containing the staff user, or empty if not found
    */
   private Optional<Staff> findStaffByNotificationCode(String notificationCode) {
-    return this.staffRepository.findAll()
-        .stream()
-        .filter(staff -> staff.getActivationCodes()
-            .stream()
-            .anyMatch(code -> code.getCode().equals(notificationCode)
-                && code.getExpirationDate().isAfter(LocalDateTime.now())))
-        .findFirst();
+    return this.staffRepository.findByActivationCode(notificationCode, LocalDateTime.now());
   }
 
   /**
    * Asserts that a staff user is inactive for a specific company.
    *
-   * @param email the email of the staff user
+   * @param staff the staff user found for the company
    * @param taxIdentificationNumber the tax identification number of the company
+   * @return the same staff user
    * @throws ConflictException if the user is active
    */
-  private void assertStaffUserIsInactive(String email, String taxIdentificationNumber) {
-    this.staffRepository.findByEmailAndTaxIdentificationNumber(email, taxIdentificationNumber)
-        .filter(staff -> Status.ACTIVE.equals(staff.getStatus()))
-        .ifPresent(staff -> {
-          throw new ConflictException("Relationship is not inactive: email " + email
-              + " - taxIdentificationNumber " + taxIdentificationNumber);
-        });
+  private Staff assertStaffUserIsInactive(Staff staff, String taxIdentificationNumber) {
+    if (Status.ACTIVE.equals(staff.getStatus())) {
+      throw new ConflictException("Relationship is not inactive: email " + staff.getEmail()
+          + " - taxIdentificationNumber " + taxIdentificationNumber);
+    }
+    return staff;
   }
 
   private Staff assertStaffUserIsActive(String email) {
@@ -0,0 +1,22 @@
+package es.miw.tfm.invierte.user.service.exception;
+
+/**
+ * Exception class for handling service unavailable errors.
+ * This exception is thrown when a request cannot be accepted because a resource
+ * of the service is saturated, and it may succeed if retried later.
+ * It extends the `RuntimeException` class.
+ *
+ * @see java.lang.RuntimeException
+ * @see es.miw.tfm.invierte.user.service.exception
+ *
+ * @author denilssonmn
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+  private static final String DESCRIPTION = "Service Unavailable Exception";
+
+  public ServiceUnavailableException(String detail) {
+    super(DESCRIPTION + ". " + detail);
+  }
+
+}
@@ -0,0 +1,22 @@
+package es.miw.tfm.invierte.user.service.exception;
+
+/**
+ * Exception class for handling authentication errors.
+ * This exception is thrown when the credentials of a request are missing or do not
+ * belong to an active user.
+ * It extends the `RuntimeException` class.
+ *
+ * @see java.lang.RuntimeException
+ * @see es.miw.tfm.invierte.user.service.exception
+ *
+ * @author denilssonmn
+ */
+public class UnauthorizedException extends RuntimeException {
+
+  private static final String DESCRIPTION = "Unauthorized Exception";
+
+  public UnauthorizedException(String detail) {
+    super(DESCRIPTION + ". " + detail);
+  }
+
+}
@@ -0,0 +1,26 @@
+package es.miw.tfm.invierte.user.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Subject and bodies of a rendered email template.
+ * The HTML body is null when the template only has a plain-text version.
+ *
+ * @author denilssonmn
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class EmailContent {
+
+  private final String subject;
+
+  @ToString.Exclude
+  private final String text;
+
+  @ToString.Exclude
+  private final String html;
+
+}
@@ -0,0 +1,35 @@
+package es.miw.tfm.invierte.user.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outbound email waiting to be delivered by the `EmailService`.
+ * It is sent as plain text, or as a text and HTML alternative when it has an HTML body.
+ * The bodies are excluded from `toString`, since they carry activation and reset links.
+ *
+ * @author denilssonmn
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@ToString
+public class EmailMessage {
+
+  private final String to;
+
+  private final String subject;
+
+  @ToString.Exclude
+  private final String body;
+
+  @ToString.Exclude
+  private final String htmlBody;
+
+  public EmailMessage(String to, String subject, String body) {
+    this(to, subject, body, null);
+  }
+
+}
@@ -0,0 +1,106 @@
+package es.miw.tfm.invierte.user.service.model;
+
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.data.model.projection.StaffLoginView;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Authenticated staff user resolved during HTTP Basic authentication.
+ * Besides the credentials, it keeps the name and company roles read by the same query,
+ * so the token can be minted without loading the staff user again. Staff users that are
+ * not active are disabled, so their authentication is rejected.
+ *
+ * @see es.miw.tfm.invierte.user.data.model.projection.StaffLoginView
+ *
+ * @author denilssonmn
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class StaffUserDetails extends User {
+
+  private final String firstName;
+
+  private final transient Map<String, String> companyRoles;
+
+  /**
+   * Constructs a `StaffUserDetails` from the login projection rows of a staff user.
+   *
+   * @param loginView the login projection rows, one per company; must not be empty
+   */
+  public StaffUserDetails(List<? extends StaffLoginView> loginView) {
+    super(loginView.getFirst().getEmail(), loginView.getFirst().getPassword(),
+        Status.ACTIVE.equals(loginView.getFirst().getStatus()), true, true, true,
+        Collections.emptyList());
+    this.firstName = loginView.getFirst().getFirstName();
+    this.companyRoles = companyRoles(loginView);
+  }
+
+  /**
+   * Constructs a `StaffUserDetails` from the credentials kept in memory.
+   *
+   * @param email the email of the staff user
+   * @param password the encoded password
+   * @param enabled whether the staff user is active
+   * @param firstName the first name of the staff user
+   * @param companyRoles the company roles of the active memberships
+   */
+  public StaffUserDetails(String email, String password, boolean enabled, String firstName,
+      Map<String, String> companyRoles) {
+    super(email, password, enabled, true, true, true, Collections.emptyList());
+    this.firstName = firstName;
+    this.companyRoles = companyRoles;
+  }
+
+  private StaffUserDetails(StaffUserDetails staffUserDetails, String password) {
+    super(staffUserDetails.getUsername(), password, staffUserDetails.isEnabled(), true, true,
+        true, staffUserDetails.getAuthorities());
+    this.firstName = staffUserDetails.firstName;
+    this.companyRoles = staffUserDetails.companyRoles;
+  }
+
+  /**
+   * Copies this user with another password, as done after upgrading its hash.
+   *
+   * @param password the new encoded password
+   * @return a copy of this user with the given password
+   */
+  public StaffUserDetails withPassword(String password) {
+    return new StaffUserDetails(this, password);
+  }
+
+  /**
+   * Builds the `taxIdentificationNumber -> companyRole` map of the active companies,
+   * starting with the company of the staff profile and followed by its memberships.
+   * A staff profile that is not active has no roles, whatever its memberships.
+   *
+   * @param loginView the login projection rows of a staff user
+   * @return the company roles of the active memberships
+   */
+  public static Map<String, String> companyRoles(List<? extends StaffLoginView> loginView) {
+    if (loginView.isEmpty() || !Status.ACTIVE.equals(loginView.getFirst().getStatus())) {
+      return Collections.emptyMap();
+    }
+    final Map<String, String> companyRoles = new HashMap<>();
+    loginView.stream()
+        .findFirst()
+        .filter(row -> !Objects.isNull(row.getTaxIdentificationNumber())
+            && !Objects.isNull(row.getCompanyRole()))
+        .ifPresent(row -> companyRoles.put(row.getTaxIdentificationNumber(),
+            row.getCompanyRole().name()));
+    loginView.stream()
+        .filter(row -> Status.ACTIVE.equals(row.getMembershipStatus()))
+        .filter(row -> !Objects.isNull(row.getMembershipTaxIdentificationNumber())
+            && !Objects.isNull(row.getMembershipCompanyRole()))
+        .forEach(row -> companyRoles.putIfAbsent(row.getMembershipTaxIdentificationNumber(),
+            row.getMembershipCompanyRole().name()));
+    return Collections.unmodifiableMap(companyRoles);
+  }
+
+}
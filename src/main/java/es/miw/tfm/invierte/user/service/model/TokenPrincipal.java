@@ -0,0 +1,33 @@
+package es.miw.tfm.invierte.user.service.model;
+
+import java.time.Instant;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Principal parsed from a verified JWT token.
+ * This class holds the claims the application reads from a token once its signature,
+ * issuer and validity window have been checked.
+ *
+ * @author denilssonmn
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@ToString
+public class TokenPrincipal {
+
+  private final String user;
+
+  private final String name;
+
+  private final String role;
+
+  private final Map<String, Object> companyRoles;
+
+  private final Instant expiresAt;
+
+}
@@ -0,0 +1,121 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder whose cost is calibrated at startup to a target hashing latency.
+ * A stored hash needs an upgrade when its cost is more than the upgrade tolerance below the
+ * calibrated cost, or above the maximum cost. Hashes are never downgraded within that
+ * range, so instances calibrated to adjacent costs, or a redeploy on a noisier host, do not
+ * rehash the same users back and forth on every login.
+ *
+ * @see es.miw.tfm.invierte.user.service.util.PasswordHashingService
+ *
+ * @author denilssonmn
+ */
+@Log4j2
+@Getter
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+  private static final Pattern BCRYPT_PATTERN =
+      Pattern.compile("\\A\\$2[abxy]?\\$(\\d\\d)\\$.{53}");
+
+  private static final String CALIBRATION_PASSWORD = "calibration-Passw0rd";
+
+  private final int strength;
+
+  private final int upgradeTolerance;
+
+  private final int maxStrength;
+
+  /**
+   * Creates an encoder with a pinned cost: every hash with another cost needs an upgrade.
+   *
+   * @param strength the cost of the new hashes
+   */
+  public CalibratedBCryptPasswordEncoder(int strength) {
+    this(strength, 0, strength);
+  }
+
+  /**
+   * Creates an encoder whose stored hashes are kept while their cost stays within
+   * `strength - upgradeTolerance` and `maxStrength`.
+   *
+   * @param strength the cost of the new hashes
+   * @param upgradeTolerance how many cost steps below `strength` a stored hash may be
+   * @param maxStrength the highest cost a stored hash may have
+   */
+  public CalibratedBCryptPasswordEncoder(int strength, int upgradeTolerance, int maxStrength) {
+    super(strength);
+    this.strength = strength;
+    this.upgradeTolerance = upgradeTolerance;
+    this.maxStrength = Math.max(strength, maxStrength);
+  }
+
+  /**
+   * Creates an encoder with the cost whose median hashing time is closest to the target.
+   * The costs are measured in increasing order, from the minimum until one reaches the
+   * target latency.
+   *
+   * @param targetLatency the target hashing latency
+   * @param minStrength the minimum cost
+   * @param maxStrength the maximum cost
+   * @param samples the number of hashes measured per cost
+   * @param upgradeTolerance how many cost steps below the calibrated one a stored hash may be
+   * @return the calibrated encoder
+   */
+  public static CalibratedBCryptPasswordEncoder calibrate(Duration targetLatency,
+      int minStrength, int maxStrength, int samples, int upgradeTolerance) {
+    if (minStrength >= maxStrength) {
+      return new CalibratedBCryptPasswordEncoder(maxStrength, upgradeTolerance, maxStrength);
+    }
+    final long target = targetLatency.toNanos();
+    new BCryptPasswordEncoder(minStrength).encode(CALIBRATION_PASSWORD);
+    int strength = minStrength;
+    long previousMedian = 0;
+    long median = medianNanos(strength, samples);
+    while (median < target && strength < maxStrength) {
+      strength++;
+      previousMedian = median;
+      median = medianNanos(strength, samples);
+    }
+    if (median > target && strength > minStrength && target - previousMedian < median - target) {
+      strength--;
+      median = previousMedian;
+    }
+    log.info("BCrypt cost calibrated to {} ({} ms per hash, target {} ms)", strength,
+        Duration.ofNanos(median).toMillis(), targetLatency.toMillis());
+    return new CalibratedBCryptPasswordEncoder(strength, upgradeTolerance, maxStrength);
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    if (encodedPassword == null) {
+      return false;
+    }
+    final var matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+    if (!matcher.matches()) {
+      return false;
+    }
+    final int cost = Integer.parseInt(matcher.group(1));
+    return cost < this.strength - this.upgradeTolerance || cost > this.maxStrength;
+  }
+
+  private static long medianNanos(int strength, int samples) {
+    final var encoder = new BCryptPasswordEncoder(strength);
+    final var times = new long[samples];
+    for (int i = 0; i < samples; i++) {
+      final long start = System.nanoTime();
+      encoder.encode(CALIBRATION_PASSWORD);
+      times[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(times);
+    return times[samples / 2];
+  }
+
+}
@@ -0,0 +1,424 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.data.model.enums.SystemRole;
+import es.miw.tfm.invierte.user.data.model.enums.UserKind;
+import es.miw.tfm.invierte.user.data.model.projection.CredentialView;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of the credentials of every user, enabled by
+ * `tfm.auth.directory.enabled`, so the HTTP Basic authentication of the token endpoints
+ * never queries the database.
+ *
+ * <p>Once the application is ready, a platform thread opens its own connection to the
+ * primary database, listens on the `credential_change` channel, where the triggers of the
+ * `R__credential_change_triggers` migration publish the email of every changed user, and
+ * streams all the credentials with the `tfm.auth.directory.fetch-size` fetch size. Those
+ * triggers only exist while the directory is enabled. Every notification
+ * reloads the credentials of that email through the same connection, so a change made
+ * by any instance is visible to all of them as soon as its transaction commits.
+ *
+ * <p>Entries keep the password hash as read and share the first names and company role
+ * maps that are equal, which takes under 300 bytes per staff user, and the directory holds
+ * at most `tfm.auth.directory.max-users` users. The directory is not ready, and the callers
+ * read the database, until the first load completes, after losing the connection, when
+ * notifications may have been missed, and for good when the users exceed that budget, in
+ * which case the loaded entries are dropped.
+ *
+ * @see es.miw.tfm.invierte.user.configuration.SecurityConfiguration
+ *
+ * @author denilssonmn
+ */
+@Log4j2
+@Component
+public class CredentialDirectory {
+
+  static final String CHANNEL = "credential_change";
+
+  private static final String CREDENTIALS = "SELECT u.email, u.first_name, u.password, "
+      + "CASE WHEN o.id IS NULL THEN 'STAFF' ELSE 'OPERATOR' END AS kind, o.system_role, "
+      + "s.status, s.tax_identification_number, s.company_role, "
+      + "m.tax_identification_number AS membership_tax_identification_number, "
+      + "m.company_role AS membership_company_role, m.status AS membership_status "
+      + "FROM user_profile u "
+      + "LEFT JOIN operator_profile o ON o.id = u.id "
+      + "LEFT JOIN staff_profile s ON s.id = u.id "
+      + "LEFT JOIN staff_membership m ON m.staff_id = s.id ";
+
+  private static final String ALL_CREDENTIALS = CREDENTIALS + "ORDER BY u.email";
+
+  private static final String CREDENTIALS_BY_EMAIL = CREDENTIALS + "WHERE u.email = ?";
+
+  private final DataSourceProperties dataSourceProperties;
+
+  private final boolean enabled;
+
+  private final int maxUsers;
+
+  private final int fetchSize;
+
+  private final Duration pollTimeout;
+
+  private final Duration reconnectDelay;
+
+  private final Counter changes;
+
+  private final Map<String, String> firstNames = new HashMap<>();
+
+  private final Map<Map<String, String>, Map<String, String>> companyRoles = new HashMap<>();
+
+  private volatile Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private volatile boolean ready;
+
+  private volatile boolean exceeded;
+
+  private volatile boolean running;
+
+  private volatile Connection connection;
+
+  private Thread listener;
+
+  /**
+   * Constructs a `CredentialDirectory`.
+   *
+   * @param dataSourceProperties the connection settings of the primary database
+   * @param enabled whether authentication reads the credentials from memory
+   * @param maxUsers the maximum number of users kept in memory
+   * @param fetchSize the rows fetched per round trip while loading every user
+   * @param pollTimeout the maximum wait for a notification before checking for shutdown
+   * @param reconnectDelay the wait before reconnecting after losing the connection
+   * @param meterRegistry the registry of the directory metrics
+   */
+  public CredentialDirectory(DataSourceProperties dataSourceProperties,
+      @Value("${tfm.auth.directory.enabled}") boolean enabled,
+      @Value("${tfm.auth.directory.max-users}") int maxUsers,
+      @Value("${tfm.auth.directory.fetch-size}") int fetchSize,
+      @Value("${tfm.auth.directory.poll-timeout}") Duration pollTimeout,
+      @Value("${tfm.auth.directory.reconnect-delay}") Duration reconnectDelay,
+      MeterRegistry meterRegistry) {
+    this.dataSourceProperties = dataSourceProperties;
+    this.enabled = enabled;
+    this.maxUsers = maxUsers;
+    this.fetchSize = fetchSize;
+    this.pollTimeout = pollTimeout;
+    this.reconnectDelay = reconnectDelay;
+    Gauge.builder("auth.directory.users", this, directory -> directory.entries.size())
+        .description("Users whose credentials are kept in memory")
+        .register(meterRegistry);
+    Gauge.builder("auth.directory.ready", this, directory -> directory.ready ? 1 : 0)
+        .description("Whether authentication reads the credentials from memory")
+        .register(meterRegistry);
+    this.changes = Counter.builder("auth.directory.changes")
+        .description("Credentials reloaded after a change notification")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Starts the thread that loads the credentials and keeps them up to date.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!this.enabled) {
+      return;
+    }
+    final DataSource dataSource = DataSourceBuilder.create()
+        .type(SimpleDriverDataSource.class)
+        .driverClassName(this.dataSourceProperties.determineDriverClassName())
+        .url(this.dataSourceProperties.determineUrl())
+        .username(this.dataSourceProperties.determineUsername())
+        .password(this.dataSourceProperties.determinePassword())
+        .build();
+    this.running = true;
+    this.listener = Thread.ofPlatform()
+        .daemon()
+        .name("credential-directory")
+        .start(() -> this.listen(dataSource));
+  }
+
+  /**
+   * Stops listening for changes and closes the connection.
+   */
+  @PreDestroy
+  public void stop() {
+    this.running = false;
+    this.ready = false;
+    this.closeConnection();
+    if (this.listener != null) {
+      try {
+        this.listener.join(this.pollTimeout.plus(this.reconnectDelay));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Tells whether the directory holds the current credentials of every user.
+   *
+   * @return true once loaded and while listening for changes
+   */
+  public boolean isReady() {
+    return this.ready;
+  }
+
+  /**
+   * Finds the credentials of a user, which are complete only while the directory is
+   * ready.
+   *
+   * @param email the email of the user
+   * @return the operator or staff user, or empty if there is no user with that email
+   */
+  public Optional<UserDetails> find(String email) {
+    final var entry = this.entries.get(email);
+    if (entry == null) {
+      return Optional.empty();
+    }
+    if (UserKind.OPERATOR.equals(entry.getKind())) {
+      return Optional.of(User.builder()
+          .username(email)
+          .password(entry.getPassword())
+          .roles(entry.getSystemRole().name())
+          .build());
+    }
+    return Optional.of(new StaffUserDetails(email, entry.getPassword(), entry.isEnabled(),
+        entry.getFirstName(), entry.getCompanyRoles()));
+  }
+
+  void apply(String email, List<? extends CredentialView> rows) {
+    if (this.exceeded) {
+      return;
+    }
+    if (rows.isEmpty()) {
+      this.entries.remove(email);
+      return;
+    }
+    if (this.entries.size() >= this.maxUsers && !this.entries.containsKey(email)) {
+      log.warn("More than {} users, authentication reads them from the database",
+          this.maxUsers);
+      this.exceeded = true;
+      this.running = false;
+      this.ready = false;
+      this.entries = new ConcurrentHashMap<>();
+      this.firstNames.clear();
+      this.companyRoles.clear();
+      return;
+    }
+    this.entries.put(email, this.toEntry(rows));
+  }
+
+  private Entry toEntry(List<? extends CredentialView> rows) {
+    final var first = rows.getFirst();
+    final var password = first.getPassword() == null ? "" : first.getPassword();
+    if (UserKind.OPERATOR.equals(first.getKind())) {
+      return new Entry(UserKind.OPERATOR, first.getSystemRole(), true, password, null,
+          Map.of());
+    }
+    final var firstName = first.getFirstName() == null ? null
+        : this.firstNames.computeIfAbsent(first.getFirstName(), name -> name);
+    return new Entry(UserKind.STAFF, null, Status.ACTIVE.equals(first.getStatus()), password,
+        firstName, this.companyRoles.computeIfAbsent(StaffUserDetails.companyRoles(rows),
+            roles -> roles));
+  }
+
+  private void listen(DataSource dataSource) {
+    while (this.running) {
+      try (Connection listening = dataSource.getConnection()) {
+        this.connection = listening;
+        try (Statement statement = listening.createStatement()) {
+          statement.execute("LISTEN " + CHANNEL);
+        }
+        this.loadAll(listening);
+        final var pgConnection = listening.unwrap(PGConnection.class);
+        while (this.running) {
+          this.reload(listening,
+              pgConnection.getNotifications((int) this.pollTimeout.toMillis()));
+        }
+      } catch (SQLException e) {
+        this.ready = false;
+        if (this.running) {
+          log.warn("Credential directory disconnected, reconnecting in {}",
+              this.reconnectDelay, e);
+          this.pause();
+        }
+      } finally {
+        this.connection = null;
+      }
+    }
+  }
+
+  private void loadAll(Connection connection) throws SQLException {
+    final long start = System.nanoTime();
+    this.entries = new ConcurrentHashMap<>();
+    this.firstNames.clear();
+    this.companyRoles.clear();
+    connection.setAutoCommit(false);
+    try (PreparedStatement statement = connection.prepareStatement(ALL_CREDENTIALS)) {
+      statement.setFetchSize(this.fetchSize);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        final List<Row> rows = new ArrayList<>();
+        while (this.running && resultSet.next()) {
+          final var row = toRow(resultSet);
+          if (!rows.isEmpty() && !rows.getFirst().getEmail().equals(row.getEmail())) {
+            this.apply(rows.getFirst().getEmail(), rows);
+            rows.clear();
+          }
+          rows.add(row);
+        }
+        if (!rows.isEmpty()) {
+          this.apply(rows.getFirst().getEmail(), rows);
+        }
+      }
+      connection.commit();
+    } finally {
+      connection.setAutoCommit(true);
+    }
+    this.ready = this.running;
+    log.debug("Credential directory loaded {} users in {} ms", this.entries.size(),
+        Duration.ofNanos(System.nanoTime() - start).toMillis());
+  }
+
+  private void reload(Connection connection, PGNotification[] notifications)
+      throws SQLException {
+    if (notifications == null) {
+      return;
+    }
+    final Set<String> emails = new LinkedHashSet<>();
+    for (PGNotification notification : notifications) {
+      emails.add(notification.getParameter());
+    }
+    try (PreparedStatement statement = connection.prepareStatement(CREDENTIALS_BY_EMAIL)) {
+      for (String email : emails) {
+        statement.setString(1, email);
+        final List<Row> rows = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+          while (resultSet.next()) {
+            rows.add(toRow(resultSet));
+          }
+        }
+        this.apply(email, rows);
+        this.changes.increment();
+      }
+    }
+  }
+
+  private static Row toRow(ResultSet resultSet) throws SQLException {
+    return new Row(resultSet.getString("email"),
+        resultSet.getString("first_name"),
+        resultSet.getString("password"),
+        toEnum(UserKind.class, resultSet.getString("kind")),
+        toEnum(SystemRole.class, resultSet.getString("system_role")),
+        toEnum(Status.class, resultSet.getString("status")),
+        resultSet.getString("tax_identification_number"),
+        toEnum(CompanyRole.class, resultSet.getString("company_role")),
+        resultSet.getString("membership_tax_identification_number"),
+        toEnum(CompanyRole.class, resultSet.getString("membership_company_role")),
+        toEnum(Status.class, resultSet.getString("membership_status")));
+  }
+
+  private static <E extends Enum<E>> E toEnum(Class<E> type, String name) {
+    return name == null ? null : Enum.valueOf(type, name);
+  }
+
+  private void pause() {
+    try {
+      Thread.sleep(this.reconnectDelay);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.running = false;
+    }
+  }
+
+  private void closeConnection() {
+    final var current = this.connection;
+    if (current != null) {
+      try {
+        current.close();
+      } catch (SQLException e) {
+        log.debug("Credential directory connection already closed", e);
+      }
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  private static final class Row implements CredentialView {
+
+    private final String email;
+
+    private final String firstName;
+
+    private final String password;
+
+    private final UserKind kind;
+
+    private final SystemRole systemRole;
+
+    private final Status status;
+
+    private final String taxIdentificationNumber;
+
+    private final CompanyRole companyRole;
+
+    private final String membershipTaxIdentificationNumber;
+
+    private final CompanyRole membershipCompanyRole;
+
+    private final Status membershipStatus;
+
+  }
+
+  @Getter
+  @AllArgsConstructor
+  private static final class Entry {
+
+    private final UserKind kind;
+
+    private final SystemRole systemRole;
+
+    private final boolean enabled;
+
+    private final String password;
+
+    private final String firstName;
+
+    private final Map<String, String> companyRoles;
+
+  }
+
+}
@@ -0,0 +1,23 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import es.miw.tfm.invierte.user.service.model.EmailMessage;
+
+/**
+ * Destination of the emails that the `EmailOutboxRelay` could not deliver,
+ * either because every retry failed or because the failure was permanent.
+ *
+ * @see es.miw.tfm.invierte.user.service.EmailOutboxRelay
+ *
+ * @author denilssonmn
+ */
+public interface DeadLetterSink {
+
+  /**
+   * Receives an undeliverable email.
+   *
+   * @param message the email that could not be delivered
+   * @param cause the last delivery error
+   */
+  void accept(EmailMessage message, Exception cause);
+
+}
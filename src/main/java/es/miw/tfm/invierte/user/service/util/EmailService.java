@@ -1,42 +1,161 @@
 package es.miw.tfm.invierte.user.service.util;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import es.miw.tfm.invierte.user.service.exception.ServiceUnavailableException;
+import es.miw.tfm.invierte.user.service.model.EmailMessage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 /**
  * Service class for sending emails.
- * This class provides functionality to send simple email messages using the configured
- * `JavaMailSender`.
+ * This class provides functionality to send text and HTML email messages over the SMTP
+ * sessions of the `SmtpTransportPool`, which are kept open and reused across messages.
  *
- * <p>Utilizes Spring's email support to send messages with specified recipients, subjects,
- * and bodies.
+ * <p>Emails are sent in batches and the delivery error of each one is returned to the
+ * caller. It does not retry: the `EmailOutboxRelay` owns the retries and dead letters of
+ * the emails it claims from the outbox.
  *
- * @see org.springframework.mail.javamail.JavaMailSender
- * @see org.springframework.mail.SimpleMailMessage
+ * <p>Jakarta Mail sends inside `synchronized` methods, which pin a virtual thread to its
+ * carrier for the whole SMTP exchange. SMTP I/O therefore always runs on platform threads:
+ * a batch sent from a virtual thread is handed to a short-lived platform thread.
+ *
+ * @see es.miw.tfm.invierte.user.service.util.SmtpTransportPool
+ * @see org.springframework.mail.javamail.MimeMessageHelper
+ * @see es.miw.tfm.invierte.user.service.EmailOutboxRelay
  *
  * @author denilssonmn
  */
 @Service
-@RequiredArgsConstructor
 public class EmailService {
 
-  private final JavaMailSender mailSender;
+  private final SmtpTransportPool transportPool;
+
+  private final Timer sentTimer;
+
+  private final Timer failedTimer;
+
+  private final DistributionSummary batchRate;
+
+  /**
+   * Constructs an `EmailService`.
+   *
+   * @param transportPool the pool of SMTP sessions used to deliver the emails
+   * @param registry the registry where the delivery metrics are published
+   */
+  public EmailService(SmtpTransportPool transportPool, MeterRegistry registry) {
+    this.transportPool = transportPool;
+    this.sentTimer = Timer.builder("email.send")
+        .description("Latency of the SMTP delivery attempts")
+        .tag("outcome", "success")
+        .register(registry);
+    this.failedTimer = Timer.builder("email.send")
+        .description("Latency of the SMTP delivery attempts")
+        .tag("outcome", "failure")
+        .register(registry);
+    this.batchRate = DistributionSummary.builder("email.batch.rate")
+        .description("Emails sent per second within each batch")
+        .baseUnit("messages/s")
+        .register(registry);
+  }
+
+  /**
+   * Sends a batch of emails synchronously over a pooled SMTP session.
+   * A message rejected by the server does not stop the batch; if the session itself fails,
+   * the remaining messages continue on a new session. When called from a virtual thread,
+   * the batch is sent on a platform thread while the caller waits.
+   *
+   * @param messages the emails to send
+   * @return the delivery error of each email that could not be sent, empty if all were sent
+   */
+  public Map<EmailMessage, Exception> sendBatch(List<EmailMessage> messages) {
+    if (!Thread.currentThread().isVirtual()) {
+      return this.sendBatchOnCurrentThread(messages);
+    }
+    final var task = new FutureTask<>(() -> this.sendBatchOnCurrentThread(messages));
+    Thread.ofPlatform().daemon().name("email-batch").start(task);
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException("Interrupted while sending the emails");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private Map<EmailMessage, Exception> sendBatchOnCurrentThread(List<EmailMessage> messages) {
+    final Map<EmailMessage, Exception> failures = new HashMap<>();
+    final long batchStart = System.nanoTime();
+    SmtpTransportPool.PooledTransport transport = null;
+    try {
+      for (EmailMessage message : messages) {
+        final long start = System.nanoTime();
+        try {
+          if (transport != null && this.transportPool.isAtMessageLimit(transport)) {
+            this.transportPool.release(transport);
+            transport = null;
+          }
+          if (transport == null) {
+            transport = this.transportPool.borrow();
+          }
+          transport.send(this.toMimeMessage(message));
+          this.sentTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (MessagingException | MailException e) {
+          this.failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+          failures.put(message, e);
+          if (transport != null && !transport.isConnected()) {
+            this.transportPool.invalidate(transport);
+            transport = null;
+          }
+        }
+      }
+    } finally {
+      if (transport != null) {
+        this.transportPool.release(transport);
+      }
+    }
+    final long elapsed = System.nanoTime() - batchStart;
+    if (elapsed > 0) {
+      this.batchRate.record((messages.size() - failures.size()) * 1e9 / elapsed);
+    }
+    return failures;
+  }
 
   /**
-   * Sends an email with the specified recipient, subject, and body.
+   * Builds the MIME message of an email: plain text, or a `multipart/alternative` with the
+   * text and HTML bodies when it has an HTML body.
    *
-   * @param to the recipient's email address
-   * @param subject the subject of the email
-   * @param body the body content of the email
+   * @param emailMessage the email
+   * @return the MIME message
+   * @throws MessagingException if an address or the content is not valid
    */
-  public void sendEmail(String to, String subject, String body) {
-    SimpleMailMessage message = new SimpleMailMessage();
-    message.setTo(to);
-    message.setSubject(subject);
-    message.setText(body);
-    mailSender.send(message);
+  private MimeMessage toMimeMessage(EmailMessage emailMessage) throws MessagingException {
+    final var mimeMessage = this.transportPool.createMimeMessage();
+    final var html = emailMessage.getHtmlBody() != null;
+    final var helper = new MimeMessageHelper(mimeMessage, html, StandardCharsets.UTF_8.name());
+    helper.setTo(emailMessage.getTo());
+    helper.setSubject(emailMessage.getSubject());
+    if (html) {
+      helper.setText(emailMessage.getBody(), emailMessage.getHtmlBody());
+    } else {
+      helper.setText(emailMessage.getBody());
+    }
+    return mimeMessage;
   }
 
 }
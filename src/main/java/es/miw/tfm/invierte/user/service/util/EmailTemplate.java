@@ -0,0 +1,111 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * Email template compiled from a text with `{{variable}}` placeholders.
+ * The source is parsed once into its literal fragments and variable names, so rendering
+ * is a single pass that appends them into a buffer sized to the exact output length.
+ * Values rendered into HTML templates are escaped.
+ *
+ * @see es.miw.tfm.invierte.user.service.util.EmailTemplateRegistry
+ *
+ * @author denilssonmn
+ */
+public final class EmailTemplate {
+
+  private static final String OPEN = "{{";
+
+  private static final String CLOSE = "}}";
+
+  private static final String ESCAPED = "<>&\"'";
+
+  private final String[] literals;
+
+  private final String[] variables;
+
+  private final int literalsLength;
+
+  private final boolean html;
+
+  private EmailTemplate(String[] literals, String[] variables, boolean html) {
+    this.literals = literals;
+    this.variables = variables;
+    this.html = html;
+    int length = 0;
+    for (String literal : literals) {
+      length += literal.length();
+    }
+    this.literalsLength = length;
+  }
+
+  /**
+   * Compiles a template source.
+   *
+   * @param source the template text
+   * @param html whether the values must be HTML-escaped when rendered
+   * @return the compiled template
+   * @throws IllegalArgumentException if a placeholder is not closed or has no name
+   */
+  public static EmailTemplate compile(String source, boolean html) {
+    final List<String> literals = new ArrayList<>();
+    final List<String> variables = new ArrayList<>();
+    int position = 0;
+    int open;
+    while ((open = source.indexOf(OPEN, position)) >= 0) {
+      final int close = source.indexOf(CLOSE, open + OPEN.length());
+      if (close < 0) {
+        throw new IllegalArgumentException("Unclosed placeholder at index " + open);
+      }
+      final var variable = source.substring(open + OPEN.length(), close).strip();
+      if (variable.isEmpty()) {
+        throw new IllegalArgumentException("Empty placeholder at index " + open);
+      }
+      literals.add(source.substring(position, open));
+      variables.add(variable);
+      position = close + CLOSE.length();
+    }
+    literals.add(source.substring(position));
+    return new EmailTemplate(literals.toArray(String[]::new), variables.toArray(String[]::new),
+        html);
+  }
+
+  /**
+   * Renders the template.
+   *
+   * @param values the value of each variable
+   * @return the rendered text
+   * @throws IllegalArgumentException if a variable has no value
+   */
+  public String render(Map<String, String> values) {
+    final var resolved = new String[this.variables.length];
+    int length = this.literalsLength;
+    for (int i = 0; i < this.variables.length; i++) {
+      final var value = values.get(this.variables[i]);
+      if (value == null) {
+        throw new IllegalArgumentException("Missing template variable: " + this.variables[i]);
+      }
+      resolved[i] = this.html && needsEscape(value) ? HtmlUtils.htmlEscape(value) : value;
+      length += resolved[i].length();
+    }
+    final var buffer = new StringBuilder(length);
+    buffer.append(this.literals[0]);
+    for (int i = 0; i < resolved.length; i++) {
+      buffer.append(resolved[i]).append(this.literals[i + 1]);
+    }
+    return buffer.toString();
+  }
+
+  private static boolean needsEscape(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (ESCAPED.indexOf(value.charAt(i)) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,189 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import es.miw.tfm.invierte.user.service.model.EmailContent;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of the compiled email templates.
+ * Each template is a directory under `tfm.mail.templates.location` with one subdirectory
+ * per locale holding `subject.txt`, `body.txt` and, optionally, `body.html`. Every
+ * configured template is compiled at startup and must exist for the default locale;
+ * other locales are optional and fall back to the default one.
+ *
+ * <p>When `tfm.mail.templates.reload` is enabled, meant for the dev profile only, a
+ * template is compiled again when its files change.
+ *
+ * @see es.miw.tfm.invierte.user.service.util.EmailTemplate
+ *
+ * @author denilssonmn
+ */
+@Log4j2
+@Component
+public class EmailTemplateRegistry {
+
+  private static final String SUBJECT = "subject.txt";
+
+  private static final String TEXT = "body.txt";
+
+  private static final String HTML = "body.html";
+
+  private final ResourceLoader resourceLoader;
+
+  private final String location;
+
+  private final List<String> names;
+
+  private final List<String> locales;
+
+  private final String defaultLocale;
+
+  private final boolean reload;
+
+  private final Map<String, CompiledEmail> templates = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs an `EmailTemplateRegistry`.
+   *
+   * @param resourceLoader the loader resolving the template files
+   * @param location the base location of the templates, ending with a slash
+   * @param names the names of the templates to compile
+   * @param locales the locales to look for, besides the default one
+   * @param defaultLocale the locale every template must provide
+   * @param reload whether the templates are compiled again when their files change
+   */
+  public EmailTemplateRegistry(ResourceLoader resourceLoader,
+      @Value("${tfm.mail.templates.location}") String location,
+      @Value("${tfm.mail.templates.names}") List<String> names,
+      @Value("${tfm.mail.templates.locales}") List<String> locales,
+      @Value("${tfm.mail.templates.default-locale}") String defaultLocale,
+      @Value("${tfm.mail.templates.reload}") boolean reload) {
+    this.resourceLoader = resourceLoader;
+    this.location = location;
+    this.names = names;
+    this.locales = locales;
+    this.defaultLocale = defaultLocale;
+    this.reload = reload;
+  }
+
+  /**
+   * Compiles every configured template.
+   *
+   * @throws IllegalStateException if a template is missing for the default locale
+   */
+  @PostConstruct
+  public void load() {
+    for (String name : this.names) {
+      if (!this.compile(name, this.defaultLocale)) {
+        throw new IllegalStateException("Missing email template " + name + " for locale "
+            + this.defaultLocale + " in " + this.location);
+      }
+      for (String locale : this.locales) {
+        this.compile(name, locale);
+      }
+    }
+    log.debug("Compiled {} email templates", this.templates.size());
+  }
+
+  /**
+   * Renders a template in the given locale, or in the default one if it has no variant
+   * for the locale language.
+   *
+   * @param name the name of the template
+   * @param locale the locale of the recipient
+   * @param values the value of each variable
+   * @return the rendered subject and bodies
+   * @throws IllegalArgumentException if the template does not exist or a variable is missing
+   */
+  public EmailContent render(String name, Locale locale, Map<String, String> values) {
+    var key = key(name, locale.getLanguage());
+    if (!this.templates.containsKey(key)) {
+      key = key(name, this.defaultLocale);
+    }
+    var compiled = this.templates.get(key);
+    if (compiled == null) {
+      throw new IllegalArgumentException("Unknown email template: " + name);
+    }
+    if (this.reload && compiled.lastModified != this.lastModified(compiled.directory)) {
+      this.compile(compiled.name, compiled.locale);
+      compiled = this.templates.get(key);
+    }
+    return new EmailContent(compiled.subject.render(values), compiled.text.render(values),
+        compiled.html == null ? null : compiled.html.render(values));
+  }
+
+  private boolean compile(String name, String locale) {
+    final var directory = this.location + name + "/" + locale + "/";
+    final var subject = this.resourceLoader.getResource(directory + SUBJECT);
+    final var text = this.resourceLoader.getResource(directory + TEXT);
+    if (!subject.exists() || !text.exists()) {
+      return false;
+    }
+    final var html = this.resourceLoader.getResource(directory + HTML);
+    this.templates.put(key(name, locale), new CompiledEmail(name, locale, directory,
+        this.lastModified(directory),
+        EmailTemplate.compile(read(subject).strip(), false),
+        EmailTemplate.compile(read(text).stripTrailing(), false),
+        html.exists() ? EmailTemplate.compile(read(html), true) : null));
+    return true;
+  }
+
+  private long lastModified(String directory) {
+    long lastModified = 0;
+    for (String file : List.of(SUBJECT, TEXT, HTML)) {
+      final var resource = this.resourceLoader.getResource(directory + file);
+      try {
+        if (resource.exists()) {
+          lastModified = Math.max(lastModified, resource.lastModified());
+        }
+      } catch (IOException e) {
+        log.debug("Cannot read the modification time of {}", resource, e);
+      }
+    }
+    return lastModified;
+  }
+
+  private static String read(Resource resource) {
+    try {
+      return resource.getContentAsString(StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read email template " + resource, e);
+    }
+  }
+
+  private static String key(String name, String locale) {
+    return name + "/" + locale;
+  }
+
+  @AllArgsConstructor
+  private static class CompiledEmail {
+
+    private final String name;
+
+    private final String locale;
+
+    private final String directory;
+
+    private final long lastModified;
+
+    private final EmailTemplate subject;
+
+    private final EmailTemplate text;
+
+    private final EmailTemplate html;
+
+  }
+
+}
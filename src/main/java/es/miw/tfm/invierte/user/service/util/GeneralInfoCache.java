@@ -0,0 +1,116 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import es.miw.tfm.invierte.user.api.dto.OperatorInfoDto;
+import es.miw.tfm.invierte.user.api.dto.StaffInfoDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through cache of the general information of staff users and operators, keyed by
+ * email.
+ * Each cache holds up to `tfm.general-info.cache.max-size` entries, evicted with the
+ * W-TinyLFU policy of Caffeine, and drops an entry `tfm.general-info.cache.ttl` after it
+ * was loaded. Hits and misses are published as the `general-info.staff` and
+ * `general-info.operator` cache metrics.
+ *
+ * <p>Changes evict the entry of the user once their transaction commits. A read that
+ * loaded the old row before the commit is either still running, and the eviction waits
+ * for it and removes its result, or already cached, and is removed, so no read started
+ * after the commit sees the old data.
+ *
+ * @author denilssonmn
+ */
+@Component
+public class GeneralInfoCache {
+
+  private final Cache<String, StaffInfoDto> staff;
+
+  private final Cache<String, OperatorInfoDto> operators;
+
+  /**
+   * Constructs a `GeneralInfoCache`.
+   *
+   * @param maxSize the maximum number of users kept in each cache
+   * @param ttl the time an entry is served after it was loaded
+   * @param meterRegistry the registry of the cache metrics
+   */
+  public GeneralInfoCache(@Value("${tfm.general-info.cache.max-size}") long maxSize,
+      @Value("${tfm.general-info.cache.ttl}") Duration ttl, MeterRegistry meterRegistry) {
+    this.staff = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+    this.operators = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, this.staff, "general-info.staff");
+    CaffeineCacheMetrics.monitor(meterRegistry, this.operators, "general-info.operator");
+  }
+
+  /**
+   * Returns the general information of a staff user, loading it on a miss.
+   *
+   * @param email the email of the staff user
+   * @param loader the read of the information, whose exceptions are not cached
+   * @return the general information
+   */
+  public StaffInfoDto getStaff(String email, Supplier<StaffInfoDto> loader) {
+    return this.staff.get(email, key -> loader.get());
+  }
+
+  /**
+   * Returns the general information of an operator, loading it on a miss.
+   *
+   * @param email the email of the operator
+   * @param loader the read of the information, whose exceptions are not cached
+   * @return the general information
+   */
+  public OperatorInfoDto getOperator(String email, Supplier<OperatorInfoDto> loader) {
+    return this.operators.get(email, key -> loader.get());
+  }
+
+  /**
+   * Evicts the general information of a staff user when the current transaction commits,
+   * or at once outside a transaction.
+   *
+   * @param email the email of the staff user
+   */
+  public void invalidateStaff(String email) {
+    afterCommit(() -> this.staff.invalidate(email));
+  }
+
+  /**
+   * Evicts the general information of an operator when the current transaction commits,
+   * or at once outside a transaction.
+   *
+   * @param email the email of the operator
+   */
+  public void invalidateOperator(String email) {
+    afterCommit(() -> this.operators.invalidate(email));
+  }
+
+  private static void afterCommit(Runnable eviction) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      eviction.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        eviction.run();
+      }
+    });
+  }
+
+}
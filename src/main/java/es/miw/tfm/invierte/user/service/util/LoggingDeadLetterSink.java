@@ -0,0 +1,23 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import es.miw.tfm.invierte.user.service.model.EmailMessage;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default `DeadLetterSink` that logs the undeliverable emails, without their body,
+ * so they can be traced. The emails stay in the `email_outbox` table with their
+ * `dead_lettered_at` set, and clearing it sends them again.
+ *
+ * @author denilssonmn
+ */
+@Log4j2
+@Component
+public class LoggingDeadLetterSink implements DeadLetterSink {
+
+  @Override
+  public void accept(EmailMessage message, Exception cause) {
+    log.error("Email could not be delivered: {}", message, cause);
+  }
+
+}
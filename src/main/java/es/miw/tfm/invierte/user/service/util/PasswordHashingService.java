@@ -0,0 +1,217 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import es.miw.tfm.invierte.user.service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Password encoder shared by every component that hashes or checks passwords, including
+ * the HTTP Basic authentication provider.
+ * New hashes are stored as `{bcrypt}` with the cost calibrated at startup to
+ * `tfm.password.hashing.target-latency`; legacy hashes without prefix are still accepted
+ * and reported as needing an upgrade, like hashes more than
+ * `tfm.password.hashing.upgrade-tolerance` cost steps below the calibrated cost or above
+ * `tfm.password.hashing.max-strength`.
+ *
+ * <p>Hashes run on a dedicated pool of `tfm.password.hashing.threads` threads, so a burst of
+ * logins or registrations can only take those cores and never starves the request threads
+ * serving cheap endpoints.
+ *
+ * <p>Callers are admitted in arrival order by a fair semaphore with as many permits as
+ * threads plus `tfm.password.hashing.queue-capacity`. A caller that gets no permit within
+ * the admission timeout receives a `ServiceUnavailableException`, which is answered with
+ * a 503. The time spent waiting and hashing is recorded per operation.
+ *
+ * @see org.springframework.security.crypto.password.PasswordEncoder
+ * @see es.miw.tfm.invierte.user.service.util.CalibratedBCryptPasswordEncoder
+ * @see es.miw.tfm.invierte.user.service.exception.ServiceUnavailableException
+ *
+ * @author denilssonmn
+ */
+@Service
+public class PasswordHashingService implements PasswordEncoder {
+
+  private static final String BCRYPT = "bcrypt";
+
+  private static final String ENCODE = "encode";
+
+  private static final String MATCHES = "matches";
+
+  private final PasswordEncoder delegate;
+
+  private final ThreadPoolExecutor executor;
+
+  private final Semaphore admission;
+
+  private final Duration admissionTimeout;
+
+  private final Timer encodeWait;
+
+  private final Timer encodeTime;
+
+  private final Timer matchesWait;
+
+  private final Timer matchesTime;
+
+  private final Counter rejected;
+
+  /**
+   * Constructs a `PasswordHashingService` hashing with a calibrated BCrypt cost.
+   *
+   * @param threads the number of hashing threads, or 0 to use half of the processors
+   * @param queueCapacity the number of callers that may wait for a hashing thread
+   * @param admissionTimeout the maximum time a caller waits to be admitted
+   * @param targetLatency the target time of a single hash
+   * @param minStrength the minimum BCrypt cost
+   * @param maxStrength the maximum BCrypt cost
+   * @param calibrationSamples the number of hashes measured per cost while calibrating
+   * @param upgradeTolerance how many cost steps below the calibrated one a stored hash may be
+   * @param meterRegistry the registry of the hashing metrics
+   */
+  @Autowired
+  public PasswordHashingService(@Value("${tfm.password.hashing.threads}") int threads,
+      @Value("${tfm.password.hashing.queue-capacity}") int queueCapacity,
+      @Value("${tfm.password.hashing.admission-timeout}") Duration admissionTimeout,
+      @Value("${tfm.password.hashing.target-latency}") Duration targetLatency,
+      @Value("${tfm.password.hashing.min-strength}") int minStrength,
+      @Value("${tfm.password.hashing.max-strength}") int maxStrength,
+      @Value("${tfm.password.hashing.calibration-samples}") int calibrationSamples,
+      @Value("${tfm.password.hashing.upgrade-tolerance}") int upgradeTolerance,
+      MeterRegistry meterRegistry) {
+    this(delegatingEncoder(CalibratedBCryptPasswordEncoder.calibrate(targetLatency,
+        minStrength, maxStrength, calibrationSamples, upgradeTolerance)), threads,
+        queueCapacity, admissionTimeout, meterRegistry);
+  }
+
+  PasswordHashingService(PasswordEncoder delegate, int threads, int queueCapacity,
+      Duration admissionTimeout, MeterRegistry meterRegistry) {
+    final int poolSize = threads > 0 ? threads
+        : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    this.delegate = delegate;
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), hashingThreadFactory());
+    this.admission = new Semaphore(poolSize + queueCapacity, true);
+    this.admissionTimeout = admissionTimeout;
+    this.encodeWait = timer("password.hashing.wait", ENCODE, meterRegistry);
+    this.encodeTime = timer("password.hashing.time", ENCODE, meterRegistry);
+    this.matchesWait = timer("password.hashing.wait", MATCHES, meterRegistry);
+    this.matchesTime = timer("password.hashing.time", MATCHES, meterRegistry);
+    this.rejected = Counter.builder("password.hashing.rejected")
+        .description("Password hashing requests rejected because the queue was full")
+        .register(meterRegistry);
+    Gauge.builder("password.hashing.queue", this.executor, pool -> pool.getQueue().size())
+        .description("Password hashing requests waiting for a thread")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return this.submit(this.encodeWait, this.encodeTime, () -> this.delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return this.submit(this.matchesWait, this.matchesTime,
+        () -> this.delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return this.delegate.upgradeEncoding(encodedPassword);
+  }
+
+  /**
+   * Stops the hashing threads.
+   */
+  @PreDestroy
+  public void stop() {
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * Runs a hashing operation on the hashing pool, once admitted.
+   *
+   * @param waitTimer the timer of the time waited until the operation starts
+   * @param timeTimer the timer of the operation
+   * @param task the hashing operation
+   * @return the result of the operation
+   * @throws ServiceUnavailableException if the caller is not admitted within the timeout
+   */
+  private <T> T submit(Timer waitTimer, Timer timeTimer, Callable<T> task) {
+    final long submitted = System.nanoTime();
+    this.acquire();
+    try {
+      return this.executor.submit(() -> {
+        final long started = System.nanoTime();
+        waitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+        try {
+          return task.call();
+        } finally {
+          timeTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+      }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException("Interrupted while hashing a password");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      this.admission.release();
+    }
+  }
+
+  private void acquire() {
+    try {
+      if (this.admission.tryAcquire(this.admissionTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        return;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    this.rejected.increment();
+    throw new ServiceUnavailableException("Password hashing queue is full");
+  }
+
+  private static PasswordEncoder delegatingEncoder(PasswordEncoder bcrypt) {
+    final var encoder = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+    encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+    return encoder;
+  }
+
+  private static ThreadFactory hashingThreadFactory() {
+    final var threadCount = new AtomicInteger();
+    return runnable -> {
+      final var thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static Timer timer(String name, String operation, MeterRegistry meterRegistry) {
+    return Timer.builder(name)
+        .tag("operation", operation)
+        .register(meterRegistry);
+  }
+
+}
@@ -0,0 +1,142 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process rate limiter with one token bucket per key.
+ * Each bucket is a single `AtomicLong` holding the instant at which it will be full again
+ * (generic cell rate algorithm), so a check is a lock-free compare-and-set with no
+ * allocation once the key is known.
+ *
+ * <p>Buckets live in a Caffeine cache bounded to `tfm.rate-limit.max-keys` entries, which
+ * evicts the least used keys first. Every `tfm.rate-limit.eviction-interval` the buckets
+ * that are full again are evicted too: a full bucket behaves like a missing one, so idle
+ * keys are dropped without losing any limit. The cache is bounded by size only, because
+ * time-based expiration makes every read several times slower.
+ *
+ * @see Limit
+ *
+ * @author denilssonmn
+ */
+@Log4j2
+@Component
+public class RateLimiter {
+
+  private final Cache<String, AtomicLong> buckets;
+
+  private final MeterRegistry meterRegistry;
+
+  private final long origin = System.nanoTime();
+
+  /**
+   * Constructs a `RateLimiter`.
+   *
+   * @param maxKeys the maximum number of buckets kept in memory
+   * @param meterRegistry the registry of the rate limiting metrics
+   */
+  public RateLimiter(@Value("${tfm.rate-limit.max-keys}") long maxKeys,
+      MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    this.buckets = Caffeine.newBuilder()
+        .maximumSize(maxKeys)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, this.buckets, "rate.limit.buckets");
+  }
+
+  /**
+   * Creates the limit of a policy, which allows bursts of `capacity` requests per key and
+   * refills them evenly along `refillPeriod`.
+   *
+   * @param policy the name of the policy, used to tag its metrics
+   * @param capacity the maximum number of requests in a burst
+   * @param refillPeriod the time needed to refill an empty bucket
+   * @return the limit
+   * @throws IllegalArgumentException if the capacity or the refill period are not positive
+   */
+  public Limit limit(String policy, int capacity, Duration refillPeriod) {
+    if (capacity <= 0 || refillPeriod.isNegative() || refillPeriod.isZero()) {
+      throw new IllegalArgumentException("Invalid rate limit for policy " + policy);
+    }
+    final var rejected = Counter.builder("rate.limit.rejected")
+        .description("Requests rejected by the rate limiter")
+        .tag("policy", policy)
+        .register(this.meterRegistry);
+    return new Limit(capacity, refillPeriod, rejected);
+  }
+
+  /**
+   * Takes a token from the bucket of the given key.
+   *
+   * @param key the key, which must include the policy when several limits share keys
+   * @param limit the limit of the bucket
+   * @return 0 if the request is allowed, otherwise the nanoseconds until a token is available
+   */
+  public long tryAcquire(String key, Limit limit) {
+    final var bucket = this.buckets.get(key, k -> new AtomicLong());
+    final long now = System.nanoTime() - this.origin;
+    while (true) {
+      final long fullAt = bucket.get();
+      final long next = Math.max(fullAt, now) + limit.intervalNanos;
+      final long wait = next - limit.burstNanos - now;
+      if (wait > 0) {
+        limit.rejected.increment();
+        return wait;
+      }
+      if (bucket.compareAndSet(fullAt, next)) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * Evicts the buckets that are full again. A check racing with the eviction of its bucket
+   * may be lost, which allows at most one extra request to a client that was idle.
+   */
+  @Scheduled(initialDelayString = "${tfm.rate-limit.eviction-interval}",
+      fixedDelayString = "${tfm.rate-limit.eviction-interval}")
+  public void evictIdleBuckets() {
+    final long now = System.nanoTime() - this.origin;
+    final int before = this.buckets.asMap().size();
+    this.buckets.asMap().values().removeIf(bucket -> bucket.get() <= now);
+    log.debug("Evicted {} idle rate limit buckets", before - this.buckets.asMap().size());
+  }
+
+  /**
+   * Capacity and refill rate shared by the buckets of a policy.
+   */
+  @Getter
+  public static final class Limit {
+
+    private final int capacity;
+
+    private final Duration refillPeriod;
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final Counter rejected;
+
+    private Limit(int capacity, Duration refillPeriod, Counter rejected) {
+      this.capacity = capacity;
+      this.refillPeriod = refillPeriod;
+      this.intervalNanos = refillPeriod.toNanos() / capacity;
+      this.burstNanos = this.intervalNanos * capacity;
+      this.rejected = rejected;
+    }
+
+  }
+
+}
@@ -0,0 +1,88 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the reads of a user on the primary database for a while after the user changed
+ * its data, so it never sees an older copy from a lagging replica.
+ * Writes are remembered by email for `tfm.datasource.replica.sticky-window`, which must be
+ * longer than the maximum replica lag, and the reads wrapped in
+ * {@link #read(String, Supplier)} for a recently written email mark the current thread,
+ * so the routing `DataSource` hands it a primary connection.
+ *
+ * <p>Writes are remembered in memory, so the guarantee holds for the requests served by
+ * the same instance that made the change.
+ *
+ * @see es.miw.tfm.invierte.user.configuration.ReplicaRoutingDataSource
+ *
+ * @author denilssonmn
+ */
+@Component
+public class ReadYourWrites {
+
+  private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+  private final Cache<String, Boolean> recentWrites;
+
+  /**
+   * Constructs a `ReadYourWrites`.
+   *
+   * @param stickyWindow the time the reads of a user stay on the primary after a write
+   * @param maxKeys the maximum number of recent writes kept in memory
+   */
+  public ReadYourWrites(
+      @Value("${tfm.datasource.replica.sticky-window}") Duration stickyWindow,
+      @Value("${tfm.datasource.replica.sticky-max-keys}") long maxKeys) {
+    this.recentWrites = Caffeine.newBuilder()
+        .expireAfterWrite(stickyWindow)
+        .maximumSize(maxKeys)
+        .build();
+  }
+
+  /**
+   * Tells whether the current thread must read from the primary database.
+   *
+   * @return true inside a read of a recently written user
+   */
+  public static boolean isPrimaryRequired() {
+    return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+  }
+
+  /**
+   * Records a write of the data of a user.
+   *
+   * @param email the email of the user
+   */
+  public void recordWrite(String email) {
+    this.recentWrites.put(email.toLowerCase(Locale.ROOT), Boolean.TRUE);
+  }
+
+  /**
+   * Runs a read of the data of a user, on the primary database if the user was written
+   * within the sticky window.
+   *
+   * @param email the email of the user
+   * @param reader the read
+   * @param <T> the type of the result
+   * @return the result of the read
+   */
+  public <T> T read(String email, Supplier<T> reader) {
+    if (email == null || isPrimaryRequired()
+        || this.recentWrites.getIfPresent(email.toLowerCase(Locale.ROOT)) == null) {
+      return reader.get();
+    }
+    PRIMARY_REQUIRED.set(Boolean.TRUE);
+    try {
+      return reader.get();
+    } finally {
+      PRIMARY_REQUIRED.remove();
+    }
+  }
+
+}
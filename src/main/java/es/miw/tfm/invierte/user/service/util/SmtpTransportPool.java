@@ -0,0 +1,274 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pool of connected and authenticated SMTP transports.
+ * Opening an SMTP session costs a TCP connection, a TLS handshake and an authentication,
+ * so sessions are kept open and reused by the `EmailService` instead of opening one per
+ * email as `JavaMailSender.send` does.
+ *
+ * <p>At most `max-size` sessions are open at a time. An idle session is checked before
+ * being reused and is closed when it has been idle longer than `max-idle`, or once it has
+ * sent `max-messages-per-session` emails, since many servers limit both. Callers sending
+ * several emails over one session check `isAtMessageLimit` before each of them.
+ *
+ * @see org.springframework.mail.javamail.JavaMailSenderImpl
+ * @see es.miw.tfm.invierte.user.service.util.EmailService
+ *
+ * @author denilssonmn
+ */
+@Log4j2
+@Component
+public class SmtpTransportPool {
+
+  private static final String DEFAULT_PROTOCOL = "smtp";
+
+  private final JavaMailSenderImpl mailSender;
+
+  private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+  private final Semaphore permits;
+
+  private final Duration maxIdle;
+
+  private final int maxMessagesPerSession;
+
+  private final Duration borrowTimeout;
+
+  private final Counter opened;
+
+  private final Counter reused;
+
+  private volatile boolean closed;
+
+  /**
+   * Constructs a `SmtpTransportPool`.
+   *
+   * @param mailSender the configured sender, providing the mail session and server settings
+   * @param maxSize the maximum number of open sessions
+   * @param maxIdle the maximum time a session is kept open without sending
+   * @param maxMessagesPerSession the number of emails after which a session is closed
+   * @param borrowTimeout the maximum time waited for a free session
+   * @param registry the registry where the pool metrics are published
+   */
+  public SmtpTransportPool(JavaMailSenderImpl mailSender,
+      @Value("${tfm.mail.pool.max-size}") int maxSize,
+      @Value("${tfm.mail.pool.max-idle}") Duration maxIdle,
+      @Value("${tfm.mail.pool.max-messages-per-session}") int maxMessagesPerSession,
+      @Value("${tfm.mail.pool.borrow-timeout}") Duration borrowTimeout,
+      MeterRegistry registry) {
+    this.mailSender = mailSender;
+    this.permits = new Semaphore(maxSize, true);
+    this.maxIdle = maxIdle;
+    this.maxMessagesPerSession = maxMessagesPerSession;
+    this.borrowTimeout = borrowTimeout;
+    this.opened = Counter.builder("email.smtp.sessions.opened")
+        .description("SMTP sessions opened, authenticated and handed out")
+        .register(registry);
+    this.reused = Counter.builder("email.smtp.sessions.reused")
+        .description("SMTP sessions handed out again without reconnecting")
+        .register(registry);
+    Gauge.builder("email.smtp.sessions.reuse.ratio", this, SmtpTransportPool::reuseRatio)
+        .description("Share of the handed out SMTP sessions that were reused")
+        .register(registry);
+    Gauge.builder("email.smtp.sessions.idle", this.idle, BlockingDeque::size)
+        .description("Open SMTP sessions waiting to be reused")
+        .register(registry);
+  }
+
+  /**
+   * Hands out an open session, reusing an idle one when it is still usable.
+   * The session must be given back with `release` or `invalidate`.
+   *
+   * @return an open and authenticated session
+   * @throws MessagingException if no session is free in time or the server cannot be reached
+   */
+  public PooledTransport borrow() throws MessagingException {
+    this.acquirePermit();
+    try {
+      PooledTransport pooled;
+      while ((pooled = this.idle.pollFirst()) != null) {
+        if (!pooled.isIdleLongerThan(this.maxIdle) && pooled.isConnected()) {
+          this.reused.increment();
+          return pooled;
+        }
+        closeQuietly(pooled);
+      }
+      pooled = new PooledTransport(this.connect());
+      this.opened.increment();
+      return pooled;
+    } catch (MessagingException | RuntimeException e) {
+      this.permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Gives back a session after use, keeping it open for reuse unless it has reached its
+   * message limit or the pool is closed.
+   *
+   * @param pooled the borrowed session
+   */
+  public void release(PooledTransport pooled) {
+    if (this.closed || this.isAtMessageLimit(pooled)) {
+      closeQuietly(pooled);
+    } else {
+      pooled.touch();
+      this.idle.offerFirst(pooled);
+    }
+    this.permits.release();
+  }
+
+  /**
+   * Tells whether a session has sent `max-messages-per-session` emails, so it must be
+   * given back and replaced before sending another one.
+   *
+   * @param pooled the borrowed session
+   * @return true if the session reached its message limit
+   */
+  public boolean isAtMessageLimit(PooledTransport pooled) {
+    return pooled.getMessages() >= this.maxMessagesPerSession;
+  }
+
+  /**
+   * Gives back a session that failed, closing it.
+   *
+   * @param pooled the borrowed session
+   */
+  public void invalidate(PooledTransport pooled) {
+    closeQuietly(pooled);
+    this.permits.release();
+  }
+
+  /**
+   * Creates an empty message for the pooled mail session.
+   *
+   * @return a new MIME message
+   */
+  public MimeMessage createMimeMessage() {
+    return this.mailSender.createMimeMessage();
+  }
+
+  /**
+   * Closes every idle session and stops pooling the sessions given back afterwards.
+   */
+  @PreDestroy
+  public void close() {
+    this.closed = true;
+    PooledTransport pooled;
+    while ((pooled = this.idle.pollFirst()) != null) {
+      closeQuietly(pooled);
+    }
+  }
+
+  double reuseRatio() {
+    final double handedOut = this.opened.count() + this.reused.count();
+    return handedOut == 0 ? 0 : this.reused.count() / handedOut;
+  }
+
+  private void acquirePermit() throws MessagingException {
+    try {
+      if (!this.permits.tryAcquire(this.borrowTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+        throw new MessagingException("No SMTP session available after " + this.borrowTimeout);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MessagingException("Interrupted while waiting for an SMTP session", e);
+    }
+  }
+
+  private Transport connect() throws MessagingException {
+    final var transport = this.mailSender.getSession().getTransport(
+        Objects.requireNonNullElse(this.mailSender.getProtocol(), DEFAULT_PROTOCOL));
+    transport.connect(this.mailSender.getHost(), this.mailSender.getPort(),
+        emptyToNull(this.mailSender.getUsername()), emptyToNull(this.mailSender.getPassword()));
+    return transport;
+  }
+
+  private static String emptyToNull(String value) {
+    return value == null || value.isEmpty() ? null : value;
+  }
+
+  private static void closeQuietly(PooledTransport pooled) {
+    try {
+      pooled.transport.close();
+    } catch (MessagingException e) {
+      log.debug("Error closing SMTP session", e);
+    }
+  }
+
+  /**
+   * Open SMTP session borrowed from the pool.
+   */
+  public static class PooledTransport {
+
+    private final Transport transport;
+
+    private int messages;
+
+    private long idleSince;
+
+    PooledTransport(Transport transport) {
+      this.transport = transport;
+      this.idleSince = System.nanoTime();
+    }
+
+    /**
+     * Sends a message over this session.
+     *
+     * @param message the message to send
+     * @throws MessagingException if the server rejects the message or the session fails
+     */
+    public void send(MimeMessage message) throws MessagingException {
+      if (message.getSentDate() == null) {
+        message.setSentDate(new Date());
+      }
+      message.saveChanges();
+      final Address[] recipients = message.getAllRecipients();
+      this.messages++;
+      this.transport.sendMessage(message, recipients);
+    }
+
+    /**
+     * Checks whether the session is still open, which costs a round trip to the server.
+     *
+     * @return true if the server still answers on this session
+     */
+    public boolean isConnected() {
+      return this.transport.isConnected();
+    }
+
+    int getMessages() {
+      return this.messages;
+    }
+
+    void touch() {
+      this.idleSince = System.nanoTime();
+    }
+
+    boolean isIdleLongerThan(Duration duration) {
+      return System.nanoTime() - this.idleSince > duration.toNanos();
+    }
+
+  }
+
+}
@@ -0,0 +1,31 @@
+-- Keeps the triggers of the V10 migration only while the credential directory is enabled,
+-- as told by the credential-directory placeholder, bound to tfm.auth.directory.enabled.
+-- Flyway applies this script again whenever the placeholder changes. Without the
+-- directory nobody listens, so writes to the credential tables skip the notifications.
+
+DROP TRIGGER IF EXISTS user_profile_credential_change ON user_profile;
+DROP TRIGGER IF EXISTS operator_profile_credential_change ON operator_profile;
+DROP TRIGGER IF EXISTS staff_profile_credential_change ON staff_profile;
+DROP TRIGGER IF EXISTS staff_membership_credential_change ON staff_membership;
+
+DO $$
+BEGIN
+    IF ${credential-directory} THEN
+        CREATE TRIGGER user_profile_credential_change
+            AFTER INSERT OR UPDATE OR DELETE ON user_profile
+            FOR EACH ROW EXECUTE FUNCTION notify_credential_change('id');
+
+        CREATE TRIGGER operator_profile_credential_change
+            AFTER INSERT OR UPDATE OR DELETE ON operator_profile
+            FOR EACH ROW EXECUTE FUNCTION notify_credential_change('id');
+
+        CREATE TRIGGER staff_profile_credential_change
+            AFTER INSERT OR UPDATE OR DELETE ON staff_profile
+            FOR EACH ROW EXECUTE FUNCTION notify_credential_change('id');
+
+        CREATE TRIGGER staff_membership_credential_change
+            AFTER INSERT OR UPDATE OR DELETE ON staff_membership
+            FOR EACH ROW EXECUTE FUNCTION notify_credential_change('staff_id');
+    END IF;
+END
+$$;
@@ -0,0 +1,42 @@
+-- Publishes the email of every user whose credentials change on the credential_change
+-- channel, which the credential directory listens to. Profile and membership tables pass
+-- the column holding the id of the user.
+
+CREATE OR REPLACE FUNCTION notify_credential_change() RETURNS trigger AS $$
+BEGIN
+    IF TG_TABLE_NAME = 'user_profile' THEN
+        IF TG_OP <> 'INSERT' THEN
+            PERFORM pg_notify('credential_change', OLD.email);
+        END IF;
+        IF TG_OP <> 'DELETE' THEN
+            PERFORM pg_notify('credential_change', NEW.email);
+        END IF;
+    ELSE
+        IF TG_OP <> 'INSERT' THEN
+            PERFORM pg_notify('credential_change', u.email) FROM user_profile u
+            WHERE u.id = (to_jsonb(OLD) ->> TG_ARGV[0])::integer;
+        END IF;
+        IF TG_OP <> 'DELETE' THEN
+            PERFORM pg_notify('credential_change', u.email) FROM user_profile u
+            WHERE u.id = (to_jsonb(NEW) ->> TG_ARGV[0])::integer;
+        END IF;
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE TRIGGER user_profile_credential_change
+    AFTER INSERT OR UPDATE OR DELETE ON user_profile
+    FOR EACH ROW EXECUTE FUNCTION notify_credential_change('id');
+
+CREATE OR REPLACE TRIGGER operator_profile_credential_change
+    AFTER INSERT OR UPDATE OR DELETE ON operator_profile
+    FOR EACH ROW EXECUTE FUNCTION notify_credential_change('id');
+
+CREATE OR REPLACE TRIGGER staff_profile_credential_change
+    AFTER INSERT OR UPDATE OR DELETE ON staff_profile
+    FOR EACH ROW EXECUTE FUNCTION notify_credential_change('id');
+
+CREATE OR REPLACE TRIGGER staff_membership_credential_change
+    AFTER INSERT OR UPDATE OR DELETE ON staff_membership
+    FOR EACH ROW EXECUTE FUNCTION notify_credential_change('staff_id');
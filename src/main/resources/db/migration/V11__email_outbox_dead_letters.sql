@@ -0,0 +1,6 @@
+-- Emails the relay gave up on stay in the outbox, with the time they were dead-lettered.
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS dead_lettered_at timestamp(6);
+-- The relay only claims the emails that are not dead-lettered, earliest first.
+DROP INDEX IF EXISTS ix_email_outbox_next_attempt_at;
+CREATE INDEX ix_email_outbox_next_attempt_at ON email_outbox (next_attempt_at)
+    WHERE dead_lettered_at IS NULL;
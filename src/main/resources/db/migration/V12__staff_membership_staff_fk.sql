@@ -0,0 +1,7 @@
+-- Memberships belong to a staff profile and are deleted with it. Memberships whose staff
+-- profile is already gone are dropped first, as nothing reads them.
+DELETE FROM staff_membership m
+WHERE NOT EXISTS (SELECT 1 FROM staff_profile s WHERE s.id = m.staff_id);
+ALTER TABLE staff_membership DROP CONSTRAINT IF EXISTS fk_staff_membership_staff_id;
+ALTER TABLE staff_membership ADD CONSTRAINT fk_staff_membership_staff_id
+    FOREIGN KEY (staff_id) REFERENCES staff_profile (id) ON DELETE CASCADE;
@@ -0,0 +1,51 @@
+-- Schema created by spring.jpa.hibernate.ddl-auto=update before migrations owned it,
+-- with the constraint names Hibernate generated. Existing databases are baselined at this
+-- version and start with V2, so every later script must also apply to a database that
+-- ddl-auto=update already brought to that point.
+
+CREATE TABLE user_profile (
+    id integer GENERATED BY DEFAULT AS IDENTITY,
+    registration_date timestamp(6),
+    email varchar(255) NOT NULL,
+    family_name varchar(255),
+    first_name varchar(255),
+    password varchar(255),
+    PRIMARY KEY (id),
+    CONSTRAINT UKtcks72p02h4dp13cbhxne17ad UNIQUE (email)
+);
+
+CREATE TABLE operator_profile (
+    id integer NOT NULL,
+    system_role varchar(255) CHECK (system_role IN ('ADMIN', 'SUPPORT')),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE staff_profile (
+    birth_date date,
+    id integer NOT NULL,
+    address varchar(255),
+    company_role varchar(255)
+        CHECK (company_role IN ('OWNER', 'REALTOR', 'ADMINISTRATIVE_ASSISTANT')),
+    gender varchar(255) CHECK (gender IN ('MALE', 'FEMALE')),
+    identity_document varchar(255),
+    job_title varchar(255),
+    phone varchar(255),
+    status varchar(255) CHECK (status IN ('ACTIVE', 'INACTIVE', 'DELETED')),
+    tax_identification_number varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE activation_code (
+    id integer GENERATED BY DEFAULT AS IDENTITY,
+    staff_id integer,
+    expiration_date timestamp(6),
+    code varchar(255),
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE activation_code ADD CONSTRAINT FK9pstm4vllciy9f8et7mvbta1u
+    FOREIGN KEY (staff_id) REFERENCES staff_profile;
+ALTER TABLE operator_profile ADD CONSTRAINT FKc57x1qhiqa1le07bjgk6kude2
+    FOREIGN KEY (id) REFERENCES user_profile;
+ALTER TABLE staff_profile ADD CONSTRAINT FKqcm5r2wdfof3njw7ttiak3ddh
+    FOREIGN KEY (id) REFERENCES user_profile;
@@ -0,0 +1,2 @@
+-- Codes are inserted and counted by owner without loading the staff user.
+CREATE INDEX IF NOT EXISTS ix_activation_code_staff_id ON activation_code (staff_id);
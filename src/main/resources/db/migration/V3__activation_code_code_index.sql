@@ -0,0 +1,21 @@
+-- findByActivationCode can read the expiration date and owner of a code from the index.
+-- ddl-auto=update may have made the code unique with a constraint, whose name Hibernate
+-- hashed as UK8ajx3tnkbhwdupdh80igwbvol; any unique constraint on the code alone is
+-- replaced by the covering unique index.
+DO $$
+DECLARE
+    unique_constraint name;
+BEGIN
+    FOR unique_constraint IN
+        SELECT c.conname FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attname = 'code'
+        WHERE c.conrelid = 'activation_code'::regclass AND c.contype = 'u'
+            AND c.conkey = ARRAY[a.attnum]
+    LOOP
+        EXECUTE format('ALTER TABLE activation_code DROP CONSTRAINT %I', unique_constraint);
+    END LOOP;
+END
+$$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_activation_code_code ON activation_code (code)
+    INCLUDE (expiration_date, staff_id);
@@ -0,0 +1,10 @@
+-- Companies a staff user has been invited to besides the one of its profile.
+CREATE TABLE IF NOT EXISTS staff_membership (
+    id integer GENERATED BY DEFAULT AS IDENTITY,
+    staff_id integer NOT NULL,
+    company_role varchar(255)
+        CHECK (company_role IN ('OWNER', 'REALTOR', 'ADMINISTRATIVE_ASSISTANT')),
+    status varchar(255) CHECK (status IN ('ACTIVE', 'INACTIVE', 'DELETED')),
+    tax_identification_number varchar(255) NOT NULL,
+    PRIMARY KEY (id)
+);
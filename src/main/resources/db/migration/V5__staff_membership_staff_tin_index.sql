@@ -0,0 +1,6 @@
+-- The login queries can read the role and status of every membership from the index.
+-- ddl-auto=update may have created it with the same name and without the included
+-- columns, so it is built again.
+DROP INDEX IF EXISTS ux_staff_membership_staff_tin;
+CREATE UNIQUE INDEX ux_staff_membership_staff_tin
+    ON staff_membership (staff_id, tax_identification_number) INCLUDE (company_role, status);
@@ -0,0 +1,3 @@
+-- The purge of expired codes deletes them in batches by expiration date.
+CREATE INDEX IF NOT EXISTS ix_activation_code_expiration_date
+    ON activation_code (expiration_date);
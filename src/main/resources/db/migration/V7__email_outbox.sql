@@ -0,0 +1,12 @@
+-- Notification emails written in the transaction of the change and sent by the relay.
+CREATE TABLE IF NOT EXISTS email_outbox (
+    attempts integer NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    next_attempt_at timestamp(6) NOT NULL,
+    last_error varchar(1000),
+    body text NOT NULL,
+    recipient varchar(255) NOT NULL,
+    subject varchar(255) NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,2 @@
+-- The relay claims the emails that are due, earliest first.
+CREATE INDEX IF NOT EXISTS ix_email_outbox_next_attempt_at ON email_outbox (next_attempt_at);
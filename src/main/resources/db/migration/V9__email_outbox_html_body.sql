@@ -0,0 +1,2 @@
+-- HTML alternative of the plain text body rendered from the email templates.
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS html_body text;
@@ -0,0 +1,229 @@
+package es.miw.tfm.invierte.user.api.resource;
+
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.PASSWORD;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.TAX_IDENTIFICATION_NUMBER;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomActiveStaff;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.management.ThreadMXBean;
+import es.miw.tfm.invierte.user.ApiTestConfig;
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.data.dao.StaffRepository;
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Side-by-side load test of the blocking and the reactive staff login, run by the same
+ * application against the same Postgres container: 500 concurrent clients, each sending a
+ * sequence of logins of one active staff user. The password hash has the minimum BCrypt
+ * cost, so the request handling and the login query weigh more than the hash. Logs the
+ * throughput, the latency percentiles, the bytes allocated by the JVM, clients included,
+ * and the peak of live platform threads of each stack, so both runs can be compared.
+ * Runs with [INFO] Scanning for projects...
+[WARNING] 
+[WARNING] Some problems were encountered while building the effective model for es.miw.tfm.invierte:user:jar:1.3.0-SNAPSHOT
+[WARNING] 'build.plugins.plugin.version' for org.jacoco:jacoco-maven-plugin is missing. @ line 54, column 15
+[WARNING] 
+[WARNING] It is highly recommended to fix these problems because they threaten the stability of your build.
+[WARNING] 
+[WARNING] For this reason, future Maven versions might no longer support building such malformed projects.
+[WARNING] 
+[INFO] 
+[INFO] ----------------------< es.miw.tfm.invierte:user >----------------------
+[INFO] Building User Service 1.3.0-SNAPSHOT
+[INFO]   from pom.xml
+[INFO] --------------------------------[ jar ]---------------------------------
+[INFO] 
+[INFO] --- checkstyle:3.0.0:check (validate) @ user ---
+[INFO] Starting audit...
+Audit done.
+[INFO] 
+[INFO] --- jacoco:0.8.15:prepare-agent (prepare-agent) @ user ---
+[INFO] argLine set to -javaagent:/root/.m2/repository/org/jacoco/org.jacoco.agent/0.8.15/org.jacoco.agent-0.8.15-runtime.jar=destfile=/root/project/target/jacoco.exec
+[INFO] 
+[INFO] --- build-helper:3.6.0:add-source (add-reactive-source) @ user ---
+[INFO] Source directory: /root/project/src/reactive/java added.
+[INFO] 
+[INFO] --- build-helper:3.6.0:add-resource (add-reactive-resource) @ user ---
+[INFO] 
+[INFO] --- resources:3.3.1:resources (default-resources) @ user ---
+[INFO] Copying 3 resources from src/main/resources to target/classes
+[INFO] Copying 26 resources from src/main/resources to target/classes
+[INFO] Copying 1 resource from src/reactive/resources to target/classes
+[INFO] 
+[INFO] --- compiler:3.13.0:compile (default-compile) @ user ---
+[INFO] Recompiling the module because of changed source code.
+[INFO] Compiling 81 source files with javac [debug parameters release 21] to target/classes
+[INFO] ------------------------------------------------------------------------
+[INFO] BUILD FAILURE
+[INFO] ------------------------------------------------------------------------
+[INFO] Total time:  9.402 s
+[INFO] Finished at: 2026-10-18T17:16:49Z
+[INFO] ------------------------------------------------------------------------
+[ERROR] Failed to execute goal org.apache.maven.plugins:maven-compiler-plugin:3.13.0:compile (default-compile) on project user: Fatal error compiling: error: release version 21 not supported -> [Help 1]
+[ERROR] 
+[ERROR] To see the full stack trace of the errors, re-run Maven with the -e switch.
+[ERROR] Re-run Maven using the -X switch to enable full debug logging.
+[ERROR] 
+[ERROR] For more information about the errors and possible solutions, please read the following articles:
+[ERROR] [Help 1] http://cwiki.apache.org/confluence/display/MAVEN/MojoExecutionException.
+ */
+@Log4j2
+@ApiTestConfig
+@TestPropertySource(properties = {
+    "tfm.reactive-login.enabled=true",
+    "tfm.password.hashing.min-strength=4",
+    "tfm.password.hashing.max-strength=4"
+})
+@DirtiesContext
+@Tag("IntegrationTest")
+@Tag("Benchmark")
+class ReactiveLoginLoadIT extends BaseContainerIntegration {
+
+  private static final int CLIENTS = 500;
+
+  private static final int REQUESTS_PER_CLIENT = 10;
+
+  private static final int WARM_UP_REQUESTS = 1_000;
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private PasswordEncoder passwordEncoder;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+  }
+
+  @AfterAll
+  static void clean() {
+    postgreSQLContainer.close();
+  }
+
+  @Test
+  void testConcurrentLogins() throws InterruptedException {
+    final var staff = createRandomActiveStaff();
+    staff.setTaxIdentificationNumber(TAX_IDENTIFICATION_NUMBER);
+    staff.setPassword(this.passwordEncoder.encode(PASSWORD));
+    this.staffRepository.save(staff);
+    final var basicAuth = "Basic " + Base64.getEncoder()
+        .encodeToString((staff.getEmail() + ":" + PASSWORD).getBytes());
+    final var blocking = this.request(StaffResource.TOKEN, basicAuth);
+    final var reactive = this.request(ReactiveStaffResource.REACTIVE + StaffResource.TOKEN,
+        basicAuth);
+
+    try (HttpClient httpClient = HttpClient.newHttpClient()) {
+      warmUp(httpClient, blocking);
+      warmUp(httpClient, reactive);
+
+      assertEquals(0, run("Blocking", httpClient, blocking), "failed blocking logins");
+      assertEquals(0, run("Reactive", httpClient, reactive), "failed reactive logins");
+    }
+  }
+
+  private HttpRequest request(String path, String basicAuth) {
+    return HttpRequest.newBuilder(URI.create("http://localhost:" + this.port
+            + StaffResource.USERS + StaffResource.STAFF + path))
+        .header(HttpHeaders.AUTHORIZATION, basicAuth)
+        .POST(HttpRequest.BodyPublishers.noBody())
+        .timeout(Duration.ofSeconds(60))
+        .build();
+  }
+
+  private static void warmUp(HttpClient httpClient, HttpRequest request) {
+    final var errors = new AtomicInteger();
+    for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+      send(httpClient, request, errors);
+    }
+    assertEquals(0, errors.get(), "failed warm-up logins");
+  }
+
+  private static int run(String stack, HttpClient httpClient, HttpRequest request)
+      throws InterruptedException {
+    final var threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final var latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+    final var errors = new AtomicInteger();
+    final var start = new CountDownLatch(1);
+
+    try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int client = 0; client < CLIENTS; client++) {
+        final int offset = client * REQUESTS_PER_CLIENT;
+        clients.submit(() -> {
+          start.await();
+          for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+            final long requestStart = System.nanoTime();
+            send(httpClient, request, errors);
+            latencies[offset + i] = System.nanoTime() - requestStart;
+          }
+          return null;
+        });
+      }
+      System.gc();
+      threads.resetPeakThreadCount();
+      final long allocatedStart = threads.getTotalThreadAllocatedBytes();
+      final long runStart = System.nanoTime();
+      start.countDown();
+      clients.shutdown();
+      clients.awaitTermination(10, TimeUnit.MINUTES);
+      report(stack, latencies, System.nanoTime() - runStart,
+          threads.getTotalThreadAllocatedBytes() - allocatedStart,
+          threads.getPeakThreadCount());
+    }
+    return errors.get();
+  }
+
+  private static void send(HttpClient httpClient, HttpRequest request, AtomicInteger errors) {
+    try {
+      final var response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+      if (response.statusCode() != 200) {
+        errors.incrementAndGet();
+      }
+    } catch (Exception e) {
+      errors.incrementAndGet();
+    }
+  }
+
+  private static void report(String stack, long[] latencies, long elapsed, long allocated,
+      int peakThreads) {
+    Arrays.sort(latencies);
+    log.info("{} login: {} clients, {} requests in {} ms, {} req/s, p50 {} ms, p99 {} ms, "
+            + "max {} ms, {} KB allocated per request, {} peak platform threads", stack,
+        CLIENTS, latencies.length, elapsed / 1_000_000,
+        latencies.length * 1_000_000_000L / elapsed, percentile(latencies, 0.50),
+        percentile(latencies, 0.99), latencies[latencies.length - 1] / 1_000_000,
+        allocated / latencies.length / 1024, peakThreads);
+  }
+
+  private static long percentile(long[] sortedLatencies, double percentile) {
+    return sortedLatencies[(int) (sortedLatencies.length * percentile)] / 1_000_000;
+  }
+
+}
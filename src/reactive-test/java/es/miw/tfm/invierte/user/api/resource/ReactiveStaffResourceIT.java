@@ -0,0 +1,136 @@
+package es.miw.tfm.invierte.user.api.resource;
+
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.PASSWORD;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.TAX_IDENTIFICATION_NUMBER;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomActiveStaff;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomStaff;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.Base64;
+import java.util.Map;
+
+import es.miw.tfm.invierte.user.ApiTestConfig;
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.api.dto.TokenDto;
+import es.miw.tfm.invierte.user.data.dao.StaffRepository;
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.service.JwtService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Checks that the reactive staff login answers like the blocking one: the same token
+ * claims for an active staff user and a 401 for any other credentials.
+ */
+@ApiTestConfig
+@TestPropertySource(properties = "tfm.reactive-login.enabled=true")
+@DirtiesContext
+@Tag("IntegrationTest")
+class ReactiveStaffResourceIT extends BaseContainerIntegration {
+
+  private static final String REACTIVE_TOKEN = StaffResource.USERS + StaffResource.STAFF
+      + ReactiveStaffResource.REACTIVE + StaffResource.TOKEN;
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private JwtService jwtService;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+  }
+
+  @AfterAll
+  static void clean() {
+    postgreSQLContainer.close();
+  }
+
+  @AfterEach
+  void deleteStaff() {
+    this.staffRepository.deleteAll();
+  }
+
+  @Test
+  void testLoginMatchesBlockingLogin() {
+    final var staff = createRandomActiveStaff();
+    staff.setTaxIdentificationNumber(TAX_IDENTIFICATION_NUMBER);
+    this.staffRepository.save(staff);
+    final var basicAuth = basic(staff.getEmail(), PASSWORD);
+
+    final var blocking = this.login(StaffResource.USERS + StaffResource.STAFF
+        + StaffResource.TOKEN, basicAuth);
+    final var reactive = this.login(REACTIVE_TOKEN, basicAuth);
+
+    assertEquals(staff.getEmail(), this.jwtService.user(reactive));
+    assertEquals(this.jwtService.name(blocking), this.jwtService.name(reactive));
+    assertEquals(Map.of(TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER.name()),
+        this.jwtService.roles(reactive));
+    assertEquals(this.jwtService.roles(blocking), this.jwtService.roles(reactive));
+  }
+
+  @Test
+  void testLoginWithWrongPasswordUnauthorized() {
+    final var staff = this.staffRepository.save(createRandomActiveStaff());
+
+    this.assertUnauthorized(basic(staff.getEmail(), "wrong-password"));
+  }
+
+  @Test
+  void testLoginOfUnknownEmailUnauthorized() {
+    this.assertUnauthorized(basic("unknown@email.com", PASSWORD));
+  }
+
+  @Test
+  void testLoginOfInactiveStaffUnauthorized() {
+    final var staff = this.staffRepository.save(createRandomStaff(Status.INACTIVE));
+
+    this.assertUnauthorized(basic(staff.getEmail(), PASSWORD));
+  }
+
+  @Test
+  void testLoginWithoutBasicCredentialsUnauthorized() {
+    this.assertUnauthorized(null);
+    this.assertUnauthorized("Basic not-base64");
+    this.assertUnauthorized("Bearer token");
+  }
+
+  private String login(String uri, String basicAuth) {
+    final var token = this.webTestClient.post().uri(uri)
+        .header(HttpHeaders.AUTHORIZATION, basicAuth)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(TokenDto.class)
+        .returnResult()
+        .getResponseBody();
+    assertNotNull(token);
+    return token.getToken();
+  }
+
+  private void assertUnauthorized(String authorization) {
+    final var request = this.webTestClient.post().uri(REACTIVE_TOKEN);
+    if (authorization != null) {
+      request.header(HttpHeaders.AUTHORIZATION, authorization);
+    }
+    request.exchange().expectStatus().isUnauthorized();
+  }
+
+  private static String basic(String email, String password) {
+    return "Basic " + Base64.getEncoder().encodeToString((email + ":" + password).getBytes());
+  }
+
+}
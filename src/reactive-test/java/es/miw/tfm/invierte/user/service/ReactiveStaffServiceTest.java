@@ -0,0 +1,104 @@
+package es.miw.tfm.invierte.user.service;
+
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.EMAIL;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.NAME;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.PASSWORD;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.TAX_IDENTIFICATION_NUMBER;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.TOKEN;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.buildStaffLoginView;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import es.miw.tfm.invierte.user.data.dao.ReactiveStaffRepository;
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.service.exception.UnauthorizedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ExtendWith({MockitoExtension.class})
+class ReactiveStaffServiceTest {
+
+  private static final String UNKNOWN_USER_PASSWORD = "{bcrypt}unknown";
+
+  @Mock
+  private ReactiveStaffRepository reactiveStaffRepository;
+
+  @Mock
+  private PasswordEncoder passwordEncoder;
+
+  @Mock
+  private JwtService jwtService;
+
+  private ReactiveStaffService reactiveStaffService;
+
+  @BeforeEach
+  void setUp() {
+    when(this.passwordEncoder.encode(anyString())).thenReturn(UNKNOWN_USER_PASSWORD);
+    this.reactiveStaffService = new ReactiveStaffService(this.reactiveStaffRepository,
+        this.passwordEncoder, this.jwtService);
+  }
+
+  @Test
+  void testLoginSuccess() {
+    final var expectedRoles = Map.of(TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER.name(),
+        "654321", CompanyRole.REALTOR.name());
+    when(this.reactiveStaffRepository.findLoginViewByEmail(EMAIL)).thenReturn(Flux.just(
+        buildStaffLoginView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER,
+            "654321", CompanyRole.REALTOR, Status.ACTIVE),
+        buildStaffLoginView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER,
+            "987654", CompanyRole.OWNER, Status.INACTIVE)));
+    when(this.passwordEncoder.matches(PASSWORD, PASSWORD)).thenReturn(true);
+    when(this.jwtService.createToken(EMAIL, NAME, expectedRoles)).thenReturn(TOKEN);
+
+    StepVerifier.create(this.reactiveStaffService.login(EMAIL, PASSWORD))
+        .expectNext(TOKEN)
+        .verifyComplete();
+  }
+
+  @Test
+  void testLoginWrongPassword() {
+    when(this.reactiveStaffRepository.findLoginViewByEmail(EMAIL)).thenReturn(Flux.just(
+        buildStaffLoginView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER,
+            null, null, null)));
+    when(this.passwordEncoder.matches("wrong", PASSWORD)).thenReturn(false);
+
+    StepVerifier.create(this.reactiveStaffService.login(EMAIL, "wrong"))
+        .verifyError(UnauthorizedException.class);
+    verify(this.jwtService, never()).createToken(anyString(), anyString(), anyMap());
+  }
+
+  @Test
+  void testLoginInactiveStaff() {
+    when(this.reactiveStaffRepository.findLoginViewByEmail(EMAIL)).thenReturn(Flux.just(
+        buildStaffLoginView(Status.INACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER,
+            null, null, null)));
+
+    StepVerifier.create(this.reactiveStaffService.login(EMAIL, PASSWORD))
+        .verifyError(UnauthorizedException.class);
+    verify(this.passwordEncoder, never()).matches(any(), eq(PASSWORD));
+  }
+
+  @Test
+  void testLoginUnknownEmailChecksDummyHash() {
+    when(this.reactiveStaffRepository.findLoginViewByEmail(EMAIL)).thenReturn(Flux.empty());
+
+    StepVerifier.create(this.reactiveStaffService.login(EMAIL, PASSWORD))
+        .verifyError(UnauthorizedException.class);
+    verify(this.passwordEncoder).matches(PASSWORD, UNKNOWN_USER_PASSWORD);
+  }
+
+}
@@ -0,0 +1,79 @@
+package es.miw.tfm.invierte.user.api.resource;
+
+import es.miw.tfm.invierte.user.api.dto.TokenDto;
+import es.miw.tfm.invierte.user.service.ReactiveStaffService;
+import es.miw.tfm.invierte.user.service.exception.UnauthorizedException;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller of the non-blocking staff login, enabled by `tfm.reactive-login.enabled`.
+ * It has the contract of `POST /users/staff/token`, HTTP Basic credentials in and a
+ * `TokenDto` out, but checks the credentials itself instead of through the Spring
+ * Security filters, and returns a `Mono`, so the request thread is released while the
+ * login projection is read.
+ *
+ * @see ReactiveStaffService
+ * @see StaffResource#loginStaff(org.springframework.security.core.userdetails.User)
+ * @see es.miw.tfm.invierte.user.configuration.ReactiveLoginConfiguration
+ *
+ * @author denilssonmn
+ */
+@RestController
+@RequestMapping(StaffResource.USERS)
+@ConditionalOnProperty(name = "tfm.reactive-login.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveStaffResource {
+
+  public static final String REACTIVE = "/reactive";
+
+  private static final String BASIC = "Basic ";
+
+  private static final String BAD_CREDENTIALS = "Bad credentials";
+
+  private final ReactiveStaffService reactiveStaffService;
+
+  /**
+   * Logs in a staff user with HTTP Basic credentials and generates a token.
+   *
+   * @param authorization the `Authorization` header
+   * @return a TokenDto containing the generated token
+   */
+  @SecurityRequirement(name = "basicAuth")
+  @PostMapping(StaffResource.STAFF + REACTIVE + StaffResource.TOKEN)
+  public Mono<TokenDto> loginStaff(
+      @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false)
+      String authorization) {
+    final var credentials = basicCredentials(authorization);
+    final int separator = credentials == null ? -1 : credentials.indexOf(':');
+    if (separator < 0) {
+      return Mono.error(new UnauthorizedException(BAD_CREDENTIALS));
+    }
+    return this.reactiveStaffService.login(credentials.substring(0, separator),
+            credentials.substring(separator + 1))
+        .map(TokenDto::new);
+  }
+
+  private static String basicCredentials(String authorization) {
+    if (authorization == null || !authorization.regionMatches(true, 0, BASIC, 0,
+        BASIC.length())) {
+      return null;
+    }
+    try {
+      return new String(Base64.getDecoder().decode(authorization.substring(BASIC.length())
+          .trim()), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
+
+import es.miw.tfm.invierte.user.api.resource.ReactiveStaffResource;
+import es.miw.tfm.invierte.user.api.resource.StaffResource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.web.SecurityFilterChain;
+
+/**
+ * Configuration of the non-blocking staff login, enabled by `tfm.reactive-login.enabled`.
+ * It serves `POST /users/staff/reactive/token` next to the blocking endpoints, so both
+ * logins can be compared on the same instance and database.
+ *
+ * <p>This is an experiment rather than a reactive stack: the rest of the endpoints stay
+ * blocking. Its sources are only built with the `reactive-login` Maven profile, which
+ * keeps R2DBC, Reactor and Netty out of the default runtime.
+ *
+ * <p>The endpoint has its own security filter chain, without HTTP Basic authentication:
+ * the resource checks the credentials once the filters are done. The rate limiting filter
+ * still runs on it as a servlet filter, with the policies that list its path.
+ *
+ * @see ReactiveStaffResource
+ * @see es.miw.tfm.invierte.user.service.ReactiveStaffService
+ * @see es.miw.tfm.invierte.user.data.dao.ReactiveStaffRepository
+ * @see SecurityConfiguration
+ *
+ * @author denilssonmn
+ */
+@Configuration
+@ConditionalOnProperty(name = "tfm.reactive-login.enabled", havingValue = "true")
+public class ReactiveLoginConfiguration {
+
+  /**
+   * Configures the security filter chain of the reactive login endpoint, which takes
+   * precedence over the chain of the rest of the application.
+   * Disables CSRF and sessions and leaves the credentials to the resource.
+   *
+   * @param http the `HttpSecurity` object to configure
+   * @return the configured `SecurityFilterChain`
+   * @throws Exception if an error occurs during configuration
+   */
+  @Bean
+  @Order(1)
+  public SecurityFilterChain reactiveLoginFilterChain(HttpSecurity http) throws Exception {
+    http
+        .securityMatcher(StaffResource.USERS + StaffResource.STAFF
+            + ReactiveStaffResource.REACTIVE + StaffResource.TOKEN)
+        .csrf(AbstractHttpConfigurer::disable)
+        .sessionManagement(manager -> manager.sessionCreationPolicy(STATELESS));
+    return http.build();
+  }
+
+}
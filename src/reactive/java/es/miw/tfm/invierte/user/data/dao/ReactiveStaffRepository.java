@@ -0,0 +1,151 @@
+package es.miw.tfm.invierte.user.data.dao;
+
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.data.model.projection.StaffLoginView;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking repository of the staff users, enabled by `tfm.reactive-login.enabled`.
+ * It reads the same login projection as `StaffRepository.findLoginViewByEmail` through
+ * an R2DBC pool of the primary database, so the reactive login never takes a JDBC
+ * connection or a request thread while it waits for Postgres.
+ *
+ * <p>The pool connects with the `spring.datasource` URL, turned into an `r2dbc:` URL, and
+ * credentials, and holds at most `tfm.reactive-login.pool.max-size` connections on top of
+ * the Hikari pool. A query that gets no connection within
+ * `tfm.reactive-login.pool.max-acquire-time` fails. Read replicas are not used. The pool
+ * is not a `ConnectionFactory` bean, which would make Spring Boot back off the JDBC
+ * `DataSource`.
+ *
+ * @see StaffRepository#findLoginViewByEmail(String)
+ * @see es.miw.tfm.invierte.user.configuration.ReactiveLoginConfiguration
+ *
+ * @author denilssonmn
+ */
+@Repository
+@ConditionalOnProperty(name = "tfm.reactive-login.enabled", havingValue = "true")
+public class ReactiveStaffRepository {
+
+  private static final String JDBC = "jdbc:";
+
+  private static final String R2DBC = "r2dbc:";
+
+  private static final String LOGIN_VIEW = "SELECT u.email, u.first_name, u.password, "
+      + "s.status, s.tax_identification_number, s.company_role, "
+      + "m.tax_identification_number AS membership_tax_identification_number, "
+      + "m.company_role AS membership_company_role, m.status AS membership_status "
+      + "FROM user_profile u JOIN staff_profile s ON s.id = u.id "
+      + "LEFT JOIN staff_membership m ON m.staff_id = s.id WHERE u.email = $1";
+
+  private final ConnectionPool connectionPool;
+
+  /**
+   * Constructs a `ReactiveStaffRepository` and its connection pool.
+   *
+   * @param dataSourceProperties the properties of the primary database
+   * @param maxSize the maximum number of connections
+   * @param maxAcquireTime the maximum time a query waits for a connection
+   */
+  public ReactiveStaffRepository(DataSourceProperties dataSourceProperties,
+      @Value("${tfm.reactive-login.pool.max-size}") int maxSize,
+      @Value("${tfm.reactive-login.pool.max-acquire-time}") Duration maxAcquireTime) {
+    final var url = dataSourceProperties.determineUrl();
+    final int query = url.indexOf('?');
+    final var options = ConnectionFactoryOptions.parse(
+            R2DBC + url.substring(JDBC.length(), query < 0 ? url.length() : query))
+        .mutate()
+        .option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername());
+    if (!Objects.isNull(dataSourceProperties.determinePassword())) {
+      options.option(ConnectionFactoryOptions.PASSWORD,
+          dataSourceProperties.determinePassword());
+    }
+    this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+        .builder(ConnectionFactories.get(options.build()))
+        .name("reactive-login")
+        .maxSize(maxSize)
+        .maxAcquireTime(maxAcquireTime)
+        .build());
+  }
+
+  /**
+   * Closes the connections of the pool.
+   */
+  @PreDestroy
+  public void close() {
+    this.connectionPool.dispose();
+  }
+
+  /**
+   * Loads the login projection of a staff user in a single query, one row per membership.
+   * The connection goes back to the pool once the rows are read or the subscription is
+   * cancelled.
+   *
+   * @param email the email of the staff user
+   * @return the login projection rows, empty when no staff user has that email
+   */
+  public Flux<StaffLoginView> findLoginViewByEmail(String email) {
+    return Flux.usingWhen(this.connectionPool.create(),
+        connection -> Flux.from(connection.createStatement(LOGIN_VIEW)
+                .bind("$1", email)
+                .execute())
+            .flatMap(result -> result.map(ReactiveStaffRepository::toLoginView)),
+        Connection::close);
+  }
+
+  private static StaffLoginView toLoginView(Readable row) {
+    return new LoginView(row.get("email", String.class),
+        row.get("first_name", String.class),
+        row.get("password", String.class),
+        toEnum(Status.class, row.get("status", String.class)),
+        row.get("tax_identification_number", String.class),
+        toEnum(CompanyRole.class, row.get("company_role", String.class)),
+        row.get("membership_tax_identification_number", String.class),
+        toEnum(CompanyRole.class, row.get("membership_company_role", String.class)),
+        toEnum(Status.class, row.get("membership_status", String.class)));
+  }
+
+  private static <E extends Enum<E>> E toEnum(Class<E> type, String name) {
+    return name == null ? null : Enum.valueOf(type, name);
+  }
+
+  @Getter
+  @AllArgsConstructor
+  private static final class LoginView implements StaffLoginView {
+
+    private final String email;
+
+    private final String firstName;
+
+    private final String password;
+
+    private final Status status;
+
+    private final String taxIdentificationNumber;
+
+    private final CompanyRole companyRole;
+
+    private final String membershipTaxIdentificationNumber;
+
+    private final CompanyRole membershipCompanyRole;
+
+    private final Status membershipStatus;
+
+  }
+
+}
@@ -0,0 +1,92 @@
+package es.miw.tfm.invierte.user.service;
+
+import es.miw.tfm.invierte.user.data.dao.ReactiveStaffRepository;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.data.model.projection.StaffLoginView;
+import es.miw.tfm.invierte.user.service.exception.UnauthorizedException;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking staff login, enabled by `tfm.reactive-login.enabled`.
+ * It answers like the HTTP Basic login of `POST /users/staff/token`: only active staff
+ * users with the right password get a token, carrying the same name and company roles.
+ *
+ * <p>The login projection is read through R2DBC from the primary database. The password
+ * check still runs on the `PasswordHashingService`, which blocks its caller until a
+ * hashing thread is free, so it is moved to the bounded elastic scheduler and never runs
+ * on a Netty event loop. Unknown emails are checked against a dummy hash, so they take as
+ * long as a wrong password. Outdated hashes are not upgraded here; the blocking login
+ * keeps doing it.
+ *
+ * @see ReactiveStaffRepository
+ * @see StaffService#login(StaffUserDetails)
+ * @see es.miw.tfm.invierte.user.service.util.PasswordHashingService
+ *
+ * @author denilssonmn
+ */
+@Service
+@ConditionalOnProperty(name = "tfm.reactive-login.enabled", havingValue = "true")
+public class ReactiveStaffService {
+
+  private static final String BAD_CREDENTIALS = "Bad credentials";
+
+  private final ReactiveStaffRepository reactiveStaffRepository;
+
+  private final PasswordEncoder passwordEncoder;
+
+  private final JwtService jwtService;
+
+  private final String unknownUserPassword;
+
+  /**
+   * Constructs a `ReactiveStaffService` and hashes the dummy password of unknown emails.
+   *
+   * @param reactiveStaffRepository the non-blocking repository of the staff users
+   * @param passwordEncoder the shared password encoder
+   * @param jwtService the service minting the tokens
+   */
+  public ReactiveStaffService(ReactiveStaffRepository reactiveStaffRepository,
+      PasswordEncoder passwordEncoder, JwtService jwtService) {
+    this.reactiveStaffRepository = reactiveStaffRepository;
+    this.passwordEncoder = passwordEncoder;
+    this.jwtService = jwtService;
+    this.unknownUserPassword = passwordEncoder.encode(UUID.randomUUID().toString());
+  }
+
+  /**
+   * Logs in a staff user with its email and password and generates a JWT token.
+   *
+   * @param email the email of the staff user
+   * @param password the raw password
+   * @return the generated JWT token, or an `UnauthorizedException` when the staff user
+   *     does not exist, is not active or the password does not match
+   */
+  public Mono<String> login(String email, String password) {
+    return this.reactiveStaffRepository.findLoginViewByEmail(email)
+        .collectList()
+        .publishOn(Schedulers.boundedElastic())
+        .filter(loginView -> this.matches(loginView, password))
+        .map(loginView -> this.jwtService.createToken(loginView.getFirst().getEmail(),
+            loginView.getFirst().getFirstName(), StaffUserDetails.companyRoles(loginView)))
+        .switchIfEmpty(Mono.error(() -> new UnauthorizedException(BAD_CREDENTIALS)));
+  }
+
+  private boolean matches(List<StaffLoginView> loginView, String password) {
+    if (loginView.isEmpty()) {
+      this.passwordEncoder.matches(password, this.unknownUserPassword);
+      return false;
+    }
+    final var staff = loginView.getFirst();
+    return Status.ACTIVE.equals(staff.getStatus()) && !Objects.isNull(staff.getPassword())
+        && this.passwordEncoder.matches(password, staff.getPassword());
+  }
+
+}
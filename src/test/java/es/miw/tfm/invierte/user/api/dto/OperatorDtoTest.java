@@ -2,13 +2,11 @@ package es.miw.tfm.invierte.user.api.dto;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import es.miw.tfm.invierte.user.data.model.Operator;
 import es.miw.tfm.invierte.user.data.model.enums.SystemRole;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 class OperatorDtoTest {
 
@@ -40,7 +38,7 @@ class OperatorDtoTest {
     assertEquals("Test", operator.getFirstName());
     assertEquals("User", operator.getFamilyName());
     assertEquals("test@example.com", operator.getEmail());
-    assertTrue(new BCryptPasswordEncoder().matches("password", operator.getPassword()));
+    assertEquals("password", operator.getPassword());
     assertEquals(SystemRole.ADMIN, operator.getSystemRole());
   }
 
@@ -1,7 +1,6 @@
 package es.miw.tfm.invierte.user.api.dto;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDate;
 
@@ -10,7 +9,6 @@ import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
 import es.miw.tfm.invierte.user.data.model.enums.Gender;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 class StaffDtoTest {
 
@@ -41,7 +39,7 @@ class StaffDtoTest {
     assertEquals("Test", staff.getFirstName());
     assertEquals("User", staff.getFamilyName());
     assertEquals("test@example.com", staff.getEmail());
-    assertTrue(new BCryptPasswordEncoder().matches("password", staff.getPassword()));
+    assertEquals("password", staff.getPassword());
     assertEquals(CompanyRole.OWNER, staff.getCompanyRole());
     assertEquals(LocalDate.of(1990, 1, 1), staff.getBirthDate());
     assertEquals("12345678A", staff.getIdentityDocument());
@@ -7,10 +7,13 @@ import es.miw.tfm.invierte.user.service.exception.BadRequestException;
 import es.miw.tfm.invierte.user.service.exception.ConflictException;
 import es.miw.tfm.invierte.user.service.exception.ForbiddenException;
 import es.miw.tfm.invierte.user.service.exception.NotFoundException;
+import es.miw.tfm.invierte.user.service.exception.ServiceUnavailableException;
+import es.miw.tfm.invierte.user.service.exception.UnauthorizedException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.web.reactive.resource.NoResourceFoundException;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 class ApiExceptionHandlerTest {
 
@@ -23,7 +26,7 @@ class ApiExceptionHandlerTest {
 
   @Test
   void testNoResourceFoundRequest() {
-    ErrorMessage errorMessage = apiExceptionHandler.noResourceFoundRequest(new NoResourceFoundException("Resource not found"));
+    ErrorMessage errorMessage = apiExceptionHandler.noResourceFoundRequest(new NoResourceFoundException(HttpMethod.GET, "/unknown"));
     assertEquals("NotFoundException", errorMessage.getError());
     assertTrue(errorMessage.getMessage().contains("Path not found"));
     assertEquals(HttpStatus.NOT_FOUND.value(), errorMessage.getCode());
@@ -53,6 +56,15 @@ class ApiExceptionHandlerTest {
     assertEquals(HttpStatus.CONFLICT.value(), errorMessage.getCode());
   }
 
+  @Test
+  void testUnauthorized() {
+    ErrorMessage errorMessage = apiExceptionHandler.unauthorized(
+        new UnauthorizedException("Bad credentials"));
+    assertEquals("UnauthorizedException", errorMessage.getError());
+    assertTrue(errorMessage.getMessage().contains("Bad credentials"));
+    assertEquals(HttpStatus.UNAUTHORIZED.value(), errorMessage.getCode());
+  }
+
   @Test
   void testForbidden() {
     ErrorMessage errorMessage = apiExceptionHandler.forbidden(new ForbiddenException("Forbidden"));
@@ -61,6 +73,15 @@ class ApiExceptionHandlerTest {
     assertEquals(HttpStatus.FORBIDDEN.value(), errorMessage.getCode());
   }
 
+  @Test
+  void testServiceUnavailable() {
+    ErrorMessage errorMessage = apiExceptionHandler.serviceUnavailable(
+        new ServiceUnavailableException("Queue is full"));
+    assertEquals("ServiceUnavailableException", errorMessage.getError());
+    assertTrue(errorMessage.getMessage().contains("Queue is full"));
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), errorMessage.getCode());
+  }
+
   @Test
   void testException() {
     ErrorMessage errorMessage = apiExceptionHandler.exception(new Exception("Internal server error"));
@@ -45,6 +45,15 @@ class OperatorResourceIT extends BaseContainerIntegration {
     postgreSQLContainer.close();
   }
 
+  @Test
+  void testUnknownPathNotFound() {
+    webTestClient.get().uri(OperatorResource.USERS + "/unknown-path")
+        .exchange()
+        .expectStatus().isNotFound()
+        .expectBody()
+        .jsonPath("$.error").isEqualTo("NotFoundException");
+  }
+
   @Test
   void testChangePasswordOperator() {
     final var mockedEntity = createRandomOperator();
@@ -0,0 +1,23 @@
+package es.miw.tfm.invierte.user.api.resource;
+
+import es.miw.tfm.invierte.user.ApiTestConfig;
+import org.junit.jupiter.api.Tag;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the threading load test with the Tomcat pool of platform threads.
+ */
+@ApiTestConfig
+@TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+@DirtiesContext
+@Tag("IntegrationTest")
+@Tag("Benchmark")
+class PlatformThreadLoadIT extends ThreadingLoadTest {
+
+  @Override
+  String mode() {
+    return "Platform";
+  }
+
+}
@@ -0,0 +1,104 @@
+package es.miw.tfm.invierte.user.api.resource;
+
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Base64;
+
+import es.miw.tfm.invierte.user.ApiTestConfig;
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Checks that the rate limiting filter answers throttled logins and notifications with a
+ * 429 before they reach the password check or the database.
+ */
+@ApiTestConfig
+@TestPropertySource(properties = {
+    "tfm.rate-limit.enabled=true",
+    "tfm.rate-limit.policies.login-email.capacity=2",
+    "tfm.rate-limit.policies.login-ip.capacity=3",
+    "tfm.rate-limit.policies.notify-email.capacity=1"})
+@DirtiesContext
+@Tag("IntegrationTest")
+class RateLimitIT extends BaseContainerIntegration {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+  }
+
+  @AfterAll
+  static void clean() {
+    postgreSQLContainer.close();
+  }
+
+  @Test
+  void testLoginStaffRateLimited() {
+    final var basicAuth = "Basic " + Base64.getEncoder()
+        .encodeToString(("throttled@invierte.io:" + PASSWORD).getBytes());
+
+    for (int i = 0; i < 2; i++) {
+      this.webTestClient.post().uri(StaffResource.USERS + StaffResource.STAFF + StaffResource.TOKEN)
+          .header(HttpHeaders.AUTHORIZATION, basicAuth)
+          .exchange()
+          .expectStatus().isUnauthorized();
+    }
+
+    this.webTestClient.post().uri(OperatorResource.USERS + OperatorResource.OPERATOR
+            + OperatorResource.TOKEN)
+        .header(HttpHeaders.AUTHORIZATION, basicAuth)
+        .exchange()
+        .expectStatus().isEqualTo(429)
+        .expectHeader().exists(HttpHeaders.RETRY_AFTER);
+  }
+
+  @Test
+  void testLoginRateLimitedPerForwardedClient() {
+    for (int i = 0; i < 3; i++) {
+      this.login("client-" + i + "@invierte.io", "203.0.113.1")
+          .expectStatus().isUnauthorized();
+    }
+
+    this.login("client-3@invierte.io", "203.0.113.1")
+        .expectStatus().isEqualTo(429);
+    this.login("client-4@invierte.io", "198.51.100.7, 203.0.113.2")
+        .expectStatus().isUnauthorized();
+  }
+
+  @Test
+  void testNotifyResetPasswordRateLimited() {
+    final var uri = StaffResource.USERS + StaffResource.STAFF + "/unknown@invierte.io"
+        + StaffResource.NOTIFY_RESET_PASSWORD;
+
+    this.webTestClient.post().uri(uri)
+        .exchange()
+        .expectStatus().value(status -> assertNotEquals(429, status));
+
+    this.webTestClient.post().uri(uri)
+        .exchange()
+        .expectStatus().isEqualTo(429)
+        .expectHeader().exists(HttpHeaders.RETRY_AFTER);
+  }
+
+  private WebTestClient.ResponseSpec login(String email, String forwardedFor) {
+    return this.webTestClient.post()
+        .uri(StaffResource.USERS + StaffResource.STAFF + StaffResource.TOKEN)
+        .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder()
+            .encodeToString((email + ":" + PASSWORD).getBytes()))
+        .header("X-Forwarded-For", forwardedFor)
+        .exchange();
+  }
+
+}
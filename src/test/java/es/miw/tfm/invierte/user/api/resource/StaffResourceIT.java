@@ -2,6 +2,7 @@ package es.miw.tfm.invierte.user.api.resource;
 
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.ACTIVATION_CODE;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.PASSWORD;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.TAX_IDENTIFICATION_NUMBER;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomActiveStaff;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomInactiveStaffWithCompany;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomPasswordChangeDto;
@@ -9,6 +10,7 @@ import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomStaff;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomStaffDto;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomStaffInfoDto;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import java.util.Base64;
@@ -17,15 +19,19 @@ import es.miw.tfm.invierte.user.ApiTestConfig;
 import es.miw.tfm.invierte.user.BaseContainerIntegration;
 import es.miw.tfm.invierte.user.api.dto.StaffCompanyDto;
 import es.miw.tfm.invierte.user.api.dto.StaffInfoDto;
+import es.miw.tfm.invierte.user.api.dto.StaffMembershipDto;
 import es.miw.tfm.invierte.user.api.dto.TokenDto;
 import es.miw.tfm.invierte.user.data.dao.StaffRepository;
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
 import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.service.JwtService;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
@@ -40,6 +46,12 @@ class StaffResourceIT extends BaseContainerIntegration {
   @Autowired
   private StaffRepository staffRepository;
 
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private JwtService jwtService;
+
   @BeforeAll
   static void setup() {
     postgreSQLContainer.start();
@@ -63,6 +75,41 @@ class StaffResourceIT extends BaseContainerIntegration {
     this.staffRepository.deleteAll();
   }
 
+  @Test
+  void testAddMembershipIsGrantedOnActivation() {
+    final var owner = createRandomActiveStaff();
+    owner.setEmail("owner@email.com");
+    owner.setTaxIdentificationNumber(TAX_IDENTIFICATION_NUMBER);
+    this.staffRepository.save(owner);
+    final var invitee = this.staffRepository.save(createRandomStaff(Status.ACTIVE));
+    final var ownerBearer = "Bearer " + generateBearerToken("Basic " + Base64.getEncoder()
+        .encodeToString((owner.getEmail() + ":" + PASSWORD).getBytes()));
+    final var inviteeBasicAuth = "Basic " + Base64.getEncoder()
+        .encodeToString((invitee.getEmail() + ":" + PASSWORD).getBytes());
+
+    webTestClient.post().uri(StaffResource.USERS + StaffResource.STAFF + "/"
+            + invitee.getEmail() + StaffResource.COMPANY + "/" + TAX_IDENTIFICATION_NUMBER)
+      .header("Authorization", ownerBearer)
+      .contentType(MediaType.APPLICATION_JSON)
+      .bodyValue(new StaffMembershipDto(CompanyRole.REALTOR))
+      .exchange()
+      .expectStatus().isOk();
+    assertFalse(this.jwtService.roles(generateBearerToken(inviteeBasicAuth))
+        .containsKey(TAX_IDENTIFICATION_NUMBER));
+
+    final var activationCode = this.jdbcTemplate.queryForObject(
+        "SELECT code FROM activation_code WHERE staff_id = ?", String.class, invitee.getId());
+    webTestClient.post()
+      .uri(StaffResource.USERS + StaffResource.STAFF + StaffResource.ACTIVATE_CODE.replace("{activationCode}", activationCode))
+      .exchange()
+      .expectStatus().isOk();
+    assertEquals(CompanyRole.REALTOR.name(), this.jwtService
+        .roles(generateBearerToken(inviteeBasicAuth)).get(TAX_IDENTIFICATION_NUMBER));
+
+    this.jdbcTemplate.update("DELETE FROM staff_membership");
+    this.staffRepository.deleteAll();
+  }
+
   @Test
   void testChangePasswordOperator() {
     final var mockedEntity = createRandomStaff(Status.ACTIVE);
@@ -0,0 +1,235 @@
+package es.miw.tfm.invierte.user.api.resource;
+
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.ACTIVATION_CODE;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.PASSWORD;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.TAX_IDENTIFICATION_NUMBER;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomInactiveStaffWithCompany;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomStaffInfoDto;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Base64;
+
+import es.miw.tfm.invierte.user.ApiTestConfig;
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.api.dto.TokenDto;
+import es.miw.tfm.invierte.user.data.dao.ActivationCodeRepository;
+import es.miw.tfm.invierte.user.data.dao.EmailOutboxRepository;
+import es.miw.tfm.invierte.user.data.dao.StaffRepository;
+import es.miw.tfm.invierte.user.data.model.ActivationCode;
+import es.miw.tfm.invierte.user.data.model.Staff;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Counts the SQL statements and loaded rows of the staff endpoints for a user with a long
+ * activation code history, which must never be loaded. Notifications add a single insert
+ * into the email outbox, and a login with an outdated password hash a single update.
+ * Updates read and write the user in one transaction, so it is selected only once, and a
+ * login reads the credentials of the user with a single query. An activation also grants
+ * the pending memberships of the user with a single update.
+ */
+@ApiTestConfig
+@DirtiesContext
+@Tag("IntegrationTest")
+class StaffResourceStatementsIT extends BaseContainerIntegration {
+
+  private static final int CODE_HISTORY = 500;
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private ActivationCodeRepository activationCodeRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private EmailOutboxRepository emailOutboxRepository;
+
+  @Autowired
+  private PasswordEncoder passwordEncoder;
+
+  private Staff staff;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+  }
+
+  @AfterAll
+  static void clean() {
+    postgreSQLContainer.close();
+  }
+
+  @BeforeEach
+  void seed() {
+    this.staff = this.staffRepository.save(createRandomInactiveStaffWithCompany());
+    this.jdbcTemplate.update("INSERT INTO activation_code (code, expiration_date, staff_id) "
+        + "SELECT 'history-' || g, now() - interval '1 day', ? "
+        + "FROM generate_series(1, ?) g", this.staff.getId(), CODE_HISTORY);
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.jdbcTemplate.update("DELETE FROM activation_code");
+    this.jdbcTemplate.update("DELETE FROM email_outbox");
+    this.staffRepository.deleteAll();
+  }
+
+  @Test
+  void testNotifyActivationCode() {
+    final var statistics = this.clearStatistics();
+
+    this.webTestClient.post().uri(StaffResource.USERS + StaffResource.STAFF + "/"
+            + this.staff.getEmail() + StaffResource.COMPANY + "/" + TAX_IDENTIFICATION_NUMBER
+            + StaffResource.NOTIFY_CODE)
+        .exchange()
+        .expectStatus().isOk();
+
+    this.assertStatements(statistics, 3, 1);
+    assertEquals(CODE_HISTORY + 2, this.activationCodeRepository.countByStaffId(
+        this.staff.getId()));
+    assertEquals(1, this.emailOutboxRepository.count());
+  }
+
+  @Test
+  void testActivateAccount() {
+    final var statistics = this.clearStatistics();
+
+    this.webTestClient.post().uri(StaffResource.USERS + StaffResource.STAFF
+            + StaffResource.ACTIVATE_CODE.replace("{activationCode}", ACTIVATION_CODE))
+        .exchange()
+        .expectStatus().isOk();
+
+    this.assertStatements(statistics, 3, 1);
+  }
+
+  @Test
+  void testLoginAndNotifyResetPassword() {
+    this.activate();
+    this.jdbcTemplate.update("UPDATE user_profile SET password = ? WHERE id = ?",
+        this.passwordEncoder.encode(PASSWORD), this.staff.getId());
+    var statistics = this.clearStatistics();
+
+    this.login();
+
+    this.assertStatements(statistics, 1, 0);
+
+    statistics = this.clearStatistics();
+
+    this.webTestClient.post().uri(StaffResource.USERS + StaffResource.STAFF + "/"
+            + this.staff.getEmail() + StaffResource.NOTIFY_RESET_PASSWORD)
+        .exchange()
+        .expectStatus().isOk();
+
+    this.assertStatements(statistics, 3, 1);
+    assertEquals(1, this.emailOutboxRepository.count());
+  }
+
+  @Test
+  void testLoginRehashesLegacyPassword() {
+    this.activate();
+    var statistics = this.clearStatistics();
+
+    this.login();
+
+    this.assertStatements(statistics, 2, 0);
+    final var password = this.jdbcTemplate.queryForObject(
+        "SELECT password FROM user_profile WHERE id = ?", String.class, this.staff.getId());
+    assertTrue(password.startsWith("{bcrypt}"));
+    assertFalse(this.passwordEncoder.upgradeEncoding(password));
+
+    statistics = this.clearStatistics();
+
+    this.login();
+
+    this.assertStatements(statistics, 1, 0);
+  }
+
+  @Test
+  void testLoginInactiveStaffIsRejected() {
+    this.jdbcTemplate.update("UPDATE user_profile SET password = ? WHERE id = ?",
+        this.passwordEncoder.encode(PASSWORD), this.staff.getId());
+    final var statistics = this.clearStatistics();
+
+    this.webTestClient.post().uri(StaffResource.USERS + StaffResource.STAFF + StaffResource.TOKEN)
+        .header("Authorization", this.basicAuth())
+        .exchange()
+        .expectStatus().isUnauthorized();
+
+    this.assertStatements(statistics, 1, 0);
+  }
+
+  @Test
+  void testUpdateGeneralInfo() {
+    this.activate();
+    final var statistics = this.clearStatistics();
+
+    this.webTestClient.patch().uri(StaffResource.USERS + StaffResource.STAFF + "/"
+            + this.staff.getEmail() + StaffResource.GENERAL_INFO)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(createRandomStaffInfoDto())
+        .exchange()
+        .expectStatus().isOk();
+
+    this.assertStatements(statistics, 2, 1);
+  }
+
+  private String basicAuth() {
+    return "Basic " + Base64.getEncoder()
+        .encodeToString((this.staff.getEmail() + ":" + PASSWORD).getBytes());
+  }
+
+  private void login() {
+    this.webTestClient.post().uri(StaffResource.USERS + StaffResource.STAFF + StaffResource.TOKEN)
+        .header("Authorization", this.basicAuth())
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(TokenDto.class);
+  }
+
+  private void activate() {
+    this.jdbcTemplate.update("UPDATE staff_profile SET status = ? WHERE id = ?",
+        Status.ACTIVE.name(), this.staff.getId());
+  }
+
+  private Statistics clearStatistics() {
+    final var statistics = this.entityManagerFactory.unwrap(SessionFactory.class)
+        .getStatistics();
+    statistics.setStatisticsEnabled(true);
+    statistics.clear();
+    return statistics;
+  }
+
+  private void assertStatements(Statistics statistics, long statements, long loadedEntities) {
+    assertEquals(statements, statistics.getPrepareStatementCount(), "SQL statements");
+    assertEquals(loadedEntities, statistics.getEntityLoadCount(), "loaded rows");
+    assertEquals(0, statistics.getCollectionLoadCount(), "loaded collections");
+    assertEquals(0, statistics.getEntityStatistics(ActivationCode.class.getName())
+        .getLoadCount(), "loaded activation codes");
+  }
+
+}
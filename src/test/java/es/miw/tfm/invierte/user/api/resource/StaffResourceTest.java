@@ -1,9 +1,12 @@
 package es.miw.tfm.invierte.user.api.resource;
 
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.buildStaffLoginView;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -16,11 +19,13 @@ import es.miw.tfm.invierte.user.api.dto.PasswordResetDto;
 import es.miw.tfm.invierte.user.api.dto.StaffCompanyDto;
 import es.miw.tfm.invierte.user.api.dto.StaffDto;
 import es.miw.tfm.invierte.user.api.dto.StaffInfoDto;
+import es.miw.tfm.invierte.user.api.dto.StaffMembershipDto;
 import es.miw.tfm.invierte.user.api.dto.TokenDto;
 import es.miw.tfm.invierte.user.data.model.Staff;
 import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
 import es.miw.tfm.invierte.user.service.StaffService;
-import es.miw.tfm.invierte.user.service.util.EmailService;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -34,9 +39,6 @@ public class StaffResourceTest {
   @Mock
   private StaffService staffService;
 
-  @Mock
-  private EmailService emailService;
-
   @InjectMocks
   private StaffResource staffResource;
 
@@ -56,6 +58,20 @@ public class StaffResourceTest {
     verify(this.staffService).login(EMAIL);
   }
 
+  @Test
+  void testLoginStaffWithStaffUserDetails() {
+    String token = "mockedToken";
+    StaffUserDetails activeUser = new StaffUserDetails(List.of(
+        buildStaffLoginView(Status.ACTIVE, "12345678A", CompanyRole.OWNER)));
+    when(this.staffService.login(activeUser)).thenReturn(token);
+
+    TokenDto result = this.staffResource.loginStaff(activeUser);
+
+    assertEquals(token, result.getToken());
+    verify(this.staffService).login(activeUser);
+    verify(this.staffService, never()).login(anyString());
+  }
+
   @Test
   void testCreateUserWithNoCompany() {
     StaffDto staffDto = buildStaffDto();
@@ -66,6 +82,16 @@ public class StaffResourceTest {
     verify(this.staffService).createUserWithNoCompany(staffDto.toStaff());
   }
 
+  @Test
+  void testAddMembership() {
+    String taxIdentificationNumber = "12345678A";
+    StaffMembershipDto staffMembershipDto = new StaffMembershipDto(CompanyRole.REALTOR);
+
+    this.staffResource.addMembership(EMAIL, taxIdentificationNumber, staffMembershipDto);
+
+    verify(this.staffService).addMembership(EMAIL, taxIdentificationNumber, CompanyRole.REALTOR);
+  }
+
   @Test
   void testSetCompanyToUser() {
     String email = "test@example.com";
@@ -82,16 +108,10 @@ public class StaffResourceTest {
   void testNotify() {
     String email = "test@example.com";
     String taxIdentificationNumber = "12345678A";
-    String message = "Activation code message";
-    String subject = "Unete a InvierteIO";
-
-    when(this.staffService.getActivationCodeMessage(email, taxIdentificationNumber)).thenReturn(java.util.Optional.of(message));
-    doNothing().when(this.emailService).sendEmail(email, subject, message);
 
     this.staffResource.notifyActivationCode(email, taxIdentificationNumber);
 
-    verify(this.staffService).getActivationCodeMessage(email, taxIdentificationNumber);
-    verify(this.emailService).sendEmail(email, subject, message);
+    verify(this.staffService).notifyActivationCode(email, taxIdentificationNumber);
   }
 
   @Test
@@ -160,7 +180,7 @@ public class StaffResourceTest {
   void testNotifyResetPassword() {
     String email = "test@example.com";
     this.staffResource.notifyResetPassword(email);
-    verify(staffService, times(1)).getResetPasswordNotificationCodeMessage(email);
+    verify(staffService, times(1)).notifyResetPassword(email);
   }
 
   @Test
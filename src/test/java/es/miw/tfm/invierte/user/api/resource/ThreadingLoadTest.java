@@ -0,0 +1,122 @@
+package es.miw.tfm.invierte.user.api.resource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+/**
+ * Load test shared by the platform and virtual thread modes: 2,000 concurrent clients,
+ * each sending a sequence of requests to an endpoint that blocks on a JDBC query. Logs
+ * the throughput and the latency percentiles of each mode, so both runs can be compared.
+ * Both runs are tagged `Benchmark` and only run with the benchmarks profile.
+ */
+@Log4j2
+abstract class ThreadingLoadTest extends BaseContainerIntegration {
+
+  private static final int CLIENTS = 2_000;
+
+  private static final int REQUESTS_PER_CLIENT = 5;
+
+  private static final int WARM_UP_REQUESTS = 500;
+
+  @LocalServerPort
+  private int port;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+  }
+
+  @AfterAll
+  static void clean() {
+    postgreSQLContainer.close();
+  }
+
+  @Test
+  void testConcurrentClients() throws InterruptedException {
+    final var request = HttpRequest.newBuilder(URI.create("http://localhost:" + this.port
+            + StaffResource.USERS + StaffResource.STAFF
+            + StaffResource.ACTIVATE_CODE.replace("{activationCode}", "unknown-code")))
+        .POST(HttpRequest.BodyPublishers.noBody())
+        .timeout(Duration.ofSeconds(60))
+        .build();
+    final var latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+    final var errors = new AtomicInteger();
+    final var start = new CountDownLatch(1);
+
+    try (HttpClient httpClient = HttpClient.newHttpClient();
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+        send(httpClient, request, errors);
+      }
+      errors.set(0);
+      for (int client = 0; client < CLIENTS; client++) {
+        final int offset = client * REQUESTS_PER_CLIENT;
+        clients.submit(() -> {
+          start.await();
+          for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+            final long requestStart = System.nanoTime();
+            send(httpClient, request, errors);
+            latencies[offset + i] = System.nanoTime() - requestStart;
+          }
+          return null;
+        });
+      }
+      final long runStart = System.nanoTime();
+      start.countDown();
+      clients.shutdown();
+      clients.awaitTermination(10, TimeUnit.MINUTES);
+      this.report(latencies, System.nanoTime() - runStart);
+    }
+
+    assertEquals(0, errors.get(), "failed requests");
+  }
+
+  /**
+   * Tells which thread mode the application context runs with.
+   *
+   * @return the name of the thread mode
+   */
+  abstract String mode();
+
+  private static void send(HttpClient httpClient, HttpRequest request, AtomicInteger errors) {
+    try {
+      final var response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+      if (response.statusCode() != 404) {
+        errors.incrementAndGet();
+      }
+    } catch (Exception e) {
+      errors.incrementAndGet();
+    }
+  }
+
+  private void report(long[] latencies, long elapsed) {
+    Arrays.sort(latencies);
+    log.info("{} threads: {} clients, {} requests in {} ms, {} req/s, p50 {} ms, p99 {} ms, "
+            + "max {} ms", this.mode(), CLIENTS, latencies.length, elapsed / 1_000_000,
+        latencies.length * 1_000_000_000L / elapsed, percentile(latencies, 0.50),
+        percentile(latencies, 0.99), latencies[latencies.length - 1] / 1_000_000);
+  }
+
+  private static long percentile(long[] sortedLatencies, double percentile) {
+    return sortedLatencies[(int) (sortedLatencies.length * percentile)] / 1_000_000;
+  }
+
+}
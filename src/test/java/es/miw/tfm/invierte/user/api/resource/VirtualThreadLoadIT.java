@@ -0,0 +1,39 @@
+package es.miw.tfm.invierte.user.api.resource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import es.miw.tfm.invierte.user.ApiTestConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the threading load test with virtual threads, which must never stay pinned to
+ * their carrier thread.
+ */
+@ApiTestConfig
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+@DirtiesContext
+@Tag("IntegrationTest")
+@Tag("Benchmark")
+class VirtualThreadLoadIT extends ThreadingLoadTest {
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @AfterEach
+  void assertNoPinning() throws InterruptedException {
+    Thread.sleep(2_000);
+    assertEquals(0, this.meterRegistry.get("jvm.threads.virtual.pinned").timer().count(),
+        "pinned virtual threads");
+  }
+
+  @Override
+  String mode() {
+    return "Virtual";
+  }
+
+}
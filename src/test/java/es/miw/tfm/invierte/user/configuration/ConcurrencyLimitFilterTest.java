@@ -0,0 +1,71 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ConcurrencyLimitFilterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final ConcurrencyLimitFilter concurrencyLimitFilter =
+      new ConcurrencyLimitFilter(1, Duration.ofMillis(50), this.meterRegistry);
+
+  @Test
+  void testRejectsRequestsOverTheLimit() throws Exception {
+    final var admitted = new CountDownLatch(1);
+    final var release = new CountDownLatch(1);
+    final var chain = mock(FilterChain.class);
+    doAnswer(invocation -> {
+      admitted.countDown();
+      release.await();
+      return null;
+    }).when(chain).doFilter(any(), any());
+
+    final var first = Thread.ofVirtual().start(() -> this.filter(chain));
+    admitted.await();
+    final var rejected = this.filter(mock(FilterChain.class));
+    release.countDown();
+    first.join();
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), rejected.getStatus());
+    assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+    assertEquals(1, this.meterRegistry.get("http.server.requests.rejected").counter().count());
+  }
+
+  @Test
+  void testReleasesPermitAfterRequest() throws Exception {
+    final var chain = mock(FilterChain.class);
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(HttpStatus.OK.value(), this.filter(chain).getStatus());
+    }
+
+    verify(chain, times(3)).doFilter(any(), any());
+  }
+
+  private MockHttpServletResponse filter(FilterChain chain) {
+    final var response = new MockHttpServletResponse();
+    try {
+      this.concurrencyLimitFilter.doFilter(new MockHttpServletRequest(), response, chain);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+    return response;
+  }
+
+}
@@ -4,12 +4,16 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
 
 import es.miw.tfm.invierte.user.service.JwtService;
+import es.miw.tfm.invierte.user.service.model.TokenPrincipal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.Test;
@@ -42,8 +46,11 @@ class JwtAuthenticationFilterTest {
     FilterChain filterChain = mock(FilterChain.class);
 
     when(this.jwtService.extractToken("Bearer " + token)).thenReturn(token);
-    when(this.jwtService.user(token)).thenReturn(username);
-    when(this.jwtService.role(token)).thenReturn(role);
+    when(this.jwtService.verify(token)).thenReturn(Optional.of(TokenPrincipal.builder()
+        .user(username)
+        .role(role)
+        .companyRoles(Map.of())
+        .build()));
 
     this.jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
@@ -57,4 +64,30 @@ class JwtAuthenticationFilterTest {
     verify(filterChain).doFilter(request, response);
   }
 
+  @Test
+  void testDoFilterInternal_CompanyRoles() throws ServletException, IOException {
+    String token = "validToken";
+    String username = "test@example.com";
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader("Authorization", "Bearer " + token);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    FilterChain filterChain = mock(FilterChain.class);
+
+    when(this.jwtService.extractToken("Bearer " + token)).thenReturn(token);
+    when(this.jwtService.verify(token)).thenReturn(Optional.of(TokenPrincipal.builder()
+        .user(username)
+        .companyRoles(Map.of("12345678A", "OWNER"))
+        .build()));
+
+    this.jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+    assertEquals(username, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    assertTrue(SecurityContextHolder.getContext().getAuthentication().getAuthorities()
+        .stream()
+        .anyMatch(auth -> auth.getAuthority().equals("ROLE_12345678A_OWNER")));
+    verify(this.jwtService, times(1)).verify(token);
+    verify(filterChain).doFilter(request, response);
+  }
+
 }
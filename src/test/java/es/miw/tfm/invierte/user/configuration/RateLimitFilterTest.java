@@ -0,0 +1,154 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+import es.miw.tfm.invierte.user.service.util.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RateLimitFilterTest {
+
+  private static final String LOGIN = "/users/staff/token";
+
+  private RateLimitFilter rateLimitFilter;
+
+  @BeforeEach
+  void setUp() {
+    final var properties = new RateLimitProperties();
+    properties.getPolicies().put("login-email",
+        policy(List.of(LOGIN), RateLimitProperties.Key.EMAIL, 2));
+    properties.getPolicies().put("login-ip",
+        policy(List.of(LOGIN), RateLimitProperties.Key.IP, 3));
+    properties.getPolicies().put("notify-email",
+        policy(List.of("/users/staff/{email}/notify-reset-password"),
+            RateLimitProperties.Key.EMAIL, 1));
+    this.rateLimitFilter = new RateLimitFilter(properties,
+        new RateLimiter(1_000, new SimpleMeterRegistry()));
+  }
+
+  @Test
+  void testLoginLimitedByBasicUsername() throws ServletException, IOException {
+    final var chain = mock(FilterChain.class);
+
+    assertEquals(HttpStatus.OK.value(), this.filter(login("a@email.com", "1.1.1.1"), chain));
+    assertEquals(HttpStatus.OK.value(), this.filter(login("A@email.com", "1.1.1.2"), chain));
+    final var response = new MockHttpServletResponse();
+    this.rateLimitFilter.doFilter(login("a@email.com", "1.1.1.3"), response, chain);
+
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+    assertTrue(Long.parseLong(response.getHeader(HttpHeaders.RETRY_AFTER)) >= 1);
+    verify(chain, times(2)).doFilter(any(),
+        any());
+  }
+
+  @Test
+  void testLoginLimitedByClientIp() throws ServletException, IOException {
+    final var chain = mock(FilterChain.class);
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(HttpStatus.OK.value(), this.filter(login("user" + i + "@email.com",
+          "2.2.2.2"), chain));
+    }
+
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(),
+        this.filter(login("other@email.com", "2.2.2.2"), chain));
+    assertEquals(HttpStatus.OK.value(),
+        this.filter(login("other@email.com", "2.2.2.3"), chain));
+  }
+
+  @Test
+  void testNotifyLimitedByPathEmail() throws ServletException, IOException {
+    final var chain = mock(FilterChain.class);
+    final var uri = "/users/staff/b@email.com/notify-reset-password";
+
+    assertEquals(HttpStatus.OK.value(), this.filter(new MockHttpServletRequest("POST", uri),
+        chain));
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(),
+        this.filter(new MockHttpServletRequest("POST", uri), chain));
+  }
+
+  @Test
+  void testOtherRequestsNotLimited() throws ServletException, IOException {
+    final var chain = mock(FilterChain.class);
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals(HttpStatus.OK.value(),
+          this.filter(new MockHttpServletRequest("GET", LOGIN), chain));
+      assertEquals(HttpStatus.OK.value(),
+          this.filter(new MockHttpServletRequest("POST", "/users/staff"), chain));
+    }
+  }
+
+  @Test
+  void testDisabled() throws ServletException, IOException {
+    final var properties = new RateLimitProperties();
+    properties.setEnabled(false);
+    properties.getPolicies().put("login-email",
+        policy(List.of(LOGIN), RateLimitProperties.Key.EMAIL, 1));
+    final var filter = new RateLimitFilter(properties,
+        new RateLimiter(1_000, new SimpleMeterRegistry()));
+    final var chain = mock(FilterChain.class);
+
+    for (int i = 0; i < 3; i++) {
+      filter.doFilter(login("a@email.com", "1.1.1.1"), new MockHttpServletResponse(), chain);
+    }
+
+    verify(chain, times(3)).doFilter(any(),
+        any());
+  }
+
+  @Test
+  void testLoginWithoutCredentialsOnlyLimitedByIp() throws ServletException, IOException {
+    final var chain = mock(FilterChain.class);
+    final var request = new MockHttpServletRequest("POST", LOGIN);
+    request.addHeader(HttpHeaders.AUTHORIZATION, "Basic not-base64!");
+
+    assertEquals(HttpStatus.OK.value(), this.filter(request, chain));
+    assertEquals(HttpStatus.OK.value(), this.filter(request, chain));
+    assertEquals(HttpStatus.OK.value(), this.filter(request, chain));
+  }
+
+  private int filter(MockHttpServletRequest request, FilterChain chain)
+      throws ServletException, IOException {
+    final var response = new MockHttpServletResponse();
+    this.rateLimitFilter.doFilter(request, response, chain);
+    return response.getStatus();
+  }
+
+  private static MockHttpServletRequest login(String email, String remoteAddress) {
+    final var request = new MockHttpServletRequest("POST", LOGIN);
+    request.setRemoteAddr(remoteAddress);
+    request.addHeader(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder()
+        .encodeToString((email + ":password").getBytes(StandardCharsets.UTF_8)));
+    return request;
+  }
+
+  private static RateLimitProperties.Policy policy(List<String> paths,
+      RateLimitProperties.Key key, int capacity) {
+    final var policy = new RateLimitProperties.Policy();
+    policy.setPaths(paths);
+    policy.setKey(key);
+    policy.setCapacity(capacity);
+    policy.setRefillPeriod(Duration.ofMinutes(10));
+    return policy;
+  }
+
+}
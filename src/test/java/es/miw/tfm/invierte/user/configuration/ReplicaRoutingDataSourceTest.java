@@ -0,0 +1,145 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import es.miw.tfm.invierte.user.service.util.ReadYourWrites;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReplicaRoutingDataSourceTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final Connection primaryConnection = mock(Connection.class);
+
+  private final DataSource primary = mock(DataSource.class);
+
+  private final DataSource replica0 = mock(DataSource.class);
+
+  private final DataSource replica1 = mock(DataSource.class);
+
+  private final Connection replica0Connection = mock(Connection.class);
+
+  private final Connection replica1Connection = mock(Connection.class);
+
+  private final ResultSet replica0Lag = mock(ResultSet.class);
+
+  private final ResultSet replica1Lag = mock(ResultSet.class);
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    when(this.primary.getConnection()).thenReturn(this.primaryConnection);
+    mockReplica(this.replica0, this.replica0Connection, this.replica0Lag);
+    mockReplica(this.replica1, this.replica1Connection, this.replica1Lag);
+  }
+
+  private static void mockReplica(DataSource replica, Connection connection, ResultSet lag)
+      throws SQLException {
+    final var statement = mock(Statement.class);
+    when(replica.getConnection()).thenReturn(connection);
+    when(connection.createStatement()).thenReturn(statement);
+    when(statement.executeQuery(anyString())).thenReturn(lag);
+    when(lag.next()).thenReturn(true);
+  }
+
+  private ReplicaRoutingDataSource routingDataSource() {
+    final Map<String, DataSource> replicas = new LinkedHashMap<>();
+    replicas.put("replica-0", this.replica0);
+    replicas.put("replica-1", this.replica1);
+    return new ReplicaRoutingDataSource(this.primary, replicas, Duration.ofSeconds(2),
+        this.meterRegistry);
+  }
+
+  private double reads(String pool, String reason) {
+    return this.meterRegistry.counter("datasource.read.connections", "pool", pool,
+        "reason", reason).count();
+  }
+
+  @Test
+  void testGetConnectionSpreadsReadsOverReplicas() throws SQLException {
+    final var dataSource = routingDataSource();
+
+    assertSame(this.replica0Connection, dataSource.getConnection());
+    assertSame(this.replica1Connection, dataSource.getConnection());
+    assertSame(this.replica0Connection, dataSource.getConnection());
+    assertEquals(2, reads("replica-0", "replica"));
+    assertEquals(1, reads("replica-1", "replica"));
+  }
+
+  @Test
+  void testGetConnectionSkipsLaggingReplica() throws SQLException {
+    when(this.replica1Lag.getDouble(1)).thenReturn(5.0);
+    final var dataSource = routingDataSource();
+
+    assertSame(this.replica0Connection, dataSource.getConnection());
+    assertSame(this.replica0Connection, dataSource.getConnection());
+    assertEquals(0, this.meterRegistry.get("datasource.replica.healthy")
+        .tag("pool", "replica-1").gauge().value());
+    assertEquals(5.0, this.meterRegistry.get("datasource.replica.lag")
+        .tag("pool", "replica-1").gauge().value());
+  }
+
+  @Test
+  void testGetConnectionFallsBackToPrimaryWhenNoReplicaIsHealthy() throws SQLException {
+    when(this.replica0.getConnection()).thenThrow(new SQLException("Connection refused"));
+    when(this.replica1Lag.getDouble(1)).thenReturn(0.0);
+    when(this.replica1Lag.wasNull()).thenReturn(true);
+    final var dataSource = routingDataSource();
+
+    assertSame(this.primaryConnection, dataSource.getConnection());
+    assertEquals(1, reads("primary", "fallback"));
+  }
+
+  @Test
+  void testGetConnectionUsesPrimaryWithoutReplicas() throws SQLException {
+    final var dataSource = new ReplicaRoutingDataSource(this.primary, Map.of(),
+        Duration.ofSeconds(2), this.meterRegistry);
+
+    assertSame(this.primaryConnection, dataSource.getConnection());
+    assertEquals(1, reads("primary", "fallback"));
+  }
+
+  @Test
+  void testCheckReplicasRestoresReplicaThatCaughtUp() throws SQLException {
+    when(this.replica1Lag.getDouble(1)).thenReturn(5.0, 0.5);
+    final var dataSource = routingDataSource();
+
+    dataSource.checkReplicas();
+
+    assertSame(this.replica0Connection, dataSource.getConnection());
+    assertSame(this.replica1Connection, dataSource.getConnection());
+  }
+
+  @Test
+  void testGetConnectionUsesPrimaryToReadYourWrites() throws SQLException {
+    final var dataSource = routingDataSource();
+    final var readYourWrites = new ReadYourWrites(Duration.ofSeconds(10), 100);
+    readYourWrites.recordWrite("staff@email.com");
+
+    final var connection = readYourWrites.read("staff@email.com", () -> {
+      try {
+        return dataSource.getConnection();
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    assertSame(this.primaryConnection, connection);
+    assertEquals(1, reads("primary", "read-your-writes"));
+  }
+
+}
@@ -0,0 +1,240 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.TestConfig;
+import es.miw.tfm.invierte.user.api.dto.OperatorInfoDto;
+import es.miw.tfm.invierte.user.data.dao.OperatorRepository;
+import es.miw.tfm.invierte.user.data.model.Operator;
+import es.miw.tfm.invierte.user.data.model.enums.SystemRole;
+import es.miw.tfm.invierte.user.service.JwtService;
+import es.miw.tfm.invierte.user.service.OperatorService;
+import es.miw.tfm.invierte.user.service.StaffService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Runs the application against a primary and a replica database. The replica is a second
+ * standalone Postgres holding a copy of the primary schema and rows that differ on
+ * purpose, so every read shows which database served it. The general information cache
+ * is disabled, so every read reaches a database.
+ */
+@TestConfig
+@DirtiesContext
+@TestPropertySource(properties = {
+    "tfm.datasource.replica.sticky-window=1s",
+    "tfm.general-info.cache.ttl=0s",
+    "spring.datasource.hikari.connection-timeout=1000"})
+@Tag("IntegrationTest")
+class ReplicaRoutingIT extends BaseContainerIntegration {
+
+  static PostgreSQLContainer<?> replicaContainer = new PostgreSQLContainer<>("postgres:latest");
+
+  private static final String SCHEMA_QUERY = "SELECT 'CREATE TABLE IF NOT EXISTS '"
+      + " || quote_ident(c.relname) || ' (' || string_agg(quote_ident(a.attname) || ' '"
+      + " || format_type(a.atttypid, a.atttypmod), ', ' ORDER BY a.attnum) || ')'"
+      + " FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace"
+      + " JOIN pg_attribute a ON a.attrelid = c.oid"
+      + " WHERE n.nspname = 'public' AND c.relkind = 'r' AND a.attnum > 0"
+      + " AND NOT a.attisdropped GROUP BY c.relname";
+
+  private static final String EMAIL = "replica@email.com";
+
+  private static final String STAFF_EMAIL = "replica-staff@email.com";
+
+  private static final String TAX_IDENTIFICATION_NUMBER = "B12345678";
+
+  private static final String ACTIVATION_CODE = "replica-code";
+
+  private static final String READER = "reader";
+
+  private static SingleConnectionDataSource replicaAdmin;
+
+  @Autowired
+  private OperatorService operatorService;
+
+  @Autowired
+  private OperatorRepository operatorRepository;
+
+  @Autowired
+  private StaffService staffService;
+
+  @Autowired
+  private UserDetailsService userDetailsService;
+
+  @Autowired
+  private JwtService jwtService;
+
+  @Autowired
+  private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private JdbcTemplate replicaJdbcTemplate;
+
+  @DynamicPropertySource
+  static void registerReplicaProperties(DynamicPropertyRegistry registry) {
+    registry.add("tfm.datasource.replica.urls", replicaContainer::getJdbcUrl);
+    registry.add("tfm.datasource.replica.username", () -> READER);
+    registry.add("tfm.datasource.replica.password", () -> READER);
+  }
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+    replicaContainer.start();
+    replicaAdmin = new SingleConnectionDataSource(replicaContainer.getJdbcUrl(),
+        replicaContainer.getUsername(), replicaContainer.getPassword(), true);
+    final var replicaJdbcTemplate = new JdbcTemplate(replicaAdmin);
+    replicaJdbcTemplate.execute("CREATE ROLE " + READER + " LOGIN PASSWORD '" + READER + "'");
+    replicaJdbcTemplate.execute("ALTER DEFAULT PRIVILEGES IN SCHEMA public GRANT SELECT ON "
+        + "TABLES TO " + READER);
+  }
+
+  @AfterAll
+  static void clean() {
+    replicaAdmin.destroy();
+    postgreSQLContainer.close();
+    replicaContainer.close();
+  }
+
+  @BeforeEach
+  void copyToReplica() {
+    this.replicaJdbcTemplate = new JdbcTemplate(replicaAdmin);
+    this.jdbcTemplate.queryForList(SCHEMA_QUERY, String.class)
+        .forEach(this.replicaJdbcTemplate::execute);
+    this.operatorRepository.findByEmail(EMAIL).ifPresent(this.operatorRepository::delete);
+    final var operator = new Operator();
+    operator.setEmail(EMAIL);
+    operator.setFirstName("primary");
+    operator.setFamilyName("primary");
+    operator.setPassword("hash");
+    operator.setSystemRole(SystemRole.SUPPORT);
+    this.operatorRepository.save(operator);
+    for (String table : new String[] {"user_profile", "operator_profile"}) {
+      this.replicaJdbcTemplate.execute("DELETE FROM " + table);
+      this.jdbcTemplate.queryForList("SELECT * FROM " + table)
+          .forEach(row -> this.insert(table, row));
+    }
+    this.replicaJdbcTemplate.update(
+        "UPDATE user_profile SET first_name = 'replica' WHERE email = ?", EMAIL);
+  }
+
+  @AfterEach
+  void allowReplicaConnections() {
+    this.replicaJdbcTemplate.execute("ALTER ROLE " + READER + " LOGIN");
+    this.replicaRoutingDataSource.checkReplicas();
+    this.jdbcTemplate.update("DELETE FROM activation_code WHERE code = ?", ACTIVATION_CODE);
+    this.jdbcTemplate.update("DELETE FROM staff_profile WHERE id IN "
+        + "(SELECT id FROM user_profile WHERE email = ?)", STAFF_EMAIL);
+    this.jdbcTemplate.update("DELETE FROM user_profile WHERE email = ?", STAFF_EMAIL);
+  }
+
+  /**
+   * Seeds an inactive staff user with a pending activation code on the primary and copies
+   * its profile, still inactive, to the replica.
+   */
+  private void seedInactiveStaff() {
+    this.jdbcTemplate.update("INSERT INTO user_profile (email, first_name, password) "
+        + "VALUES (?, 'staff', 'hash')", STAFF_EMAIL);
+    final var id = this.jdbcTemplate.queryForObject(
+        "SELECT id FROM user_profile WHERE email = ?", Integer.class, STAFF_EMAIL);
+    this.jdbcTemplate.update("INSERT INTO staff_profile "
+        + "(id, status, tax_identification_number, company_role) "
+        + "VALUES (?, 'INACTIVE', ?, 'OWNER')", id, TAX_IDENTIFICATION_NUMBER);
+    this.jdbcTemplate.update("INSERT INTO activation_code (code, expiration_date, staff_id) "
+        + "VALUES (?, ?, ?)", ACTIVATION_CODE, LocalDateTime.now().plusMinutes(30), id);
+    this.insert("user_profile", this.jdbcTemplate.queryForMap(
+        "SELECT * FROM user_profile WHERE id = ?", id));
+    this.replicaJdbcTemplate.execute("DELETE FROM staff_profile");
+    this.insert("staff_profile", this.jdbcTemplate.queryForMap(
+        "SELECT * FROM staff_profile WHERE id = ?", id));
+  }
+
+  private void insert(String table, Map<String, Object> row) {
+    final var columns = String.join(", ", row.keySet());
+    final var values = row.keySet().stream().map(column -> "?")
+        .collect(Collectors.joining(", "));
+    this.replicaJdbcTemplate.update("INSERT INTO " + table + " (" + columns + ") VALUES ("
+        + values + ")", row.values().toArray());
+  }
+
+  private double reads(String pool, String reason) {
+    return this.meterRegistry.counter("datasource.read.connections", "pool", pool,
+        "reason", reason).count();
+  }
+
+  @Test
+  void testReadGeneralInfoReadsFromReplica() {
+    final double before = reads("replica-0", "replica");
+
+    assertEquals("replica", this.operatorService.readGeneralInfo(EMAIL).getFirstName());
+    assertTrue(reads("replica-0", "replica") > before);
+  }
+
+  @Test
+  void testReadGeneralInfoReadsYourWritesFromPrimary() throws InterruptedException {
+    final var info = new OperatorInfoDto();
+    info.setFirstName("updated");
+    info.setFamilyName("updated");
+
+    this.operatorService.updateGeneralInfo(EMAIL, info);
+
+    assertEquals("updated", this.operatorService.readGeneralInfo(EMAIL).getFirstName());
+    assertTrue(reads("primary", "read-your-writes") > 0);
+    Thread.sleep(1_500);
+    assertEquals("replica", this.operatorService.readGeneralInfo(EMAIL).getFirstName());
+  }
+
+  @Test
+  void testLoginAfterActivationReadsYourWritesFromPrimary() {
+    this.seedInactiveStaff();
+    final double before = reads("primary", "read-your-writes");
+
+    this.staffService.activateAccount(ACTIVATION_CODE);
+
+    assertTrue(this.userDetailsService.loadUserByUsername(STAFF_EMAIL).isEnabled());
+    assertEquals(Map.of(TAX_IDENTIFICATION_NUMBER, "OWNER"),
+        this.jwtService.roles(this.staffService.login(STAFF_EMAIL)));
+    assertTrue(reads("primary", "read-your-writes") > before);
+  }
+
+  @Test
+  void testReadGeneralInfoFallsBackToPrimaryWhenReplicaIsDown() {
+    this.replicaJdbcTemplate.execute("ALTER ROLE " + READER + " NOLOGIN");
+    this.replicaJdbcTemplate.queryForList("SELECT pg_terminate_backend(pid, 5000) FROM "
+        + "pg_stat_activity WHERE usename = ?", READER);
+    this.replicaRoutingDataSource.checkReplicas();
+    final double before = reads("primary", "fallback");
+
+    assertEquals("primary", this.operatorService.readGeneralInfo(EMAIL).getFirstName());
+    assertTrue(reads("primary", "fallback") > before);
+    assertEquals(0, this.meterRegistry.get("datasource.replica.healthy")
+        .tag("pool", "replica-0").gauge().value());
+  }
+
+}
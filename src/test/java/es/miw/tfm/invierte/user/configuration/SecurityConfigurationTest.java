@@ -1,33 +1,61 @@
 package es.miw.tfm.invierte.user.configuration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static es.miw.tfm.invierte.user.util.DummyOperatorUtil.buildOperatorCredentialView;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.TAX_IDENTIFICATION_NUMBER;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.buildStaffCredentialView;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.buildStaffLoginView;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import es.miw.tfm.invierte.user.data.dao.OperatorRepository;
 import es.miw.tfm.invierte.user.data.dao.StaffRepository;
+import es.miw.tfm.invierte.user.data.dao.UserRepository;
 import es.miw.tfm.invierte.user.data.model.Operator;
-import es.miw.tfm.invierte.user.data.model.Staff;
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
 import es.miw.tfm.invierte.user.data.model.enums.SystemRole;
+import es.miw.tfm.invierte.user.service.exception.ServiceUnavailableException;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
+import es.miw.tfm.invierte.user.service.util.CredentialDirectory;
+import es.miw.tfm.invierte.user.service.util.RateLimiter;
+import es.miw.tfm.invierte.user.service.util.ReadYourWrites;
+import es.miw.tfm.invierte.user.util.DummyStaffUtil;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @ExtendWith({MockitoExtension.class})
 class SecurityConfigurationTest {
@@ -41,6 +69,24 @@ class SecurityConfigurationTest {
   @Mock
   private StaffRepository staffRepository;
 
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private PasswordEncoder passwordEncoder;
+
+  @Mock
+  private RateLimiter rateLimiter;
+
+  @Mock
+  private RateLimitProperties rateLimitProperties;
+
+  @Mock
+  private CredentialDirectory credentialDirectory;
+
+  @Spy
+  private ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofSeconds(10), 100);
+
   @InjectMocks
   private SecurityConfiguration securityConfiguration;
 
@@ -49,7 +95,8 @@ class SecurityConfigurationTest {
   @Test
   void testUserDetailsServiceOperator() {
     final var mockedOperatorOpt = mockedOperator();
-    when(this.operatorRepository.findByEmail(EMAIL)).thenReturn(mockedOperatorOpt);
+    when(this.userRepository.findCredentialsByEmail(EMAIL))
+        .thenReturn(List.of(buildOperatorCredentialView(mockedOperatorOpt.get())));
 
     final var actualResponse = this.securityConfiguration.userDetailsService()
         .loadUserByUsername(EMAIL);
@@ -64,17 +111,117 @@ class SecurityConfigurationTest {
 
   @Test
   void testUserDetailsServiceStaff() {
-    final var mockedStaffOpt = mockedStaff();
-    when(this.operatorRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
-    when(this.staffRepository.findByEmail(EMAIL)).thenReturn(mockedStaffOpt);
+    final var credentials = List.of(
+        buildStaffCredentialView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER));
+    when(this.userRepository.findCredentialsByEmail(DummyStaffUtil.EMAIL))
+        .thenReturn(credentials);
 
     final var actualResponse = this.securityConfiguration.userDetailsService()
-        .loadUserByUsername(EMAIL);
+        .loadUserByUsername(DummyStaffUtil.EMAIL);
 
     assertNotNull(actualResponse);
-    assertFalse(mockedStaffOpt.isEmpty());
-    assertEquals(mockedStaffOpt.get().getEmail(), actualResponse.getUsername());
-    assertEquals(mockedStaffOpt.get().getPassword(), actualResponse.getPassword());
+    assertInstanceOf(StaffUserDetails.class, actualResponse);
+    assertEquals(DummyStaffUtil.EMAIL, actualResponse.getUsername());
+    assertEquals(DummyStaffUtil.PASSWORD, actualResponse.getPassword());
+    assertTrue(actualResponse.isEnabled());
+    assertEquals(Map.of(TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER.name()),
+        ((StaffUserDetails) actualResponse).getCompanyRoles());
+  }
+
+  @Test
+  void testUserDetailsServiceInactiveStaffIsDisabled() {
+    final var credentials = List.of(
+        buildStaffCredentialView(Status.INACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER));
+    when(this.userRepository.findCredentialsByEmail(DummyStaffUtil.EMAIL))
+        .thenReturn(credentials);
+
+    final var actualResponse = this.securityConfiguration.userDetailsService()
+        .loadUserByUsername(DummyStaffUtil.EMAIL);
+
+    assertFalse(actualResponse.isEnabled());
+  }
+
+  @Test
+  void testUserDetailsServiceFromCredentialDirectory() {
+    final var staffUserDetails = new StaffUserDetails(DummyStaffUtil.EMAIL,
+        DummyStaffUtil.PASSWORD, true, DummyStaffUtil.NAME,
+        Map.of(TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER.name()));
+    when(this.credentialDirectory.isReady()).thenReturn(true);
+    when(this.credentialDirectory.find(DummyStaffUtil.EMAIL))
+        .thenReturn(Optional.of(staffUserDetails));
+
+    final var actualResponse = this.securityConfiguration.userDetailsService()
+        .loadUserByUsername(DummyStaffUtil.EMAIL);
+
+    assertEquals(staffUserDetails, actualResponse);
+    verifyNoInteractions(this.userRepository);
+  }
+
+  @Test
+  void testUserDetailsServiceRecentWriteBypassesCredentialDirectory() {
+    when(this.credentialDirectory.isReady()).thenReturn(true);
+    when(this.userRepository.findCredentialsByEmail(DummyStaffUtil.EMAIL)).thenReturn(List.of(
+        buildStaffCredentialView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER)));
+    this.readYourWrites.recordWrite(DummyStaffUtil.EMAIL);
+
+    final var actualResponse = this.securityConfiguration.userDetailsService()
+        .loadUserByUsername(DummyStaffUtil.EMAIL);
+
+    assertEquals(DummyStaffUtil.EMAIL, actualResponse.getUsername());
+    verify(this.credentialDirectory, never()).find(DummyStaffUtil.EMAIL);
+  }
+
+  @Test
+  void testUserDetailsServiceNotFoundInCredentialDirectory() {
+    when(this.credentialDirectory.isReady()).thenReturn(true);
+    when(this.credentialDirectory.find(EMAIL)).thenReturn(Optional.empty());
+
+    final var userDetailsService = this.securityConfiguration.userDetailsService();
+
+    assertThrows(BadCredentialsException.class,
+        () -> userDetailsService.loadUserByUsername(EMAIL));
+    verifyNoInteractions(this.userRepository);
+  }
+
+  @Test
+  void testUserDetailsServiceNotFound() {
+    when(this.userRepository.findCredentialsByEmail(EMAIL)).thenReturn(List.of());
+
+    final var userDetailsService = this.securityConfiguration.userDetailsService();
+
+    assertThrows(BadCredentialsException.class,
+        () -> userDetailsService.loadUserByUsername(EMAIL));
+  }
+
+  @Test
+  void testUserDetailsPasswordServiceStaff() {
+    final var staffUserDetails = new StaffUserDetails(List.of(
+        buildStaffLoginView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER)));
+
+    final var actualResponse = this.securityConfiguration.userDetailsPasswordService()
+        .updatePassword(staffUserDetails, "{bcrypt}new-hash");
+
+    verify(this.staffRepository).updatePassword(DummyStaffUtil.EMAIL, "{bcrypt}new-hash");
+    assertInstanceOf(StaffUserDetails.class, actualResponse);
+    assertEquals("{bcrypt}new-hash", actualResponse.getPassword());
+    assertEquals(staffUserDetails.getCompanyRoles(),
+        ((StaffUserDetails) actualResponse).getCompanyRoles());
+  }
+
+  @Test
+  void testUserDetailsPasswordServiceOperator() {
+    final var operator = mockedOperator().get();
+    when(this.userRepository.findCredentialsByEmail(EMAIL))
+        .thenReturn(List.of(buildOperatorCredentialView(operator)));
+    final var operatorDetails = this.securityConfiguration.userDetailsService()
+        .loadUserByUsername(EMAIL);
+
+    final var actualResponse = this.securityConfiguration.userDetailsPasswordService()
+        .updatePassword(operatorDetails, "{bcrypt}new-hash");
+
+    verify(this.operatorRepository).updatePassword(operator.getEmail(), "{bcrypt}new-hash");
+    assertEquals("{bcrypt}new-hash", actualResponse.getPassword());
+    assertEquals(operatorDetails.getAuthorities(), actualResponse.getAuthorities());
   }
 
   @Test
@@ -85,6 +232,8 @@ class SecurityConfigurationTest {
     when(httpSecurity.httpBasic(any())).thenReturn(httpSecurity);
     when(httpSecurity.sessionManagement(any())).thenReturn(httpSecurity);
     when(httpSecurity.authenticationProvider(any())).thenReturn(httpSecurity);
+    when(httpSecurity.addFilterBefore(any(RateLimitFilter.class), eq(BasicAuthenticationFilter.class)))
+        .thenReturn(httpSecurity);
     when(httpSecurity.addFilterBefore(any(JwtAuthenticationFilter.class), eq(UsernamePasswordAuthenticationFilter.class)))
         .thenReturn(httpSecurity);
     when(securityConfiguration.securityFilterChain(httpSecurity)).thenReturn(mockSecurityFilterChain);
@@ -120,9 +269,42 @@ class SecurityConfigurationTest {
   }
 
   @Test
-  void testPasswordEncoderBean() {
-    PasswordEncoder passwordEncoder = this.securityConfiguration.passwordEncoder();
-    assertNotNull(passwordEncoder);
+  void testAuthenticationProviderSaturated() {
+    final var operator = mockedOperator();
+    when(this.userRepository.findCredentialsByEmail(EMAIL))
+        .thenReturn(List.of(buildOperatorCredentialView(operator.get())));
+    when(this.passwordEncoder.matches("password", operator.get().getPassword()))
+        .thenThrow(new ServiceUnavailableException("Password hashing queue is full"));
+    final var authenticationProvider = this.securityConfiguration.authenticationProvider();
+    final var authentication = new UsernamePasswordAuthenticationToken(EMAIL, "password");
+
+    final var exception = assertThrows(AuthenticationServiceException.class,
+        () -> authenticationProvider.authenticate(authentication));
+
+    assertInstanceOf(ServiceUnavailableException.class, exception.getCause());
+  }
+
+  @Test
+  void testAuthenticationEntryPointSaturated() throws Exception {
+    final var response = new MockHttpServletResponse();
+
+    this.securityConfiguration.authenticationEntryPoint().commence(new MockHttpServletRequest(),
+        response, new AuthenticationServiceException("Saturated",
+            new ServiceUnavailableException("Password hashing queue is full")));
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+    assertNotNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+  }
+
+  @Test
+  void testAuthenticationEntryPointBadCredentials() throws Exception {
+    final var response = new MockHttpServletResponse();
+
+    this.securityConfiguration.authenticationEntryPoint().commence(new MockHttpServletRequest(),
+        response, new BadCredentialsException("Bad credentials"));
+
+    assertEquals(HttpStatus.UNAUTHORIZED.value(), response.getStatus());
+    assertNotNull(response.getHeader(HttpHeaders.WWW_AUTHENTICATE));
   }
 
   private Optional<Operator> mockedOperator(){
@@ -134,12 +316,4 @@ class SecurityConfigurationTest {
         .build());
   }
 
-  private Optional<Staff> mockedStaff(){
-    return Optional.of(Staff.builder()
-        .email(EMAIL)
-        .password("securePassword")
-        .id(1)
-        .build());
-  }
-
 }
@@ -0,0 +1,75 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Map;
+
+import es.miw.tfm.invierte.user.data.model.enums.UserKind;
+import es.miw.tfm.invierte.user.data.model.projection.CredentialView;
+import es.miw.tfm.invierte.user.data.model.projection.StaffLoginView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+class UserServiceRuntimeHintsTest {
+
+  private final RuntimeHints hints = new RuntimeHints();
+
+  @BeforeEach
+  void setUp() {
+    new UserServiceRuntimeHints().registerHints(this.hints, getClass().getClassLoader());
+  }
+
+  @Test
+  void testProjectionProxiesMatchSpringData() {
+    final var projectionFactory = new SpelAwareProxyProjectionFactory();
+    for (Class<?> projection : new Class<?>[] {StaffLoginView.class, CredentialView.class}) {
+      final var proxy = projectionFactory.createProjection(projection, Map.of());
+
+      assertTrue(RuntimeHintsPredicates.proxies()
+          .forInterfaces(proxy.getClass().getInterfaces()).test(this.hints),
+          projection.getName());
+      assertTrue(RuntimeHintsPredicates.reflection().onType(projection)
+          .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS).test(this.hints));
+    }
+  }
+
+  @Test
+  void testEnumsCanBeConverted() {
+    assertTrue(RuntimeHintsPredicates.reflection().onType(UserKind.class)
+        .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS).test(this.hints));
+  }
+
+  @Test
+  void testReflectionTypesExist() {
+    assertFalse(this.hints.reflection().typeHints().toList().isEmpty());
+    this.hints.reflection().typeHints().forEach(typeHint ->
+        assertDoesNotThrow(() -> Class.forName(typeHint.getType().getName())));
+  }
+
+  @Test
+  void testMigrationsAndTemplatesAreIncluded() throws IOException {
+    assertResourcesIncluded("db/migration/", "*.sql");
+    assertResourcesIncluded("templates/email/", "*/*/*");
+  }
+
+  private void assertResourcesIncluded(String location, String pattern) throws IOException {
+    final Resource[] resources = new PathMatchingResourcePatternResolver()
+        .getResources("classpath:" + location + pattern);
+    assertFalse(resources.length == 0, location);
+    for (Resource resource : resources) {
+      final var url = resource.getURL().toString();
+      final var path = url.substring(url.lastIndexOf(location));
+      assertTrue(RuntimeHintsPredicates.resource().forResource(path).test(this.hints), path);
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+package es.miw.tfm.invierte.user.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadPinningMonitorTest {
+
+  private static final long TIMEOUT_MILLIS = 10_000;
+
+  private final Object lock = new Object();
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private VirtualThreadPinningMonitor monitor;
+
+  @BeforeEach
+  void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10), this.meterRegistry);
+    this.monitor.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.monitor.stop();
+  }
+
+  @Test
+  void testReportsBlockingInsideSynchronized() throws InterruptedException {
+    Thread.ofVirtual().start(() -> {
+      synchronized (this.lock) {
+        sleep(50);
+      }
+    }).join();
+
+    final var pinned = this.meterRegistry.get("jvm.threads.virtual.pinned").timer();
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (pinned.count() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(100);
+    }
+
+    assertEquals(1, pinned.count());
+    assertTrue(pinned.totalTime(TimeUnit.MILLISECONDS) >= 10,
+        pinned.totalTime(TimeUnit.MILLISECONDS) + " ms pinned");
+  }
+
+  @Test
+  void testIgnoresBlockingOutsideSynchronized() throws InterruptedException {
+    Thread.ofVirtual().start(() -> sleep(50)).join();
+
+    Thread.sleep(1_500);
+
+    assertEquals(0, this.meterRegistry.get("jvm.threads.virtual.pinned").timer().count());
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
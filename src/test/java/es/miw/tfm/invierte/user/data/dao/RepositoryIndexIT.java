@@ -0,0 +1,192 @@
+package es.miw.tfm.invierte.user.data.dao;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.TestConfig;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.util.StatementCapture;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs every repository query against a schema created by the migrations and seeded with
+ * thousands of users, captures the SQL Hibernate sends and checks that the generic plan
+ * of each statement reads the expected indexes and never scans a whole table. Plans are
+ * explained over the simple query protocol, which leaves the `$n` parameters unbound.
+ */
+@TestConfig
+@DirtiesContext
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory"
+    + ".statement_inspector=es.miw.tfm.invierte.user.util.StatementCapture")
+@Tag("IntegrationTest")
+class RepositoryIndexIT extends BaseContainerIntegration {
+
+  private static final int USERS = 5_000;
+
+  private static final String STAFF_EMAIL = "staff-42@email.com";
+
+  private static final String OPERATOR_EMAIL = "operator-42@email.com";
+
+  private static final String EMAIL_INDEX = "uktcks72p02h4dp13cbhxne17ad";
+
+  private static SingleConnectionDataSource explainDataSource;
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private OperatorRepository operatorRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private ActivationCodeRepository activationCodeRepository;
+
+  @Autowired
+  private StaffMembershipRepository staffMembershipRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private int staffId;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+    final var url = postgreSQLContainer.getJdbcUrl();
+    explainDataSource = new SingleConnectionDataSource(
+        url + (url.contains("?") ? "&" : "?") + "preferQueryMode=simple",
+        postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword(), true);
+  }
+
+  @AfterAll
+  static void clean() {
+    explainDataSource.destroy();
+    postgreSQLContainer.close();
+  }
+
+  @BeforeEach
+  void seed() {
+    if (this.jdbcTemplate.queryForObject("SELECT count(*) FROM user_profile", Long.class) == 0) {
+      this.jdbcTemplate.update("INSERT INTO user_profile (email, first_name, password) "
+          + "SELECT kind || '-' || g || '@email.com', 'seed', 'hash' "
+          + "FROM generate_series(1, ?) g, (VALUES ('staff'), ('operator')) k(kind)", USERS);
+      this.jdbcTemplate.update("INSERT INTO operator_profile (id, system_role) "
+          + "SELECT id, 'SUPPORT' FROM user_profile WHERE email LIKE 'operator-%'");
+      this.jdbcTemplate.update("INSERT INTO staff_profile "
+          + "(id, status, tax_identification_number, company_role) "
+          + "SELECT id, 'ACTIVE', 'B' || (id % 100), 'OWNER' FROM user_profile "
+          + "WHERE email LIKE 'staff-%'");
+      this.jdbcTemplate.update("INSERT INTO staff_membership "
+          + "(staff_id, tax_identification_number, company_role, status) "
+          + "SELECT id, 'C' || g, 'REALTOR', 'ACTIVE' FROM staff_profile, "
+          + "generate_series(1, 2) g");
+      this.jdbcTemplate.update("INSERT INTO activation_code (code, expiration_date, staff_id) "
+          + "SELECT 'code-' || id || '-' || g, now() + interval '1 hour', id "
+          + "FROM staff_profile, generate_series(1, 4) g");
+      this.jdbcTemplate.execute("ANALYZE");
+    }
+    this.staffId = this.jdbcTemplate.queryForObject(
+        "SELECT id FROM user_profile WHERE email = ?", Integer.class, STAFF_EMAIL);
+    StatementCapture.drain();
+  }
+
+  @Test
+  void testStaffLookupsByEmailUseEmailIndex() {
+    this.staffRepository.findByEmail(STAFF_EMAIL);
+    assertIndexes(EMAIL_INDEX, "staff_profile_pkey");
+
+    this.staffRepository.findByEmailAndStatus(STAFF_EMAIL, Status.ACTIVE);
+    assertIndexes(EMAIL_INDEX, "staff_profile_pkey");
+
+    this.staffRepository.findByEmailAndTaxIdentificationNumber(STAFF_EMAIL, "B1");
+    assertIndexes(EMAIL_INDEX, "staff_profile_pkey");
+
+    this.staffRepository.findLoginViewByEmail(STAFF_EMAIL);
+    assertIndexes(EMAIL_INDEX, "staff_profile_pkey", "ux_staff_membership_staff_tin");
+
+    this.staffRepository.updatePassword(STAFF_EMAIL, "hash");
+    assertIndexes(EMAIL_INDEX);
+  }
+
+  @Test
+  void testOperatorAndUserLookupsUseEmailIndex() {
+    this.operatorRepository.findByEmail(OPERATOR_EMAIL);
+    assertIndexes(EMAIL_INDEX, "operator_profile_pkey");
+
+    this.operatorRepository.updatePassword(OPERATOR_EMAIL, "hash");
+    assertIndexes(EMAIL_INDEX);
+
+    this.userRepository.findByEmail(OPERATOR_EMAIL);
+    assertIndexes(EMAIL_INDEX);
+
+    this.userRepository.findCredentialsByEmail(STAFF_EMAIL);
+    assertIndexes(EMAIL_INDEX, "operator_profile_pkey", "staff_profile_pkey",
+        "ux_staff_membership_staff_tin");
+  }
+
+  @Test
+  void testActivationCodeAndMembershipLookupsUseIndexes() {
+    this.staffRepository.findByActivationCode("code-" + this.staffId + "-1",
+        LocalDateTime.now());
+    assertIndexes("ux_activation_code_code", "staff_profile_pkey");
+
+    this.activationCodeRepository.countByStaffId(this.staffId);
+    assertIndexes("ix_activation_code_staff_id");
+
+    this.staffMembershipRepository.existsByStaffIdAndTaxIdentificationNumber(this.staffId,
+        "C1");
+    assertIndexes("ux_staff_membership_staff_tin");
+  }
+
+  private void assertIndexes(String... indexes) {
+    final var statements = StatementCapture.drain();
+    assertFalse(statements.isEmpty(), "No statement captured");
+    final var plans = statements.stream()
+        .map(this::explain)
+        .collect(Collectors.joining("\n"));
+    assertFalse(plans.contains("Seq Scan"), plans);
+    for (String index : indexes) {
+      assertTrue(plans.contains(index), index + " not used:\n" + plans);
+    }
+  }
+
+  private String explain(String sql) {
+    final List<String> plan = new JdbcTemplate(explainDataSource).queryForList(
+        "EXPLAIN (GENERIC_PLAN) " + numberParameters(sql), String.class);
+    return sql + "\n" + String.join("\n", plan);
+  }
+
+  private static String numberParameters(String sql) {
+    final var numbered = new StringBuilder();
+    int parameter = 0;
+    boolean quoted = false;
+    for (char character : sql.toCharArray()) {
+      if (character == '\'') {
+        quoted = !quoted;
+      }
+      if (character == '?' && !quoted) {
+        numbered.append('$').append(++parameter);
+      } else {
+        numbered.append(character);
+      }
+    }
+    return numbered.toString();
+  }
+
+}
@@ -0,0 +1,160 @@
+package es.miw.tfm.invierte.user.data.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.TestConfig;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Migrates databases whose schema was created by `spring.jpa.hibernate.ddl-auto=update`
+ * before the migrations owned it, the way a deployed instance does on its first start:
+ * Flyway baselines them at version 1 and applies the later scripts. Every migrated schema
+ * must end up equal to the one the application migrated from an empty database, with
+ * its rows kept.
+ */
+@TestConfig
+@DirtiesContext
+@Tag("IntegrationTest")
+class SchemaMigrationIT extends BaseContainerIntegration {
+
+  private static final String LEGACY_DATABASE = "legacy";
+
+  private static final String SCHEMA_QUERY = "SELECT 'column ' || table_name || '.'"
+      + " || column_name || ' ' || data_type || coalesce('(' || character_maximum_length"
+      + " || ')', '') || ' nullable ' || is_nullable || ' identity ' || is_identity"
+      + " FROM information_schema.columns"
+      + " WHERE table_schema = 'public' AND table_name <> 'flyway_schema_history'"
+      + " UNION ALL SELECT 'index ' || indexdef FROM pg_indexes"
+      + " WHERE schemaname = 'public' AND tablename <> 'flyway_schema_history'"
+      + " UNION ALL SELECT 'constraint ' || conrelid::regclass || ' ' || conname || ' '"
+      + " || pg_get_constraintdef(oid) FROM pg_constraint"
+      + " WHERE connamespace = 'public'::regnamespace"
+      + " AND conrelid <> 'flyway_schema_history'::regclass"
+      + " UNION ALL SELECT 'trigger ' || pg_get_triggerdef(oid) FROM pg_trigger"
+      + " WHERE NOT tgisinternal ORDER BY 1";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private SingleConnectionDataSource legacyDataSource;
+
+  @AfterEach
+  void dropLegacyDatabase() {
+    if (this.legacyDataSource != null) {
+      this.legacyDataSource.destroy();
+    }
+    this.jdbcTemplate.execute("DROP DATABASE IF EXISTS " + LEGACY_DATABASE);
+  }
+
+  @Test
+  void testMigrateSchemaBeforeMigrations() {
+    final var legacy = this.createLegacyDatabase("db/migration/V1__baseline.sql");
+
+    this.migrate();
+
+    assertEquals(this.jdbcTemplate.queryForList(SCHEMA_QUERY, String.class),
+        legacy.queryForList(SCHEMA_QUERY, String.class));
+    this.assertLegacyRowsKept(legacy);
+  }
+
+  @Test
+  void testMigrateSchemaUpdatedByHibernate() {
+    final var legacy = this.createLegacyDatabase("db/migration/V1__baseline.sql",
+        "db/legacy/ddl-auto-update.sql");
+    legacy.update("INSERT INTO staff_membership (staff_id, tax_identification_number, "
+        + "company_role, status) SELECT id, 'B87654321', 'REALTOR', 'ACTIVE' "
+        + "FROM user_profile");
+    legacy.update("INSERT INTO staff_membership (staff_id, tax_identification_number, "
+        + "company_role, status) VALUES (-1, 'B87654321', 'REALTOR', 'ACTIVE')");
+
+    this.migrate();
+
+    assertEquals(this.jdbcTemplate.queryForList(SCHEMA_QUERY, String.class),
+        legacy.queryForList(SCHEMA_QUERY, String.class));
+    this.assertLegacyRowsKept(legacy);
+    assertEquals(1, legacy.queryForObject("SELECT count(*) FROM staff_membership",
+        Integer.class));
+  }
+
+  @Test
+  void testCredentialTriggersFollowTheDirectory() {
+    final var legacy = this.createLegacyDatabase("db/migration/V1__baseline.sql");
+    final var triggers = "SELECT count(*) FROM pg_trigger WHERE NOT tgisinternal";
+
+    this.migrate(false);
+    assertEquals(0, legacy.queryForObject(triggers, Integer.class));
+    this.migrate(true);
+    assertEquals(4, legacy.queryForObject(triggers, Integer.class));
+    this.migrate(false);
+    assertEquals(0, legacy.queryForObject(triggers, Integer.class));
+  }
+
+  /**
+   * Creates an empty database, runs the scripts that build its legacy schema and inserts
+   * an inactive staff user with an activation code.
+   */
+  private JdbcTemplate createLegacyDatabase(String... scripts) {
+    this.jdbcTemplate.execute("CREATE DATABASE " + LEGACY_DATABASE);
+    this.legacyDataSource = new SingleConnectionDataSource(
+        postgreSQLContainer.getJdbcUrl().replaceFirst("/[^/?]+(\\?|$)",
+            "/" + LEGACY_DATABASE + "$1"),
+        postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword(), true);
+    final var populator = new ResourceDatabasePopulator();
+    for (String script : scripts) {
+      populator.addScript(new ClassPathResource(script));
+    }
+    populator.execute(this.legacyDataSource);
+    final var legacy = new JdbcTemplate(this.legacyDataSource);
+    legacy.update("INSERT INTO user_profile (email, first_name) "
+        + "VALUES ('legacy@email.com', 'legacy')");
+    legacy.update("INSERT INTO staff_profile (id, status, tax_identification_number, "
+        + "company_role) SELECT id, 'INACTIVE', 'B12345678', 'OWNER' FROM user_profile");
+    legacy.update("INSERT INTO activation_code (code, expiration_date, staff_id) "
+        + "SELECT 'legacy-code', ?, id FROM staff_profile", LocalDateTime.now().plusDays(1));
+    return legacy;
+  }
+
+  private void migrate() {
+    this.migrate(false);
+  }
+
+  private void migrate(boolean credentialDirectory) {
+    Flyway.configure()
+        .dataSource(this.legacyDataSource)
+        .locations("classpath:db/migration")
+        .baselineOnMigrate(true)
+        .baselineVersion("1")
+        .placeholders(Map.of("credential-directory", String.valueOf(credentialDirectory)))
+        .load()
+        .migrate();
+    assertEquals("BASELINE", new JdbcTemplate(this.legacyDataSource).queryForObject(
+        "SELECT type FROM flyway_schema_history WHERE version = '1'", String.class));
+  }
+
+  private void assertLegacyRowsKept(JdbcTemplate legacy) {
+    assertEquals(List.of("legacy@email.com"),
+        legacy.queryForList("SELECT u.email FROM user_profile u "
+            + "JOIN staff_profile s ON s.id = u.id "
+            + "JOIN activation_code a ON a.staff_id = s.id WHERE a.code = 'legacy-code'",
+            String.class));
+    assertThrows(DuplicateKeyException.class, () -> legacy.update(
+        "INSERT INTO activation_code (code) VALUES ('legacy-code')"));
+  }
+
+}
@@ -0,0 +1,202 @@
+package es.miw.tfm.invierte.user.data.dao;
+
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.ACTIVATION_CODE;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomActiveStaff;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomInactiveStaffWithCompany;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.TestConfig;
+import es.miw.tfm.invierte.user.data.model.ActivationCode;
+import es.miw.tfm.invierte.user.data.model.Staff;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+@TestConfig
+@DirtiesContext
+@Tag("IntegrationTest")
+class StaffRepositoryIT extends BaseContainerIntegration {
+
+  private static final int SMALL_TIER = 1_000;
+
+  private static final int LARGE_TIER = 1_000_000;
+
+  private static final int LOOKUPS = 500;
+
+  private static final double MAX_LATENCY_RATIO = 2.0;
+
+  private static final int[] MEMBERSHIP_TIERS = {1, 50, 500};
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+  }
+
+  @AfterAll
+  static void clean() {
+    postgreSQLContainer.close();
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.jdbcTemplate.update("DELETE FROM staff_membership");
+    this.deleteSeededStaff();
+    this.staffRepository.deleteAll();
+  }
+
+  @Test
+  void testFindByActivationCode() {
+    final var staff = this.staffRepository.save(createRandomInactiveStaffWithCompany());
+
+    final var actual = this.staffRepository.findByActivationCode(ACTIVATION_CODE,
+        LocalDateTime.now());
+
+    assertTrue(actual.isPresent());
+    assertEquals(staff.getEmail(), actual.get().getEmail());
+  }
+
+  @Test
+  void testFindByActivationCodeExpired() {
+    final var staff = createRandomInactiveStaffWithCompany();
+    staff.getActivationCodes().add(ActivationCode.builder()
+        .code("expired-code")
+        .expirationDate(LocalDateTime.now().minusMinutes(1))
+        .build());
+    this.staffRepository.save(staff);
+
+    assertTrue(this.staffRepository.findByActivationCode("expired-code", LocalDateTime.now())
+        .isEmpty());
+    assertTrue(this.staffRepository.findByActivationCode("unknown-code", LocalDateTime.now())
+        .isEmpty());
+  }
+
+  @Test
+  void testFindLoginViewByEmail() {
+    final var staff = this.staffRepository.save(createRandomInactiveStaffWithCompany());
+
+    final var actual = this.staffRepository.findLoginViewByEmail(staff.getEmail());
+
+    assertEquals(1, actual.size());
+    assertEquals(staff.getFirstName(), actual.getFirst().getFirstName());
+    assertEquals(staff.getPassword(), actual.getFirst().getPassword());
+    assertEquals(staff.getTaxIdentificationNumber(),
+        actual.getFirst().getTaxIdentificationNumber());
+    assertTrue(this.staffRepository.findLoginViewByEmail("unknown@email.com").isEmpty());
+  }
+
+  @Test
+  void testFindLoginViewByEmailWithMemberships() {
+    final var staff = this.staffRepository.save(createRandomActiveStaff());
+
+    for (int memberships : MEMBERSHIP_TIERS) {
+      this.seedMemberships(staff, memberships);
+
+      final var actual = this.staffRepository.findLoginViewByEmail(staff.getEmail());
+
+      assertEquals(memberships, actual.size());
+      assertEquals(memberships, StaffUserDetails.companyRoles(actual).size());
+    }
+  }
+
+  @Test
+  void testDeleteStaffDeletesMemberships() {
+    final var staff = this.staffRepository.save(createRandomActiveStaff());
+    this.seedMemberships(staff, 2);
+
+    this.staffRepository.delete(staff);
+
+    assertEquals(0, this.jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM staff_membership", Integer.class));
+    assertThrows(DataIntegrityViolationException.class, () -> this.seedMemberships(staff, 1));
+  }
+
+  /**
+   * Seeds a million staff users, so it only runs with the benchmarks profile; the plans
+   * of the lookups are checked on every build by `RepositoryIndexIT`.
+   */
+  @Test
+  @Tag("Benchmark")
+  void testFindByActivationCodeLatencyIsFlat() {
+    this.seedStaff(1, SMALL_TIER);
+    this.averageLookupNanos(SMALL_TIER);
+    final var smallTierNanos = this.averageLookupNanos(SMALL_TIER);
+
+    this.seedStaff(SMALL_TIER + 1, LARGE_TIER);
+    this.assertNoSeqScan("SELECT staff_id FROM activation_code "
+        + "WHERE code = 'bench-1' AND expiration_date > now()");
+    this.assertNoSeqScan("SELECT * FROM activation_code WHERE staff_id = 1");
+    this.averageLookupNanos(LARGE_TIER);
+    final var largeTierNanos = this.averageLookupNanos(LARGE_TIER);
+
+    assertTrue(largeTierNanos < smallTierNanos * MAX_LATENCY_RATIO,
+        "Lookup latency grew from " + smallTierNanos + "ns to " + largeTierNanos + "ns");
+  }
+
+  private void seedStaff(int first, int last) {
+    this.jdbcTemplate.update("WITH users AS ("
+        + "INSERT INTO user_profile (email, first_name) "
+        + "SELECT 'bench-' || g || '@email.com', 'Bench' FROM generate_series(?, ?) g "
+        + "RETURNING id, email), "
+        + "staff AS (INSERT INTO staff_profile (id, status) "
+        + "SELECT id, 'INACTIVE' FROM users) "
+        + "INSERT INTO activation_code (code, expiration_date, staff_id) "
+        + "SELECT split_part(email, '@', 1), now() + interval '30 minutes', id FROM users",
+        first, last);
+    this.jdbcTemplate.execute("ANALYZE user_profile");
+    this.jdbcTemplate.execute("ANALYZE staff_profile");
+    this.jdbcTemplate.execute("ANALYZE activation_code");
+  }
+
+  private void deleteSeededStaff() {
+    this.jdbcTemplate.update("DELETE FROM activation_code WHERE code LIKE 'bench-%'");
+    this.jdbcTemplate.update("DELETE FROM staff_profile WHERE id IN "
+        + "(SELECT id FROM user_profile WHERE email LIKE 'bench-%')");
+    this.jdbcTemplate.update("DELETE FROM user_profile WHERE email LIKE 'bench-%'");
+  }
+
+  private void seedMemberships(Staff staff, int total) {
+    this.jdbcTemplate.update("DELETE FROM staff_membership");
+    this.jdbcTemplate.update("INSERT INTO staff_membership "
+        + "(staff_id, tax_identification_number, company_role, status) "
+        + "SELECT ?, 'B' || g, 'REALTOR', 'ACTIVE' FROM generate_series(1, ?) g",
+        staff.getId(), total);
+  }
+
+  private void assertNoSeqScan(String query) {
+    final var plan = String.join("\n",
+        this.jdbcTemplate.queryForList("EXPLAIN " + query, String.class));
+    assertFalse(plan.contains("Seq Scan"), plan);
+  }
+
+  private long averageLookupNanos(int staffUsers) {
+    long elapsed = 0;
+    for (int i = 0; i < LOOKUPS; i++) {
+      final var code = "bench-" + ThreadLocalRandom.current().nextInt(1, staffUsers + 1);
+      final var start = System.nanoTime();
+      assertTrue(this.staffRepository.findByActivationCode(code, LocalDateTime.now()).isPresent());
+      elapsed += System.nanoTime() - start;
+    }
+    return elapsed / LOOKUPS;
+  }
+
+}
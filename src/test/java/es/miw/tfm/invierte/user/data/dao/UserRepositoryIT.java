@@ -0,0 +1,95 @@
+package es.miw.tfm.invierte.user.data.dao;
+
+import static es.miw.tfm.invierte.user.util.DummyOperatorUtil.createRandomOperator;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomInactiveStaffWithCompany;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.TestConfig;
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.data.model.enums.UserKind;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+@TestConfig
+@DirtiesContext
+@Tag("IntegrationTest")
+class UserRepositoryIT extends BaseContainerIntegration {
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private OperatorRepository operatorRepository;
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+  }
+
+  @AfterAll
+  static void clean() {
+    postgreSQLContainer.close();
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.jdbcTemplate.update("DELETE FROM staff_membership");
+    this.staffRepository.deleteAll();
+    this.operatorRepository.deleteAll();
+  }
+
+  @Test
+  void testFindCredentialsByEmailOperator() {
+    final var operator = this.operatorRepository.save(createRandomOperator());
+
+    final var actual = this.userRepository.findCredentialsByEmail(operator.getEmail());
+
+    assertEquals(1, actual.size());
+    assertEquals(UserKind.OPERATOR, actual.getFirst().getKind());
+    assertEquals(operator.getSystemRole(), actual.getFirst().getSystemRole());
+    assertEquals(operator.getPassword(), actual.getFirst().getPassword());
+    assertNull(actual.getFirst().getStatus());
+  }
+
+  @Test
+  void testFindCredentialsByEmailStaffWithMemberships() {
+    final var staff = this.staffRepository.save(createRandomInactiveStaffWithCompany());
+    this.jdbcTemplate.update("INSERT INTO staff_membership "
+        + "(staff_id, tax_identification_number, company_role, status) "
+        + "SELECT ?, 'B' || g, 'REALTOR', 'ACTIVE' FROM generate_series(1, 3) g",
+        staff.getId());
+
+    final var actual = this.userRepository.findCredentialsByEmail(staff.getEmail());
+
+    assertEquals(3, actual.size());
+    assertEquals(UserKind.STAFF, actual.getFirst().getKind());
+    assertNull(actual.getFirst().getSystemRole());
+    assertEquals(Status.INACTIVE, actual.getFirst().getStatus());
+    assertEquals(staff.getFirstName(), actual.getFirst().getFirstName());
+    assertEquals(staff.getCompanyRole(), actual.getFirst().getCompanyRole());
+    assertEquals(CompanyRole.REALTOR, actual.getFirst().getMembershipCompanyRole());
+    assertEquals(Status.ACTIVE, actual.getFirst().getMembershipStatus());
+  }
+
+  @Test
+  void testFindCredentialsByEmailNotFound() {
+    assertTrue(this.userRepository.findCredentialsByEmail("unknown@email.com").isEmpty());
+  }
+
+}
@@ -0,0 +1,95 @@
+package es.miw.tfm.invierte.user.service;
+
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomInactiveStaffWithCompany;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.TestConfig;
+import es.miw.tfm.invierte.user.data.dao.ActivationCodeRepository;
+import es.miw.tfm.invierte.user.data.dao.StaffRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+@TestConfig
+@DirtiesContext
+@Tag("IntegrationTest")
+class ActivationCodePurgeServiceIT extends BaseContainerIntegration {
+
+  private static final int EXPIRED_CODES = 2_500;
+
+  @Autowired
+  private ActivationCodePurgeService activationCodePurgeService;
+
+  @Autowired
+  private ActivationCodeRepository activationCodeRepository;
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+  }
+
+  @AfterAll
+  static void clean() {
+    postgreSQLContainer.close();
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.jdbcTemplate.update("DELETE FROM activation_code");
+    this.staffRepository.deleteAll();
+  }
+
+  @Test
+  void testPurgeDeletesOnlyExpiredCodes() {
+    final var staff = this.staffRepository.save(createRandomInactiveStaffWithCompany());
+    this.jdbcTemplate.update("INSERT INTO activation_code (code, expiration_date, staff_id) "
+        + "SELECT 'expired-' || g, now() - interval '1 day', ? "
+        + "FROM generate_series(1, ?) g", staff.getId(), EXPIRED_CODES);
+
+    final var purged = this.activationCodePurgeService.purge(LocalDateTime.now());
+
+    assertEquals(EXPIRED_CODES, purged);
+    assertEquals(1, this.activationCodeRepository.countByStaffId(staff.getId()));
+  }
+
+  @Test
+  void testPurgeSkippedWhileAnotherReplicaHoldsTheLock() {
+    final var staff = this.staffRepository.save(createRandomInactiveStaffWithCompany());
+    this.jdbcTemplate.update("INSERT INTO activation_code (code, expiration_date, staff_id) "
+        + "VALUES ('expired', now() - interval '1 day', ?)", staff.getId());
+
+    final var purged = this.jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+      try (var lock = connection.prepareStatement("SELECT pg_advisory_lock(?)")) {
+        lock.setLong(1, ActivationCodePurgeService.ADVISORY_LOCK_KEY);
+        lock.execute();
+      }
+      try {
+        return this.activationCodePurgeService.purge(LocalDateTime.now());
+      } finally {
+        try (var unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+          unlock.setLong(1, ActivationCodePurgeService.ADVISORY_LOCK_KEY);
+          unlock.execute();
+        }
+      }
+    });
+
+    assertEquals(0, purged);
+    assertEquals(2, this.activationCodeRepository.countByStaffId(staff.getId()));
+  }
+
+}
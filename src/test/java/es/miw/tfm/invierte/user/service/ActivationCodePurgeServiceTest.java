@@ -0,0 +1,99 @@
+package es.miw.tfm.invierte.user.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith({MockitoExtension.class})
+class ActivationCodePurgeServiceTest {
+
+  private static final int BATCH_SIZE = 1000;
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private Connection connection;
+
+  @Mock
+  private PreparedStatement lockStatement;
+
+  @Mock
+  private PreparedStatement unlockStatement;
+
+  @Mock
+  private PreparedStatement deleteStatement;
+
+  @Mock
+  private ResultSet lockResult;
+
+  private SimpleMeterRegistry registry;
+
+  private ActivationCodePurgeService activationCodePurgeService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    this.registry = new SimpleMeterRegistry();
+    this.activationCodePurgeService = new ActivationCodePurgeService(this.jdbcTemplate,
+        BATCH_SIZE, Duration.ZERO, this.registry);
+    when(this.jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation ->
+        invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(this.connection));
+    when(this.connection.prepareStatement(contains("pg_try_advisory_lock")))
+        .thenReturn(this.lockStatement);
+    when(this.lockStatement.executeQuery()).thenReturn(this.lockResult);
+    when(this.lockResult.next()).thenReturn(true);
+  }
+
+  @Test
+  void testPurgeDeletesInBatches() throws Exception {
+    final var unlockResult = org.mockito.Mockito.mock(ResultSet.class);
+    when(this.lockResult.getBoolean(1)).thenReturn(true);
+    when(this.connection.prepareStatement(contains("DELETE"))).thenReturn(this.deleteStatement);
+    when(this.connection.prepareStatement(contains("pg_advisory_unlock")))
+        .thenReturn(this.unlockStatement);
+    when(this.unlockStatement.executeQuery()).thenReturn(unlockResult);
+    when(this.connection.getAutoCommit()).thenReturn(true);
+    when(this.deleteStatement.executeUpdate()).thenReturn(BATCH_SIZE, BATCH_SIZE, 5);
+
+    final var actual = this.activationCodePurgeService.purge(LocalDateTime.now());
+
+    assertEquals(2 * BATCH_SIZE + 5, actual);
+    verify(this.deleteStatement, times(3)).executeUpdate();
+    verify(this.deleteStatement).setInt(2, BATCH_SIZE);
+    verify(this.unlockStatement).setLong(1, ActivationCodePurgeService.ADVISORY_LOCK_KEY);
+    assertEquals(2 * BATCH_SIZE + 5,
+        this.registry.get("activation_code.purge.rows").counter().count());
+    assertEquals(1, this.registry.get("activation_code.purge.duration").timer().count());
+  }
+
+  @Test
+  void testPurgeSkippedWhenLockIsHeld() throws Exception {
+    when(this.lockResult.getBoolean(1)).thenReturn(false);
+
+    final var actual = this.activationCodePurgeService.purge(LocalDateTime.now());
+
+    assertEquals(0, actual);
+    verify(this.connection, never()).prepareStatement(contains("DELETE"));
+    assertEquals(1, this.registry.get("activation_code.purge.skipped").counter().count());
+  }
+
+}
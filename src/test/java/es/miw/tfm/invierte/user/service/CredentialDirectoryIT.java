@@ -0,0 +1,167 @@
+package es.miw.tfm.invierte.user.service;
+
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.PASSWORD;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomStaff;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Base64;
+import java.util.function.BooleanSupplier;
+
+import es.miw.tfm.invierte.user.ApiTestConfig;
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.api.dto.TokenDto;
+import es.miw.tfm.invierte.user.api.resource.StaffResource;
+import es.miw.tfm.invierte.user.data.dao.StaffRepository;
+import es.miw.tfm.invierte.user.data.model.Staff;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
+import es.miw.tfm.invierte.user.service.util.CredentialDirectory;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Runs the application with the credential directory enabled. Logins must not query the
+ * database, and changes written straight to the database, as another instance would,
+ * must reach the directory in less than a second.
+ */
+@ApiTestConfig
+@DirtiesContext
+@TestPropertySource(properties = "tfm.auth.directory.enabled=true")
+@Tag("IntegrationTest")
+class CredentialDirectoryIT extends BaseContainerIntegration {
+
+  private static final long MAX_STALENESS_MILLIS = 1_000;
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private CredentialDirectory credentialDirectory;
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PasswordEncoder passwordEncoder;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Staff staff;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+  }
+
+  @AfterAll
+  static void clean() {
+    postgreSQLContainer.close();
+  }
+
+  @BeforeEach
+  void seed() {
+    assertTrue(awaitMillis(this.credentialDirectory::isReady, 30_000) >= 0,
+        "Credential directory not ready");
+    final var staff = createRandomStaff(Status.ACTIVE);
+    staff.setPassword(this.passwordEncoder.encode(PASSWORD));
+    this.staff = this.staffRepository.save(staff);
+    assertStaleness(() -> this.credentialDirectory.find(this.staff.getEmail()).isPresent());
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.jdbcTemplate.update("DELETE FROM staff_membership");
+    this.staffRepository.deleteAll();
+  }
+
+  @Test
+  void testLoginReadsCredentialsFromMemory() {
+    final var statistics = this.entityManagerFactory.unwrap(SessionFactory.class)
+        .getStatistics();
+    statistics.setStatisticsEnabled(true);
+    statistics.clear();
+    final var basicAuth = "Basic " + Base64.getEncoder()
+        .encodeToString((this.staff.getEmail() + ":" + PASSWORD).getBytes());
+
+    this.webTestClient.post().uri(StaffResource.USERS + StaffResource.STAFF + StaffResource.TOKEN)
+        .header("Authorization", basicAuth)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(TokenDto.class);
+
+    assertEquals(0, statistics.getPrepareStatementCount(), "SQL statements");
+  }
+
+  @Test
+  void testPasswordChangeIsVisibleWithinOneSecond() {
+    final var password = this.passwordEncoder.encode("changed");
+
+    this.jdbcTemplate.update("UPDATE user_profile SET password = ? WHERE id = ?", password,
+        this.staff.getId());
+
+    assertStaleness(() -> password.equals(this.credentialDirectory.find(this.staff.getEmail())
+        .orElseThrow().getPassword()));
+  }
+
+  @Test
+  void testStatusChangeIsVisibleWithinOneSecond() {
+    this.jdbcTemplate.update("UPDATE staff_profile SET status = ? WHERE id = ?",
+        Status.INACTIVE.name(), this.staff.getId());
+
+    assertStaleness(() -> !this.credentialDirectory.find(this.staff.getEmail()).orElseThrow()
+        .isEnabled());
+  }
+
+  @Test
+  void testMembershipIsVisibleWithinOneSecond() {
+    this.jdbcTemplate.update("INSERT INTO staff_membership "
+        + "(staff_id, tax_identification_number, company_role, status) "
+        + "VALUES (?, 'B12345678', 'REALTOR', 'ACTIVE')", this.staff.getId());
+
+    assertStaleness(() -> ((StaffUserDetails) this.credentialDirectory
+        .find(this.staff.getEmail()).orElseThrow()).getCompanyRoles()
+        .containsKey("B12345678"));
+  }
+
+  @Test
+  void testDeletionIsVisibleWithinOneSecond() {
+    this.staffRepository.deleteAll();
+
+    assertStaleness(() -> this.credentialDirectory.find(this.staff.getEmail()).isEmpty());
+  }
+
+  private static void assertStaleness(BooleanSupplier condition) {
+    final long elapsed = awaitMillis(condition, MAX_STALENESS_MILLIS);
+    assertTrue(elapsed >= 0, "Change not visible after " + MAX_STALENESS_MILLIS + " ms");
+  }
+
+  private static long awaitMillis(BooleanSupplier condition, long timeoutMillis) {
+    final long start = System.nanoTime();
+    final long deadline = start + timeoutMillis * 1_000_000L;
+    while (System.nanoTime() < deadline) {
+      if (condition.getAsBoolean()) {
+        return (System.nanoTime() - start) / 1_000_000L;
+      }
+      Thread.onSpinWait();
+    }
+    return -1;
+  }
+
+}
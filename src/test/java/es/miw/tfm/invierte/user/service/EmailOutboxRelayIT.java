@@ -0,0 +1,199 @@
+package es.miw.tfm.invierte.user.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.TestConfig;
+import es.miw.tfm.invierte.user.data.dao.EmailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Drains the outbox into a local SMTP stub with several relays running in parallel, as
+ * several replicas would, and checks that every email is delivered exactly once.
+ */
+@TestConfig
+@DirtiesContext
+@TestPropertySource(properties = {
+    "spring.mail.host=localhost",
+    "spring.mail.port=3025",
+    "spring.mail.username=" + EmailOutboxRelayIT.SMTP_USER,
+    "spring.mail.password=" + EmailOutboxRelayIT.SMTP_PASSWORD,
+    "spring.mail.properties.mail.smtp.starttls.enable=false",
+    "tfm.mail.outbox.batch-size=500"})
+@Tag("IntegrationTest")
+class EmailOutboxRelayIT extends BaseContainerIntegration {
+
+  @RegisterExtension
+  static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+      .withConfiguration(GreenMailConfiguration.aConfig()
+          .withUser(EmailOutboxRelayIT.SMTP_USER, EmailOutboxRelayIT.SMTP_PASSWORD));
+
+  static final String SMTP_USER = "relay@invierte.io";
+
+  static final String SMTP_PASSWORD = "secret";
+
+  private static final int EMAILS = 2_000;
+
+  private static final int BENCHMARK_EMAILS = 100_000;
+
+  private static final int RELAYS = 4;
+
+  @Autowired
+  private EmailOutboxRelay emailOutboxRelay;
+
+  @Autowired
+  private EmailOutboxRepository emailOutboxRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+  }
+
+  @AfterAll
+  static void clean() {
+    postgreSQLContainer.close();
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.jdbcTemplate.update("DELETE FROM email_outbox");
+  }
+
+  @Test
+  void testRelayDrainsOutboxInParallel() throws Exception {
+    this.assertDrainedInParallel(EMAILS);
+  }
+
+  /**
+   * Drains a hundred thousand emails, so it only runs with the benchmarks profile.
+   */
+  @Test
+  @Tag("Benchmark")
+  void testRelayDrainsLargeOutboxInParallel() throws Exception {
+    this.assertDrainedInParallel(BENCHMARK_EMAILS);
+  }
+
+  @Test
+  void testRelayReschedulesWhileServerIsDown() {
+    this.jdbcTemplate.update("INSERT INTO email_outbox "
+        + "(recipient, subject, body, created_at, next_attempt_at, attempts) "
+        + "VALUES ('staff@invierte.io', 'Activation', 'Body', now(), now(), 0)");
+    greenMail.stop();
+
+    assertEquals(1, this.emailOutboxRelay.relay());
+    assertEquals(0, this.emailOutboxRelay.relay());
+    this.emailOutboxRelay.refreshDepth();
+    assertEquals(0, this.meterRegistry.get("email.outbox.depth").gauge().value());
+
+    final var email = this.emailOutboxRepository.findAll().getFirst();
+    assertEquals(1, email.getAttempts());
+    assertTrue(email.getNextAttemptAt().isAfter(email.getCreatedAt()));
+    greenMail.start();
+  }
+
+  @Test
+  void testRelayKeepsDeadLettersUntilTheyAreCleared() {
+    this.jdbcTemplate.update("INSERT INTO email_outbox "
+        + "(recipient, subject, body, created_at, next_attempt_at, attempts) "
+        + "VALUES ('staff@invierte.io', 'Activation', 'Body', now(), now(), 9)");
+    greenMail.stop();
+
+    assertEquals(1, this.emailOutboxRelay.relay());
+    this.jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = now()");
+    assertEquals(0, this.emailOutboxRelay.relay());
+    this.emailOutboxRelay.refreshDepth();
+    assertEquals(0, this.meterRegistry.get("email.outbox.depth").gauge().value());
+
+    final var email = this.emailOutboxRepository.findAll().getFirst();
+    assertEquals(10, email.getAttempts());
+    assertNotNull(email.getDeadLetteredAt());
+    assertNotNull(email.getLastError());
+    greenMail.start();
+
+    this.jdbcTemplate.update("UPDATE email_outbox SET dead_lettered_at = NULL, "
+        + "next_attempt_at = now()");
+    this.emailOutboxRelay.refreshDepth();
+    assertEquals(1, this.meterRegistry.get("email.outbox.depth").gauge().value());
+    assertEquals(1, this.emailOutboxRelay.relay());
+    assertEquals(0, this.emailOutboxRepository.count());
+    assertTrue(greenMail.waitForIncomingEmail(5_000, 1));
+  }
+
+  private void assertDrainedInParallel(int emails) throws Exception {
+    final double sent = this.meterRegistry.get("email.outbox.sent").counter().count();
+    final long lagged = this.meterRegistry.get("email.outbox.lag").timer().count();
+    this.jdbcTemplate.update("INSERT INTO email_outbox "
+        + "(recipient, subject, body, created_at, next_attempt_at, attempts) "
+        + "SELECT 'staff@invierte.io', 'Activation ' || g, 'Body ' || g, "
+        + "now(), now(), 0 FROM generate_series(1, ?) g", emails);
+
+    final long relayed = this.relayInParallel();
+
+    assertEquals(emails, relayed);
+    assertEquals(0, this.emailOutboxRepository.count());
+    assertTrue(greenMail.waitForIncomingEmail(30_000, emails));
+    final var subjects = new HashSet<String>();
+    for (var message : greenMail.getReceivedMessages()) {
+      assertTrue(subjects.add(subject(message)), "Duplicated email " + subject(message));
+    }
+    assertEquals(emails, subjects.size());
+    assertEquals(emails, this.meterRegistry.get("email.outbox.sent").counter().count() - sent);
+    assertEquals(emails, this.meterRegistry.get("email.outbox.lag").timer().count() - lagged);
+  }
+
+  private long relayInParallel() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(RELAYS);
+    try {
+      final var relays = new ArrayList<Callable<Long>>();
+      for (int i = 0; i < RELAYS; i++) {
+        relays.add(this.emailOutboxRelay::relay);
+      }
+      long relayed = 0;
+      for (Future<Long> result : executor.invokeAll(relays)) {
+        relayed += result.get();
+      }
+      return relayed;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static String subject(MimeMessage message) {
+    try {
+      return message.getSubject();
+    } catch (MessagingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
@@ -0,0 +1,236 @@
+package es.miw.tfm.invierte.user.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+
+import es.miw.tfm.invierte.user.data.model.EmailOutbox;
+import es.miw.tfm.invierte.user.service.model.EmailMessage;
+import es.miw.tfm.invierte.user.service.util.DeadLetterSink;
+import es.miw.tfm.invierte.user.service.util.EmailService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.AddressException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith({MockitoExtension.class})
+class EmailOutboxRelayTest {
+
+  private static final int BATCH_SIZE = 2;
+
+  private static final int MAX_ATTEMPTS = 3;
+
+  private static final Duration LEASE = Duration.ofMinutes(10);
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private TransactionTemplate transactionTemplate;
+
+  @Mock
+  private EmailService emailService;
+
+  @Mock
+  private DeadLetterSink deadLetterSink;
+
+  @Captor
+  private ArgumentCaptor<List<Object[]>> deletedCaptor;
+
+  @Captor
+  private ArgumentCaptor<List<Object[]>> rescheduledCaptor;
+
+  @Captor
+  private ArgumentCaptor<List<Object[]>> deadLetteredCaptor;
+
+  private SimpleMeterRegistry registry;
+
+  private EmailOutboxRelay emailOutboxRelay;
+
+  private boolean inTransaction;
+
+  @BeforeEach
+  void setUp() {
+    this.registry = new SimpleMeterRegistry();
+    this.emailOutboxRelay = new EmailOutboxRelay(this.jdbcTemplate, this.transactionTemplate,
+        this.emailService, this.deadLetterSink, BATCH_SIZE, MAX_ATTEMPTS, Duration.ofSeconds(30),
+        Duration.ofMinutes(1), LEASE, this.registry);
+    lenient().when(this.transactionTemplate.execute(any())).thenAnswer(invocation -> {
+      this.inTransaction = true;
+      try {
+        return invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null);
+      } finally {
+        this.inTransaction = false;
+      }
+    });
+  }
+
+  @Test
+  void testRelaySendsAndDeletesBatches() {
+    this.claim(List.of(buildEmail(1, 0), buildEmail(2, 0)), List.of(buildEmail(3, 0)));
+
+    final var relayed = this.emailOutboxRelay.relay();
+
+    assertEquals(3, relayed);
+    verify(this.emailService, times(2)).sendBatch(any());
+    verify(this.jdbcTemplate, times(2)).batchUpdate(
+        argThat((String sql) -> sql.startsWith("DELETE")), this.deletedCaptor.capture());
+    assertEquals(2, this.deletedCaptor.getAllValues().get(0).size());
+    assertEquals(1, this.deletedCaptor.getAllValues().get(1).size());
+    assertEquals(3, this.registry.get("email.outbox.sent").counter().count());
+    assertEquals(3, this.registry.get("email.outbox.lag").timer().count());
+  }
+
+  @Test
+  void testRelayLeasesClaimedEmailsAndSendsOutsideTransactions() {
+    this.claim(List.of(buildEmail(1, 0)));
+    when(this.emailService.sendBatch(any())).thenAnswer(invocation -> {
+      assertFalse(this.inTransaction, "SMTP batch sent inside a transaction");
+      return new HashMap<EmailMessage, Exception>();
+    });
+    final var start = LocalDateTime.now();
+
+    this.emailOutboxRelay.relay();
+
+    final var leasedUntil = ArgumentCaptor.forClass(Object.class);
+    final var dueBefore = ArgumentCaptor.forClass(Object.class);
+    verify(this.jdbcTemplate).query(argThat((String sql) -> sql.startsWith("UPDATE")),
+        any(RowMapper.class), leasedUntil.capture(), dueBefore.capture(), eq(BATCH_SIZE));
+    final var due = ((Timestamp) dueBefore.getValue()).toLocalDateTime();
+    assertFalse(due.isBefore(start));
+    assertEquals(due.plus(LEASE), ((Timestamp) leasedUntil.getValue()).toLocalDateTime());
+    verify(this.transactionTemplate, times(2)).execute(any());
+  }
+
+  @Test
+  void testRelayReschedulesFailedEmails() {
+    this.claim(List.of(buildEmail(1, 0), buildEmail(2, 0)));
+    this.failSending("2@invierte.io", new MessagingException("550"));
+
+    this.emailOutboxRelay.relay();
+
+    this.verifyBatchUpdates();
+    assertEquals(1L, this.deletedCaptor.getValue().getFirst()[0]);
+    final var rescheduled = this.rescheduledCaptor.getValue();
+    assertEquals(1, rescheduled.size());
+    assertEquals(1, rescheduled.getFirst()[0]);
+    assertEquals("550", rescheduled.getFirst()[2]);
+    assertEquals(2L, rescheduled.getFirst()[3]);
+    assertEquals(1, this.registry.get("email.outbox.retries").counter().count());
+    verify(this.deadLetterSink, never()).accept(any(), any());
+  }
+
+  @Test
+  void testRelayDeadLettersEmailsOutOfAttempts() {
+    this.claim(List.of(buildEmail(1, MAX_ATTEMPTS - 1)));
+    this.failSending("1@invierte.io", new MessagingException("Connection refused"));
+
+    this.emailOutboxRelay.relay();
+
+    this.verifyBatchUpdates();
+    assertEquals(0, this.deletedCaptor.getValue().size());
+    assertEquals(0, this.rescheduledCaptor.getValue().size());
+    final var deadLettered = this.deadLetteredCaptor.getValue();
+    assertEquals(1, deadLettered.size());
+    assertEquals(MAX_ATTEMPTS, deadLettered.getFirst()[0]);
+    assertEquals("Connection refused", deadLettered.getFirst()[2]);
+    assertEquals(1L, deadLettered.getFirst()[3]);
+    verify(this.deadLetterSink).accept(argThat(message -> "1@invierte.io".equals(
+        message.getTo())), any(MessagingException.class));
+    assertEquals(1, this.registry.get("email.outbox.dead-letters").counter().count());
+  }
+
+  @Test
+  void testRelayDeadLettersPermanentFailures() {
+    this.claim(List.of(buildEmail(1, 0)));
+    this.failSending("1@invierte.io", new AddressException("Illegal address"));
+
+    this.emailOutboxRelay.relay();
+
+    this.verifyBatchUpdates();
+    assertEquals(0, this.deletedCaptor.getValue().size());
+    assertEquals(0, this.rescheduledCaptor.getValue().size());
+    assertEquals(1, this.deadLetteredCaptor.getValue().size());
+    verify(this.deadLetterSink).accept(any(EmailMessage.class), any(AddressException.class));
+    assertEquals(0, this.registry.get("email.outbox.retries").counter().count());
+  }
+
+  @Test
+  void testRefreshDepthCountsDueEmails() {
+    when(this.jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Timestamp.class)))
+        .thenReturn(7L);
+
+    assertEquals(0, this.registry.get("email.outbox.depth").gauge().value());
+    this.emailOutboxRelay.refreshDepth();
+
+    assertEquals(7, this.registry.get("email.outbox.depth").gauge().value());
+  }
+
+  @SafeVarargs
+  @SuppressWarnings("unchecked")
+  private void claim(List<EmailOutbox>... batches) {
+    var stubbing = when(this.jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(),
+        eq(BATCH_SIZE)));
+    for (List<EmailOutbox> batch : batches) {
+      stubbing = stubbing.thenReturn(batch);
+    }
+    stubbing.thenReturn(List.of());
+  }
+
+  private void failSending(String recipient, Exception failure) {
+    when(this.emailService.sendBatch(any())).thenAnswer(invocation -> {
+      final var failures = new HashMap<EmailMessage, Exception>();
+      invocation.<List<EmailMessage>>getArgument(0).stream()
+          .filter(message -> recipient.equals(message.getTo()))
+          .forEach(message -> failures.put(message, failure));
+      return failures;
+    });
+  }
+
+  private void verifyBatchUpdates() {
+    verify(this.jdbcTemplate).batchUpdate(argThat((String sql) -> sql.startsWith("DELETE")),
+        this.deletedCaptor.capture());
+    verify(this.jdbcTemplate).batchUpdate(
+        argThat((String sql) -> sql.contains("next_attempt_at")),
+        this.rescheduledCaptor.capture());
+    verify(this.jdbcTemplate).batchUpdate(
+        argThat((String sql) -> sql.contains("dead_lettered_at")),
+        this.deadLetteredCaptor.capture());
+  }
+
+  private static EmailOutbox buildEmail(long id, int attempts) {
+    return EmailOutbox.builder()
+        .id(id)
+        .recipient(id + "@invierte.io")
+        .subject("subject")
+        .body("body " + id)
+        .createdAt(LocalDateTime.now().minusSeconds(1))
+        .attempts(attempts)
+        .build();
+  }
+
+}
@@ -0,0 +1,108 @@
+package es.miw.tfm.invierte.user.service;
+
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomStaff;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import es.miw.tfm.invierte.user.BaseContainerIntegration;
+import es.miw.tfm.invierte.user.TestConfig;
+import es.miw.tfm.invierte.user.api.dto.StaffInfoDto;
+import es.miw.tfm.invierte.user.data.dao.StaffRepository;
+import es.miw.tfm.invierte.user.data.model.Staff;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Updates a staff user while several threads keep reading its general information, and
+ * checks that every read started after an update returns the updated data.
+ */
+@TestConfig
+@DirtiesContext
+@Tag("IntegrationTest")
+class GeneralInfoCacheIT extends BaseContainerIntegration {
+
+  private static final int UPDATES = 200;
+
+  private static final int READERS = 4;
+
+  @Autowired
+  private StaffService staffService;
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private Staff staff;
+
+  @BeforeAll
+  static void setup() {
+    postgreSQLContainer.start();
+  }
+
+  @AfterAll
+  static void clean() {
+    postgreSQLContainer.close();
+  }
+
+  @BeforeEach
+  void createStaff() {
+    this.staff = this.staffRepository.save(createRandomStaff(Status.ACTIVE));
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.staffRepository.deleteAll();
+  }
+
+  @Test
+  void testReadGeneralInfoNeverReturnsStaleDataAfterUpdate() throws Exception {
+    final var email = this.staff.getEmail();
+    final var running = new AtomicBoolean(true);
+    final ExecutorService readers = Executors.newFixedThreadPool(READERS);
+    final var futures = new ArrayList<Future<?>>();
+    try {
+      for (int i = 0; i < READERS; i++) {
+        futures.add(readers.submit(() -> {
+          while (running.get()) {
+            this.staffService.readGeneralInfo(email);
+          }
+        }));
+      }
+      for (int i = 0; i < UPDATES; i++) {
+        final var info = StaffInfoDto.builder()
+            .firstName("name-" + i)
+            .familyName(this.staff.getFamilyName())
+            .build();
+
+        this.staffService.updateGeneralInfo(email, info);
+
+        assertEquals("name-" + i, this.staffService.readGeneralInfo(email).getFirstName());
+      }
+    } finally {
+      running.set(false);
+      readers.shutdown();
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    assertTrue(this.meterRegistry.get("cache.gets").tag("cache", "general-info.staff")
+        .tag("result", "hit").functionCounter().count() > UPDATES);
+  }
+
+}
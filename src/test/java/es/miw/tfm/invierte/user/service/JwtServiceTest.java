@@ -1,6 +1,8 @@
 package es.miw.tfm.invierte.user.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -11,7 +13,11 @@ import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.util.Map;
 
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import es.miw.tfm.invierte.user.service.jwt_provider.LocalJwtKeyProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -19,8 +25,14 @@ class JwtServiceTest {
 
   private JwtService jwtService;
 
+  private SimpleMeterRegistry meterRegistry;
+
+  private Algorithm algorithm;
+
   private static final String ISSUER = "testIssuer";
   private static final int EXPIRE = 3600;
+  private static final long LEEWAY = 5;
+  private static final long CACHE_MAX_SIZE = 100;
 
   @BeforeEach
   void setUp() throws NoSuchAlgorithmException {
@@ -33,7 +45,11 @@ class JwtServiceTest {
     when(jwtKeyProvider.getPublicKey()).thenReturn((RSAPublicKey) keyPair.getPublic());
     when(jwtKeyProvider.getPrivateKey()).thenReturn((RSAPrivateKey) keyPair.getPrivate());
 
-    this.jwtService = new JwtService(jwtKeyProvider, ISSUER, EXPIRE);
+    this.algorithm = Algorithm.RSA256((RSAPublicKey) keyPair.getPublic(),
+        (RSAPrivateKey) keyPair.getPrivate());
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.jwtService = new JwtService(jwtKeyProvider, ISSUER, EXPIRE, LEEWAY, CACHE_MAX_SIZE,
+        this.meterRegistry);
   }
 
   @Test
@@ -50,6 +66,29 @@ class JwtServiceTest {
     assertEquals("", extractedToken);
   }
 
+  @Test
+  void testExtractTokenMalformed() {
+    assertEquals("", this.jwtService.extractToken(null));
+    assertEquals("", this.jwtService.extractToken("Bearer abc.def"));
+    assertEquals("", this.jwtService.extractToken("Bearer abc.def.ghi.jkl"));
+    assertEquals("", this.jwtService.extractToken("Bearer abc..ghi"));
+    assertEquals("", this.jwtService.extractToken("Bearer .def.ghi"));
+    assertEquals("", this.jwtService.extractToken("Bearer abc.def."));
+    assertEquals("", this.jwtService.extractToken("bearer abc.def.ghi"));
+  }
+
+  @Test
+  void testExtractTokenOversized() {
+    String oversized = "Bearer abc.def." + "g".repeat(8192);
+    assertEquals("", this.jwtService.extractToken(oversized));
+  }
+
+  @Test
+  void testExtractTokenFromSignedToken() {
+    String token = this.jwtService.createToken("user1", "User One", "ROLE_USER");
+    assertEquals(token, this.jwtService.extractToken("Bearer " + token));
+  }
+
   @Test
   void testCreateTokenWithRole() {
     String token = this.jwtService.createToken("user1", "User One", "ROLE_USER");
@@ -63,6 +102,24 @@ class JwtServiceTest {
     assertEquals(3, token.split("\\.").length); // Valid JWT format
   }
 
+  @Test
+  void testCreateTokenDatesShareClock() {
+    String token = this.jwtService.createToken("user1", "User One", "ROLE_USER");
+    DecodedJWT decoded = JWT.decode(token);
+    assertEquals(decoded.getIssuedAtAsInstant(), decoded.getNotBeforeAsInstant());
+    assertEquals(decoded.getIssuedAtAsInstant().plusSeconds(EXPIRE),
+        decoded.getExpiresAtAsInstant());
+  }
+
+  @Test
+  void testVerifyRejectsOtherIssuer() throws NoSuchAlgorithmException {
+    String token = JWT.create()
+        .withIssuer("otherIssuer")
+        .withClaim("user", "user1")
+        .sign(this.algorithm);
+    assertTrue(this.jwtService.verify(token).isEmpty());
+  }
+
   @Test
   void testUser() {
     String token = this.jwtService.createToken("user1", "User One", "ROLE_USER");
@@ -84,4 +141,47 @@ class JwtServiceTest {
     assertEquals("ROLE_USER", role);
   }
 
+  @Test
+  void testRoles() {
+    Map<String, String> companyRoles = Map.of("CompanyA", "OWNER");
+    String token = this.jwtService.createToken("user2", "User Two", companyRoles);
+    assertEquals(Map.of("CompanyA", "OWNER"), this.jwtService.roles(token));
+    assertTrue(this.jwtService.roles("invalid").isEmpty());
+  }
+
+  @Test
+  void testVerifyParsesAllClaimsOnce() {
+    String token = this.jwtService.createToken("user1", "User One", "ROLE_USER");
+
+    final var principal = this.jwtService.verify(token);
+
+    assertTrue(principal.isPresent());
+    assertEquals("user1", principal.get().getUser());
+    assertEquals("User One", principal.get().getName());
+    assertEquals("ROLE_USER", principal.get().getRole());
+    assertTrue(principal.get().getCompanyRoles().isEmpty());
+    assertNotNull(principal.get().getExpiresAt());
+  }
+
+  @Test
+  void testVerifyIsCached() {
+    String token = this.jwtService.createToken("user1", "User One", "ROLE_USER");
+
+    this.jwtService.user(token);
+    this.jwtService.role(token);
+    this.jwtService.roles(token);
+
+    assertEquals(1L, this.meterRegistry.get("jwt.verification").timer().count());
+    assertEquals(2.0, this.meterRegistry.get("cache.gets")
+        .tag("cache", "jwt.verified-tokens").tag("result", "hit")
+        .functionCounter().count());
+  }
+
+  @Test
+  void testVerifyInvalidToken() {
+    assertTrue(this.jwtService.verify("abc.def.ghi").isEmpty());
+    assertTrue(this.jwtService.verify("").isEmpty());
+    assertTrue(this.jwtService.verify(null).isEmpty());
+  }
+
 }
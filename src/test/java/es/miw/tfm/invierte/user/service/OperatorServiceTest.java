@@ -14,6 +14,7 @@ import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -25,6 +26,9 @@ import es.miw.tfm.invierte.user.service.exception.BadRequestException;
 import es.miw.tfm.invierte.user.service.exception.ConflictException;
 import es.miw.tfm.invierte.user.service.exception.ForbiddenException;
 import es.miw.tfm.invierte.user.service.exception.NotFoundException;
+import es.miw.tfm.invierte.user.service.util.GeneralInfoCache;
+import es.miw.tfm.invierte.user.service.util.ReadYourWrites;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -35,6 +39,7 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 @ExtendWith({MockitoExtension.class})
 class OperatorServiceTest {
@@ -50,6 +55,16 @@ class OperatorServiceTest {
   @Mock
   private JwtService jwtService;
 
+  @Spy
+  private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+
+  @Spy
+  private ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofSeconds(10), 100);
+
+  @Spy
+  private GeneralInfoCache generalInfoCache = new GeneralInfoCache(100, Duration.ofMinutes(1),
+      new SimpleMeterRegistry());
+
   @Captor
   ArgumentCaptor<Operator> operatorCaptor;
 
@@ -123,6 +138,17 @@ class OperatorServiceTest {
         .save(argThat(operatorSave -> !Objects.isNull(operatorSave.getRegistrationDate())));
   }
 
+  @Test
+  void testCreateUserEncodesPassword() {
+    when(operatorRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+    operator.setPassword("plainPassword");
+
+    operatorService.createUser(operator, SystemRole.SUPPORT);
+
+    verify(this.operatorRepository).save(argThat(operatorSave ->
+        this.passwordEncoder.matches("plainPassword", operatorSave.getPassword())));
+  }
+
 
   @Test
   void testLoginNotFound() {
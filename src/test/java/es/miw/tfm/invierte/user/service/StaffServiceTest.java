@@ -7,6 +7,7 @@ import static es.miw.tfm.invierte.user.util.DummyStaffUtil.buildActiveStaff;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.buildActiveStaffWithNoCompany;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.buildInactiveStaff;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.buildInactiveStaffWithNoCompany;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.buildStaffLoginView;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomPasswordChangeDto;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomStaff;
 import static es.miw.tfm.invierte.user.util.DummyStaffUtil.createRandomStaffInfoDto;
@@ -18,24 +19,33 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
 import es.miw.tfm.invierte.user.api.dto.PasswordResetDto;
+import es.miw.tfm.invierte.user.data.dao.ActivationCodeRepository;
+import es.miw.tfm.invierte.user.data.dao.EmailOutboxRepository;
+import es.miw.tfm.invierte.user.data.dao.StaffMembershipRepository;
 import es.miw.tfm.invierte.user.data.dao.StaffRepository;
-import es.miw.tfm.invierte.user.data.dao.UserRepository;
 import es.miw.tfm.invierte.user.data.model.ActivationCode;
 import es.miw.tfm.invierte.user.data.model.Staff;
 import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
@@ -43,6 +53,12 @@ import es.miw.tfm.invierte.user.data.model.enums.Gender;
 import es.miw.tfm.invierte.user.data.model.enums.Status;
 import es.miw.tfm.invierte.user.service.exception.ConflictException;
 import es.miw.tfm.invierte.user.service.exception.NotFoundException;
+import es.miw.tfm.invierte.user.service.model.EmailContent;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
+import es.miw.tfm.invierte.user.service.util.EmailTemplateRegistry;
+import es.miw.tfm.invierte.user.service.util.GeneralInfoCache;
+import es.miw.tfm.invierte.user.service.util.ReadYourWrites;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -53,6 +69,7 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith({MockitoExtension.class})
@@ -65,11 +82,30 @@ class StaffServiceTest {
   private StaffRepository staffRepository;
 
   @Mock
-  private UserRepository userRepository;
+  private StaffMembershipRepository staffMembershipRepository;
+
+  @Mock
+  private ActivationCodeRepository activationCodeRepository;
+
+  @Mock
+  private EmailOutboxRepository emailOutboxRepository;
 
   @Mock
   private JwtService jwtService;
 
+  @Mock
+  private EmailTemplateRegistry emailTemplateRegistry;
+
+  @Spy
+  private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+
+  @Spy
+  private ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofSeconds(10), 100);
+
+  @Spy
+  private GeneralInfoCache generalInfoCache = new GeneralInfoCache(100, Duration.ofMinutes(1),
+      new SimpleMeterRegistry());
+
   @Captor
   ArgumentCaptor<Staff> staffCaptor;
 
@@ -82,6 +118,9 @@ class StaffServiceTest {
   void setUp() {
     ReflectionTestUtils.setField(staffService, "messageBaseUrl", "account-confirmation");
     ReflectionTestUtils.setField(staffService, "messageResetPasswordBaseUrl", "reset-password");
+    lenient().when(this.emailTemplateRegistry.render(anyString(), any(Locale.class), anyMap()))
+        .thenAnswer(invocation -> new EmailContent(invocation.getArgument(0) + "-subject",
+            invocation.<Map<String, String>>getArgument(2).get("link"), null));
   }
 
 
@@ -93,11 +132,15 @@ class StaffServiceTest {
     activationCode.setExpirationDate(LocalDateTime.now().plusMinutes(30));
     mockedInactiveStaff.getActivationCodes().add(activationCode);
 
-    when(this.staffRepository.findAll()).thenReturn(List.of(mockedInactiveStaff));
+    when(this.staffRepository.findByActivationCode(eq(activationCode.getCode()),
+        any(LocalDateTime.class))).thenReturn(Optional.of(mockedInactiveStaff));
 
     final var actualResult = this.staffService.activateAccount(activationCode.getCode());
 
     verify(this.staffRepository).save(argThat(staffSave -> Status.ACTIVE.equals(staffSave.getStatus())));
+    verify(this.staffMembershipRepository).updateStatus(mockedInactiveStaff.getId(),
+        Status.INACTIVE, Status.ACTIVE);
+    verify(this.readYourWrites).recordWrite(mockedInactiveStaff.getEmail());
     assertNotNull(actualResult);
     assertFalse(actualResult.isPasswordSet());
 
@@ -111,8 +154,9 @@ class StaffServiceTest {
     activationCode.setExpirationDate(LocalDateTime.now().plusMinutes(30));
     mockedInactiveStaff.getActivationCodes().add(activationCode);
 
-    when(this.staffRepository.findAll()).thenReturn(List.of(mockedInactiveStaff));
     String nonValidActivationCode = UUID.randomUUID().toString();
+    when(this.staffRepository.findByActivationCode(eq(nonValidActivationCode),
+        any(LocalDateTime.class))).thenReturn(Optional.empty());
     assertThrows(NotFoundException.class, ()->this.staffService.activateAccount(nonValidActivationCode));
 
     verify(this.staffRepository, never()).save(any());
@@ -132,6 +176,7 @@ class StaffServiceTest {
     assertDoesNotThrow(() ->
       this.staffService.changePassword(staff.getEmail(), passwordChangeDto));
     verify(this.staffRepository).save(any());
+    verify(this.readYourWrites).recordWrite(staff.getEmail());
   }
 
   @Test
@@ -148,6 +193,19 @@ class StaffServiceTest {
             && newStaff.getCompanyRole().equals(CompanyRole.OWNER)
             && newStaff.getActivationCodes().isEmpty()
     ));
+    verify(this.readYourWrites).recordWrite(EMAIL);
+  }
+
+  @Test
+  void testCreateUserWithNoCompanyEncodesPassword() {
+    final var mockedStaff = buildInactiveStaffWithNoCompany();
+    mockedStaff.setPassword("plainPassword");
+    when(this.staffRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+
+    this.staffService.createUserWithNoCompany(mockedStaff);
+
+    verify(this.staffRepository).save(argThat(newStaff ->
+        this.passwordEncoder.matches("plainPassword", newStaff.getPassword())));
   }
 
   @Test
@@ -155,31 +213,107 @@ class StaffServiceTest {
     final var mockedStaff = buildActiveStaffWithNoCompany();
     when(this.staffRepository.findByEmail(EMAIL)).thenReturn(Optional.of(mockedStaff));
     assertThrows(ConflictException.class,() ->this.staffService.createUserWithNoCompany(mockedStaff));
+    verify(this.passwordEncoder, never()).encode(any());
   }
 
   @Test
   void testLoginSuccess() {
-    final var mockedStaff = buildInactiveStaff();
-    final var mockedStaffRoles = new HashMap<String, String>();
-    mockedStaffRoles.put(mockedStaff.getTaxIdentificationNumber(), mockedStaff.getCompanyRole().name());
+    final var loginView = List.of(
+        buildStaffLoginView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER,
+            "654321", CompanyRole.REALTOR, Status.ACTIVE),
+        buildStaffLoginView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER,
+            "987654", CompanyRole.OWNER, Status.INACTIVE));
+    final var expectedRoles = Map.of(TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER.name(),
+        "654321", CompanyRole.REALTOR.name());
 
-    when(this.userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(mockedStaff));
-    when(this.staffRepository.findByEmailAndStatus(EMAIL, Status.ACTIVE)).thenReturn(Optional.of(mockedStaff));
-    when(this.jwtService.createToken(EMAIL, NAME, mockedStaffRoles)).thenReturn(TOKEN);
+    when(this.staffRepository.findLoginViewByEmail(EMAIL)).thenReturn(loginView);
+    when(this.jwtService.createToken(EMAIL, NAME, expectedRoles)).thenReturn(TOKEN);
 
     String actualToken = this.staffService.login(EMAIL);
 
-    verify(this.userRepository).findByEmail(EMAIL);
-    verify(this.jwtService).createToken(EMAIL, NAME, mockedStaffRoles);
+    verify(this.staffRepository).findLoginViewByEmail(EMAIL);
+    verify(this.jwtService).createToken(EMAIL, NAME, expectedRoles);
     assertEquals(TOKEN, actualToken);
   }
 
+  @Test
+  void testLoginInactiveProfileHasNoRoles() {
+    final var loginView = List.of(
+        buildStaffLoginView(Status.INACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER,
+            "654321", CompanyRole.REALTOR, Status.ACTIVE));
+    final Map<String, String> expectedRoles = Map.of();
+
+    when(this.staffRepository.findLoginViewByEmail(EMAIL)).thenReturn(loginView);
+    when(this.jwtService.createToken(EMAIL, NAME, expectedRoles)).thenReturn(TOKEN);
+
+    assertEquals(TOKEN, this.staffService.login(EMAIL));
+  }
+
   @Test
   void testLoginNotFound() {
-    when(this.userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+    when(this.staffRepository.findLoginViewByEmail(EMAIL)).thenReturn(List.of());
     assertThrows(NotFoundException.class, () -> this.staffService.login(EMAIL));
   }
 
+  @Test
+  void testLoginWithStaffUserDetails() {
+    final var staffUserDetails = new StaffUserDetails(List.of(
+        buildStaffLoginView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER)));
+    final var expectedRoles = Map.of(TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER.name());
+    when(this.jwtService.createToken(EMAIL, NAME, expectedRoles)).thenReturn(TOKEN);
+
+    String actualToken = this.staffService.login(staffUserDetails);
+
+    verify(this.staffRepository, never()).findLoginViewByEmail(anyString());
+    assertEquals(TOKEN, actualToken);
+  }
+
+  @Test
+  void testAddMembership() {
+    final var mockedStaff = buildActiveStaff();
+    mockedStaff.setTaxIdentificationNumber(TAX_IDENTIFICATION_NUMBER);
+    when(this.staffRepository.findByEmailAndStatus(EMAIL, Status.ACTIVE))
+        .thenReturn(Optional.of(mockedStaff));
+    when(this.staffMembershipRepository.existsByStaffIdAndTaxIdentificationNumber(
+        mockedStaff.getId(), "654321")).thenReturn(false);
+
+    this.staffService.addMembership(EMAIL, "654321", CompanyRole.REALTOR);
+
+    verify(this.staffMembershipRepository).save(argThat(membership ->
+        membership.getStaffId() == mockedStaff.getId()
+            && "654321".equals(membership.getTaxIdentificationNumber())
+            && CompanyRole.REALTOR.equals(membership.getCompanyRole())
+            && Status.INACTIVE.equals(membership.getStatus())));
+    verify(this.activationCodeRepository).insert(eq(mockedStaff.getId()), anyString(),
+        any(LocalDateTime.class));
+    verify(this.emailOutboxRepository).save(argThat(email -> EMAIL.equals(email.getRecipient())
+        && "activation-code-subject".equals(email.getSubject())
+        && email.getBody().contains("account-confirmation")));
+    verify(this.readYourWrites).recordWrite(EMAIL);
+  }
+
+  @Test
+  void testAddMembershipConflict() {
+    final var mockedStaff = buildActiveStaff();
+    mockedStaff.setTaxIdentificationNumber(TAX_IDENTIFICATION_NUMBER);
+    when(this.staffRepository.findByEmailAndStatus(EMAIL, Status.ACTIVE))
+        .thenReturn(Optional.of(mockedStaff));
+
+    assertThrows(ConflictException.class, () ->
+        this.staffService.addMembership(EMAIL, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER));
+    verify(this.staffMembershipRepository, never()).save(any());
+    verify(this.emailOutboxRepository, never()).save(any());
+  }
+
+  @Test
+  void testAddMembershipNotFound() {
+    when(this.staffRepository.findByEmailAndStatus(EMAIL, Status.ACTIVE))
+        .thenReturn(Optional.empty());
+
+    assertThrows(NotFoundException.class, () ->
+        this.staffService.addMembership(EMAIL, "654321", CompanyRole.REALTOR));
+  }
+
   @Test
   void testSetCompanyToUser() {
     final var mockedInactiveStaffWithNoCompany = buildInactiveStaffWithNoCompany();
@@ -193,32 +327,49 @@ class StaffServiceTest {
             && newStaff.getStatus().equals(Status.INACTIVE)
             && newStaff.getTaxIdentificationNumber().equals(TAX_IDENTIFICATION_NUMBER)
     ));
-
+    verify(this.readYourWrites).recordWrite(EMAIL);
   }
 
   @Test
-  void testGetActivationCodeMessage() {
+  void testNotifyActivationCode() {
     final var mockedInactiveStaff = buildInactiveStaff();
     when(this.staffRepository.findByEmailAndTaxIdentificationNumber(EMAIL, TAX_IDENTIFICATION_NUMBER))
         .thenReturn(Optional.of(mockedInactiveStaff));
-    when(this.staffRepository.save(any(Staff.class))).thenReturn(staff);
 
-    Optional<String> message = this.staffService.getActivationCodeMessage(EMAIL, TAX_IDENTIFICATION_NUMBER);
+    this.staffService.notifyActivationCode(EMAIL, TAX_IDENTIFICATION_NUMBER);
 
-    verify(this.staffRepository, times(2))
+    verify(this.staffRepository, times(1))
         .findByEmailAndTaxIdentificationNumber(EMAIL, TAX_IDENTIFICATION_NUMBER);
-    verify(this.staffRepository).save(any(Staff.class));
-    assertTrue(message.isPresent());
-    assertTrue(message.get().contains("account-confirmation"));
+    verify(this.activationCodeRepository).insert(eq(mockedInactiveStaff.getId()), anyString(),
+        any(LocalDateTime.class));
+    verify(this.staffRepository, never()).save(any(Staff.class));
+    verify(this.emailOutboxRepository).save(argThat(email -> EMAIL.equals(email.getRecipient())
+        && "activation-code-subject".equals(email.getSubject())
+        && email.getBody().contains("account-confirmation")
+        && email.getAttempts() == 0
+        && !Objects.isNull(email.getNextAttemptAt())));
   }
 
   @Test
-  void testGetActivationCodeMessageUserIsActive() {
+  void testNotifyActivationCodeUserNotFound() {
+    when(this.staffRepository.findByEmailAndTaxIdentificationNumber(EMAIL, TAX_IDENTIFICATION_NUMBER))
+        .thenReturn(Optional.empty());
+
+    this.staffService.notifyActivationCode(EMAIL, TAX_IDENTIFICATION_NUMBER);
+
+    verify(this.activationCodeRepository, never()).insert(anyInt(), anyString(),
+        any(LocalDateTime.class));
+    verify(this.emailOutboxRepository, never()).save(any());
+  }
+
+  @Test
+  void testNotifyActivationCodeUserIsActive() {
     final var mockedActiveStaff = buildActiveStaff();
     when(this.staffRepository.findByEmailAndTaxIdentificationNumber(EMAIL, TAX_IDENTIFICATION_NUMBER))
         .thenReturn(Optional.of(mockedActiveStaff));
 
-    assertThrows(ConflictException.class, ()-> this.staffService.getActivationCodeMessage(EMAIL, TAX_IDENTIFICATION_NUMBER));
+    assertThrows(ConflictException.class, ()-> this.staffService.notifyActivationCode(EMAIL, TAX_IDENTIFICATION_NUMBER));
+    verify(this.emailOutboxRepository, never()).save(any());
 
     verify(this.staffRepository, times(1))
         .findByEmailAndTaxIdentificationNumber(EMAIL, TAX_IDENTIFICATION_NUMBER);
@@ -250,6 +401,7 @@ class StaffServiceTest {
     var staffInfoDto = createRandomStaffInfoDto();
     assertThrows(NotFoundException.class, () ->
       this.staffService.updateGeneralInfo(EMAIL, staffInfoDto));
+    verify(this.readYourWrites, never()).recordWrite(anyString());
   }
 
   @Test
@@ -262,6 +414,25 @@ class StaffServiceTest {
     verify(staffRepository).findByEmailAndStatus(EMAIL, Status.ACTIVE);
   }
 
+  @Test
+  void testReadGeneralInfoIsCachedUntilUpdate() {
+    var staffActive = createRandomStaff(Status.ACTIVE);
+    when(this.staffRepository.findByEmailAndStatus(EMAIL, Status.ACTIVE))
+      .thenReturn(Optional.of(staffActive));
+    when(this.staffRepository.save(any(Staff.class))).thenReturn(staffActive);
+
+    this.staffService.readGeneralInfo(EMAIL);
+    this.staffService.readGeneralInfo(EMAIL);
+    verify(this.staffRepository, times(1)).findByEmailAndStatus(EMAIL, Status.ACTIVE);
+
+    var staffInfoDto = createRandomStaffInfoDto();
+    staffInfoDto.setFirstName("changed");
+    this.staffService.updateGeneralInfo(EMAIL, staffInfoDto);
+
+    assertEquals("changed", this.staffService.readGeneralInfo(EMAIL).getFirstName());
+    verify(this.staffRepository, times(3)).findByEmailAndStatus(EMAIL, Status.ACTIVE);
+  }
+
   @Test
   void testReadGeneralInfoWhenIsNotFound() {
     when(this.staffRepository.findByEmailAndStatus(anyString(), isA(Status.class)))
@@ -285,6 +456,7 @@ class StaffServiceTest {
             && !Objects.isNull(newStaff.getRegistrationDate())
             && Objects.isNull(newStaff.getPassword())
     ));
+    verify(this.readYourWrites).recordWrite(EMAIL);
   }
 
   @Test
@@ -299,27 +471,30 @@ class StaffServiceTest {
   }
 
   @Test
-  void testGetResetPasswordNotificationCodeMessage() {
+  void testNotifyResetPassword() {
     final var mockedInactiveStaff = buildActiveStaff();
     when(this.staffRepository.findByEmail(EMAIL))
         .thenReturn(Optional.of(mockedInactiveStaff));
-    when(this.staffRepository.save(any(Staff.class))).thenReturn(staff);
 
-    Optional<String> message = this.staffService.getResetPasswordNotificationCodeMessage(EMAIL);
+    this.staffService.notifyResetPassword(EMAIL);
 
     verify(this.staffRepository, times(1)).findByEmail(EMAIL);
-    verify(this.staffRepository).save(any(Staff.class));
-    assertTrue(message.isPresent());
-    assertTrue(message.get().contains("reset-password"));
+    verify(this.activationCodeRepository).insert(eq(mockedInactiveStaff.getId()), anyString(),
+        any(LocalDateTime.class));
+    verify(this.staffRepository, never()).save(any(Staff.class));
+    verify(this.emailOutboxRepository).save(argThat(email -> EMAIL.equals(email.getRecipient())
+        && "reset-password-subject".equals(email.getSubject())
+        && email.getBody().contains("reset-password")));
   }
 
   @Test
-  void testGetResetPasswordNotificationCodeMessageUserIsInactive() {
+  void testNotifyResetPasswordUserIsInactive() {
     final var mockedActiveStaff = buildInactiveStaff();
     when(this.staffRepository.findByEmail(EMAIL))
         .thenReturn(Optional.of(mockedActiveStaff));
 
-    assertThrows(ConflictException.class, ()-> this.staffService.getResetPasswordNotificationCodeMessage(EMAIL));
+    assertThrows(ConflictException.class, ()-> this.staffService.notifyResetPassword(EMAIL));
+    verify(this.emailOutboxRepository, never()).save(any());
 
     verify(this.staffRepository, times(1))
         .findByEmail(EMAIL);
@@ -337,7 +512,8 @@ class StaffServiceTest {
     passwordResetDto.setNotificationToken(TOKEN);
     passwordResetDto.setNewPassword("newPassword123");
 
-    when(this.staffRepository.findAll()).thenReturn(List.of(mockedActiveStaff));
+    when(this.staffRepository.findByActivationCode(eq(TOKEN), any(LocalDateTime.class)))
+        .thenReturn(Optional.of(mockedActiveStaff));
     when(this.staffRepository.save(any(Staff.class))).thenReturn(mockedActiveStaff);
 
     assertDoesNotThrow(() -> this.staffService.resetPassword(EMAIL, passwordResetDto));
@@ -359,7 +535,8 @@ class StaffServiceTest {
     activationCode.setExpirationDate(LocalDateTime.now().plusMinutes(30));
     mockedActiveStaff.getActivationCodes().add(activationCode);
 
-    when(this.staffRepository.findAll()).thenReturn(List.of(mockedActiveStaff));
+    when(this.staffRepository.findByActivationCode(eq(TOKEN), any(LocalDateTime.class)))
+        .thenReturn(Optional.of(mockedActiveStaff));
 
     assertThrows(NotFoundException.class, () -> this.staffService.resetPassword(EMAIL, passwordResetDto));
 
@@ -372,7 +549,8 @@ class StaffServiceTest {
     passwordResetDto.setNotificationToken(TOKEN);
     passwordResetDto.setNewPassword("newPassword123");
 
-    when(this.staffRepository.findAll()).thenReturn(List.of());
+    when(this.staffRepository.findByActivationCode(eq(TOKEN), any(LocalDateTime.class)))
+        .thenReturn(Optional.empty());
 
     assertThrows(NotFoundException.class, () -> this.staffService.resetPassword(EMAIL, passwordResetDto));
 
@@ -391,7 +569,8 @@ class StaffServiceTest {
     passwordResetDto.setNotificationToken(TOKEN);
     passwordResetDto.setNewPassword("newPassword123");
 
-    when(this.staffRepository.findAll()).thenReturn(List.of(mockedActiveStaff));
+    when(this.staffRepository.findByActivationCode(eq(TOKEN), any(LocalDateTime.class)))
+        .thenReturn(Optional.empty());
 
     assertThrows(NotFoundException.class, () -> this.staffService.resetPassword(EMAIL, passwordResetDto));
 
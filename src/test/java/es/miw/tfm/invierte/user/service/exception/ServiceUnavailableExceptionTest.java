@@ -0,0 +1,28 @@
+package es.miw.tfm.invierte.user.service.exception;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ServiceUnavailableExceptionTest {
+
+  private static final String DESCRIPTION = "Service Unavailable Exception";
+
+  private static final String DETAIL = "detail";
+
+  private static final String EXPECTED_MESSAGE = DESCRIPTION + ". " + DETAIL;
+
+  private ServiceUnavailableException serviceUnavailableException;
+
+  @BeforeEach
+  void setUp() {
+    this.serviceUnavailableException = new ServiceUnavailableException(DETAIL);
+  }
+
+  @Test
+  void testServiceUnavailableException() {
+    assertEquals(EXPECTED_MESSAGE, this.serviceUnavailableException.getMessage());
+  }
+
+}
@@ -0,0 +1,76 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class CalibratedBCryptPasswordEncoderTest {
+
+  private static final String PASSWORD = "s3cr3t-Passw0rd";
+
+  @Test
+  void testCalibrateKeepsMinimumForFastTarget() {
+    final var encoder = CalibratedBCryptPasswordEncoder.calibrate(Duration.ofNanos(1), 4, 6, 1, 1);
+
+    assertEquals(4, encoder.getStrength());
+  }
+
+  @Test
+  void testCalibrateStopsAtMaximum() {
+    final var encoder = CalibratedBCryptPasswordEncoder.calibrate(Duration.ofMinutes(1), 4, 6, 1, 1);
+
+    assertEquals(6, encoder.getStrength());
+    assertTrue(encoder.encode(PASSWORD).startsWith("$2a$06$"));
+  }
+
+  @Test
+  void testCalibrateFixedStrength() {
+    final var encoder = CalibratedBCryptPasswordEncoder.calibrate(Duration.ofMinutes(1), 5, 5, 1, 1);
+
+    assertEquals(5, encoder.getStrength());
+  }
+
+  @Test
+  void testUpgradeEncodingWithinTolerance() {
+    final var encoder = new CalibratedBCryptPasswordEncoder(6, 1, 7);
+
+    assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode(PASSWORD)));
+    assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode(PASSWORD)));
+    assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(7).encode(PASSWORD)));
+    assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(8).encode(PASSWORD)));
+  }
+
+  @Test
+  void testAdjacentCostsDoNotRehashEachOther() {
+    final var lower = new CalibratedBCryptPasswordEncoder(5, 1, 7);
+    final var higher = new CalibratedBCryptPasswordEncoder(6, 1, 7);
+
+    assertFalse(lower.upgradeEncoding(higher.encode(PASSWORD)));
+    assertFalse(higher.upgradeEncoding(lower.encode(PASSWORD)));
+  }
+
+  @Test
+  void testCostsFurtherApartConvergeUpwards() {
+    final var lower = new CalibratedBCryptPasswordEncoder(4, 1, 7);
+    final var higher = new CalibratedBCryptPasswordEncoder(6, 1, 7);
+
+    assertTrue(higher.upgradeEncoding(lower.encode(PASSWORD)));
+    assertFalse(lower.upgradeEncoding(higher.encode(PASSWORD)));
+  }
+
+  @Test
+  void testUpgradeEncoding() {
+    final var encoder = new CalibratedBCryptPasswordEncoder(5);
+
+    assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode(PASSWORD)));
+    assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode(PASSWORD)));
+    assertFalse(encoder.upgradeEncoding(encoder.encode(PASSWORD)));
+    assertFalse(encoder.upgradeEncoding(null));
+  }
+
+}
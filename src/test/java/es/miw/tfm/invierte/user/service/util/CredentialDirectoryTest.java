@@ -0,0 +1,153 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import static es.miw.tfm.invierte.user.util.DummyOperatorUtil.buildOperatorCredentialView;
+import static es.miw.tfm.invierte.user.util.DummyOperatorUtil.createRandomOperator;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.PASSWORD;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.TAX_IDENTIFICATION_NUMBER;
+import static es.miw.tfm.invierte.user.util.DummyStaffUtil.buildStaffCredentialView;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.service.model.StaffUserDetails;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+@Log4j2
+class CredentialDirectoryTest {
+
+  private static final int BUDGET_USERS = 1_000_000;
+
+  /**
+   * Heap the directory may retain per staff user, counting its email, its 60 characters
+   * BCrypt hash and its entry in the map; 1M users must fit in about 300 MB.
+   */
+  private static final long MAX_BYTES_PER_USER = 300;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final CredentialDirectory credentialDirectory = new CredentialDirectory(
+      new DataSourceProperties(), true, 3, 100, Duration.ofMillis(100), Duration.ofSeconds(1),
+      this.meterRegistry);
+
+  @Test
+  void testFindStaff() {
+    this.credentialDirectory.apply("staff@email.com", List.of(
+        buildStaffCredentialView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER)));
+
+    final var actual = this.credentialDirectory.find("staff@email.com").orElseThrow();
+
+    final var staffUserDetails = assertInstanceOf(StaffUserDetails.class, actual);
+    assertEquals("staff@email.com", staffUserDetails.getUsername());
+    assertEquals(PASSWORD, staffUserDetails.getPassword());
+    assertTrue(staffUserDetails.isEnabled());
+    assertEquals(Map.of(TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER.name()),
+        staffUserDetails.getCompanyRoles());
+    assertEquals(1, this.meterRegistry.get("auth.directory.users").gauge().value());
+  }
+
+  @Test
+  void testFindInactiveStaffIsDisabled() {
+    this.credentialDirectory.apply("staff@email.com", List.of(
+        buildStaffCredentialView(Status.INACTIVE, TAX_IDENTIFICATION_NUMBER,
+            CompanyRole.OWNER)));
+
+    assertFalse(this.credentialDirectory.find("staff@email.com").orElseThrow().isEnabled());
+  }
+
+  @Test
+  void testFindOperator() {
+    final var operator = createRandomOperator();
+    this.credentialDirectory.apply(operator.getEmail(),
+        List.of(buildOperatorCredentialView(operator)));
+
+    final var actual = this.credentialDirectory.find(operator.getEmail()).orElseThrow();
+
+    assertEquals(operator.getPassword(), actual.getPassword());
+    assertTrue(actual.getAuthorities().stream().anyMatch(authority ->
+        authority.getAuthority().equals("ROLE_" + operator.getSystemRole().name())));
+  }
+
+  @Test
+  void testApplyWithoutRowsRemovesUser() {
+    this.credentialDirectory.apply("staff@email.com", List.of(
+        buildStaffCredentialView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER)));
+
+    this.credentialDirectory.apply("staff@email.com", List.of());
+
+    assertTrue(this.credentialDirectory.find("staff@email.com").isEmpty());
+  }
+
+  @Test
+  void testApplySharesEqualCompanyRoles() {
+    final var rows = List.of(
+        buildStaffCredentialView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER));
+    this.credentialDirectory.apply("first@email.com", rows);
+    this.credentialDirectory.apply("second@email.com", rows);
+
+    final var first = (StaffUserDetails) this.credentialDirectory.find("first@email.com")
+        .orElseThrow();
+    final var second = (StaffUserDetails) this.credentialDirectory.find("second@email.com")
+        .orElseThrow();
+
+    assertSame(first.getCompanyRoles(), second.getCompanyRoles());
+    assertSame(first.getFirstName(), second.getFirstName());
+  }
+
+  @Test
+  void testApplyBeyondMaxUsersDropsEveryUser() {
+    final var rows = List.of(
+        buildStaffCredentialView(Status.ACTIVE, TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER));
+    for (int i = 0; i < 5; i++) {
+      this.credentialDirectory.apply("staff" + i + "@email.com", rows);
+    }
+
+    assertTrue(this.credentialDirectory.find("staff0@email.com").isEmpty());
+    assertTrue(this.credentialDirectory.find("staff4@email.com").isEmpty());
+    assertFalse(this.credentialDirectory.isReady());
+    assertEquals(0, this.meterRegistry.get("auth.directory.users").gauge().value());
+  }
+
+  @Test
+  @Tag("Benchmark")
+  void testOneMillionUsersFitTheHeapBudget() {
+    final var directory = new CredentialDirectory(new DataSourceProperties(), true,
+        BUDGET_USERS, 100, Duration.ofMillis(100), Duration.ofSeconds(1), this.meterRegistry);
+    final long before = usedHeap();
+
+    for (int i = 0; i < BUDGET_USERS; i++) {
+      final var email = "user" + i + "@email.com";
+      final var hash = String.format("$2a$10$%053d", i);
+      directory.apply(email, List.of(buildStaffCredentialView(email, hash, Status.ACTIVE,
+          TAX_IDENTIFICATION_NUMBER, CompanyRole.OWNER)));
+    }
+
+    final long retained = usedHeap() - before;
+    log.info("{} users retain {} MB, {} bytes per user", BUDGET_USERS,
+        retained / 1024 / 1024, retained / BUDGET_USERS);
+    assertTrue(directory.find("user" + (BUDGET_USERS - 1) + "@email.com").isPresent());
+    assertTrue(retained < MAX_BYTES_PER_USER * BUDGET_USERS,
+        () -> retained / BUDGET_USERS + " bytes per user");
+  }
+
+  private static long usedHeap() {
+    final var memory = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 3; i++) {
+      memory.gc();
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+}
@@ -0,0 +1,115 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import es.miw.tfm.invierte.user.service.model.EmailMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Delivers emails through a local SMTP stub, covering the pooled SMTP sessions and the
+ * failures reported while the server is down.
+ */
+class EmailServiceSmtpTest {
+
+  @RegisterExtension
+  static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+  private static final String TO = "staff@invierte.io";
+
+  private static final String SUBJECT = "Activation code";
+
+  private static final String BODY = "Your activation code is 123456";
+
+  private static final int MESSAGES = 50;
+
+  private static final int BATCHES = 20;
+
+  private static final int MESSAGES_PER_SESSION = 1_000;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private SmtpTransportPool transportPool;
+
+  private EmailService emailService;
+
+  @AfterEach
+  void tearDown() {
+    if (this.transportPool != null) {
+      this.transportPool.close();
+    }
+  }
+
+  @Test
+  void testSendBatchReusesSessions() {
+    this.start(ServerSetupTest.SMTP.getPort());
+
+    for (int batch = 0; batch < BATCHES; batch++) {
+      final var messages = new ArrayList<EmailMessage>();
+      for (int i = 0; i < MESSAGES; i++) {
+        messages.add(new EmailMessage(TO, SUBJECT + " " + batch + "-" + i, BODY));
+      }
+      assertTrue(this.emailService.sendBatch(messages).isEmpty());
+    }
+
+    assertTrue(greenMail.waitForIncomingEmail(10_000, BATCHES * MESSAGES));
+    assertEquals(1, this.registry.get("email.smtp.sessions.opened").counter().count());
+    assertTrue(this.registry.get("email.smtp.sessions.reuse.ratio").gauge().value() > 0.9);
+    final var rate = this.registry.get("email.batch.rate").summary();
+    assertEquals(BATCHES, rate.count());
+    assertTrue(rate.mean() > 0);
+  }
+
+  @Test
+  void testSendBatchWithHtmlBody() throws MessagingException {
+    this.start(ServerSetupTest.SMTP.getPort());
+
+    assertTrue(this.emailService.sendBatch(List.of(
+        new EmailMessage(TO, SUBJECT, BODY, "<p>" + BODY + "</p>"))).isEmpty());
+
+    assertTrue(greenMail.waitForIncomingEmail(10_000, 1));
+    final var received = greenMail.getReceivedMessages()[0];
+    assertTrue(received.getContentType().startsWith("multipart/mixed"));
+    final var body = GreenMailUtil.getBody(received);
+    assertTrue(body.contains("text/plain"));
+    assertTrue(body.contains("text/html"));
+    assertTrue(body.contains("<p>" + BODY + "</p>"));
+  }
+
+  @Test
+  void testSendBatchReportsFailuresWhileServerIsDown() {
+    greenMail.stop();
+    this.start(ServerSetupTest.SMTP.getPort());
+    final var message = new EmailMessage(TO, SUBJECT, BODY);
+
+    final var failures = this.emailService.sendBatch(List.of(message));
+
+    assertInstanceOf(MessagingException.class, failures.get(message));
+    greenMail.start();
+    assertTrue(this.emailService.sendBatch(List.of(message)).isEmpty());
+    assertTrue(greenMail.waitForIncomingEmail(10_000, 1));
+  }
+
+  private void start(int port) {
+    final var mailSender = new JavaMailSenderImpl();
+    mailSender.setHost("localhost");
+    mailSender.setPort(port);
+    this.transportPool = new SmtpTransportPool(mailSender, 2, Duration.ofMinutes(1),
+        MESSAGES_PER_SESSION, Duration.ofSeconds(1), this.registry);
+    this.emailService = new EmailService(this.transportPool, this.registry);
+  }
+
+}
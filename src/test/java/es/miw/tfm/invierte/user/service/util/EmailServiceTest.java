@@ -1,45 +1,164 @@
 package es.miw.tfm.invierte.user.service.util;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
-import java.util.Objects;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
-import org.junit.jupiter.api.Assertions;
+import es.miw.tfm.invierte.user.service.model.EmailMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 
 @ExtendWith({MockitoExtension.class})
 class EmailServiceTest {
 
-  @InjectMocks
-  private EmailService emailService;
+  public static final String TO = "to@invierte.io";
+
+  public static final String SUBJECT = "subject";
+
+  public static final String BODY = "body";
 
   @Mock
-  private JavaMailSender mailSender;
+  private SmtpTransportPool transportPool;
 
-  public static final String TO = "to";
+  @Mock
+  private SmtpTransportPool.PooledTransport transport;
 
-  public static final String SUBJECT = "subject";
+  private SimpleMeterRegistry registry;
 
-  public static final String BODY = "body";
+  private EmailService emailService;
+
+  @BeforeEach
+  void setUp() throws MessagingException {
+    this.registry = new SimpleMeterRegistry();
+    lenient().when(this.transportPool.createMimeMessage())
+        .thenAnswer(invocation -> new MimeMessage((Session) null));
+    lenient().when(this.transportPool.borrow()).thenReturn(this.transport);
+    this.emailService = new EmailService(this.transportPool, this.registry);
+  }
 
   @Test
-  void testSendEmail() {
-    this.emailService.sendEmail(TO, SUBJECT, BODY);
-    verify(this.mailSender).send((SimpleMailMessage) argThat( message-> {
-      final var messageCast = (SimpleMailMessage)message;
-      Assertions.assertNotNull(messageCast.getTo());
-      Assertions.assertEquals(TO, Objects.requireNonNull(messageCast.getTo()[0]));
-      Assertions.assertEquals(SUBJECT, messageCast.getSubject());
-      Assertions.assertEquals(BODY, messageCast.getText());
-      return true;
+  void testSendBatch() throws Exception {
+    final var failures = this.emailService.sendBatch(List.of(message()));
+
+    assertTrue(failures.isEmpty());
+    verify(this.transport).send(argThat(message -> {
+      try {
+        return TO.equals(message.getAllRecipients()[0].toString())
+            && SUBJECT.equals(message.getSubject())
+            && BODY.equals(message.getContent());
+      } catch (Exception e) {
+        return false;
+      }
     }));
+    verify(this.transportPool).release(this.transport);
+    assertEquals(1, this.registry.get("email.send").tag("outcome", "success").timer().count());
+  }
+
+  @Test
+  void testSendBatchUsesOneSession() throws Exception {
+    final var failures = this.emailService.sendBatch(List.of(message(), message(), message()));
+
+    assertTrue(failures.isEmpty());
+    verify(this.transportPool).borrow();
+    verify(this.transport, times(3)).send(any(MimeMessage.class));
+    verify(this.transportPool).release(this.transport);
+    assertEquals(1, this.registry.get("email.batch.rate").summary().count());
+  }
+
+  @Test
+  void testSendBatchRotatesSessionAtMessageLimit() throws Exception {
+    when(this.transportPool.isAtMessageLimit(this.transport)).thenReturn(false, true);
+
+    final var failures = this.emailService.sendBatch(List.of(message(), message(), message()));
+
+    assertTrue(failures.isEmpty());
+    verify(this.transportPool, times(2)).borrow();
+    verify(this.transport, times(3)).send(any(MimeMessage.class));
+    verify(this.transportPool, times(2)).release(this.transport);
+  }
+
+  @Test
+  void testSendBatchFromVirtualThreadSendsOnPlatformThread() throws Exception {
+    final var sentOnVirtualThread = new AtomicBoolean(true);
+    doAnswer(invocation -> {
+      sentOnVirtualThread.set(Thread.currentThread().isVirtual());
+      return null;
+    }).when(this.transport).send(any(MimeMessage.class));
+
+    final var failures = new AtomicReference<Map<EmailMessage, Exception>>();
+    Thread.ofVirtual().start(() -> failures.set(this.emailService.sendBatch(List.of(message()))))
+        .join();
+
+    assertTrue(failures.get().isEmpty());
+    assertFalse(sentOnVirtualThread.get());
+    verify(this.transportPool).release(this.transport);
+  }
+
+  @Test
+  void testSendBatchContinuesAfterRejectedMessage() throws Exception {
+    final var rejected = message();
+    final var sent = message();
+    doThrow(new MessagingException("550 Mailbox unavailable")).doNothing()
+        .when(this.transport).send(any(MimeMessage.class));
+    when(this.transport.isConnected()).thenReturn(true);
+    final var failures = this.emailService.sendBatch(List.of(rejected, sent));
+
+    assertEquals(1, failures.size());
+    assertTrue(failures.containsKey(rejected));
+    verify(this.transportPool).borrow();
+    verify(this.transportPool).release(this.transport);
+    verify(this.transportPool, never()).invalidate(any());
+  }
+
+  @Test
+  void testSendBatchReplacesBrokenSession() throws Exception {
+    doThrow(new MessagingException("Connection reset")).doNothing()
+        .when(this.transport).send(any(MimeMessage.class));
+    when(this.transport.isConnected()).thenReturn(false);
+    final var failures = this.emailService.sendBatch(List.of(message(), message()));
+
+    assertEquals(1, failures.size());
+    verify(this.transportPool).invalidate(this.transport);
+    verify(this.transportPool, times(2)).borrow();
+    verify(this.transportPool).release(this.transport);
+  }
+
+  @Test
+  void testSendBatchWithoutSession() throws Exception {
+    final var failure = new MessagingException("No SMTP session available");
+    when(this.transportPool.borrow()).thenThrow(failure);
+    final var message = message();
+
+    final var failures = this.emailService.sendBatch(List.of(message));
+
+    assertSame(failure, failures.get(message));
+    verify(this.transportPool, never()).release(any());
+  }
+
+  private static EmailMessage message() {
+    return new EmailMessage(TO, SUBJECT, BODY);
   }
 
 }
@@ -0,0 +1,107 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+class EmailTemplateRegistryTest {
+
+  private static final String LOCATION = "classpath:templates/email/";
+
+  private static final List<String> NAMES = List.of("activation-code", "reset-password");
+
+  private static final Map<String, String> VALUES = Map.of("link", "http://host/code");
+
+  @TempDir
+  Path templates;
+
+  @Test
+  void testRenderDefaultLocale() {
+    final var registry = this.registry(LOCATION, NAMES, false);
+
+    final var content = registry.render("activation-code", Locale.forLanguageTag("es-ES"),
+        VALUES);
+
+    assertEquals("Unete a InvierteIO", content.getSubject());
+    assertEquals("Has solicitado registrarte en nuestro servicio. Para completar tu registro, "
+        + "confirma tu mail: http://host/code", content.getText());
+    assertNotNull(content.getHtml());
+    assertTrue(content.getHtml().contains("href=\"http://host/code\""));
+  }
+
+  @Test
+  void testRenderLocaleVariant() {
+    final var registry = this.registry(LOCATION, NAMES, false);
+
+    final var content = registry.render("reset-password", Locale.ENGLISH, VALUES);
+
+    assertEquals("Reset your password - InvierteIO", content.getSubject());
+    assertTrue(content.getText().endsWith(" http://host/code"));
+  }
+
+  @Test
+  void testRenderFallsBackToDefaultLocale() {
+    final var registry = this.registry(LOCATION, NAMES, false);
+
+    final var content = registry.render("reset-password", Locale.GERMAN, VALUES);
+
+    assertEquals("Restablece contraseña - InvierteIO", content.getSubject());
+  }
+
+  @Test
+  void testRenderUnknownTemplate() {
+    final var registry = this.registry(LOCATION, NAMES, false);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> registry.render("unknown", Locale.ENGLISH, VALUES));
+  }
+
+  @Test
+  void testLoadMissingDefaultLocale() {
+    final var registry = new EmailTemplateRegistry(new DefaultResourceLoader(), LOCATION,
+        List.of("unknown"), List.of("es"), "es", false);
+
+    assertThrows(IllegalStateException.class, registry::load);
+  }
+
+  @Test
+  void testRenderReloadsChangedTemplate() throws IOException {
+    final var directory = Files.createDirectories(this.templates.resolve("welcome/es"));
+    Files.writeString(directory.resolve("subject.txt"), "Hola\n");
+    final var body = Files.writeString(directory.resolve("body.txt"), "Version 1: {{link}}\n");
+    final var registry = this.registry("file:" + this.templates + "/", List.of("welcome"),
+        true);
+
+    final var first = registry.render("welcome", Locale.ENGLISH, VALUES);
+    Files.writeString(body, "Version 2: {{link}}\n");
+    Files.setLastModifiedTime(body, FileTime.fromMillis(
+        Files.getLastModifiedTime(body).toMillis() + 1_000));
+    final var second = registry.render("welcome", Locale.ENGLISH, VALUES);
+
+    assertEquals("Version 1: http://host/code", first.getText());
+    assertNull(first.getHtml());
+    assertEquals("Version 2: http://host/code", second.getText());
+  }
+
+  private EmailTemplateRegistry registry(String location, List<String> names, boolean reload) {
+    final var registry = new EmailTemplateRegistry(new DefaultResourceLoader(), location, names,
+        List.of("es", "en"), "es", reload);
+    registry.load();
+    return registry;
+  }
+
+}
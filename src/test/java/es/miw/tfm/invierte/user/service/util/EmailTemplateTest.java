@@ -0,0 +1,49 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class EmailTemplateTest {
+
+  @Test
+  void testRender() {
+    final var template = EmailTemplate.compile("Hola {{name}}, confirma: {{ link }}.", false);
+
+    assertEquals("Hola Ana, confirma: http://host/code.",
+        template.render(Map.of("name", "Ana", "link", "http://host/code")));
+  }
+
+  @Test
+  void testRenderWithoutVariables() {
+    assertEquals("Plain text", EmailTemplate.compile("Plain text", false).render(Map.of()));
+  }
+
+  @Test
+  void testRenderHtmlEscapesValues() {
+    final var template = EmailTemplate.compile("<a href=\"{{link}}\">{{link}}</a>", true);
+
+    assertEquals("<a href=\"http://host/?a=1&amp;b=&quot;2&quot;\">"
+            + "http://host/?a=1&amp;b=&quot;2&quot;</a>",
+        template.render(Map.of("link", "http://host/?a=1&b=\"2\"")));
+  }
+
+  @Test
+  void testRenderMissingVariable() {
+    final var template = EmailTemplate.compile("Link: {{link}}", false);
+
+    assertThrows(IllegalArgumentException.class, () -> template.render(Map.of()));
+  }
+
+  @Test
+  void testCompileInvalidPlaceholder() {
+    assertThrows(IllegalArgumentException.class,
+        () -> EmailTemplate.compile("Link: {{link", false));
+    assertThrows(IllegalArgumentException.class,
+        () -> EmailTemplate.compile("Link: {{ }}", false));
+  }
+
+}
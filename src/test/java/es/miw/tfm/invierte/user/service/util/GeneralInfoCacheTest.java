@@ -0,0 +1,104 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import es.miw.tfm.invierte.user.api.dto.OperatorInfoDto;
+import es.miw.tfm.invierte.user.api.dto.StaffInfoDto;
+import es.miw.tfm.invierte.user.service.exception.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class GeneralInfoCacheTest {
+
+  private static final String EMAIL = "staff@email.com";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final GeneralInfoCache generalInfoCache = new GeneralInfoCache(100,
+      Duration.ofMillis(200), this.meterRegistry);
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private StaffInfoDto load(String firstName) {
+    this.loads.incrementAndGet();
+    return StaffInfoDto.builder().firstName(firstName).build();
+  }
+
+  private double gets(String cache, String result) {
+    return this.meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result)
+        .functionCounter().count();
+  }
+
+  @Test
+  void testGetStaffLoadsOnceAndPublishesHitsAndMisses() {
+    this.generalInfoCache.getStaff(EMAIL, () -> this.load("first"));
+    final var info = this.generalInfoCache.getStaff(EMAIL, () -> this.load("second"));
+
+    assertEquals("first", info.getFirstName());
+    assertEquals(1, this.loads.get());
+    assertEquals(1, gets("general-info.staff", "hit"));
+    assertEquals(1, gets("general-info.staff", "miss"));
+  }
+
+  @Test
+  void testGetStaffReloadsAfterTtl() throws InterruptedException {
+    this.generalInfoCache.getStaff(EMAIL, () -> this.load("first"));
+
+    Thread.sleep(300);
+
+    assertEquals("second",
+        this.generalInfoCache.getStaff(EMAIL, () -> this.load("second")).getFirstName());
+  }
+
+  @Test
+  void testGetOperatorDoesNotCacheFailedLoads() {
+    assertThrows(NotFoundException.class, () ->
+        this.generalInfoCache.getOperator(EMAIL, () -> {
+          throw new NotFoundException("Operator not found");
+        }));
+
+    final var info = this.generalInfoCache.getOperator(EMAIL,
+        () -> OperatorInfoDto.builder().firstName("found").build());
+
+    assertEquals("found", info.getFirstName());
+  }
+
+  @Test
+  void testInvalidateStaffOutsideTransactionEvictsAtOnce() {
+    this.generalInfoCache.getStaff(EMAIL, () -> this.load("first"));
+
+    this.generalInfoCache.invalidateStaff(EMAIL);
+
+    assertEquals("second",
+        this.generalInfoCache.getStaff(EMAIL, () -> this.load("second")).getFirstName());
+  }
+
+  @Test
+  void testInvalidateStaffInTransactionEvictsOnCommit() {
+    this.generalInfoCache.getStaff(EMAIL, () -> this.load("first"));
+    TransactionSynchronizationManager.initSynchronization();
+
+    this.generalInfoCache.invalidateStaff(EMAIL);
+    this.generalInfoCache.getStaff(EMAIL, () -> this.load("uncommitted"));
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+
+    assertEquals("committed",
+        this.generalInfoCache.getStaff(EMAIL, () -> this.load("committed")).getFirstName());
+  }
+
+}
@@ -0,0 +1,111 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import es.miw.tfm.invierte.user.service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@ExtendWith({MockitoExtension.class})
+class PasswordHashingServiceTest {
+
+  private static final String PASSWORD = "s3cr3t-Passw0rd";
+
+  @Mock
+  private PasswordEncoder delegate;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private PasswordHashingService passwordHashingService;
+
+  @AfterEach
+  void tearDown() {
+    this.passwordHashingService.stop();
+  }
+
+  @Test
+  void testEncodeAndMatches() {
+    this.passwordHashingService = new PasswordHashingService(new BCryptPasswordEncoder(4), 2, 4,
+        Duration.ofSeconds(1), this.registry);
+
+    final var encoded = this.passwordHashingService.encode(PASSWORD);
+
+    assertTrue(this.passwordHashingService.matches(PASSWORD, encoded));
+    assertFalse(this.passwordHashingService.matches("wrong", encoded));
+    assertEquals(1, this.registry.get("password.hashing.time").tag("operation", "encode")
+        .timer().count());
+    assertEquals(2, this.registry.get("password.hashing.time").tag("operation", "matches")
+        .timer().count());
+    assertEquals(2, this.registry.get("password.hashing.wait").tag("operation", "matches")
+        .timer().count());
+  }
+
+  @Test
+  void testEncodeWithBcryptId() {
+    this.passwordHashingService = new PasswordHashingService(1, 4, Duration.ofSeconds(1),
+        Duration.ofMillis(150), 4, 4, 1, 1, this.registry);
+    final var legacy = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+    final var encoded = this.passwordHashingService.encode(PASSWORD);
+
+    assertTrue(encoded.startsWith("{bcrypt}$2a$04$"));
+    assertTrue(this.passwordHashingService.matches(PASSWORD, encoded));
+    assertFalse(this.passwordHashingService.upgradeEncoding(encoded));
+    assertTrue(this.passwordHashingService.matches(PASSWORD, legacy));
+    assertTrue(this.passwordHashingService.upgradeEncoding(legacy));
+    assertTrue(this.passwordHashingService.upgradeEncoding(
+        "{bcrypt}" + new BCryptPasswordEncoder(5).encode(PASSWORD)));
+  }
+
+  @Test
+  void testEncodeRejectedWhenQueueIsFull() throws InterruptedException {
+    final var started = new CountDownLatch(1);
+    final var release = new CountDownLatch(1);
+    when(this.delegate.encode(any())).thenAnswer(invocation -> {
+      started.countDown();
+      release.await(10, TimeUnit.SECONDS);
+      return "encoded";
+    });
+    this.passwordHashingService = new PasswordHashingService(this.delegate, 1, 0,
+        Duration.ofMillis(50), this.registry);
+
+    final var running = CompletableFuture.supplyAsync(
+        () -> this.passwordHashingService.encode(PASSWORD));
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+
+    assertThrows(ServiceUnavailableException.class,
+        () -> this.passwordHashingService.encode(PASSWORD));
+    assertEquals(1, this.registry.get("password.hashing.rejected").counter().count());
+
+    release.countDown();
+    assertEquals("encoded", running.join());
+    assertEquals("encoded", this.passwordHashingService.encode(PASSWORD));
+  }
+
+  @Test
+  void testEncodePropagatesDelegateException() {
+    when(this.delegate.encode(any())).thenThrow(new IllegalArgumentException("rawPassword"));
+    this.passwordHashingService = new PasswordHashingService(this.delegate, 1, 0,
+        Duration.ofSeconds(1), this.registry);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> this.passwordHashingService.encode(PASSWORD));
+  }
+
+}
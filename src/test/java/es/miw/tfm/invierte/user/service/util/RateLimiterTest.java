@@ -0,0 +1,115 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private RateLimiter rateLimiter;
+
+  @BeforeEach
+  void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.rateLimiter = new RateLimiter(1_000, this.meterRegistry);
+  }
+
+  @Test
+  void testTryAcquireAllowsBurstThenRejects() {
+    final var limit = this.rateLimiter.limit("login", 3, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0, this.rateLimiter.tryAcquire("login:a@email.com", limit));
+    }
+    final long wait = this.rateLimiter.tryAcquire("login:a@email.com", limit);
+
+    assertTrue(wait > 0 && wait <= Duration.ofSeconds(20).toNanos(), "wait " + wait);
+    assertEquals(1, this.meterRegistry.counter("rate.limit.rejected", "policy", "login")
+        .count());
+  }
+
+  @Test
+  void testTryAcquireKeepsOneBucketPerKey() {
+    final var limit = this.rateLimiter.limit("login", 1, Duration.ofMinutes(1));
+
+    assertEquals(0, this.rateLimiter.tryAcquire("login:a@email.com", limit));
+    assertTrue(this.rateLimiter.tryAcquire("login:a@email.com", limit) > 0);
+    assertEquals(0, this.rateLimiter.tryAcquire("login:b@email.com", limit));
+  }
+
+  @Test
+  void testTryAcquireRefills() throws InterruptedException {
+    final var limit = this.rateLimiter.limit("login", 2, Duration.ofMillis(100));
+
+    assertEquals(0, this.rateLimiter.tryAcquire("key", limit));
+    assertEquals(0, this.rateLimiter.tryAcquire("key", limit));
+    assertTrue(this.rateLimiter.tryAcquire("key", limit) > 0);
+
+    Thread.sleep(60);
+
+    assertEquals(0, this.rateLimiter.tryAcquire("key", limit));
+  }
+
+  @Test
+  void testTryAcquireConcurrentlyNeverExceedsCapacity() throws Exception {
+    final var limit = this.rateLimiter.limit("notify", 100, Duration.ofMinutes(10));
+    final var allowed = new AtomicInteger();
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      final var futures = new ArrayList<Future<?>>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 1_000; i++) {
+            if (this.rateLimiter.tryAcquire("shared", limit) == 0) {
+              allowed.incrementAndGet();
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+
+    assertEquals(100, allowed.get());
+  }
+
+  @Test
+  void testLimitValidation() {
+    final var oneMinute = Duration.ofMinutes(1);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> this.rateLimiter.limit("invalid", 0, oneMinute));
+    assertThrows(IllegalArgumentException.class,
+        () -> this.rateLimiter.limit("invalid", 1, Duration.ZERO));
+  }
+
+  @Test
+  void testEvictIdleBucketsKeepsLimitedKeys() throws InterruptedException {
+    final var fast = this.rateLimiter.limit("fast", 1, Duration.ofMillis(20));
+    final var slow = this.rateLimiter.limit("slow", 1, Duration.ofMinutes(10));
+    assertEquals(0, this.rateLimiter.tryAcquire("fast:key", fast));
+    assertEquals(0, this.rateLimiter.tryAcquire("slow:key", slow));
+
+    Thread.sleep(40);
+    this.rateLimiter.evictIdleBuckets();
+
+    assertEquals(1, this.meterRegistry.get("cache.size")
+        .tag("cache", "rate.limit.buckets").gauge().value());
+    assertTrue(this.rateLimiter.tryAcquire("slow:key", slow) > 0);
+    assertEquals(0, this.rateLimiter.tryAcquire("fast:key", fast));
+  }
+
+}
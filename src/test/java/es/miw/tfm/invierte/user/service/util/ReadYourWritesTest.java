@@ -0,0 +1,51 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class ReadYourWritesTest {
+
+  private final ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofMillis(200), 100);
+
+  @Test
+  void testReadRequiresPrimaryAfterWrite() {
+    this.readYourWrites.recordWrite("Staff@Email.com");
+
+    assertTrue(this.readYourWrites.read("staff@email.com", ReadYourWrites::isPrimaryRequired));
+    assertFalse(ReadYourWrites.isPrimaryRequired());
+  }
+
+  @Test
+  void testReadAllowsReplicaForOtherUsers() {
+    this.readYourWrites.recordWrite("staff@email.com");
+
+    assertFalse(this.readYourWrites.read("other@email.com", ReadYourWrites::isPrimaryRequired));
+    assertFalse(this.readYourWrites.read(null, ReadYourWrites::isPrimaryRequired));
+  }
+
+  @Test
+  void testReadAllowsReplicaAfterStickyWindow() throws InterruptedException {
+    this.readYourWrites.recordWrite("staff@email.com");
+
+    Thread.sleep(300);
+
+    assertFalse(this.readYourWrites.read("staff@email.com", ReadYourWrites::isPrimaryRequired));
+  }
+
+  @Test
+  void testReadClearsThreadWhenReadFails() {
+    this.readYourWrites.recordWrite("staff@email.com");
+
+    assertThrows(IllegalStateException.class, () ->
+        this.readYourWrites.read("staff@email.com", () -> {
+          throw new IllegalStateException("read failed");
+        }));
+    assertFalse(ReadYourWrites.isPrimaryRequired());
+  }
+
+}
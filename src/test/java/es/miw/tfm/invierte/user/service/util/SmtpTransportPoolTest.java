@@ -0,0 +1,137 @@
+package es.miw.tfm.invierte.user.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Borrows and gives back sessions of a pool connected to a local SMTP stub.
+ */
+class SmtpTransportPoolTest {
+
+  @RegisterExtension
+  static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private SmtpTransportPool transportPool;
+
+  @AfterEach
+  void tearDown() {
+    this.transportPool.close();
+  }
+
+  @Test
+  void testBorrowReusesReleasedSession() throws MessagingException {
+    this.transportPool = this.buildPool(1, Duration.ofMinutes(1), 100);
+
+    final var first = this.transportPool.borrow();
+    first.send(this.buildMessage());
+    this.transportPool.release(first);
+    final var second = this.transportPool.borrow();
+    second.send(this.buildMessage());
+    this.transportPool.release(second);
+
+    assertSame(first, second);
+    assertEquals(1, this.registry.get("email.smtp.sessions.opened").counter().count());
+    assertEquals(1, this.registry.get("email.smtp.sessions.reused").counter().count());
+    assertEquals(0.5, this.registry.get("email.smtp.sessions.reuse.ratio").gauge().value());
+    assertEquals(1, this.registry.get("email.smtp.sessions.idle").gauge().value());
+    assertTrue(greenMail.waitForIncomingEmail(5_000, 2));
+  }
+
+  @Test
+  void testReleaseClosesSessionAtMessageLimit() throws MessagingException {
+    this.transportPool = this.buildPool(1, Duration.ofMinutes(1), 1);
+
+    final var first = this.transportPool.borrow();
+    assertFalse(this.transportPool.isAtMessageLimit(first));
+    first.send(this.buildMessage());
+    assertTrue(this.transportPool.isAtMessageLimit(first));
+    this.transportPool.release(first);
+
+    assertEquals(0, this.registry.get("email.smtp.sessions.idle").gauge().value());
+    assertNotSame(first, this.borrowAndRelease());
+  }
+
+  @Test
+  void testBorrowDiscardsExpiredSession() throws MessagingException {
+    this.transportPool = this.buildPool(1, Duration.ZERO, 100);
+
+    final var first = this.borrowAndRelease();
+
+    assertNotSame(first, this.borrowAndRelease());
+    assertEquals(2, this.registry.get("email.smtp.sessions.opened").counter().count());
+  }
+
+  @Test
+  void testBorrowDiscardsDisconnectedSession() throws MessagingException {
+    this.transportPool = this.buildPool(1, Duration.ofMinutes(1), 100);
+    final var first = this.borrowAndRelease();
+
+    greenMail.reset();
+
+    assertNotSame(first, this.borrowAndRelease());
+    assertEquals(0, this.registry.get("email.smtp.sessions.reused").counter().count());
+  }
+
+  @Test
+  void testBorrowTimesOutWhenPoolIsExhausted() throws MessagingException {
+    this.transportPool = this.buildPool(1, Duration.ofMinutes(1), 100);
+    final var borrowed = this.transportPool.borrow();
+
+    assertThrows(MessagingException.class, () -> this.transportPool.borrow());
+
+    this.transportPool.invalidate(borrowed);
+    this.borrowAndRelease();
+  }
+
+  @Test
+  void testBorrowFailsWhenServerIsDown() {
+    this.transportPool = this.buildPool(1, Duration.ofMinutes(1), 100);
+    greenMail.stop();
+
+    assertThrows(MessagingException.class, () -> this.transportPool.borrow());
+
+    greenMail.start();
+  }
+
+  private SmtpTransportPool.PooledTransport borrowAndRelease() throws MessagingException {
+    final var pooled = this.transportPool.borrow();
+    this.transportPool.release(pooled);
+    return pooled;
+  }
+
+  private MimeMessage buildMessage() throws MessagingException {
+    final var message = this.transportPool.createMimeMessage();
+    message.setRecipient(MimeMessage.RecipientType.TO, new InternetAddress("to@invierte.io"));
+    message.setSubject("subject");
+    message.setText("body");
+    return message;
+  }
+
+  private SmtpTransportPool buildPool(int maxSize, Duration maxIdle, int maxMessages) {
+    final var mailSender = new JavaMailSenderImpl();
+    mailSender.setHost("localhost");
+    mailSender.setPort(ServerSetupTest.SMTP.getPort());
+    return new SmtpTransportPool(mailSender, maxSize, maxIdle, maxMessages,
+        Duration.ofMillis(100), this.registry);
+  }
+
+}
@@ -4,7 +4,11 @@ import es.miw.tfm.invierte.user.api.dto.OperatorDto;
 import es.miw.tfm.invierte.user.api.dto.OperatorInfoDto;
 import es.miw.tfm.invierte.user.api.dto.PasswordChangeDto;
 import es.miw.tfm.invierte.user.data.model.Operator;
+import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
+import es.miw.tfm.invierte.user.data.model.enums.Status;
 import es.miw.tfm.invierte.user.data.model.enums.SystemRole;
+import es.miw.tfm.invierte.user.data.model.enums.UserKind;
+import es.miw.tfm.invierte.user.data.model.projection.CredentialView;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 public class DummyOperatorUtil {
@@ -63,4 +67,65 @@ public class DummyOperatorUtil {
                 .newPassword("passchange")
                 .build();
     }
+
+    public static CredentialView buildOperatorCredentialView(Operator operator) {
+        return new CredentialView() {
+
+            @Override
+            public UserKind getKind() {
+                return UserKind.OPERATOR;
+            }
+
+            @Override
+            public SystemRole getSystemRole() {
+                return operator.getSystemRole();
+            }
+
+            @Override
+            public String getEmail() {
+                return operator.getEmail();
+            }
+
+            @Override
+            public String getFirstName() {
+                return operator.getFirstName();
+            }
+
+            @Override
+            public String getPassword() {
+                return operator.getPassword();
+            }
+
+            @Override
+            public Status getStatus() {
+                return null;
+            }
+
+            @Override
+            public String getTaxIdentificationNumber() {
+                return null;
+            }
+
+            @Override
+            public CompanyRole getCompanyRole() {
+                return null;
+            }
+
+            @Override
+            public String getMembershipTaxIdentificationNumber() {
+                return null;
+            }
+
+            @Override
+            public CompanyRole getMembershipCompanyRole() {
+                return null;
+            }
+
+            @Override
+            public Status getMembershipStatus() {
+                return null;
+            }
+        };
+    }
 }
+
@@ -10,6 +10,10 @@ import es.miw.tfm.invierte.user.data.model.Staff;
 import es.miw.tfm.invierte.user.data.model.enums.CompanyRole;
 import es.miw.tfm.invierte.user.data.model.enums.Gender;
 import es.miw.tfm.invierte.user.data.model.enums.Status;
+import es.miw.tfm.invierte.user.data.model.enums.SystemRole;
+import es.miw.tfm.invierte.user.data.model.enums.UserKind;
+import es.miw.tfm.invierte.user.data.model.projection.CredentialView;
+import es.miw.tfm.invierte.user.data.model.projection.StaffLoginView;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 public class DummyStaffUtil {
@@ -43,7 +47,7 @@ public class DummyStaffUtil {
         staff.setEmail(EMAIL);
         staff.setPassword(new BCryptPasswordEncoder().encode(PASSWORD));
         staff.setCompanyRole(CompanyRole.OWNER);
-        staff.setStatus(Status.INACTIVE);
+        staff.setStatus(Status.ACTIVE);
         return staff;
     }
 
@@ -137,4 +141,130 @@ public class DummyStaffUtil {
         staff.setTaxIdentificationNumber(TAX_IDENTIFICATION_NUMBER);
         return staff;
     }
+
+    public static StaffLoginView buildStaffLoginView(Status status, String taxIdentificationNumber,
+        CompanyRole companyRole) {
+        return buildStaffLoginView(status, taxIdentificationNumber, companyRole, null, null, null);
+    }
+
+    public static StaffLoginView buildStaffLoginView(Status status, String taxIdentificationNumber,
+        CompanyRole companyRole, String membershipTaxIdentificationNumber,
+        CompanyRole membershipCompanyRole, Status membershipStatus) {
+        return new StaffLoginView() {
+
+            @Override
+            public String getEmail() {
+                return EMAIL;
+            }
+
+            @Override
+            public String getFirstName() {
+                return NAME;
+            }
+
+            @Override
+            public String getPassword() {
+                return PASSWORD;
+            }
+
+            @Override
+            public Status getStatus() {
+                return status;
+            }
+
+            @Override
+            public String getTaxIdentificationNumber() {
+                return taxIdentificationNumber;
+            }
+
+            @Override
+            public CompanyRole getCompanyRole() {
+                return companyRole;
+            }
+
+            @Override
+            public String getMembershipTaxIdentificationNumber() {
+                return membershipTaxIdentificationNumber;
+            }
+
+            @Override
+            public CompanyRole getMembershipCompanyRole() {
+                return membershipCompanyRole;
+            }
+
+            @Override
+            public Status getMembershipStatus() {
+                return membershipStatus;
+            }
+        };
+    }
+
+    public static CredentialView buildStaffCredentialView(Status status,
+        String taxIdentificationNumber, CompanyRole companyRole) {
+        return buildStaffCredentialView(EMAIL, PASSWORD, status, taxIdentificationNumber,
+            companyRole);
+    }
+
+    public static CredentialView buildStaffCredentialView(String email, String password,
+        Status status, String taxIdentificationNumber, CompanyRole companyRole) {
+        final StaffLoginView loginView = buildStaffLoginView(status, taxIdentificationNumber,
+            companyRole);
+        return new CredentialView() {
+
+            @Override
+            public UserKind getKind() {
+                return UserKind.STAFF;
+            }
+
+            @Override
+            public SystemRole getSystemRole() {
+                return null;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+
+            @Override
+            public String getFirstName() {
+                return loginView.getFirstName();
+            }
+
+            @Override
+            public String getPassword() {
+                return password;
+            }
+
+            @Override
+            public Status getStatus() {
+                return loginView.getStatus();
+            }
+
+            @Override
+            public String getTaxIdentificationNumber() {
+                return loginView.getTaxIdentificationNumber();
+            }
+
+            @Override
+            public CompanyRole getCompanyRole() {
+                return loginView.getCompanyRole();
+            }
+
+            @Override
+            public String getMembershipTaxIdentificationNumber() {
+                return loginView.getMembershipTaxIdentificationNumber();
+            }
+
+            @Override
+            public CompanyRole getMembershipCompanyRole() {
+                return loginView.getMembershipCompanyRole();
+            }
+
+            @Override
+            public Status getMembershipStatus() {
+                return loginView.getMembershipStatus();
+            }
+        };
+    }
 }
@@ -0,0 +1,29 @@
+package es.miw.tfm.invierte.user.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records the SQL of every statement Hibernate prepares, when registered as
+ * `spring.jpa.properties.hibernate.session_factory.statement_inspector`.
+ */
+public class StatementCapture implements StatementInspector {
+
+  private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+  @Override
+  public String inspect(String sql) {
+    STATEMENTS.add(sql);
+    return sql;
+  }
+
+  public static List<String> drain() {
+    final var statements = new ArrayList<>(STATEMENTS);
+    STATEMENTS.clear();
+    return statements;
+  }
+
+}
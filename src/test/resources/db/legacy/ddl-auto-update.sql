@@ -0,0 +1,11 @@
+-- Objects spring.jpa.hibernate.ddl-auto=update added to the baseline schema while the
+-- entities gained them, before the migrations owned the schema, as Hibernate sent them.
+create table staff_membership (id integer generated by default as identity, staff_id integer not null, company_role varchar(255) check (company_role in ('OWNER','REALTOR','ADMINISTRATIVE_ASSISTANT')), status varchar(255) check (status in ('ACTIVE','INACTIVE','DELETED')), tax_identification_number varchar(255) not null, primary key (id));
+create table email_outbox (attempts integer not null, created_at timestamp(6) not null, id bigint generated by default as identity, next_attempt_at timestamp(6) not null, last_error varchar(1000), body text not null, recipient varchar(255) not null, subject varchar(255) not null, primary key (id));
+create index ix_activation_code_staff_id on activation_code (staff_id);
+alter table if exists activation_code drop constraint if exists UK8ajx3tnkbhwdupdh80igwbvol;
+alter table if exists activation_code add constraint UK8ajx3tnkbhwdupdh80igwbvol unique (code);
+create unique index ux_staff_membership_staff_tin on staff_membership (staff_id, tax_identification_number);
+create index ix_activation_code_expiration_date on activation_code (expiration_date);
+create index ix_email_outbox_next_attempt_at on email_outbox (next_attempt_at);
+alter table if exists email_outbox add column html_body text;